@@ -0,0 +1,122 @@
+package com.example.womensafetyapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Process-wide {@link ContactRegistry} shared by {@link MainActivity} and {@link SOSService}.
+ * The file is read once, on first use; after that every change is written back by a listener on
+ * a background thread, so readers only ever touch memory. {@link #get} reads the disk the first
+ * time: call it off the main thread.
+ */
+final class ContactStore {
+
+    private static final String TAG = "ContactStore";
+    private static final String CONTACTS_FILE = "contacts.bin";
+    private static final String PREFS_NAME = "SafetyAppPrefs";
+    // Contacts of earlier versions; after the migration only the entries it could not take
+    private static final String LEGACY_KEY_CONTACTS = "EmergencyContacts";
+
+    private static ContactRegistry registry;
+    // One save at a time; a save still queued is superseded by the next, which writes the newer list
+    private static final BoundedExecutor saveExecutor = new BoundedExecutor("contact-save", 1, 1);
+
+    private ContactStore() {
+    }
+
+    static synchronized ContactRegistry get(Context context) {
+        if (registry == null) {
+            Context app = context.getApplicationContext();
+            File file = new File(app.getFilesDir(), CONTACTS_FILE);
+            ContactRegistry loaded = new ContactRegistry(defaultCallingCode(app));
+            boolean fromFile = false;
+            try {
+                fromFile = loaded.load(file);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not load contacts: " + e.getMessage());
+            }
+            if (!fromFile) {
+                migrateLegacyContacts(app, loaded, file);
+            }
+            loaded.addListener(contacts -> saveExecutor.execute(() -> {
+                try {
+                    loaded.save(file);
+                } catch (IOException e) {
+                    Log.e(TAG, "Could not save contacts: " + e.getMessage());
+                }
+            }));
+            Log.d(TAG, loaded.numbers().size() + " contacts loaded");
+            registry = loaded;
+        }
+        return registry;
+    }
+
+    /**
+     * The calling code of the SIM's country, else of the network's. Null when neither is known
+     * (no SIM, airplane mode): numbers typed without a country code are then kept as typed
+     * rather than guessed at.
+     */
+    private static String defaultCallingCode(Context context) {
+        TelephonyManager telephony = context.getSystemService(TelephonyManager.class);
+        if (telephony == null) {
+            return null;
+        }
+        String code = PhoneNumbers.callingCodeForRegion(telephony.getSimCountryIso());
+        return code != null ? code : PhoneNumbers.callingCodeForRegion(telephony.getNetworkCountryIso());
+    }
+
+    /**
+     * Moves contacts saved by earlier versions (an unordered StringSet in SharedPreferences) into
+     * the registry file. They were sent exactly as typed, so they are not rewritten with a
+     * calling code. Entries the registry rejects stay under the legacy key for
+     * {@link MainActivity} to show; nothing is dropped silently.
+     */
+    private static void migrateLegacyContacts(Context context, ContactRegistry target, File file) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        Set<String> legacy = prefs.getStringSet(LEGACY_KEY_CONTACTS, null);
+        if (legacy == null) {
+            return;
+        }
+        List<String> rejected = target.replaceAllAsTyped(new ArrayList<>(legacy));
+        try {
+            target.save(file);
+            if (rejected.isEmpty()) {
+                prefs.edit().remove(LEGACY_KEY_CONTACTS).apply();
+            } else {
+                prefs.edit().putStringSet(LEGACY_KEY_CONTACTS, new HashSet<>(rejected)).apply();
+                Log.w(TAG, rejected.size() + " saved contacts are not phone numbers; kept for the user to fix");
+            }
+            Log.i(TAG, "Migrated " + target.numbers().size() + " contacts from SharedPreferences");
+        } catch (IOException e) {
+            Log.e(TAG, "Could not migrate contacts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Old contacts the migration could not take, to be fixed by the user. Empty until the
+     * migration has saved the rest; reads SharedPreferences, so call it off the main thread.
+     */
+    static List<String> unmigratedContacts(Context context) {
+        if (!new File(context.getFilesDir(), CONTACTS_FILE).exists()) {
+            return Collections.emptyList();
+        }
+        Set<String> legacy = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getStringSet(LEGACY_KEY_CONTACTS, null);
+        return legacy != null ? new ArrayList<>(legacy) : Collections.<String>emptyList();
+    }
+
+    /** The user has saved a list of their own; the old entries are no longer needed. */
+    static void clearUnmigratedContacts(Context context) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit().remove(LEGACY_KEY_CONTACTS).apply();
+    }
+}
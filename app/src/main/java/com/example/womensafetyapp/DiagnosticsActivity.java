@@ -0,0 +1,70 @@
+package com.example.womensafetyapp;
+
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Hidden screen (long-press the title on the main screen) that shows the listening coverage and
+ * per-stage latency histograms SOSService saves, tagged with the device and app version so runs
+ * can be compared.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private TextView tvDevice;
+    private TextView tvReport;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+        tvDevice = findViewById(R.id.tv_diagnostics_device);
+        tvReport = findViewById(R.id.tv_diagnostics_report);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Re-read on every visit; the service saves shortly after each alert
+        tvDevice.setText(Build.MANUFACTURER + " " + Build.MODEL + ", Android " + Build.VERSION.RELEASE
+                + ", app " + appVersion());
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        try {
+            recorder.load(new File(getFilesDir(), SOSService.LATENCY_FILE));
+            SharedPreferences prefs = getSharedPreferences("SafetyAppPrefs", MODE_PRIVATE);
+            long deafMs = prefs.getLong(SOSService.KEY_DEAF_MS_LAST_HOUR, -1);
+            int perMille = prefs.getInt(SOSService.KEY_LISTENING_PER_MILLE, -1);
+            StringBuilder coverage = new StringBuilder();
+            if (deafMs >= 0) {
+                coverage.append("Deaf time in the last hour: ").append(deafMs).append(" ms\n");
+            }
+            if (perMille >= 0) {
+                coverage.append("Listening: ").append(perMille / 10).append('.').append(perMille % 10)
+                        .append("% of the last hour, ")
+                        .append(prefs.getLong(SOSService.KEY_RECOGNIZER_STALLS, 0)).append(" recognizer stalls\n");
+            }
+            if (coverage.length() > 0) {
+                coverage.append('\n');
+            }
+            tvReport.setText(coverage + recorder.report());
+        } catch (IOException e) {
+            tvReport.setText("Could not read latency histograms: " + e.getMessage());
+        }
+    }
+
+    private String appVersion() {
+        try {
+            return getPackageManager().getPackageInfo(getPackageName(), 0).versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "?";
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.womensafetyapp;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.location.CurrentLocationRequest;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.CancellationTokenSource;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link LocationSource} backed by a one-shot high-accuracy request to the fused location provider.
+ * Results are delivered on the given executor, the alert thread.
+ */
+class FusedLocationSource implements LocationSource {
+
+    private static final String TAG = "FusedLocationSource";
+
+    private final Context context;
+    private final FusedLocationProviderClient client;
+    private final Executor executor;
+    private final float unknownAccuracyMeters;
+
+    /**
+     * @param unknownAccuracyMeters accuracy assumed for a fix that reports none
+     */
+    FusedLocationSource(Context context, FusedLocationProviderClient client, Executor executor,
+                        float unknownAccuracyMeters) {
+        this.context = context;
+        this.client = client;
+        this.executor = executor;
+        this.unknownAccuracyMeters = unknownAccuracyMeters;
+    }
+
+    @Override
+    public Request requestFix(long maxAgeMs, long durationMs, Callback callback) {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Log.e(TAG, "Location permission not granted. Cannot get location.");
+            callback.onFix(null);
+            return () -> {};
+        }
+        CancellationTokenSource cancellation = new CancellationTokenSource();
+        CurrentLocationRequest request = new CurrentLocationRequest.Builder()
+                .setPriority(Priority.PRIORITY_HIGH_ACCURACY)
+                .setMaxUpdateAgeMillis(maxAgeMs)
+                .setDurationMillis(durationMs)
+                .build();
+        try {
+            client.getCurrentLocation(request, cancellation.getToken()).addOnCompleteListener(executor, task -> {
+                if (task.isSuccessful() && task.getResult() != null) {
+                    Location location = task.getResult();
+                    Log.d(TAG, "Location found: " + location.getLatitude() + ", " + location.getLongitude());
+                    callback.onFix(new Fix(location.getLatitude(), location.getLongitude(),
+                            location.hasAccuracy() ? location.getAccuracy() : unknownAccuracyMeters));
+                } else {
+                    Log.e(TAG, "Failed to get location or location is null.");
+                    callback.onFix(null);
+                }
+            });
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location request rejected: " + e.getMessage());
+            callback.onFix(null);
+        }
+        return cancellation::cancel;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.womensafetyapp;
+
+import android.annotation.SuppressLint;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Dedicated capture thread for keyword spotter mode. Reads continuous PCM from AudioRecord into a
+ * reused block, keeps the last few seconds in a ring buffer and feeds every block to the
+ * {@link KeywordSpotter}. Every block also goes to the service's {@link EvidenceRing}. Unlike the
+ * SpeechRecognizer loop there is no restart gap between sessions.
+ */
+class KeywordSpotterThread extends Thread {
+
+    private static final String TAG = "KeywordSpotterThread";
+    private static final int READ_SIZE = 320;        // 20 ms per read
+    private static final int RING_SECONDS = 2;
+
+    /**
+     * Called on the capture thread; implementations should hand off to their own thread.
+     */
+    interface Callback {
+        void onKeyword(String phrase, float score, long latencyMs);
+
+        /**
+         * The microphone could not be opened or stopped delivering audio, and the thread has
+         * ended. Called once, after the AudioRecord is released; not called after
+         * {@link #shutdown}.
+         */
+        void onCaptureFailed();
+    }
+
+    private final KeywordSpotter spotter;
+    private final EvidenceRing evidence;
+    private final Callback callback;
+    private final PcmRingBuffer ring = new PcmRingBuffer(KeywordSpotter.SAMPLE_RATE * RING_SECONDS);
+    private final short[] block = new short[READ_SIZE];
+    private volatile boolean running = true;
+
+    // Sample clock and wall clock at the end of the most recent read, for latency reporting
+    private long blockEndSample;
+    private long blockReadAtMs;
+
+    KeywordSpotterThread(KeywordSpotter spotter, EvidenceRing evidence, Callback callback) {
+        super("KeywordSpotter");
+        this.spotter = spotter;
+        this.evidence = evidence;
+        this.callback = callback;
+        spotter.setListener(this::onDetected);
+    }
+
+    /**
+     * Asks the loop to finish; the AudioRecord is released on the capture thread.
+     */
+    void shutdown() {
+        running = false;
+        interrupt();
+    }
+
+    // The service checks RECORD_AUDIO before starting this thread
+    @SuppressLint("MissingPermission")
+    @Override
+    public void run() {
+        android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_URGENT_AUDIO);
+        int minBuffer = AudioRecord.getMinBufferSize(KeywordSpotter.SAMPLE_RATE,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        AudioRecord record = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION,
+                KeywordSpotter.SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT,
+                Math.max(minBuffer, READ_SIZE * 2 * 8));
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            Log.e(TAG, "AudioRecord could not be initialized.");
+            record.release();
+            reportFailure();
+            return;
+        }
+
+        spotter.reset();
+        ring.clear();
+        boolean failed = false;
+        try {
+            record.startRecording();
+            Log.d(TAG, "Keyword spotter listening.");
+            while (running) {
+                int n = record.read(block, 0, READ_SIZE);
+                if (n <= 0) {
+                    Log.e(TAG, "AudioRecord read failed: " + n);
+                    failed = true;
+                    break;
+                }
+                blockReadAtMs = SystemClock.elapsedRealtime();
+                blockEndSample = spotter.samplesSeen() + n;
+                ring.write(block, 0, n);
+                evidence.write(block, 0, n);
+                spotter.process(block, 0, n);
+            }
+        } finally {
+            record.stop();
+            record.release();
+            Log.d(TAG, "Keyword spotter stopped.");
+        }
+        // Report only after the microphone is free for the recognizer
+        if (failed) {
+            reportFailure();
+        }
+    }
+
+    private void reportFailure() {
+        if (running) {
+            callback.onCaptureFailed();
+        }
+    }
+
+    private void onDetected(String phrase, long endSample, float score) {
+        // The keyword ended (blockEndSample - endSample) samples before the read returned
+        long audioAgeMs = (blockEndSample - endSample) * 1000 / KeywordSpotter.SAMPLE_RATE;
+        long latencyMs = SystemClock.elapsedRealtime() - blockReadAtMs + audioAgeMs;
+        callback.onKeyword(phrase, score, latencyMs);
+    }
+}
@@ -5,88 +5,280 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.text.InputType;
+import android.text.TextUtils;
+import android.util.Log;
 import android.widget.Button;
+import android.widget.CompoundButton;
 import android.widget.EditText;
+import android.widget.LinearLayout;
 import android.widget.Toast;
 import android.view.View; // Needed for future UI visibility control
 import android.widget.TextView; // Assuming you might use a TextView for the warning
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 import com.google.android.material.switchmaterial.SwitchMaterial;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Date;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.TimeZone;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
     private static final int PERMISSION_REQUEST_CODE = 1001;
     private static final String PREFS_NAME = "SafetyAppPrefs";
-    private static final String KEY_CONTACTS = "EmergencyContacts";
     private static final String KEY_SERVICE_STATUS = "ServiceStatus";
 
-    private EditText etContact1, etContact2, etContact3;
+    // Startup trace marks, in the order a cold start reaches them
+    static final String MARK_CREATE = "create";
+    static final String MARK_CONTENT_VIEW = "content_view";
+    static final String MARK_RESUME = "resume";
+    static final String MARK_PERMISSIONS = "permissions_checked";
+    static final String MARK_STATE_LOADED = "state_loaded";
+    static final String MARK_INTERACTIVE = "interactive";
+
+    // The SDK level cannot change while the process runs, so the list is built once
+    static final String[] REQUIRED_PERMISSIONS = requiredPermissions();
+
+    private EditText etContacts;
     private Button btnSaveContacts;
     private SwitchMaterial toggleService;
     private SharedPreferences sharedPreferences;
+    private ContactRegistry contactRegistry;
+    private boolean savedServiceStatus;
+
+    // Permission state, computed once per resume and after a permission request returns
+    private final List<String> missingPermissions = new ArrayList<>();
+    private boolean permissionsChecked;
+    private boolean permissionsRequested;
+
+    private final StartupTrace startupTrace = new StartupTrace(SystemClock::elapsedRealtime);
+    private final CompoundButton.OnCheckedChangeListener toggleListener = this::onServiceToggled;
+    // Saves the service's event log as text wherever the user picks, for field incident reports
+    private final ActivityResultLauncher<String> exportEventsLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("text/plain"), this::exportEventLog);
 
     // Assuming you have a TextView or similar View in your layout for the persistent warning message
     // private TextView tvWarningMessage;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        startupTrace.mark(MARK_CREATE);
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        startupTrace.mark(MARK_CONTENT_VIEW);
 
-        // Initialize UI components and SharedPreferences
-        etContact1 = findViewById(R.id.et_contact1);
-        etContact2 = findViewById(R.id.et_contact2);
-        etContact3 = findViewById(R.id.et_contact3);
+        // Initialize UI components
+        etContacts = findViewById(R.id.et_contacts);
         btnSaveContacts = findViewById(R.id.btn_save_contacts);
         toggleService = findViewById(R.id.toggle_service);
         // Assuming a warning view ID if you use a dedicated banner
         // tvWarningMessage = findViewById(R.id.tv_warning_message);
-        sharedPreferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-
-        // Load saved contacts and service status
-        loadContacts();
 
-        // Initial permission check (will request if missing)
-        checkAndRequestPermissions();
+        // Disabled until the saved state is bound, so nothing acts on a half-loaded screen
+        btnSaveContacts.setEnabled(false);
+        toggleService.setEnabled(false);
 
-        // Set up listeners
+        // Set up listeners. The toggle gets its listener when it is bound, so restoring its
+        // checked state does not start or stop the service.
         btnSaveContacts.setOnClickListener(v -> saveContacts());
+        findViewById(R.id.btn_export_events).setOnClickListener(v -> exportEventsLauncher.launch(
+                "kavach-events-" + new SimpleDateFormat("yyyyMMdd-HHmm", Locale.ROOT).format(new Date()) + ".txt"));
 
-        toggleService.setOnCheckedChangeListener((buttonView, isChecked) -> {
-            if (isChecked) {
-                // When activating, first check if permissions and contacts are ready
-                if (checkPermissionsGranted() && checkContactsExist()) {
-                    startSOSService();
-                    saveServiceStatus(true);
-                } else {
-                    // Reset the toggle if prerequisites fail
-                    buttonView.setChecked(false);
-                    checkAndRequestPermissions(); // Re-request permissions
-                    if (!checkContactsExist()) {
-                        Toast.makeText(this, "Please save at least one emergency contact first.", Toast.LENGTH_LONG).show();
-                    } else if (!checkPermissionsGranted()) {
-                        // Show warning immediately if permissions are missing
-                        showPermissionRequiredMessage();
-                    }
+        findViewById(R.id.btn_alert_webhook).setOnClickListener(v -> editWebhookAsync());
+
+        // Hidden entry to the latency diagnostics screen
+        findViewById(R.id.tv_title).setOnLongClickListener(v -> {
+            startActivity(new Intent(this, DiagnosticsActivity.class));
+            return true;
+        });
+
+        loadSavedStateAsync();
+    }
+
+    /**
+     * Reads SharedPreferences and the contacts file off the main thread; both block on disk the
+     * first time they are touched in a process.
+     */
+    private void loadSavedStateAsync() {
+        Context app = getApplicationContext();
+        new Thread(() -> {
+            SharedPreferences prefs = app.getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+            boolean status = prefs.getBoolean(KEY_SERVICE_STATUS, false);
+            ContactRegistry registry = ContactStore.get(app);
+            List<String> unmigrated = ContactStore.unmigratedContacts(app);
+            startupTrace.mark(MARK_STATE_LOADED);
+            runOnUiThread(() -> onSavedStateLoaded(prefs, status, registry, unmigrated));
+        }, "main-startup").start();
+    }
+
+    /**
+     * Decodes the event log file and writes it to {@code uri} off the main thread.
+     *
+     * @param uri null if the user cancelled the picker
+     */
+    private void exportEventLog(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        Context app = getApplicationContext();
+        new Thread(() -> {
+            String result;
+            try (OutputStream out = app.getContentResolver().openOutputStream(uri)) {
+                if (out == null) {
+                    throw new IOException("Cannot write to " + uri);
                 }
+                ByteBuffer log = readEventLog(new File(app.getFilesDir(), SOSService.EVENT_LOG_FILE));
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writer.write("# Kavach event log, " + Build.MANUFACTURER + " " + Build.MODEL
+                        + ", Android " + Build.VERSION.RELEASE + "\n");
+                int count = EventLog.export(log, TimeZone.getDefault(), writer);
+                writer.flush();
+                result = "Exported " + count + " events.";
+            } catch (FileNotFoundException e) {
+                result = "No events recorded yet.";
+            } catch (IOException e) {
+                Log.e(TAG, "Event log export failed: " + e.getMessage());
+                result = "Export failed: " + e.getMessage();
+            }
+            String message = result;
+            runOnUiThread(() -> Toast.makeText(app, message, Toast.LENGTH_LONG).show());
+        }, "event-export").start();
+    }
+
+    /** Loads the webhook settings off the main thread (the token is decrypted by the Keystore) and shows them. */
+    private void editWebhookAsync() {
+        Context app = getApplicationContext();
+        new Thread(() -> {
+            WebhookSettings settings = WebhookSettings.load(app);
+            runOnUiThread(() -> showWebhookDialog(settings));
+        }, "webhook-load").start();
+    }
+
+    private void showWebhookDialog(WebhookSettings settings) {
+        if (isFinishing()) {
+            return;
+        }
+        EditText url = new EditText(this);
+        url.setHint("https://example.org/alerts (empty to turn off)");
+        url.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_URI);
+        EditText token = new EditText(this);
+        token.setHint("Access token (optional)");
+        token.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
+        if (settings != null) {
+            url.setText(settings.url);
+            token.setText(settings.token);
+        }
+        LinearLayout fields = new LinearLayout(this);
+        fields.setOrientation(LinearLayout.VERTICAL);
+        fields.addView(url);
+        fields.addView(token);
+        new AlertDialog.Builder(this)
+                .setTitle("Alert Webhook")
+                .setMessage("Alerts are also posted here when a network is available. "
+                        + "Takes effect the next time monitoring is turned on.")
+                .setView(fields)
+                .setPositiveButton("Save", (dialog, which) ->
+                        saveWebhook(url.getText().toString().trim(), token.getText().toString().trim()))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void saveWebhook(String url, String token) {
+        if (!url.isEmpty() && !url.startsWith("https://")) {
+            // The token travels in a header; never send it in the clear
+            Toast.makeText(this, "The webhook address must start with https://", Toast.LENGTH_LONG).show();
+            return;
+        }
+        Context app = getApplicationContext();
+        new Thread(() -> {
+            boolean saved = WebhookSettings.save(app, url, token);
+            String message = !saved ? "Could not save the webhook settings."
+                    : url.isEmpty() ? "Alert webhook turned off." : "Alert webhook saved.";
+            runOnUiThread(() -> Toast.makeText(app, message, Toast.LENGTH_SHORT).show());
+        }, "webhook-save").start();
+    }
+
+    // The service keeps the file mapped and may append while this copy is taken; a record
+    // written mid-copy is at worst shown with its previous contents
+    private static ByteBuffer readEventLog(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            return ByteBuffer.wrap(bytes);
+        }
+    }
+
+    /**
+     * @param unmigrated contacts of an earlier version that are not phone numbers; shown after
+     *     the saved ones so the user can fix or delete them
+     */
+    private void onSavedStateLoaded(SharedPreferences prefs, boolean status, ContactRegistry registry,
+                                    List<String> unmigrated) {
+        if (isDestroyed()) {
+            return;
+        }
+        sharedPreferences = prefs;
+        savedServiceStatus = status;
+        contactRegistry = registry;
+        loadContacts();
+        if (!unmigrated.isEmpty()) {
+            etContacts.append((contactRegistry.isEmpty() ? "" : "\n") + TextUtils.join("\n", unmigrated));
+            Toast.makeText(this, "Please fix or remove these saved contacts: " + TextUtils.join(", ", unmigrated),
+                    Toast.LENGTH_LONG).show();
+        }
+        btnSaveContacts.setEnabled(true);
+        bindServiceToggle();
+    }
+
+    private void onServiceToggled(CompoundButton buttonView, boolean isChecked) {
+        if (isChecked) {
+            // When activating, first check if permissions and contacts are ready
+            if (missingPermissions.isEmpty() && checkContactsExist()) {
+                startSOSService();
+                saveServiceStatus(true);
             } else {
-                // When deactivating
-                stopSOSService();
-                saveServiceStatus(false);
+                // Reset the toggle if prerequisites fail
+                setToggleChecked(false);
+                requestMissingPermissions(); // Re-request permissions
+                if (!checkContactsExist()) {
+                    Toast.makeText(this, "Please save at least one emergency contact first.", Toast.LENGTH_LONG).show();
+                } else if (!missingPermissions.isEmpty()) {
+                    // Show warning immediately if permissions are missing
+                    showPermissionRequiredMessage();
+                }
             }
-        });
+        } else {
+            // When deactivating
+            stopSOSService();
+            saveServiceStatus(false);
+        }
     }
 
     /**
@@ -96,101 +288,111 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        startupTrace.mark(MARK_RESUME);
 
-        // 1. Check permissions every time the app comes to the foreground
-        if (checkPermissionsGranted()) {
+        // 1. Check permissions every time the app comes to the foreground, once
+        refreshPermissionState();
+        startupTrace.mark(MARK_PERMISSIONS);
+        if (missingPermissions.isEmpty()) {
             // Permissions are now granted, hide the persistent message
             hidePermissionRequiredMessage();
         } else {
+            // Ask once per launch; after that only remind
+            if (!permissionsRequested) {
+                requestMissingPermissions();
+            }
             // Permissions are still missing, show the persistent message
             showPermissionRequiredMessage();
-            // Also, disable the service toggle if permissions are missing
-            if (toggleService.isChecked()) {
-                toggleService.setChecked(false);
-                saveServiceStatus(false);
-            }
         }
 
         // 2. Update toggle state based on permissions and saved status
-        updateServiceToggleState();
+        bindServiceToggle();
     }
 
     /**
-     * Helper to load the service state from SharedPreferences and update toggle.
-     * The service is assumed to be running if the SharedPreferences value is true
-     * AND permissions are granted.
+     * Sets the toggle from the saved status and the permission state, once both are known. The
+     * service is assumed to be running if the saved status is true AND permissions are granted.
+     * The toggle is set without firing its listener, so binding never starts or stops the service
+     * by itself.
      */
-    private void updateServiceToggleState() {
-        boolean savedStatus = sharedPreferences.getBoolean(KEY_SERVICE_STATUS, false);
-        boolean permissionsOk = checkPermissionsGranted();
+    private void bindServiceToggle() {
+        if (sharedPreferences == null || !permissionsChecked) {
+            return;
+        }
+        boolean permissionsOk = missingPermissions.isEmpty();
+        // If permissions are missing, force service status to false and stop the service quietly
+        if (savedServiceStatus && !permissionsOk) {
+            saveServiceStatus(false);
+            stopService(new Intent(this, SOSService.class));
+        }
+        setToggleChecked(savedServiceStatus && permissionsOk);
+        toggleService.setEnabled(true);
 
-        // Only allow the toggle to be ON if permissions are granted
-        if (savedStatus && permissionsOk) {
-            toggleService.setChecked(true);
-        } else {
-            // If permissions are missing, or saved status is false, force OFF
-            toggleService.setChecked(false);
-            // If permissions are missing, force service status to false in prefs
-            if (!permissionsOk) {
-                saveServiceStatus(false);
-            }
+        if (startupTrace.mark(MARK_INTERACTIVE)) {
+            Log.d(TAG, "Startup: " + startupTrace);
         }
     }
 
+    private void setToggleChecked(boolean checked) {
+        toggleService.setOnCheckedChangeListener(null);
+        toggleService.setChecked(checked);
+        toggleService.setOnCheckedChangeListener(toggleListener);
+    }
+
+    @VisibleForTesting
+    StartupTrace startupTrace() {
+        return startupTrace;
+    }
 
     /**
      * Saves the service status to SharedPreferences.
      */
     private void saveServiceStatus(boolean isRunning) {
+        savedServiceStatus = isRunning;
         sharedPreferences.edit().putBoolean(KEY_SERVICE_STATUS, isRunning).apply();
     }
 
     /**
-     * Saves the contacts from EditText fields into SharedPreferences. (No change needed)
+     * Saves the contacts typed one per line; the first line is alerted first.
      */
     private void saveContacts() {
-        Set<String> contactSet = new HashSet<>();
-        String c1 = etContact1.getText().toString().trim();
-        String c2 = etContact2.getText().toString().trim();
-        String c3 = etContact3.getText().toString().trim();
-
-        if (!c1.isEmpty()) contactSet.add(c1);
-        if (!c2.isEmpty()) contactSet.add(c2);
-        if (!c3.isEmpty()) contactSet.add(c3);
+        List<String> candidates = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
+        for (String line : etContacts.getText().toString().split("\n")) {
+            if (line.trim().isEmpty()) continue;
+            candidates.add(line);
+            if (contactRegistry.normalize(line) == null) invalid.add(line.trim());
+        }
 
-        if (contactSet.isEmpty()) {
+        if (candidates.isEmpty()) {
             Toast.makeText(this, "Please enter at least one valid phone number.", Toast.LENGTH_SHORT).show();
             return;
         }
+        // Keep the user's text so the bad lines can be fixed; nothing is saved
+        if (!invalid.isEmpty()) {
+            Toast.makeText(this, "Not a phone number: " + TextUtils.join(", ", invalid), Toast.LENGTH_LONG).show();
+            return;
+        }
 
-        sharedPreferences.edit().putStringSet(KEY_CONTACTS, contactSet).apply();
-        Toast.makeText(this, contactSet.size() + " emergency contacts saved!", Toast.LENGTH_SHORT).show();
+        // The registry writes the file on its own thread
+        contactRegistry.replaceAll(candidates);
+        ContactStore.clearUnmigratedContacts(this);
+        loadContacts();
+        Toast.makeText(this, contactRegistry.numbers().size() + " emergency contacts saved!", Toast.LENGTH_SHORT).show();
     }
 
     /**
-     * Loads the saved contacts from SharedPreferences and populates the EditText fields. (No change needed)
+     * Shows the saved contacts, one per line in priority order.
      */
     private void loadContacts() {
-        Set<String> contactSet = sharedPreferences.getStringSet(KEY_CONTACTS, new HashSet<>());
-        List<String> contacts = new ArrayList<>(contactSet);
-
-        // Clear fields first
-        etContact1.setText("");
-        etContact2.setText("");
-        etContact3.setText("");
-
-        // Populate fields up to 3 contacts
-        if (contacts.size() > 0) etContact1.setText(contacts.get(0));
-        if (contacts.size() > 1) etContact2.setText(contacts.get(1));
-        if (contacts.size() > 2) etContact3.setText(contacts.get(2));
+        etContacts.setText(TextUtils.join("\n", contactRegistry.numbers()));
     }
 
     /**
-     * Checks if at least one contact is saved. (No change needed)
+     * Checks if at least one contact is saved.
      */
     private boolean checkContactsExist() {
-        Set<String> contactSet = sharedPreferences.getStringSet(KEY_CONTACTS, new HashSet<>());
-        return !contactSet.isEmpty();
+        return !contactRegistry.isEmpty();
     }
 
     /**
@@ -214,9 +416,9 @@ public class MainActivity extends AppCompatActivity {
     // --- Permission Handling ---
 
     /**
-     * Defines all required permissions based on the Android version. (No change needed)
+     * Defines all required permissions based on the Android version.
      */
-    private String[] getRequiredPermissions() {
+    private static String[] requiredPermissions() {
         // Core permissions needed across all modern versions
         List<String> permissions = new ArrayList<>();
         permissions.add(Manifest.permission.SEND_SMS);
@@ -238,17 +440,18 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Checks if all necessary permissions are granted. (No change needed)
+     * Recomputes which permissions are missing. Everything else reads the cached result.
      */
-    private boolean checkPermissionsGranted() {
-        for (String permission : getRequiredPermissions()) {
+    private void refreshPermissionState() {
+        missingPermissions.clear();
+        for (String permission : REQUIRED_PERMISSIONS) {
             // NOTE: ACCESS_BACKGROUND_LOCATION requires a separate check path in Settings.
-            // This method accurately checks the final granted state for all declared permissions.
+            // This accurately checks the final granted state for all declared permissions.
             if (ContextCompat.checkSelfPermission(this, permission) != PackageManager.PERMISSION_GRANTED) {
-                return false;
+                missingPermissions.add(permission);
             }
         }
-        return true;
+        permissionsChecked = true;
     }
 
     /**
@@ -274,21 +477,12 @@ public class MainActivity extends AppCompatActivity {
 
 
     /**
-     * Requests missing permissions from the user. (No change needed, but needed for initial flow)
+     * Requests the permissions found missing by the last {@link #refreshPermissionState()}.
      */
-    private void checkAndRequestPermissions() {
-        List<String> missingPermissions = new ArrayList<>();
-        for (String permission : getRequiredPermissions()) {
-            if (ContextCompat.checkSelfPermission(this, permission) != PackageManager.PERMISSION_GRANTED) {
-                missingPermissions.add(permission);
-            }
-        }
-
+    private void requestMissingPermissions() {
         if (!missingPermissions.isEmpty()) {
+            permissionsRequested = true;
             ActivityCompat.requestPermissions(this, missingPermissions.toArray(new String[0]), PERMISSION_REQUEST_CODE);
-        } else {
-            // If all are granted initially, hide the message
-            hidePermissionRequiredMessage();
         }
     }
 
@@ -300,7 +494,8 @@ public class MainActivity extends AppCompatActivity {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
 
         if (requestCode == PERMISSION_REQUEST_CODE) {
-            if (checkPermissionsGranted()) {
+            refreshPermissionState();
+            if (missingPermissions.isEmpty()) {
                 Toast.makeText(this, "All permissions granted!", Toast.LENGTH_SHORT).show();
                 hidePermissionRequiredMessage();
                 // If the user just granted permissions and the toggle was ON, try starting service
@@ -311,8 +506,10 @@ public class MainActivity extends AppCompatActivity {
                 // If permissions are still missing after the initial request
                 showPermissionRequiredMessage();
                 // Disable the service toggle if permissions are missing
-                toggleService.setChecked(false);
-                saveServiceStatus(false);
+                setToggleChecked(false);
+                if (sharedPreferences != null) {
+                    saveServiceStatus(false);
+                }
             }
         }
     }
@@ -6,15 +6,27 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.content.pm.ServiceInfo;
+import android.hardware.SensorManager;
 import android.location.Location;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.BatteryManager;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
 import android.speech.RecognitionListener;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
@@ -28,11 +40,28 @@ import androidx.core.app.ServiceCompat;
 import androidx.core.content.ContextCompat;
 
 import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Executor;
 
 public class SOSService extends Service {
 
@@ -40,25 +69,378 @@ public class SOSService extends Service {
     private static final String CHANNEL_ID = "SOSServiceChannel";
     private static final int NOTIFICATION_ID = 101;
     private static final String PREFS_NAME = "SafetyAppPrefs";
-    private static final String KEY_CONTACTS = "EmergencyContacts";
+    private static final String KEY_KEYWORD_SPOTTER_MODE = "KeywordSpotterMode";
+    private static final String KEY_VAD_GATE_MODE = "VadGateMode";
+    private static final String KEY_WARM_HANDOFF_MODE = "WarmHandoffMode";
+    private static final String KEY_SHAKE_TRIGGER_MODE = "ShakeTriggerMode";
+    static final String KEY_DEAF_MS_LAST_HOUR = "DeafMsLastHour";
+    static final String KEY_LISTENING_PER_MILLE = "ListeningPerMilleLastHour";
+    static final String KEY_RECOGNIZER_STALLS = "RecognizerStalls";
+    private static final long COVERAGE_REPORT_INTERVAL_MS = 10 * 60_000;
+    // The notification shows the listening share of the last hour, refreshed this often
+    private static final long NOTIFICATION_REFRESH_MS = 60_000;
+    // Running totals for how much earlier partial results fire than final results
+    private static final String KEY_PARTIAL_TRIGGER_COUNT = "PartialTriggerCount";
+    private static final String KEY_PARTIAL_TRIGGER_SAVED_MS = "PartialTriggerSavedMs";
+    // Enrollment clips for the keyword spotter: files/keywords/<phrase>_<n>.wav, '-' for spaces
+    private static final String KEYWORD_DIR = "keywords";
+    private static final String OUTBOX_FILE = "alert_outbox.log";
+    // Per-stage latency histograms, shown by DiagnosticsActivity
+    static final String LATENCY_FILE = "latency_histograms.bin";
+    private static final long LATENCY_SAVE_DELAY_MS = 2_000;
     private static final String TRIGGER_PHRASE = "sos"; // The trigger word (case-insensitive check)
     private static final String TRIGGER_PHRASE_ALT = "help me";
+    private static final int MAX_HYPOTHESES = 5;
+
+    // Pre-warmed location: a low-power subscription keeps recent fixes in memory for the alert path
+    private static final int LOCATION_RING_SIZE = 16;
+    private static final long LOCATION_MIN_INTERVAL_MS = 10_000;
+    // No power mode's location interval may be longer, or the cache would rarely hold a usable fix
+    private static final long FIX_MAX_AGE_MS = 2 * 60_000;
+    private static final float FIX_MAX_UNCERTAINTY_METERS = 150f;
+    // A follow-up exists to report where the user is now, so it wants a much fresher fix
+    private static final long FOLLOW_UP_FIX_MAX_AGE_MS = 30_000;
+    // Location stream after an alert: high-accuracy fixes, throttled into SMS by FollowUpTracker
+    private static final long LOCATION_STREAM_FIX_INTERVAL_MS = 10_000;
+    private static final long LOCATION_STREAM_TICK_MS = 15_000;
+    // Stream updates are not persisted; this id keeps them out of the outbox and latency stats
+    private static final long LOCATION_UPDATE_ID = -2;
+    // Hard deadline for the one-shot fallback; the alert goes out with whatever we have by then
+    private static final long CURRENT_LOCATION_DEADLINE_MS = 5_000;
+
+    // Audio evidence: the last seconds of microphone audio, saved with what follows an alert as
+    // files/evidence/sos_<time>.wav (IMA ADPCM, about 8 KB per second)
+    private static final String EVIDENCE_DIR = "evidence";
+    private static final int EVIDENCE_SAMPLE_RATE = 16000;
+    private static final int EVIDENCE_PRE_SECONDS = 20;
+    private static final int EVIDENCE_POST_SECONDS = 60;
+
+    // Binary event log of the listening and alert paths, kept across restarts and exported from
+    // the main screen; 8192 records of 24 bytes, a few hours of busy listening
+    static final String EVENT_LOG_FILE = "events.bin";
+    static final int EVENT_LOG_CAPACITY = 8192;
+
+    // Offline landmarks and help points for "near X, 300 m from Y" in the alert, built from a
+    // CSV extract with LandmarkIndex.Builder; alerts go out without it when it is not bundled
+    private static final String LANDMARK_ASSET = "landmarks.bin";
+
+    // Background disk work (statistics); small, and lossy when the disk stalls
+    private static final int IO_THREADS = 2;
+    private static final int IO_QUEUE_CAPACITY = 16;
 
     // --- New Constant for App Name ---
     private static final String APP_NAME = "Kavach app";
 
+    // Every trigger source posts here; the sink starts the single alert path
+    private final TriggerBus triggerBus = new TriggerBus(SystemClock::elapsedRealtime, this::onTrigger);
+    private ShakeTrigger shakeTrigger;
+    private final TriggerMatcher triggerMatcher = new TriggerMatcher(TRIGGER_PHRASE, TRIGGER_PHRASE_ALT);
+    private final EmergencyMessageBuilder messageBuilder = new EmergencyMessageBuilder(APP_NAME);
+    // Loaded on the startup thread, read on the alert thread
+    private volatile LandmarkIndex landmarks;
     private SpeechRecognizer speechRecognizer;
+    // Warm handoff: a second recognizer takes over at end of speech while the first one is still
+    // producing its result, instead of cancel() and restart on the same one
+    private boolean warmHandoffEnabled;
+    private SpeechRecognizer standbyRecognizer;
     private Intent recognizerIntent;
     private FusedLocationProviderClient fusedLocationClient;
-    private final Handler restartHandler = new Handler();
+    // Cached fix, fresh fix or deadline fallback for each alert; alert thread only
+    private AlertLocator alertLocator;
+    // SpeechRecognizer must be driven from the main thread, so recognizer control stays on the
+    // main looper. Everything else about an alert runs on alertThread; disk writes on ioExecutor.
+    private final Handler restartHandler = new Handler(Looper.getMainLooper());
+    private HandlerThread alertThread;
+    private Handler alertHandler;
+    private Executor alertExecutor;
+    private final BoundedExecutor ioExecutor = new BoundedExecutor("sos-io", IO_THREADS, IO_QUEUE_CAPACITY);
+    // One recording at a time, on its own thread so a minute of encoding never queues disk work
+    private final BoundedExecutor evidenceExecutor = new BoundedExecutor("sos-evidence", 1, 1);
+    private AlertPipeline<LocationSource.Fix> pipeline;
+    // Merges repeated triggers into the alert in flight and turns later ones into follow-ups
+    private final AlertStateMachine alertStateMachine = new AlertStateMachine();
+    private final FollowUpTracker locationStream = new FollowUpTracker(FollowUpTracker.Config.DEFAULT);
+    private LocationCallback locationStreamCallback;
+    private final Runnable locationStreamTick = this::onLocationStreamTick;
+    private final LocationRing locationRing = new LocationRing(LOCATION_RING_SIZE);
+    private LocationCallback locationCallback;
+
     private Runnable restartRecognizerRunnable;
+    // Ends a recognizer session that runs past the power mode's session length
+    private final Runnable endSessionRunnable = () -> {
+        if (speechRecognizer != null) {
+            speechRecognizer.stopListening();
+        }
+    };
+    // Listening intensity by battery, charger and screen; main thread only
+    private final PowerPolicy powerPolicy = new PowerPolicy(SystemClock::elapsedRealtime, this::onPowerModeChanged);
+    // Read on the alert thread when the background location request is (re)built
+    private volatile long locationIntervalMs = PowerPolicy.Mode.FULL.locationIntervalMs;
+    private BroadcastReceiver powerReceiver;
+    private final RestartScheduler restartScheduler = new RestartScheduler(SystemClock::elapsedRealtime, new Random());
+    // Set on the main thread; the alert thread only checks whether it is alive
+    private volatile KeywordSpotterThread keywordSpotterThread;
+
+    // Energy gate: keeps the recognizer idle until speech energy appears
+    private boolean vadGateEnabled;
+    private final VoiceActivityDetector gateVad = new VoiceActivityDetector();
+    // Fed from onRmsChanged to tell whether a recognition session heard any speech at all
+    private final VoiceActivityDetector sessionVad = new VoiceActivityDetector();
+    // Set on the main thread; the alert thread only checks whether it is alive
+    private volatile VadGateThread vadGateThread;
+
+    // Written by whichever thread owns the microphone; ~640 KB, allocated once
+    private final EvidenceRing evidenceRing = new EvidenceRing(EVIDENCE_SAMPLE_RATE, EVIDENCE_PRE_SECONDS);
+    private final EvidenceRecorder evidenceRecorder = new EvidenceRecorder(evidenceRing, SystemClock::elapsedRealtime);
+
+    // Time nothing was listening, reported as deaf time per hour
+    private final ListeningCoverage listeningCoverage = new ListeningCoverage(SystemClock.elapsedRealtime());
+    private final Runnable coverageReport = this::reportCoverage;
+    private final Runnable notificationRefresh = this::refreshNotification;
+    // A recognizer that stops calling back is destroyed and recreated; main thread only
+    private final RecognizerWatchdog recognizerWatchdog = new RecognizerWatchdog(RecognizerWatchdog.DEFAULT_STALL_MS);
+    private final Runnable watchdogCheck = this::checkRecognizer;
+
+    // Durable record of alerts until every contact is delivered or given up on. Alert thread only.
+    private AlertOutbox alertOutbox;
+    private boolean outboxReplayed;
+
+    // Stage timestamps from speech start to SMS delivery, saved for the diagnostics screen
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+    // A save before the load would replace the saved histograms, which the load then adds twice
+    private volatile boolean latencyLoaded;
+    // Steady-state recognizer events go here instead of logcat; opened in onCreate
+    private EventLog eventLog;
+    // Loaded on the alert thread ahead of any alert; the alert path reads its in-memory snapshot. Alert thread only.
+    private ContactRegistry contactRegistry;
+    private final Runnable saveLatencyRunnable = () -> pipeline.onIo(this::saveLatencyHistograms);
+    // Alert SMS: dispatched to all contacts in parallel, tracked through sent/delivery reports
+    private SmsDispatcher smsDispatcher;
+    private final SmsGateway.Listener smsListener = new SmsGateway.Listener() {
+        @Override
+        public void onSubmitted(long alertId, String number, int attempt) {
+            eventLog.log(LogEvent.SMS_SUBMITTED, attempt, alertId);
+            if (attempt == 1 && alertId != LOCATION_UPDATE_ID) {
+                latencyRecorder.smsSubmitted(SystemClock.elapsedRealtime());
+                scheduleLatencySave();
+            }
+        }
+
+        @Override
+        public void onSent(long alertId, String number) {
+            Log.d(TAG, "SMS sent to: " + number);
+            eventLog.log(LogEvent.SMS_SENT, 0, alertId);
+            recordOutboxState(alertId, number, AlertOutbox.STATE_SENT);
+            if (alertId == LOCATION_UPDATE_ID) {
+                return;
+            }
+            showToast("Alert sent to " + number + "!", Toast.LENGTH_SHORT);
+        }
+
+        @Override
+        public void onDelivered(long alertId, String number, long timeToFirstDeliveryMs) {
+            Log.d(TAG, "SMS delivered to " + number + " in " + timeToFirstDeliveryMs + " ms");
+            eventLog.log(LogEvent.SMS_DELIVERED, 0, alertId);
+            recordOutboxState(alertId, number, AlertOutbox.STATE_DELIVERED);
+            if (alertId == LOCATION_UPDATE_ID) {
+                return;
+            }
+            latencyRecorder.smsDelivered(timeToFirstDeliveryMs);
+            scheduleLatencySave();
+            showToast("Alert delivered to " + number + ".", Toast.LENGTH_SHORT);
+        }
+
+        @Override
+        public void onFailed(long alertId, String number, int attempts) {
+            Log.e(TAG, "SMS to " + number + " failed after " + attempts + " attempt(s)");
+            eventLog.log(LogEvent.SMS_FAILED, attempts, alertId);
+            recordOutboxState(alertId, number, AlertOutbox.STATE_FAILED);
+            showToast("Alert to " + number + " failed.", Toast.LENGTH_SHORT);
+        }
+
+        @Override
+        public void onUnconfirmed(long alertId, String number) {
+            Log.w(TAG, "SMS to " + number + " sent, but no delivery report arrived");
+            recordOutboxState(alertId, number, AlertOutbox.STATE_UNCONFIRMED);
+        }
+    };
+    // Second way out for alerts when a webhook endpoint is configured; null otherwise
+    private volatile AlertChannel alertChannel;
+    private ConnectivityManager.NetworkCallback networkCallback;
+    private final WebhookChannel.Listener webhookListener = new WebhookChannel.Listener() {
+        @Override
+        public void onDelivered(long alertId, boolean followUp, long latencyMs) {
+            eventLog.log(LogEvent.WEBHOOK_DELIVERED, (int) Math.min(latencyMs, Integer.MAX_VALUE), alertId);
+            latencyRecorder.webhookDelivered(latencyMs);
+            scheduleLatencySave();
+        }
+
+        @Override
+        public void onFailed(int items, String reason, long retryInMs) {
+            Log.w(TAG, "Webhook POST of " + items + " item(s) failed: " + reason
+                    + (retryInMs < 0 ? ", dropped" : ", retrying in " + retryInMs + " ms"));
+            eventLog.log(LogEvent.WEBHOOK_FAILED, items, retryInMs);
+        }
+    };
+
+    /**
+     * The alert stages, all run on {@link #alertThread}.
+     */
+    private final AlertPipeline.Steps<LocationSource.Fix> alertSteps = new AlertPipeline.Steps<LocationSource.Fix>() {
+        @Override
+        public void decided(AlertStateMachine.Decision decision, long triggeredAtMs) {
+            eventLog.log(LogEvent.ALERT, decision.ordinal());
+            switch (decision) {
+                case NEW_ALERT:
+                    latencyRecorder.alertStarted(triggeredAtMs);
+                    startEvidenceRecording();
+                    showToast("Emergency Detected! Sending alerts...", Toast.LENGTH_LONG);
+                    break;
+                case ESCALATE:
+                    latencyRecorder.alertStarted(triggeredAtMs);
+                    Log.w(TAG, "Repeated trigger: sending follow-up " + alertStateMachine.escalations());
+                    showToast("Sending your latest location again...", Toast.LENGTH_LONG);
+                    break;
+                default:
+                    Log.d(TAG, "Trigger merged into the alert in flight [" + alertStateMachine + "]");
+                    break;
+            }
+        }
+
+        @Override
+        public long persist() {
+            return persistAlert();
+        }
+
+        @Override
+        public void locate(long alertId, boolean followUp) {
+            sendEmergencyAlert(alertId, followUp ? FOLLOW_UP_FIX_MAX_AGE_MS : FIX_MAX_AGE_MS);
+        }
+
+        @Override
+        public boolean send(long alertId, LocationSource.Fix location, boolean followUp) {
+            boolean sent = sendSms(alertId, location, followUp);
+            if (sent && !followUp) {
+                startLocationStream(location);
+            }
+            return sent;
+        }
+    };
 
     @Override
     public void onCreate() {
         super.onCreate();
         Log.d(TAG, "Service Created");
+        eventLog = openEventLog();
+        alertThread = new HandlerThread("sos-alert", Process.THREAD_PRIORITY_FOREGROUND);
+        alertThread.start();
+        alertHandler = new Handler(alertThread.getLooper());
+        alertExecutor = alertHandler::post;
+        pipeline = new AlertPipeline<>(ContextCompat.getMainExecutor(this), alertExecutor, ioExecutor,
+                SystemClock::elapsedRealtime, alertStateMachine, alertSteps);
+
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
+        TaskScheduler alertScheduler = new TaskScheduler() {
+            @Override
+            public void postDelayed(Runnable task, long delayMs) {
+                alertHandler.postDelayed(task, delayMs);
+            }
+
+            @Override
+            public void removeCallbacks(Runnable task) {
+                alertHandler.removeCallbacks(task);
+            }
+        };
+        alertLocator = new AlertLocator(SystemClock::elapsedRealtime, alertScheduler, locationRing,
+                new FusedLocationSource(this, fusedLocationClient, alertExecutor, FIX_MAX_UNCERTAINTY_METERS),
+                CURRENT_LOCATION_DEADLINE_MS, FIX_MAX_UNCERTAINTY_METERS);
         initSpeechRecognizer();
+        registerPowerReceiver();
+        restartHandler.postDelayed(coverageReport, COVERAGE_REPORT_INTERVAL_MS);
+        // Queued first, so every alert finds the contacts loaded and the outbox open
+        pipeline.onAlert(() -> contactRegistry = ContactStore.get(this));
+        pipeline.onAlert(() -> {
+            try {
+                alertOutbox = AlertOutbox.open(new File(getFilesDir(), OUTBOX_FILE));
+            } catch (IOException e) {
+                Log.e(TAG, "Alert outbox unavailable: " + e.getMessage());
+            }
+        });
+        pipeline.onAlert(this::openAlertChannel);
+        // One-shot loads get their own thread: ioExecutor drops its oldest task when it is full,
+        // and a lost load could not be retried
+        new Thread(() -> {
+            try {
+                latencyRecorder.load(new File(getFilesDir(), LATENCY_FILE));
+            } catch (IOException e) {
+                Log.e(TAG, "Could not load latency histograms: " + e.getMessage());
+            }
+            // Also after a failed load, so a damaged file is replaced
+            latencyLoaded = true;
+            loadLandmarks();
+        }, "sos-startup").start();
+    }
+
+    /**
+     * Opened here rather than on ioExecutor so the first recognizer callbacks have somewhere to
+     * go; it is one open and mmap of a 200 KB file. Falls back to memory if the file cannot be mapped.
+     */
+    private EventLog openEventLog() {
+        try {
+            return EventLog.open(new File(getFilesDir(), EVENT_LOG_FILE), EVENT_LOG_CAPACITY, System::currentTimeMillis);
+        } catch (IOException e) {
+            Log.e(TAG, "Event log file unavailable, keeping events in memory: " + e.getMessage());
+            return EventLog.inMemory(EVENT_LOG_CAPACITY, System::currentTimeMillis);
+        }
+    }
+
+    /**
+     * Starts the webhook channel if an endpoint is configured, and retries its queue whenever a
+     * network becomes the default.
+     */
+    private void openAlertChannel() {
+        WebhookSettings settings = WebhookSettings.load(this);
+        if (settings == null) {
+            return;
+        }
+        URL endpoint;
+        WebhookChannel channel;
+        try {
+            endpoint = new URL(settings.url);
+            channel = WebhookChannel.start(WebhookChannel.Config.defaults(endpoint, settings.token),
+                    System::currentTimeMillis, webhookListener);
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            Log.e(TAG, "Webhook channel disabled: " + e.getMessage());
+            return;
+        }
+        alertChannel = channel;
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                channel.onNetworkAvailable();
+            }
+        };
+        getSystemService(ConnectivityManager.class).registerDefaultNetworkCallback(networkCallback);
+        Log.d(TAG, "Webhook channel started for " + endpoint.getHost());
+    }
+
+    private void loadLandmarks() {
+        long start = SystemClock.elapsedRealtime();
+        try (InputStream in = getAssets().open(LANDMARK_ASSET)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, n);
+            }
+            LandmarkIndex index = LandmarkIndex.read(ByteBuffer.wrap(bytes.toByteArray()));
+            landmarks = index;
+            Log.d(TAG, "Loaded " + index.size() + " landmarks in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        } catch (FileNotFoundException e) {
+            Log.d(TAG, "No landmark data bundled; alerts carry coordinates only.");
+        } catch (IOException e) {
+            Log.e(TAG, "Could not load landmarks: " + e.getMessage());
+        }
     }
 
     @Override
@@ -67,26 +449,19 @@ public class SOSService extends Service {
         createNotificationChannel();
 
         // 2. Create the persistent Notification
-        Intent notificationIntent = new Intent(this, MainActivity.class);
-        PendingIntent pendingIntent = PendingIntent.getActivity(this,
-                0, notificationIntent, PendingIntent.FLAG_IMMUTABLE);
-
-        // --- Branding Fix 1: Update Notification Title ---
-        Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setContentTitle(APP_NAME + " Active")
-                .setContentText("Listening for the trigger word 'SOS' or 'Help me'...")
-                .setSmallIcon(R.drawable.ic_launcher_foreground) // Use your app's icon
-                .setContentIntent(pendingIntent)
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .build();
+        Notification notification = buildNotification("Listening for the trigger word 'SOS' or 'Help me'...");
 
         // 3. Start as Foreground Service
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
             // For Android 14 (API 34) and higher, you must specify foreground service types.
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
                 // CORRECTED LINE: Use ServiceCompat constants for the types
-                ServiceCompat.startForeground(this, NOTIFICATION_ID, notification,
-                        ServiceCompat.STOP_FOREGROUND_REMOVE | ServiceInfo.FOREGROUND_SERVICE_TYPE_MICROPHONE);
+                int serviceType = ServiceCompat.STOP_FOREGROUND_REMOVE | ServiceInfo.FOREGROUND_SERVICE_TYPE_MICROPHONE;
+                // The location type keeps the background fix subscription alive; it needs the permission
+                if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+                    serviceType |= ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION;
+                }
+                ServiceCompat.startForeground(this, NOTIFICATION_ID, notification, serviceType);
             } else {
                 startForeground(NOTIFICATION_ID, notification);
             }
@@ -94,13 +469,64 @@ public class SOSService extends Service {
             startForeground(NOTIFICATION_ID, notification);
         }
 
-        // 4. Start the voice recognition loop
-        startListening();
+        // 4. Keep recent location fixes warm so an alert never waits on the provider
+        pipeline.onAlert(this::startLocationUpdates);
+
+        // 5. Send anything a killed process left in the outbox
+        pipeline.onAlert(this::replayPendingAlerts);
+
+        // 6. Start the keyword spotter if enabled, otherwise the voice recognition loop
+        vadGateEnabled = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getBoolean(KEY_VAD_GATE_MODE, false);
+        if (!startKeywordSpotter()) {
+            startListening();
+        }
+
+        // 7. Shake trigger alongside voice, if enabled
+        startShakeTrigger();
+
+        // 8. Listening coverage in the notification from the first minute on
+        restartHandler.removeCallbacks(notificationRefresh);
+        restartHandler.postDelayed(notificationRefresh, NOTIFICATION_REFRESH_MS);
 
         return START_STICKY; // Service should be restarted if killed by the OS
     }
 
 
+    private Notification buildNotification(String text) {
+        Intent notificationIntent = new Intent(this, MainActivity.class);
+        PendingIntent pendingIntent = PendingIntent.getActivity(this,
+                0, notificationIntent, PendingIntent.FLAG_IMMUTABLE);
+
+        // --- Branding Fix 1: Update Notification Title ---
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setContentTitle(APP_NAME + " Active")
+                .setContentText(text)
+                .setSmallIcon(R.drawable.ic_launcher_foreground) // Use your app's icon
+                .setContentIntent(pendingIntent)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                // Refreshed every minute; only the first post may make a sound
+                .setOnlyAlertOnce(true)
+                .build();
+    }
+
+    /**
+     * Shows how much of the last hour something was actually listening, so a deaf service is
+     * visible without opening the app.
+     */
+    private void refreshNotification() {
+        int perMille = listeningCoverage.listeningPerMilleLastHour(SystemClock.elapsedRealtime());
+        String text = "Listening " + perMille / 10 + "." + perMille % 10 + "% of the last hour";
+        long stalls = recognizerWatchdog.stalls();
+        if (stalls > 0) {
+            text += " (" + stalls + " recognizer restart" + (stalls == 1 ? ")" : "s)");
+        }
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        if (manager != null) {
+            manager.notify(NOTIFICATION_ID, buildNotification(text));
+        }
+        restartHandler.postDelayed(notificationRefresh, NOTIFICATION_REFRESH_MS);
+    }
+
     /**
      * Initializes the SpeechRecognizer and sets up the listener.
      */
@@ -113,37 +539,216 @@ public class SOSService extends Service {
             return;
         }
 
-        speechRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
-        speechRecognizer.setRecognitionListener(new VoiceRecognitionListener());
+        warmHandoffEnabled = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getBoolean(KEY_WARM_HANDOFF_MODE, false);
+        createRecognizers();
 
         recognizerIntent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
         recognizerIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
         recognizerIntent.putExtra(RecognizerIntent.EXTRA_CALLING_PACKAGE, getPackageName());
+        // Stream hypotheses so a trigger phrase can fire before the final result arrives
+        recognizerIntent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
+        // The matcher weighs every hypothesis, so ask for an N-best list rather than just the top one
+        recognizerIntent.putExtra(RecognizerIntent.EXTRA_MAX_RESULTS, MAX_HYPOTHESES);
+        if (warmHandoffEnabled) {
+            // On-device recognition sets up faster and does not wait on the network for results
+            recognizerIntent.putExtra(RecognizerIntent.EXTRA_PREFER_OFFLINE, true);
+        }
 
         // Setup the continuous restart logic
         restartRecognizerRunnable = this::startListening;
     }
 
+    private void createRecognizers() {
+        speechRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
+        if (warmHandoffEnabled) {
+            standbyRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
+        }
+    }
+
+    /**
+     * Runs when the session could next be found stalled. A stalled recognizer never ends its
+     * session, so nothing would restart it: destroy it and start over with a new one.
+     */
+    private void checkRecognizer() {
+        long now = SystemClock.elapsedRealtime();
+        long silentMs = recognizerWatchdog.check(now);
+        if (silentMs < 0) {
+            if (recognizerWatchdog.isWatching()) {
+                restartHandler.postDelayed(watchdogCheck, recognizerWatchdog.nextCheckDelayMs(now));
+            }
+            return;
+        }
+        Log.w(TAG, "No recognizer callback for " + silentMs + " ms; recreating the recognizer.");
+        eventLog.log(LogEvent.RECOGNIZER_STALL, 0, silentMs);
+        // Deaf since it last showed signs of life, not since the stall was noticed
+        listeningCoverage.onDeaf(recognizerWatchdog.lastCallbackMs());
+        stopListening();
+        createRecognizers();
+        startListening();
+    }
+
     /**
      * Starts the SpeechRecognizer listening process.
      */
     private void startListening() {
+        stopVadGate(); // The gate and the recognizer must not compete for the microphone
+        listeningCoverage.onDeaf(SystemClock.elapsedRealtime());
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) == PackageManager.PERMISSION_GRANTED) {
             try {
                 // Cancel any previous session and start a new one
                 speechRecognizer.cancel();
-                speechRecognizer.startListening(recognizerIntent);
-                Log.d(TAG, "SpeechRecognizer started.");
+                startSession();
             } catch (Exception e) {
                 Log.e(TAG, "Error starting SpeechRecognizer: " + e.getMessage());
-                // Immediately attempt to restart if a setup error occurs
-                restartHandler.postDelayed(restartRecognizerRunnable, 500);
+                // Treat setup failures like a busy recognizer and back off
+                scheduleRestart(restartScheduler.onError(RestartScheduler.ErrorClass.TRANSIENT));
             }
         } else {
             Log.e(TAG, "RECORD_AUDIO permission missing. Cannot start listening.");
         }
     }
 
+    /**
+     * Starts a session on {@link #speechRecognizer}, with a listener of its own so per-session
+     * state never leaks into the next session.
+     */
+    private void startSession() {
+        sessionVad.resetSpeechState();
+        speechRecognizer.setRecognitionListener(new VoiceRecognitionListener(speechRecognizer));
+        speechRecognizer.startListening(recognizerIntent);
+        recognizerWatchdog.onSessionStarted(SystemClock.elapsedRealtime());
+        restartHandler.removeCallbacks(watchdogCheck);
+        restartHandler.postDelayed(watchdogCheck, RecognizerWatchdog.DEFAULT_STALL_MS);
+        long sessionMs = powerPolicy.mode().sessionMs;
+        if (sessionMs > 0) {
+            restartHandler.postDelayed(endSessionRunnable, sessionMs);
+        }
+        eventLog.log(LogEvent.RECOGNIZER_START);
+    }
+
+    /**
+     * Swaps in the standby recognizer and starts it at once, while the finishing session is
+     * still producing its result. The finished recognizer becomes the standby.
+     */
+    private void handOff() {
+        restartHandler.removeCallbacks(endSessionRunnable);
+        restartHandler.removeCallbacks(restartRecognizerRunnable);
+        SpeechRecognizer finishing = speechRecognizer;
+        speechRecognizer = standbyRecognizer;
+        standbyRecognizer = finishing;
+        eventLog.log(LogEvent.HANDOFF);
+        try {
+            startSession();
+        } catch (Exception e) {
+            Log.e(TAG, "Handoff failed: " + e.getMessage());
+            scheduleRestart(restartScheduler.onError(RestartScheduler.ErrorClass.TRANSIENT));
+        }
+    }
+
+    /**
+     * Handoff needs the standby recognizer, and is skipped while the power mode wants a gap
+     * between sessions.
+     */
+    private boolean canHandOff() {
+        return standbyRecognizer != null && powerPolicy.mode().restartGapMs == 0;
+    }
+
+    /**
+     * Starts continuous keyword spotting on a dedicated AudioRecord thread instead of the
+     * SpeechRecognizer restart loop. Falls back (returns false) if the mode is off, the
+     * permission is missing or no enrollment clips are available.
+     */
+    private boolean startKeywordSpotter() {
+        SharedPreferences sharedPreferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        if (!sharedPreferences.getBoolean(KEY_KEYWORD_SPOTTER_MODE, false)) {
+            return false;
+        }
+        if (keywordSpotterThread != null && keywordSpotterThread.isAlive()) {
+            return true;
+        }
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
+            Log.e(TAG, "RECORD_AUDIO permission missing. Cannot start keyword spotter.");
+            return false;
+        }
+
+        KeywordSpotter spotter = loadKeywordTemplates();
+        if (spotter.templateCount() == 0) {
+            Log.w(TAG, "Keyword spotter mode enabled but no enrollment clips found. Using SpeechRecognizer.");
+            return false;
+        }
+
+        keywordSpotterThread = new KeywordSpotterThread(spotter, evidenceRing, new KeywordSpotterThread.Callback() {
+            @Override
+            public void onKeyword(String phrase, float score, long latencyMs) {
+                Log.i(TAG, "Keyword '" + phrase + "' spotted (score " + score + ", latency " + latencyMs + " ms)");
+                onTriggerDetected(TriggerBus.Source.KEYWORD);
+            }
+
+            @Override
+            public void onCaptureFailed() {
+                Thread failed = Thread.currentThread();
+                restartHandler.post(() -> onKeywordSpotterFailed(failed));
+            }
+        });
+        keywordSpotterThread.start();
+        listeningCoverage.onListening(SystemClock.elapsedRealtime());
+        return true;
+    }
+
+    /**
+     * Builds a spotter from the enrollment clips for TRIGGER_PHRASE and TRIGGER_PHRASE_ALT.
+     */
+    private KeywordSpotter loadKeywordTemplates() {
+        KeywordSpotter spotter = new KeywordSpotter();
+        File[] clips = new File(getFilesDir(), KEYWORD_DIR).listFiles();
+        if (clips == null) {
+            return spotter;
+        }
+        for (File clip : clips) {
+            String name = clip.getName();
+            int sep = name.indexOf('_');
+            if (sep <= 0 || !name.endsWith(".wav")) {
+                continue;
+            }
+            String phrase = name.substring(0, sep).replace('-', ' ');
+            if (!phrase.equals(TRIGGER_PHRASE) && !phrase.equals(TRIGGER_PHRASE_ALT)) {
+                continue;
+            }
+            try (InputStream in = new FileInputStream(clip)) {
+                WavReader.Clip wav = WavReader.read(in);
+                if (wav.sampleRate != KeywordSpotter.SAMPLE_RATE
+                        || !spotter.addTemplate(phrase, wav.samples, 0, wav.samples.length)) {
+                    Log.w(TAG, "Skipping unusable enrollment clip " + name);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to read enrollment clip " + name + ": " + e.getMessage());
+            }
+        }
+        return spotter;
+    }
+
+    /**
+     * The spotter lost the microphone. Fails open to the SpeechRecognizer loop rather than leaving
+     * the service deaf; the spotter is tried again on the next start command.
+     */
+    private void onKeywordSpotterFailed(Thread failed) {
+        if (keywordSpotterThread != failed || speechRecognizer == null) {
+            return; // Stopped or replaced meanwhile, or the service is gone
+        }
+        Log.w(TAG, "Keyword spotter failed; falling back to the SpeechRecognizer.");
+        keywordSpotterThread = null;
+        listeningCoverage.onDeaf(SystemClock.elapsedRealtime());
+        startListening();
+    }
+
+    private void stopKeywordSpotter() {
+        if (keywordSpotterThread != null) {
+            keywordSpotterThread.shutdown();
+            keywordSpotterThread = null;
+            listeningCoverage.onDeaf(SystemClock.elapsedRealtime());
+        }
+    }
+
     /**
      * Stops and cleans up the SpeechRecognizer.
      */
@@ -153,61 +758,296 @@ public class SOSService extends Service {
             speechRecognizer = null;
             Log.d(TAG, "SpeechRecognizer destroyed.");
         }
+        if (standbyRecognizer != null) {
+            standbyRecognizer.destroy();
+            standbyRecognizer = null;
+        }
+        listeningCoverage.onDeaf(SystemClock.elapsedRealtime());
+        recognizerWatchdog.onIdle();
+        restartHandler.removeCallbacks(watchdogCheck);
+        restartHandler.removeCallbacks(restartRecognizerRunnable);
+        restartHandler.removeCallbacks(endSessionRunnable);
+    }
+
+    /**
+     * Parks the recognizer and listens through the cheap energy gate instead. The next
+     * recognition session starts as soon as the gate hears speech.
+     */
+    private void enterVadGate() {
+        if (vadGateThread != null && vadGateThread.isAlive()) {
+            return;
+        }
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
+            Log.e(TAG, "RECORD_AUDIO permission missing. Cannot start the VAD gate.");
+            return;
+        }
         restartHandler.removeCallbacks(restartRecognizerRunnable);
+        recognizerWatchdog.onIdle();
+        vadGateThread = new VadGateThread(gateVad, evidenceRing, (energyDb, floorDb) -> {
+            if (!Float.isNaN(energyDb)) {
+                // The gate hears speech before the recognizer does
+                latencyRecorder.speechStarted(SystemClock.elapsedRealtime());
+            }
+            Thread gate = Thread.currentThread();
+            restartHandler.post(() -> {
+                if (vadGateThread != gate || speechRecognizer == null) {
+                    return; // Stopped or replaced meanwhile, or the service is gone
+                }
+                eventLog.log(LogEvent.VAD_GATE, 0);
+                vadGateThread = null;
+                startListening();
+            });
+        });
+        vadGateThread.start();
+        listeningCoverage.onListening(SystemClock.elapsedRealtime());
+        eventLog.log(LogEvent.VAD_GATE, 1);
+    }
+
+    private void stopVadGate() {
+        if (vadGateThread != null) {
+            vadGateThread.shutdown();
+            vadGateThread = null;
+        }
+    }
+
+    /**
+     * Posts the next listening session, replacing any restart that is already pending.
+     */
+    private void scheduleRestart(long delayMs) {
+        // Nothing calls back during the gap; the next session starts watching again
+        recognizerWatchdog.onIdle();
+        restartHandler.removeCallbacks(endSessionRunnable);
+        restartHandler.removeCallbacks(restartRecognizerRunnable);
+        restartHandler.postDelayed(restartRecognizerRunnable, Math.max(delayMs, powerPolicy.mode().restartGapMs));
+    }
+
+    /**
+     * Feeds battery, charger and screen broadcasts to {@link #powerPolicy}. The battery
+     * broadcast is sticky, so the current level arrives as soon as the receiver is registered.
+     */
+    private void registerPowerReceiver() {
+        PowerManager powerManager = getSystemService(PowerManager.class);
+        if (powerManager != null) {
+            powerPolicy.onScreen(powerManager.isInteractive());
+        }
+        powerReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                String action = intent.getAction();
+                if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                    powerPolicy.onScreen(true);
+                } else if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                    powerPolicy.onScreen(false);
+                } else if (Intent.ACTION_BATTERY_CHANGED.equals(action)) {
+                    int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+                    int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+                    if (level >= 0 && scale > 0) {
+                        boolean charging = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+                        powerPolicy.onBattery(level * 100 / scale, charging);
+                    }
+                }
+            }
+        };
+        IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        ContextCompat.registerReceiver(this, powerReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+    }
+
+    /**
+     * Logs the listening coverage and saves it, with the deaf time of the last hour and the
+     * recognizer stalls, for the diagnostics screen; the event log keeps the history.
+     */
+    private void reportCoverage() {
+        long now = SystemClock.elapsedRealtime();
+        long deafMs = listeningCoverage.deafMsLastHour(now);
+        int perMille = listeningCoverage.listeningPerMilleLastHour(now);
+        long stalls = recognizerWatchdog.stalls();
+        Log.i(TAG, "Listening coverage: " + listeningCoverage.report(now) + "; " + stalls + " recognizer stalls");
+        eventLog.log(LogEvent.COVERAGE, perMille, deafMs);
+        pipeline.onIo(() -> getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit()
+                .putLong(KEY_DEAF_MS_LAST_HOUR, deafMs)
+                .putInt(KEY_LISTENING_PER_MILLE, perMille)
+                .putLong(KEY_RECOGNIZER_STALLS, stalls)
+                .apply());
+        restartHandler.postDelayed(coverageReport, COVERAGE_REPORT_INTERVAL_MS);
+    }
+
+    /**
+     * Applies a new power mode. Session length and restart gap take effect from the next
+     * session; the background location request is rebuilt with the new interval.
+     */
+    private void onPowerModeChanged(PowerPolicy.Transition transition) {
+        Log.i(TAG, "Power mode " + transition);
+        locationIntervalMs = transition.to.locationIntervalMs;
+        if (pipeline != null) {
+            pipeline.onAlert(() -> {
+                if (locationCallback != null) {
+                    stopLocationUpdates();
+                    startLocationUpdates();
+                }
+            });
+        }
+    }
+
+    /**
+     * Maps SpeechRecognizer error codes onto the restart policies.
+     */
+    private static RestartScheduler.ErrorClass classifyError(int error) {
+        switch (error) {
+            case SpeechRecognizer.ERROR_NO_MATCH:
+            case SpeechRecognizer.ERROR_SPEECH_TIMEOUT:
+                return RestartScheduler.ErrorClass.NO_MATCH;
+            case SpeechRecognizer.ERROR_RECOGNIZER_BUSY:
+            case SpeechRecognizer.ERROR_NETWORK:
+            case SpeechRecognizer.ERROR_NETWORK_TIMEOUT:
+            case SpeechRecognizer.ERROR_SERVER:
+            case SpeechRecognizer.ERROR_SERVER_DISCONNECTED:
+            case SpeechRecognizer.ERROR_TOO_MANY_REQUESTS:
+                return RestartScheduler.ErrorClass.TRANSIENT;
+            default:
+                return RestartScheduler.ErrorClass.CLIENT;
+        }
     }
 
     /**
      * Inner class implementing RecognitionListener for voice events.
      */
     private class VoiceRecognitionListener implements RecognitionListener {
+        private final SpeechRecognizer recognizer;
+        // Per-utterance guard: set when a partial hypothesis fires
+        private boolean utteranceTriggered;
+        private long partialTriggerAtMs;
+
+        VoiceRecognitionListener(SpeechRecognizer recognizer) {
+            this.recognizer = recognizer;
+        }
+
+        /** False once this session has handed the microphone to the next one. */
+        private boolean isActive() {
+            return recognizer == speechRecognizer;
+        }
+
+        /** Any callback from the active session shows the recognizer is alive. */
+        private void alive() {
+            if (isActive()) {
+                recognizerWatchdog.onCallback(SystemClock.elapsedRealtime());
+            }
+        }
+
         @Override
-        public void onReadyForSpeech(Bundle params) { Log.d(TAG, "onReadyForSpeech"); }
+        public void onReadyForSpeech(Bundle params) {
+            eventLog.log(LogEvent.READY);
+            alive();
+            listeningCoverage.onListening(SystemClock.elapsedRealtime());
+            restartScheduler.onHealthy();
+        }
 
         @Override
-        public void onBeginningOfSpeech() { Log.d(TAG, "onBeginningOfSpeech"); }
+        public void onBeginningOfSpeech() {
+            eventLog.log(LogEvent.SPEECH_START);
+            alive();
+            latencyRecorder.speechStarted(SystemClock.elapsedRealtime());
+        }
 
         @Override
-        public void onRmsChanged(float rmsdB) {}
+        public void onRmsChanged(float rmsdB) {
+            if (isActive()) {
+                sessionVad.processEnergyDb(rmsdB);
+                recognizerWatchdog.onCallback(SystemClock.elapsedRealtime());
+            }
+        }
 
         @Override
-        public void onBufferReceived(byte[] buffer) {}
+        public void onBufferReceived(byte[] buffer) {
+            // Most recognizers never call this; those that do give us audio for the evidence ring
+            if (isActive()) {
+                evidenceRing.write(buffer, 0, buffer.length);
+            }
+        }
 
         @Override
         public void onEndOfSpeech() {
-            Log.d(TAG, "onEndOfSpeech - Restarting listener soon...");
-            // Restart listening after a short delay
-            restartHandler.postDelayed(restartRecognizerRunnable, 100);
+            eventLog.log(LogEvent.SPEECH_END);
+            alive();
+            listeningCoverage.onDeaf(SystemClock.elapsedRealtime());
+            // onResults or onError always follows and schedules the restart; restarting this
+            // recognizer here would cancel the session before its final result is delivered.
+            // With warm handoff the other recognizer starts listening now instead.
+            if (warmHandoffEnabled && isActive() && canHandOff()) {
+                handOff();
+            }
         }
 
         @Override
         public void onError(int error) {
-            String errorMessage = getErrorText(error);
-            Log.e(TAG, "Recognition Error: " + errorMessage + " (Code: " + error + "). Restarting...");
-
-            // In case of an error, restart the listening mechanism
-            // ERROR_NO_MATCH (7) or ERROR_SPEECH_TIMEOUT (6) are common
-            restartHandler.postDelayed(restartRecognizerRunnable, 100);
+            if (!isActive()) {
+                // A session that already handed off; the next one owns the restart
+                eventLog.log(LogEvent.ERROR_AFTER_HANDOFF, error);
+                return;
+            }
+            listeningCoverage.onDeaf(SystemClock.elapsedRealtime());
+            latencyRecorder.speechEnded();
+            RestartScheduler.ErrorClass errorClass = classifyError(error);
+            long delayMs = restartScheduler.onError(errorClass);
+            eventLog.log(LogEvent.RECOGNIZER_ERROR, error, delayMs);
+            if (errorClass == RestartScheduler.ErrorClass.NO_MATCH) {
+                // ERROR_NO_MATCH (7) and ERROR_SPEECH_TIMEOUT (6) are routine in silence
+                if (vadGateEnabled && sessionVad.getSpeechFrames() == 0 && !restartScheduler.isCircuitOpen()) {
+                    // Nothing but background noise this session: idle until speech energy appears
+                    enterVadGate();
+                    return;
+                }
+            } else {
+                Log.e(TAG, "Recognition Error: " + getErrorText(error) + " (Code: " + error + "). Restarting in "
+                        + delayMs + " ms [" + restartScheduler + "]");
+            }
+            scheduleRestart(delayMs);
         }
 
         @Override
         public void onResults(Bundle results) {
             ArrayList<String> matches = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
             if (matches != null && !matches.isEmpty()) {
-                String recognizedText = matches.get(0).toLowerCase();
-                Log.i(TAG, "Recognized: " + recognizedText);
+                float[] confidences = results.getFloatArray(SpeechRecognizer.CONFIDENCE_SCORES);
+                float score = triggerMatcher.score(matches, confidences);
+                boolean finalMatch = score >= triggerMatcher.threshold();
+                eventLog.log(LogEvent.RESULTS, matches.size(), Math.round(score * 1000));
 
-                if (recognizedText.contains(TRIGGER_PHRASE) || recognizedText.contains(TRIGGER_PHRASE_ALT)) {
-                    Log.d(TAG, "--- SOS TRIGGER DETECTED! ---");
-                    Toast.makeText(getApplicationContext(), "Emergency Detected! Sending alerts...", Toast.LENGTH_LONG).show();
-                    sendEmergencyAlert();
+                if (utteranceTriggered) {
+                    // Already fired from a partial hypothesis; never send a second alert
+                    recordPartialTriggerSaving(SystemClock.elapsedRealtime() - partialTriggerAtMs, finalMatch);
+                } else if (finalMatch) {
+                    onTriggerDetected(TriggerBus.Source.VOICE);
                 }
             }
+            latencyRecorder.speechEnded();
+            if (!isActive()) {
+                return; // Handed off at end of speech; the next session is already listening
+            }
+            listeningCoverage.onDeaf(SystemClock.elapsedRealtime());
             // Ensure listening continues even after results are received
-            restartHandler.postDelayed(restartRecognizerRunnable, 100);
+            scheduleRestart(restartScheduler.onSessionEnd());
         }
 
         @Override
-        public void onPartialResults(Bundle partialResults) {}
+        public void onPartialResults(Bundle partialResults) {
+            alive();
+            if (utteranceTriggered) {
+                return;
+            }
+            ArrayList<String> partial = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+            if (partial == null || partial.isEmpty()) {
+                return;
+            }
+            // Partial results carry no confidence scores; the top hypotheses are weighted by rank
+            if (triggerMatcher.matches(partial, null)) {
+                eventLog.log(LogEvent.PARTIAL_TRIGGER, partial.size());
+                utteranceTriggered = true;
+                partialTriggerAtMs = SystemClock.elapsedRealtime();
+                onTriggerDetected(TriggerBus.Source.VOICE);
+            }
+        }
 
         @Override
         public void onEvent(int eventType, Bundle params) {}
@@ -230,69 +1070,383 @@ public class SOSService extends Service {
     }
 
     /**
-     * Initiates the location retrieval and SMS sending process.
+     * Records how much earlier the partial path fired than the final result would have.
+     * If the final hypothesis no longer contains the phrase, the partial hit is logged as such.
      */
-    private void sendEmergencyAlert() {
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
-            Log.e(TAG, "Location permission not granted. Cannot get location.");
-            sendSms(null); // Send SMS without location if permission is missing
+    private void recordPartialTriggerSaving(long savedMs, boolean confirmedByFinal) {
+        if (!confirmedByFinal) {
+            Log.w(TAG, "Partial trigger was not confirmed by the final result.");
+            return;
+        }
+        // On the main thread, so updates never interleave. onStartCommand has already loaded
+        // these preferences here, so the reads are from memory and apply() writes in the background.
+        SharedPreferences sharedPreferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        int count = sharedPreferences.getInt(KEY_PARTIAL_TRIGGER_COUNT, 0) + 1;
+        long totalSavedMs = sharedPreferences.getLong(KEY_PARTIAL_TRIGGER_SAVED_MS, 0) + savedMs;
+        sharedPreferences.edit()
+                .putInt(KEY_PARTIAL_TRIGGER_COUNT, count)
+                .putLong(KEY_PARTIAL_TRIGGER_SAVED_MS, totalSavedMs)
+                .apply();
+        Log.i(TAG, "Partial result fired " + savedMs + " ms before the final result (average "
+                + (totalSavedMs / count) + " ms over " + count + " triggers).");
+    }
+
+    /**
+     * Common entry point for every trigger source (recognizer results, keyword spotter, shake).
+     * Safe from any thread: the alert thread decides whether it starts, escalates or joins an alert.
+     */
+    private void onTriggerDetected(TriggerBus.Source source) {
+        if (!triggerBus.post(source)) {
+            Log.d(TAG, "Trigger from " + source + " ignored: source disabled.");
+        }
+    }
+
+    private void onTrigger(TriggerBus.Source source, long atMs) {
+        if (source != TriggerBus.Source.SHAKE) {
+            // Speech-to-trigger latency only means something for the voice sources
+            latencyRecorder.heard(atMs);
+        }
+        Log.d(TAG, "--- SOS TRIGGER DETECTED (" + source + ") ---");
+        eventLog.log(LogEvent.TRIGGER, source.ordinal());
+        pipeline.trigger();
+    }
+
+    /**
+     * Starts the accelerometer shake trigger if it is enabled in the settings, for places where
+     * the user cannot speak or cannot be heard.
+     */
+    private void startShakeTrigger() {
+        boolean enabled = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getBoolean(KEY_SHAKE_TRIGGER_MODE, false);
+        triggerBus.setEnabled(TriggerBus.Source.SHAKE, enabled);
+        if (!enabled) {
             return;
         }
+        if (shakeTrigger == null) {
+            shakeTrigger = new ShakeTrigger((SensorManager) getSystemService(SENSOR_SERVICE), () -> {
+                Log.i(TAG, "Shake pattern recognized.");
+                onTriggerDetected(TriggerBus.Source.SHAKE);
+            });
+        }
+        if (!shakeTrigger.start(restartHandler)) {
+            triggerBus.setEnabled(TriggerBus.Source.SHAKE, false);
+        }
+    }
+
+    private void stopShakeTrigger() {
+        if (shakeTrigger != null) {
+            shakeTrigger.stop();
+        }
+    }
+
+    /**
+     * Toasts must be shown from the main thread; the alert stages post them there.
+     */
+    private void showToast(String text, int duration) {
+        pipeline.onControl(() -> Toast.makeText(getApplicationContext(), text, duration).show());
+    }
+
+    /**
+     * Writes the alert to the outbox before anything else happens, so it is sent even if the
+     * process dies while the location is being resolved.
+     *
+     * @return the outbox id, or -1 if the alert could not be persisted
+     */
+    private long persistAlert() {
+        if (alertOutbox == null) {
+            return -1;
+        }
+        List<String> contacts = contactRegistry.numbers();
+        if (contacts.isEmpty()) {
+            return -1;
+        }
+        long start = System.nanoTime();
+        try {
+            long alertId = alertOutbox.recordAlert(System.currentTimeMillis(), contacts);
+            Log.d(TAG, "Alert " + alertId + " persisted in " + (System.nanoTime() - start) / 1000 + " us");
+            return alertId;
+        } catch (IOException e) {
+            Log.e(TAG, "Could not persist alert: " + e.getMessage());
+            return -1;
+        }
+    }
 
-        // Use the Fused Location Provider Client to get the last known location
-        fusedLocationClient.getLastLocation().addOnCompleteListener(task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
-                Location location = task.getResult();
-                Log.d(TAG, "Location found: " + location.getLatitude() + ", " + location.getLongitude());
-                sendSms(location);
+    /**
+     * Sends every alert a previous process left undelivered, if it is recent enough to matter
+     * (see {@link AlertOutbox#pending}). Runs once per service instance, on the alert thread.
+     */
+    private void replayPendingAlerts() {
+        if (alertOutbox == null || outboxReplayed) {
+            return;
+        }
+        outboxReplayed = true;
+        for (AlertOutbox.Alert alert : alertOutbox.pending()) {
+            Log.w(TAG, "Replaying alert " + alert.getId() + " to " + alert.undeliveredContacts().size() + " contact(s)");
+            try {
+                alertOutbox.recordReplay(alert.getId());
+            } catch (IOException e) {
+                Log.e(TAG, "Could not record replay: " + e.getMessage());
+            }
+            if (alert.getMessage() != null) {
+                // Marked as late: the contacts may have had it already, and the location is old
+                String raisedAt = new SimpleDateFormat("HH:mm, d MMM", Locale.US).format(new Date(alert.getCreatedAtMs()));
+                dispatchSms(alert.getId(), alert.undeliveredContacts(), messageBuilder.buildDelayed(alert.getMessage(), raisedAt));
             } else {
-                Log.e(TAG, "Failed to get location or location is null.");
-                sendSms(null);
+                // Died before the location was resolved: resolve it now
+                sendEmergencyAlert(alert.getId(), FIX_MAX_AGE_MS);
             }
-        });
+        }
     }
 
     /**
-     * Retrieves contacts and sends the emergency message to all of them.
+     * Saves the histograms shortly after the last SMS event, batching the events of one alert.
      */
-    private void sendSms(Location location) {
-        SharedPreferences sharedPreferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        Set<String> contactSet = sharedPreferences.getStringSet(KEY_CONTACTS, new HashSet<>());
+    private void scheduleLatencySave() {
+        alertHandler.removeCallbacks(saveLatencyRunnable);
+        alertHandler.postDelayed(saveLatencyRunnable, LATENCY_SAVE_DELAY_MS);
+    }
 
-        if (contactSet.isEmpty()) {
-            Log.e(TAG, "No emergency contacts saved. Alert aborted.");
-            Toast.makeText(this, "No contacts saved. Please check settings.", Toast.LENGTH_LONG).show();
+    private void saveLatencyHistograms() {
+        if (!latencyLoaded) {
             return;
         }
+        try {
+            latencyRecorder.save(new File(getFilesDir(), LATENCY_FILE));
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save latency histograms: " + e.getMessage());
+        }
+    }
 
-        String locationLink = "Location Unavailable.";
-        if (location != null) {
-            // Google Maps URL format: https://www.google.com/maps/search/?api=1&query=<lat>,<lon>
-            locationLink = "My live location: https://maps.google.com/?q=" + location.getLatitude() + "," + location.getLongitude();
+    private void recordOutboxState(long alertId, String number, byte state) {
+        if (alertOutbox == null || alertId < 0) {
+            return;
+        }
+        try {
+            alertOutbox.recordState(alertId, number, state);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not record SMS state: " + e.getMessage());
         }
+    }
 
-        // --- Branding Fix 2: Update SMS Message ---
-        String emergencyMessage = "Emergency! I need help immediately. This message was triggered by the " + APP_NAME + ". " + locationLink;
+    /**
+     * Starts the low-power location subscription that fills {@link #locationRing}. Seeds the ring
+     * with the last known location so an early trigger has something to work with.
+     */
+    private void startLocationUpdates() {
+        if (locationCallback != null) {
+            return;
+        }
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "Location permission not granted. Alerts will be sent without location.");
+            return;
+        }
 
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.SEND_SMS) != PackageManager.PERMISSION_GRANTED) {
-            Log.e(TAG, "SMS permission not granted. Cannot send messages.");
-            Toast.makeText(this, "SMS Permission missing. Message not sent.", Toast.LENGTH_LONG).show();
+        locationCallback = new LocationCallback() {
+            @Override
+            public void onLocationResult(LocationResult result) {
+                for (Location location : result.getLocations()) {
+                    addToLocationRing(location);
+                }
+            }
+        };
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_BALANCED_POWER_ACCURACY, locationIntervalMs)
+                .setMinUpdateIntervalMillis(LOCATION_MIN_INTERVAL_MS)
+                .build();
+        try {
+            fusedLocationClient.requestLocationUpdates(request, locationCallback, alertThread.getLooper());
+            fusedLocationClient.getLastLocation().addOnSuccessListener(alertExecutor, location -> {
+                if (location != null) {
+                    addToLocationRing(location);
+                }
+            });
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location updates could not be started: " + e.getMessage());
+            locationCallback = null;
+        }
+    }
+
+    private void stopLocationUpdates() {
+        if (locationCallback != null) {
+            fusedLocationClient.removeLocationUpdates(locationCallback);
+            locationCallback = null;
+        }
+    }
+
+    /**
+     * Keeps contacts posted after an alert: subscribes to high-accuracy fixes and sends an update
+     * whenever {@link #locationStream} says one is due, until its period ends. A new alert
+     * restarts the period.
+     */
+    private void startLocationStream(@Nullable LocationSource.Fix alertLocation) {
+        long now = SystemClock.elapsedRealtime();
+        locationStream.start(now,
+                alertLocation != null ? alertLocation.latitude : Double.NaN,
+                alertLocation != null ? alertLocation.longitude : Double.NaN);
+        alertHandler.removeCallbacks(locationStreamTick);
+        alertHandler.postDelayed(locationStreamTick, LOCATION_STREAM_TICK_MS);
+        if (locationStreamCallback != null) {
+            return;
+        }
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "Location permission not granted. No location updates after the alert.");
+            return;
+        }
+
+        locationStreamCallback = new LocationCallback() {
+            @Override
+            public void onLocationResult(LocationResult result) {
+                AlertChannel channel = alertChannel;
+                for (Location location : result.getLocations()) {
+                    addToLocationRing(location);
+                    float accuracy = location.hasAccuracy() ? location.getAccuracy() : FIX_MAX_UNCERTAINTY_METERS;
+                    if (channel != null) {
+                        // Every fix: the channel batches them, unlike the throttled SMS updates
+                        channel.sendLocation(location.getLatitude(), location.getLongitude(), accuracy);
+                    }
+                    sendLocationUpdate(locationStream.onFix(SystemClock.elapsedRealtime(),
+                            location.getLatitude(), location.getLongitude(), accuracy));
+                }
+            }
+        };
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, LOCATION_STREAM_FIX_INTERVAL_MS)
+                .build();
+        try {
+            fusedLocationClient.requestLocationUpdates(request, locationStreamCallback, alertThread.getLooper());
+            Log.d(TAG, "Location stream started.");
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location stream could not be started: " + e.getMessage());
+            locationStreamCallback = null;
+        }
+    }
+
+    private void onLocationStreamTick() {
+        long now = SystemClock.elapsedRealtime();
+        if (!locationStream.isActive(now)) {
+            Log.d(TAG, "Location stream finished after " + locationStream.updateCount() + " update(s).");
+            stopLocationStream();
+            return;
+        }
+        sendLocationUpdate(locationStream.onTick(now));
+        alertHandler.postDelayed(locationStreamTick, LOCATION_STREAM_TICK_MS);
+    }
+
+    private void sendLocationUpdate(@Nullable FollowUpTracker.Update update) {
+        if (update == null) {
+            return;
+        }
+        List<String> numbers = contactRegistry.numbers();
+        if (numbers.isEmpty()) {
             return;
         }
+        Log.d(TAG, "Location update " + update.sequence + " (" + update.fixes + " fix(es) batched)");
+        dispatchSms(LOCATION_UPDATE_ID, numbers, messageBuilder.buildLocationUpdate(update));
+    }
+
+    private void stopLocationStream() {
+        locationStream.stop();
+        alertHandler.removeCallbacks(locationStreamTick);
+        if (locationStreamCallback != null) {
+            fusedLocationClient.removeLocationUpdates(locationStreamCallback);
+            locationStreamCallback = null;
+        }
+    }
+
+    private void addToLocationRing(Location location) {
+        float accuracy = location.hasAccuracy() ? location.getAccuracy() : FIX_MAX_UNCERTAINTY_METERS;
+        locationRing.add(location.getLatitude(), location.getLongitude(), accuracy,
+                location.getElapsedRealtimeNanos() / 1_000_000);
+    }
+
+    /**
+     * Resolves the location of an alert and hands it to {@link AlertPipeline#located}; see
+     * {@link AlertLocator} for the cache, fresh fix and deadline policy.
+     *
+     * @param maxAgeMs oldest cached fix that may be used
+     */
+    private void sendEmergencyAlert(long alertId, long maxAgeMs) {
+        alertLocator.locate(alertId, maxAgeMs, (id, fix) -> {
+            Log.d(TAG, "Alert " + id + " location: " + (fix != null ? fix : "none"));
+            pipeline.located(id, fix);
+        });
+    }
+
+    /**
+     * Builds the emergency message (or the follow-up), posts it to the webhook channel if there
+     * is one and sends it to every contact of the alert that is not yet delivered (all saved
+     * contacts when the alert is not in the outbox).
+     *
+     * @return false if nothing was sent
+     */
+    private boolean sendSms(long alertId, LocationSource.Fix location, boolean followUp) {
+        // Every location path (cache, fresh fix, deadline, none) ends here
+        latencyRecorder.locationAcquired(SystemClock.elapsedRealtime());
+        AlertOutbox.Alert alert = alertOutbox != null ? alertOutbox.get(alertId) : null;
+        List<String> numbers;
+        if (alert != null) {
+            numbers = alert.undeliveredContacts();
+        } else {
+            numbers = contactRegistry.numbers();
+        }
+        AlertChannel channel = alertChannel;
+
+        if (numbers.isEmpty() && channel == null) {
+            Log.e(TAG, "No emergency contacts saved. Alert aborted.");
+            showToast("No contacts saved. Please check settings.", Toast.LENGTH_LONG);
+            return false;
+        }
 
-        SmsManager smsManager = SmsManager.getDefault();
+        // --- Branding Fix 2: Update SMS Message ---
+        LandmarkIndex index = landmarks;
+        String nearby = location != null && index != null
+                ? index.describe(location.latitude, location.longitude) : null;
+        String emergencyMessage;
+        if (followUp) {
+            emergencyMessage = location != null
+                    ? messageBuilder.buildFollowUp(location.latitude, location.longitude, nearby)
+                    : messageBuilder.buildFollowUpWithoutLocation();
+        } else {
+            emergencyMessage = location != null
+                    ? messageBuilder.build(location.latitude, location.longitude, nearby)
+                    : messageBuilder.buildWithoutLocation();
+        }
+        Log.d(TAG, "Alert message: " + emergencyMessage.length() + " chars, "
+                + messageBuilder.lastSegments() + " SMS part(s)");
+        latencyRecorder.messageBuilt(SystemClock.elapsedRealtime());
+        if (channel != null) {
+            // Queued before the SMS so it does not wait on the SMS permission or the radio
+            channel.sendAlert(alertId, followUp, location, emergencyMessage);
+        }
+        if (numbers.isEmpty()) {
+            Log.w(TAG, "No emergency contacts saved. Alert sent to the webhook only.");
+            return true;
+        }
 
-        for (String number : contactSet) {
+        if (alert != null) {
             try {
-                // SMS messages longer than 160 characters are automatically split.
-                smsManager.sendTextMessage(number, null, emergencyMessage, null, null);
-                Log.d(TAG, "SMS sent to: " + number);
-                Toast.makeText(this, "Alert sent to " + number + "!", Toast.LENGTH_SHORT).show();
-            } catch (Exception e) {
-                Log.e(TAG, "SMS failed to send to " + number + ": " + e.getMessage());
-                Toast.makeText(this, "Alert to " + number + " failed.", Toast.LENGTH_SHORT).show();
+                alertOutbox.recordMessage(alertId, emergencyMessage);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not persist alert message: " + e.getMessage());
             }
         }
+        // Without the SMS permission the alert still went out through the channel
+        return dispatchSms(alertId, numbers, emergencyMessage) || channel != null;
+    }
+
+    /**
+     * @return false if the SMS permission is missing
+     */
+    private boolean dispatchSms(long alertId, List<String> numbers, String message) {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.SEND_SMS) != PackageManager.PERMISSION_GRANTED) {
+            Log.e(TAG, "SMS permission not granted. Cannot send messages.");
+            showToast("SMS Permission missing. Message not sent.", Toast.LENGTH_LONG);
+            return false;
+        }
+
+        if (smsDispatcher == null) {
+            smsDispatcher = new SmsDispatcher(this, alertHandler, SmsManager.getDefault(), smsListener);
+        }
+        // All contacts at once; the dispatcher tracks sent/delivery reports and retries failures
+        smsDispatcher.dispatch(alertId, numbers, message);
+        return true;
     }
 
     /**
@@ -323,9 +1477,82 @@ public class SOSService extends Service {
     public void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "Service Destroyed");
+        if (powerReceiver != null) {
+            unregisterReceiver(powerReceiver);
+            powerReceiver = null;
+        }
+        Log.i(TAG, "Time and battery per power mode:\n" + powerPolicy.report());
+        restartHandler.removeCallbacks(coverageReport);
+        restartHandler.removeCallbacks(notificationRefresh);
+        Log.i(TAG, "Listening coverage: " + listeningCoverage.report(SystemClock.elapsedRealtime()));
+        stopShakeTrigger();
+        Log.i(TAG, "Triggers: " + triggerBus.report());
+        stopKeywordSpotter();
+        stopVadGate();
         stopListening();
+        // Alert work already queued still runs; then the thread releases what it owns and exits
+        pipeline.onAlert(this::releaseAlertResources);
+        alertThread.quitSafely();
+        pipeline.onIo(this::saveLatencyHistograms);
+        ioExecutor.shutdown();
+        // A recording in progress keeps what it has; the file is finished on the way out
+        evidenceRecorder.stop();
+        evidenceExecutor.shutdown();
         // Reset the service status in SharedPreferences when destroyed normally
         SharedPreferences sharedPreferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
         sharedPreferences.edit().putBoolean("ServiceStatus", false).apply();
     }
+
+    /**
+     * Saves the audio from before the trigger and the minute after it, off the alert path. Only
+     * audio the service itself hears gets in: the keyword spotter or VAD gate, or a recognizer
+     * that delivers its buffers. With none of those there is nothing to record, and the
+     * recorder would only wait out the post-trigger minute for an empty file.
+     */
+    private void startEvidenceRecording() {
+        if (evidenceRecorder.isRecording()) {
+            return;
+        }
+        Thread spotter = keywordSpotterThread;
+        Thread gate = vadGateThread;
+        boolean micThreadRunning = (spotter != null && spotter.isAlive()) || (gate != null && gate.isAlive());
+        if (evidenceRing.written() == 0 && !micThreadRunning) {
+            Log.i(TAG, "No audio evidence: the recognizer does not share its audio.");
+            return;
+        }
+        File file = new File(new File(getFilesDir(), EVIDENCE_DIR), "sos_" + System.currentTimeMillis() + ".wav");
+        // Armed now, so a stop from onDestroy cancels it even before the worker picks it up
+        long ticket = evidenceRecorder.arm();
+        evidenceExecutor.execute(() -> {
+            try {
+                EvidenceRecorder.Result result =
+                        evidenceRecorder.record(ticket, file, EVIDENCE_PRE_SECONDS, EVIDENCE_POST_SECONDS);
+                Log.i(TAG, result != null ? "Audio evidence saved: " + result : "Audio evidence cancelled");
+            } catch (IOException | IllegalStateException e) {
+                Log.e(TAG, "Audio evidence could not be saved", e);
+            }
+        });
+    }
+
+    private void releaseAlertResources() {
+        stopLocationUpdates();
+        stopLocationStream();
+        if (alertChannel != null) {
+            getSystemService(ConnectivityManager.class).unregisterNetworkCallback(networkCallback);
+            alertChannel.close();
+            alertChannel = null;
+        }
+        if (smsDispatcher != null) {
+            smsDispatcher.release();
+            smsDispatcher = null;
+        }
+        if (alertOutbox != null) {
+            try {
+                alertOutbox.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not close alert outbox: " + e.getMessage());
+            }
+            alertOutbox = null;
+        }
+    }
 }
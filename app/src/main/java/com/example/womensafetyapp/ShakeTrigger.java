@@ -0,0 +1,77 @@
+package com.example.womensafetyapp;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.util.Log;
+
+/**
+ * Feeds the accelerometer into a {@link ShakeDetector} and reports a shake to the service. The
+ * sensor callback only hands the three values and the timestamp over, so a sample allocates
+ * nothing beyond the event the framework already reuses.
+ */
+class ShakeTrigger implements SensorEventListener {
+
+    private static final String TAG = "ShakeTrigger";
+    // About 50 Hz: enough for the 4-5 Hz of a hard shake
+    private static final int SAMPLING_DELAY = SensorManager.SENSOR_DELAY_GAME;
+
+    /**
+     * Called on the handler's thread when a shake is recognized.
+     */
+    interface Callback {
+        void onShake();
+    }
+
+    private final SensorManager sensorManager;
+    private final ShakeDetector detector = new ShakeDetector(ShakeDetector.Config.DEFAULT);
+    private final Callback callback;
+    private boolean registered;
+
+    ShakeTrigger(SensorManager sensorManager, Callback callback) {
+        this.sensorManager = sensorManager;
+        this.callback = callback;
+    }
+
+    /**
+     * @return false if the device has no accelerometer
+     */
+    boolean start(Handler handler) {
+        if (registered) {
+            return true;
+        }
+        Sensor accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+        if (accelerometer == null) {
+            Log.w(TAG, "No accelerometer; shake trigger unavailable.");
+            return false;
+        }
+        detector.reset();
+        registered = sensorManager.registerListener(this, accelerometer, SAMPLING_DELAY, handler);
+        Log.d(TAG, "Shake trigger " + (registered ? "listening." : "could not register."));
+        return registered;
+    }
+
+    void stop() {
+        if (registered) {
+            sensorManager.unregisterListener(this);
+            registered = false;
+        }
+    }
+
+    long shakes() {
+        return detector.shakes();
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        float[] v = event.values;
+        if (detector.onSample(event.timestamp, v[0], v[1], v[2])) {
+            callback.onShake();
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+}
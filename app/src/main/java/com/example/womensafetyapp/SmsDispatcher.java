@@ -0,0 +1,304 @@
+package com.example.womensafetyapp;
+
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.telephony.SmsManager;
+import android.telephony.SmsMessage;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Sends one alert message to every contact at once and follows each part through its sent and
+ * delivery PendingIntents. The message is split once with divideMessage; failed attempts are
+ * retried with backoff on the given handler. All callbacks, including the report broadcasts, run
+ * on the handler's thread.
+ */
+class SmsDispatcher implements SmsGateway {
+
+    private static final String TAG = "SmsDispatcher";
+    private static final String ACTION_SENT = "com.example.womensafetyapp.SMS_SENT";
+    private static final String ACTION_DELIVERED = "com.example.womensafetyapp.SMS_DELIVERED";
+    private static final String EXTRA_DISPATCH = "dispatch";
+    private static final String EXTRA_CONTACT = "contact";
+    private static final String EXTRA_ATTEMPT = "attempt";
+    private static final String EXTRA_INSTANCE = "instance";
+
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 2_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    // Carriers that never send delivery reports would otherwise keep a dispatch around forever
+    private static final long DISPATCH_TIMEOUT_MS = 10 * 60_000;
+
+    // Delivery report outcomes, see deliveryStatus()
+    private static final int STATUS_DELIVERED = 0;
+    private static final int STATUS_PENDING = 1;
+    private static final int STATUS_FAILED = 2;
+
+    private static final class Dispatch {
+        final int id;
+        final long alertId;
+        final List<String> numbers;
+        final ArrayList<String> parts;
+        final DeliveryTracker tracker;
+
+        Dispatch(int id, long alertId, List<String> numbers, ArrayList<String> parts, DeliveryTracker tracker) {
+            this.id = id;
+            this.alertId = alertId;
+            this.numbers = numbers;
+            this.parts = parts;
+            this.tracker = tracker;
+        }
+    }
+
+    private final Context context;
+    private final Handler handler;
+    private final SmsManager smsManager;
+    private final Listener listener;
+    private final Map<Integer, Dispatch> dispatches = new HashMap<>();
+    // Tags this dispatcher's delayed tasks; the handler's thread runs other work too
+    private final Object token = new Object();
+    // Random per dispatcher: a PendingIntent an earlier instance left with the system neither
+    // shares a request code with ours nor gets its late reports credited to our dispatches
+    private final int instanceId;
+    private int nextDispatchId;
+    private int nextRequestCode;
+    private boolean registered;
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context c, Intent intent) {
+            if (intent.getIntExtra(EXTRA_INSTANCE, ~instanceId) != instanceId) {
+                return;
+            }
+            Dispatch dispatch = dispatches.get(intent.getIntExtra(EXTRA_DISPATCH, -1));
+            if (dispatch == null) {
+                return;
+            }
+            int contact = intent.getIntExtra(EXTRA_CONTACT, -1);
+            int attempt = intent.getIntExtra(EXTRA_ATTEMPT, -1);
+            if (contact < 0 || contact >= dispatch.numbers.size()) {
+                return;
+            }
+            if (ACTION_SENT.equals(intent.getAction())) {
+                onSentReport(dispatch, contact, attempt, getResultCode());
+            } else if (ACTION_DELIVERED.equals(intent.getAction())) {
+                onDeliveryReport(dispatch, contact, attempt, deliveryStatus(intent));
+            }
+        }
+    };
+
+    SmsDispatcher(Context context, Handler handler, SmsManager smsManager, Listener listener) {
+        this.context = context;
+        this.handler = handler;
+        this.smsManager = smsManager;
+        this.listener = listener;
+        Random random = new Random();
+        instanceId = random.nextInt();
+        nextRequestCode = random.nextInt();
+    }
+
+    /**
+     * Splits the message once and submits it to every number without waiting on any of them.
+     *
+     * @param alertId passed back through the listener so reports can be tied to the alert
+     */
+    @Override
+    public void dispatch(long alertId, List<String> numbers, String message) {
+        if (numbers.isEmpty()) {
+            return;
+        }
+        if (!registered) {
+            IntentFilter filter = new IntentFilter(ACTION_SENT);
+            filter.addAction(ACTION_DELIVERED);
+            // Reports arrive on the handler's thread too, so the dispatch state needs no locking
+            ContextCompat.registerReceiver(context, receiver, filter, null, handler, ContextCompat.RECEIVER_NOT_EXPORTED);
+            registered = true;
+        }
+
+        ArrayList<String> parts = smsManager.divideMessage(message);
+        DeliveryTracker tracker = new DeliveryTracker(numbers.size(), parts.size(),
+                SystemClock.elapsedRealtime(), MAX_ATTEMPTS, BASE_BACKOFF_MS, MAX_BACKOFF_MS);
+        Dispatch dispatch = new Dispatch(nextDispatchId++, alertId, new ArrayList<>(numbers), parts, tracker);
+        dispatches.put(dispatch.id, dispatch);
+        Log.d(TAG, "Dispatch " + dispatch.id + ": " + parts.size() + " part(s) to " + numbers.size() + " contact(s)");
+
+        for (int contact = 0; contact < dispatch.numbers.size(); contact++) {
+            submit(dispatch, contact);
+        }
+        postDelayed(() -> timeOut(dispatch), DISPATCH_TIMEOUT_MS);
+    }
+
+    private void submit(Dispatch dispatch, int contact) {
+        int attempt = dispatch.tracker.beginAttempt(contact);
+        ArrayList<PendingIntent> sentIntents = new ArrayList<>(dispatch.parts.size());
+        ArrayList<PendingIntent> deliveryIntents = new ArrayList<>(dispatch.parts.size());
+        for (int part = 0; part < dispatch.parts.size(); part++) {
+            // The sent result arrives as the result code, so that intent can stay immutable;
+            // the delivery report PDU is filled in by the system and needs a mutable one
+            sentIntents.add(reportIntent(ACTION_SENT, dispatch, contact, attempt, PendingIntent.FLAG_IMMUTABLE));
+            deliveryIntents.add(reportIntent(ACTION_DELIVERED, dispatch, contact, attempt, PendingIntent.FLAG_MUTABLE));
+        }
+
+        String number = dispatch.numbers.get(contact);
+        try {
+            smsManager.sendMultipartTextMessage(number, null, dispatch.parts, sentIntents, deliveryIntents);
+            Log.d(TAG, "Submitted attempt " + attempt + " to " + number);
+            listener.onSubmitted(dispatch.alertId, number, attempt);
+        } catch (RuntimeException e) {
+            // Bad numbers throw IllegalArgumentException; anything else may be transient
+            Log.e(TAG, "Submit to " + number + " failed: " + e.getMessage());
+            DeliveryTracker.State before = dispatch.tracker.state(contact);
+            long retryMs = dispatch.tracker.onSubmitFailed(contact, !(e instanceof IllegalArgumentException));
+            scheduleRetry(dispatch, contact, before, retryMs);
+        }
+    }
+
+    private PendingIntent reportIntent(String action, Dispatch dispatch, int contact, int attempt, int flags) {
+        Intent intent = new Intent(action)
+                .setPackage(context.getPackageName())
+                .putExtra(EXTRA_DISPATCH, dispatch.id)
+                .putExtra(EXTRA_CONTACT, contact)
+                .putExtra(EXTRA_ATTEMPT, attempt)
+                .putExtra(EXTRA_INSTANCE, instanceId);
+        // Every part needs its own request code, or the system would merge the PendingIntents. A
+        // stale one that still matches is cancelled rather than handed back with its old extras.
+        return PendingIntent.getBroadcast(context, nextRequestCode++, intent, flags | PendingIntent.FLAG_CANCEL_CURRENT);
+    }
+
+    private void onSentReport(Dispatch dispatch, int contact, int attempt, int resultCode) {
+        boolean ok = resultCode == Activity.RESULT_OK;
+        DeliveryTracker.State before = dispatch.tracker.state(contact);
+        long retryMs = dispatch.tracker.onSent(contact, attempt, ok, isRetryable(resultCode));
+        if (!ok) {
+            Log.w(TAG, "Send to " + dispatch.numbers.get(contact) + " failed with result " + resultCode);
+        }
+        if (before != DeliveryTracker.State.SENT && dispatch.tracker.state(contact) == DeliveryTracker.State.SENT) {
+            listener.onSent(dispatch.alertId, dispatch.numbers.get(contact));
+        }
+        scheduleRetry(dispatch, contact, before, retryMs);
+    }
+
+    private void onDeliveryReport(Dispatch dispatch, int contact, int attempt, int status) {
+        if (status == STATUS_PENDING) {
+            return; // The SMSC is still trying; another report will follow
+        }
+        DeliveryTracker.State before = dispatch.tracker.state(contact);
+        long retryMs = dispatch.tracker.onDelivered(contact, attempt, status == STATUS_DELIVERED,
+                SystemClock.elapsedRealtime());
+        if (before != DeliveryTracker.State.DELIVERED && dispatch.tracker.state(contact) == DeliveryTracker.State.DELIVERED) {
+            long ttfd = dispatch.tracker.timeToFirstDeliveryMs(contact);
+            Log.d(TAG, "Delivered to " + dispatch.numbers.get(contact) + " in " + ttfd + " ms after "
+                    + dispatch.tracker.attempts(contact) + " attempt(s)");
+            listener.onDelivered(dispatch.alertId, dispatch.numbers.get(contact), ttfd);
+        }
+        scheduleRetry(dispatch, contact, before, retryMs);
+    }
+
+    private void scheduleRetry(Dispatch dispatch, int contact, DeliveryTracker.State before, long retryMs) {
+        if (retryMs != DeliveryTracker.NO_RETRY) {
+            Log.d(TAG, "Retrying " + dispatch.numbers.get(contact) + " in " + retryMs + " ms");
+            postDelayed(() -> {
+                if (dispatches.containsKey(dispatch.id)) {
+                    submit(dispatch, contact);
+                }
+            }, retryMs);
+        } else if (before != DeliveryTracker.State.FAILED && dispatch.tracker.state(contact) == DeliveryTracker.State.FAILED) {
+            listener.onFailed(dispatch.alertId, dispatch.numbers.get(contact), dispatch.tracker.attempts(contact));
+        }
+        if (dispatch.tracker.isFinished()) {
+            finish(dispatch);
+        }
+    }
+
+    private void postDelayed(Runnable task, long delayMs) {
+        handler.postAtTime(task, token, SystemClock.uptimeMillis() + delayMs);
+    }
+
+    /**
+     * Stops waiting on a dispatch and gives every contact still open a final state: sent ones
+     * are unconfirmed, the rest (no sent report, or a retry still due) failed.
+     */
+    private void timeOut(Dispatch dispatch) {
+        if (!dispatches.containsKey(dispatch.id)) {
+            return;
+        }
+        for (int contact = 0; contact < dispatch.numbers.size(); contact++) {
+            String number = dispatch.numbers.get(contact);
+            DeliveryTracker.State state = dispatch.tracker.state(contact);
+            if (state == DeliveryTracker.State.SENT) {
+                listener.onUnconfirmed(dispatch.alertId, number);
+            } else if (state == DeliveryTracker.State.SENDING) {
+                listener.onFailed(dispatch.alertId, number, dispatch.tracker.attempts(contact));
+            }
+        }
+        Log.d(TAG, "Dispatch " + dispatch.id + " timed out");
+        finish(dispatch);
+    }
+
+    private void finish(Dispatch dispatch) {
+        if (dispatches.remove(dispatch.id) != null) {
+            Log.d(TAG, "Dispatch " + dispatch.id + " finished");
+        }
+    }
+
+    /**
+     * Reads the TP-Status from a delivery report: 0x00-0x1F completed, 0x20-0x3F still trying,
+     * anything above failed permanently.
+     */
+    private static int deliveryStatus(Intent intent) {
+        byte[] pdu = intent.getByteArrayExtra("pdu");
+        if (pdu == null) {
+            return STATUS_DELIVERED; // Reported without details; treat the report itself as success
+        }
+        SmsMessage report = SmsMessage.createFromPdu(pdu, intent.getStringExtra("format"));
+        if (report == null) {
+            return STATUS_DELIVERED;
+        }
+        int status = report.getStatus();
+        if (status < 0x20) {
+            return STATUS_DELIVERED;
+        }
+        return status < 0x40 ? STATUS_PENDING : STATUS_FAILED;
+    }
+
+    /**
+     * Radio and generic failures are usually temporary; a null PDU or an unknown code is not.
+     */
+    static boolean isRetryable(int resultCode) {
+        switch (resultCode) {
+            case SmsManager.RESULT_ERROR_GENERIC_FAILURE:
+            case SmsManager.RESULT_ERROR_RADIO_OFF:
+            case SmsManager.RESULT_ERROR_NO_SERVICE:
+            case SmsManager.RESULT_ERROR_LIMIT_EXCEEDED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Stops listening for reports and drops pending retries. Other work queued on the handler
+     * is left alone.
+     */
+    void release() {
+        handler.removeCallbacksAndMessages(token);
+        dispatches.clear();
+        if (registered) {
+            context.unregisterReceiver(receiver);
+            registered = false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.womensafetyapp;
+
+import android.annotation.SuppressLint;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.util.Log;
+
+/**
+ * Cheap listening stage that runs while the SpeechRecognizer is idle. Reads float PCM frames into
+ * a reused array and runs them through a {@link VoiceActivityDetector}; as soon as speech energy
+ * appears it releases the microphone and reports back, so the service can start a recognition
+ * session. Frames are also copied into the service's {@link EvidenceRing}. The detector is owned
+ * by the service and survives across gate runs, keeping its learned noise floor.
+ */
+class VadGateThread extends Thread {
+
+    private static final String TAG = "VadGateThread";
+    private static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_SIZE = 320; // 20 ms
+
+    /**
+     * Called once on the gate thread when speech starts, after the microphone has been released.
+     * Not called after {@link #shutdown}.
+     */
+    interface Callback {
+        void onSpeechStart(float energyDb, float noiseFloorDb);
+    }
+
+    private final VoiceActivityDetector vad;
+    private final EvidenceRing evidence;
+    private final Callback callback;
+    private final float[] frame = new float[FRAME_SIZE];
+    private volatile boolean running = true;
+
+    VadGateThread(VoiceActivityDetector vad, EvidenceRing evidence, Callback callback) {
+        super("VadGate");
+        this.vad = vad;
+        this.evidence = evidence;
+        this.callback = callback;
+    }
+
+    void shutdown() {
+        running = false;
+        interrupt();
+    }
+
+    // The service checks RECORD_AUDIO before starting this thread
+    @SuppressLint("MissingPermission")
+    @Override
+    public void run() {
+        int minBuffer = AudioRecord.getMinBufferSize(SAMPLE_RATE,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_FLOAT);
+        AudioRecord record = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, SAMPLE_RATE,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_FLOAT,
+                Math.max(minBuffer, FRAME_SIZE * 4 * 4));
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            Log.e(TAG, "AudioRecord could not be initialized.");
+            record.release();
+            if (running) {
+                callback.onSpeechStart(Float.NaN, Float.NaN); // Fail open: let the recognizer listen
+            }
+            return;
+        }
+
+        vad.resetSpeechState();
+        boolean wake = false;
+        try {
+            record.startRecording();
+            while (running) {
+                int n = record.read(frame, 0, FRAME_SIZE, AudioRecord.READ_BLOCKING);
+                if (n <= 0) {
+                    Log.e(TAG, "AudioRecord read failed: " + n);
+                    wake = true; // Fail open: let the recognizer listen
+                    break;
+                }
+                evidence.write(frame, 0, n);
+                if (vad.process(frame, 0, n)) {
+                    wake = true;
+                    break;
+                }
+            }
+        } finally {
+            record.stop();
+            record.release();
+        }
+        // Report only after the microphone is free for the recognizer
+        if (wake && running) {
+            callback.onSpeechStart(vad.getLastEnergyDb(), vad.getNoiseFloorDb());
+        }
+    }
+}
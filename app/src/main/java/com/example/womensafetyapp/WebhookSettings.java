@@ -0,0 +1,133 @@
+package com.example.womensafetyapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Base64;
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Endpoint and bearer token of the alert webhook. The URL is kept in plain SharedPreferences;
+ * the token is encrypted with an AES key that never leaves the Android Keystore. Both touch the
+ * disk and the Keystore: call off the main thread.
+ */
+final class WebhookSettings {
+
+    private static final String TAG = "WebhookSettings";
+    private static final String PREFS_NAME = "SafetyAppPrefs";
+    private static final String KEY_URL = "WebhookUrl";
+    // Base64 of the GCM IV followed by the ciphertext
+    private static final String KEY_TOKEN = "WebhookTokenSealed";
+    private static final String KEYSTORE = "AndroidKeyStore";
+    private static final String KEY_ALIAS = "webhook-token";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    /** Null when no webhook is configured. */
+    final String url;
+    /** Null when the endpoint takes no token. */
+    final String token;
+
+    private WebhookSettings(String url, String token) {
+        this.url = url;
+        this.token = token;
+    }
+
+    /**
+     * @return null if no webhook is configured, or if its token can no longer be decrypted (the
+     *     preferences were restored from a backup, but the Keystore key was not); the user has
+     *     to enter it again
+     */
+    static WebhookSettings load(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String url = prefs.getString(KEY_URL, null);
+        if (url == null || url.isEmpty()) {
+            return null;
+        }
+        String sealed = prefs.getString(KEY_TOKEN, null);
+        if (sealed == null) {
+            return new WebhookSettings(url, null);
+        }
+        try {
+            return new WebhookSettings(url, open(sealed));
+        } catch (GeneralSecurityException | IOException | IllegalArgumentException e) {
+            Log.e(TAG, "Cannot decrypt the webhook token: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param url empty or null to turn the webhook off
+     * @param token empty or null if the endpoint takes none
+     * @return false if the token could not be encrypted; nothing is saved then
+     */
+    static boolean save(Context context, String url, String token) {
+        SharedPreferences.Editor editor =
+                context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit();
+        if (url == null || url.isEmpty()) {
+            return editor.remove(KEY_URL).remove(KEY_TOKEN).commit();
+        }
+        editor.putString(KEY_URL, url);
+        if (token == null || token.isEmpty()) {
+            editor.remove(KEY_TOKEN);
+        } else {
+            try {
+                editor.putString(KEY_TOKEN, seal(token));
+            } catch (GeneralSecurityException | IOException e) {
+                Log.e(TAG, "Cannot encrypt the webhook token: " + e.getMessage());
+                return false;
+            }
+        }
+        return editor.commit();
+    }
+
+    private static String seal(String token) throws GeneralSecurityException, IOException {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        // The Keystore picks the IV; a caller-chosen one is refused
+        cipher.init(Cipher.ENCRYPT_MODE, key());
+        byte[] iv = cipher.getIV();
+        byte[] ciphertext = cipher.doFinal(token.getBytes(StandardCharsets.UTF_8));
+        byte[] sealed = Arrays.copyOf(iv, iv.length + ciphertext.length);
+        System.arraycopy(ciphertext, 0, sealed, iv.length, ciphertext.length);
+        return Base64.encodeToString(sealed, Base64.NO_WRAP);
+    }
+
+    private static String open(String sealed) throws GeneralSecurityException, IOException {
+        byte[] bytes = Base64.decode(sealed, Base64.NO_WRAP);
+        if (bytes.length <= IV_LENGTH) {
+            throw new IllegalArgumentException("Sealed token of " + bytes.length + " bytes");
+        }
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, key(), new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+        byte[] token = cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+        return new String(token, StandardCharsets.UTF_8);
+    }
+
+    private static SecretKey key() throws GeneralSecurityException, IOException {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+        keyStore.load(null);
+        if (keyStore.containsAlias(KEY_ALIAS)) {
+            return (SecretKey) keyStore.getKey(KEY_ALIAS, null);
+        }
+        KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE);
+        generator.init(new KeyGenParameterSpec.Builder(KEY_ALIAS,
+                KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .build());
+        return generator.generateKey();
+    }
+}
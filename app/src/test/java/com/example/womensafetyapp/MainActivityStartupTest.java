@@ -0,0 +1,119 @@
+package com.example.womensafetyapp;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.android.material.switchmaterial.SwitchMaterial;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Cold start of the main screen: the trace marks, and binding the saved state without side
+ * effects on the service.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class MainActivityStartupTest {
+
+    private static final long TIMEOUT_MS = 5_000;
+
+    private Application app;
+
+    @Before
+    public void setUp() {
+        app = ApplicationProvider.getApplicationContext();
+    }
+
+    private void saveServiceStatus(boolean running) {
+        app.getSharedPreferences("SafetyAppPrefs", Context.MODE_PRIVATE)
+                .edit().putBoolean("ServiceStatus", running).commit();
+    }
+
+    private MainActivity start() throws InterruptedException {
+        return awaitInteractive(Robolectric.buildActivity(MainActivity.class).setup().get());
+    }
+
+    private static MainActivity awaitInteractive(MainActivity activity) throws InterruptedException {
+        // The saved state is loaded on a thread of its own and posted back to the main looper
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!activity.startupTrace().has(MainActivity.MARK_INTERACTIVE)) {
+            assertTrue("never became interactive: " + activity.startupTrace(),
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        return activity;
+    }
+
+    @Test
+    public void coldStartReachesEveryMarkInOrder() throws InterruptedException {
+        shadowOf(app).grantPermissions(MainActivity.REQUIRED_PERMISSIONS);
+        MainActivity activity = start();
+
+        StartupTrace trace = activity.startupTrace();
+        assertEquals(MainActivity.MARK_CREATE, trace.names()[0]);
+        assertEquals(MainActivity.MARK_INTERACTIVE, trace.names()[trace.names().length - 1]);
+        assertTrue(trace.toString(), Arrays.asList(trace.names()).containsAll(Arrays.asList(
+                MainActivity.MARK_CONTENT_VIEW, MainActivity.MARK_RESUME,
+                MainActivity.MARK_PERMISSIONS, MainActivity.MARK_STATE_LOADED)));
+        assertTrue(trace.sinceStartMs(MainActivity.MARK_CONTENT_VIEW)
+                <= trace.sinceStartMs(MainActivity.MARK_RESUME));
+        assertTrue(trace.sinceStartMs(MainActivity.MARK_RESUME)
+                <= trace.sinceStartMs(MainActivity.MARK_PERMISSIONS));
+        assertTrue(trace.sinceStartMs(MainActivity.MARK_PERMISSIONS)
+                <= trace.sinceStartMs(MainActivity.MARK_INTERACTIVE));
+
+        SwitchMaterial toggle = activity.findViewById(R.id.toggle_service);
+        assertTrue(toggle.isEnabled());
+        assertFalse(toggle.isChecked());
+    }
+
+    @Test
+    public void savedStatusIsBoundWithoutRestartingTheService() throws InterruptedException {
+        shadowOf(app).grantPermissions(MainActivity.REQUIRED_PERMISSIONS);
+        saveServiceStatus(true);
+        MainActivity activity = start();
+
+        SwitchMaterial toggle = activity.findViewById(R.id.toggle_service);
+        assertTrue(toggle.isChecked());
+        assertNull(shadowOf(app).getNextStartedService());
+        assertNull(shadowOf(app).getNextStoppedService());
+    }
+
+    @Test
+    public void missingPermissionsTurnTheSavedStatusOff() throws InterruptedException {
+        saveServiceStatus(true);
+        MainActivity activity = start();
+
+        SwitchMaterial toggle = activity.findViewById(R.id.toggle_service);
+        assertFalse(toggle.isChecked());
+        assertFalse(app.getSharedPreferences("SafetyAppPrefs", Context.MODE_PRIVATE)
+                .getBoolean("ServiceStatus", true));
+        assertNull(shadowOf(app).getNextStartedService());
+    }
+
+    @Test
+    public void resumeAgainDoesNotMoveTheColdStartMarks() throws InterruptedException {
+        shadowOf(app).grantPermissions(MainActivity.REQUIRED_PERMISSIONS);
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        MainActivity activity = awaitInteractive(controller.get());
+        long interactive = activity.startupTrace().sinceStartMs(MainActivity.MARK_INTERACTIVE);
+
+        controller.pause().resume();
+        assertEquals(interactive, activity.startupTrace().sinceStartMs(MainActivity.MARK_INTERACTIVE));
+    }
+}
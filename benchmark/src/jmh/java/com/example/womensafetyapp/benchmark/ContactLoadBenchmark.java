@@ -0,0 +1,63 @@
+package com.example.womensafetyapp.benchmark;
+
+import com.example.womensafetyapp.ContactRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting the send list on an alert: copying and cleaning the stored set as the service used to
+ * (the set stands in for what SharedPreferences.getStringSet returns) against reading the
+ * registry snapshot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContactLoadBenchmark {
+
+    @Param({"3", "10"})
+    public int contacts;
+
+    private Set<String> stored;
+    private ContactRegistry registry;
+
+    @Setup
+    public void setUp() {
+        stored = new HashSet<>();
+        for (int i = 0; i < contacts; i++) {
+            stored.add(" +9198765432" + String.format("%02d", i) + " ");
+        }
+        registry = new ContactRegistry("91");
+        registry.replaceAll(new ArrayList<>(stored));
+    }
+
+    @Benchmark
+    public List<String> storedSetCopy() {
+        Set<String> copy = new HashSet<>(stored);
+        List<String> numbers = new ArrayList<>(copy.size());
+        for (String raw : copy) {
+            String number = raw.trim();
+            if (!number.isEmpty() && !numbers.contains(number)) {
+                numbers.add(number);
+            }
+        }
+        return numbers;
+    }
+
+    @Benchmark
+    public List<String> registrySnapshot() {
+        return registry.numbers();
+    }
+}
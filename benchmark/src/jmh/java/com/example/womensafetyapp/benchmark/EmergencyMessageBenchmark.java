@@ -0,0 +1,52 @@
+package com.example.womensafetyapp.benchmark;
+
+import com.example.womensafetyapp.EmergencyMessageBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the alert text and maps link in sendSms. {@code concatenation} is the original
+ * string concatenation, kept as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EmergencyMessageBenchmark {
+
+    private static final String APP_NAME = "Kavach app";
+
+    private EmergencyMessageBuilder builder;
+    private double latitude;
+    private double longitude;
+
+    @Setup
+    public void setUp() {
+        builder = new EmergencyMessageBuilder(APP_NAME);
+        latitude = 12.971598765;
+        longitude = 77.594562345;
+    }
+
+    @Benchmark
+    public String builderWithLocation() {
+        return builder.build(latitude, longitude);
+    }
+
+    @Benchmark
+    public String builderWithoutLocation() {
+        return builder.buildWithoutLocation();
+    }
+
+    @Benchmark
+    public String concatenation() {
+        String locationLink = "My live location: https://maps.google.com/?q=" + latitude + "," + longitude;
+        return "Emergency! I need help immediately. This message was triggered by the " + APP_NAME + ". " + locationLink;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.womensafetyapp.benchmark;
+
+import com.example.womensafetyapp.LandmarkIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describing the alert position from the offline landmark index: a million points spread over a
+ * 2 x 2 degree region around Bengaluru, mostly landmarks with a few percent police stations and
+ * hospitals. {@code linearScan} is the nearest landmark found without the tree, as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LandmarkIndexBenchmark {
+
+    private static final double LAT = 12.97;
+    private static final double LON = 77.59;
+    private static final int QUERIES = 1024;
+
+    @Param({"1000000"})
+    public int points;
+
+    private LandmarkIndex index;
+    private final double[] latitudes = new double[QUERIES];
+    private final double[] longitudes = new double[QUERIES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(1);
+        LandmarkIndex.Builder builder = new LandmarkIndex.Builder();
+        for (int i = 0; i < points; i++) {
+            double roll = rnd.nextDouble();
+            LandmarkIndex.Kind kind = roll < 0.04 ? LandmarkIndex.Kind.POLICE
+                    : roll < 0.06 ? LandmarkIndex.Kind.HOSPITAL : LandmarkIndex.Kind.LANDMARK;
+            builder.add(LAT + rnd.nextDouble() * 2 - 1, LON + rnd.nextDouble() * 2 - 1, kind, "Place " + i);
+        }
+        index = builder.build();
+        for (int i = 0; i < QUERIES; i++) {
+            latitudes[i] = LAT + rnd.nextDouble() * 2 - 1;
+            longitudes[i] = LON + rnd.nextDouble() * 2 - 1;
+        }
+    }
+
+    @Benchmark
+    public int nearestLandmark() {
+        int q = next++ & (QUERIES - 1);
+        return index.nearest(latitudes[q], longitudes[q], LandmarkIndex.Kind.LANDMARK, LandmarkIndex.NEAR_METERS);
+    }
+
+    @Benchmark
+    public int nearestPoliceStation() {
+        int q = next++ & (QUERIES - 1);
+        return index.nearest(latitudes[q], longitudes[q], LandmarkIndex.Kind.POLICE, LandmarkIndex.HELP_POINT_METERS);
+    }
+
+    @Benchmark
+    public String describe() {
+        int q = next++ & (QUERIES - 1);
+        return index.describe(latitudes[q], longitudes[q]);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int q = next++ & (QUERIES - 1);
+        int best = -1;
+        double bestMeters = LandmarkIndex.NEAR_METERS;
+        for (int i = 0; i < index.size(); i++) {
+            double d = index.distanceMeters(i, latitudes[q], longitudes[q]);
+            if (d <= bestMeters && index.kind(i) == LandmarkIndex.Kind.LANDMARK) {
+                best = i;
+                bestMeters = d;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.womensafetyapp.benchmark;
+
+import com.example.womensafetyapp.TriggerMatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trigger check run on every partial and final recognition result, over hypotheses that miss,
+ * hit mid-sentence, run long, and hit exactly; and over a five-hypothesis N-best list with
+ * confidence scores, as a final result delivers it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TriggerMatcherBenchmark {
+
+    @Param({
+            "what time is it",
+            "Please Help Me now",
+            "i think we should probably head back home before it gets too dark outside tonight",
+            "SOS"
+    })
+    public String hypothesis;
+
+    private TriggerMatcher matcher;
+    private List<String> nBest;
+    private final float[] confidences = {0.62f, 0.21f, 0.09f, 0.05f, 0.03f};
+
+    @Setup
+    public void setUp() {
+        matcher = new TriggerMatcher("sos", "help me");
+        nBest = Arrays.asList(hypothesis, hypothesis + " please", "so " + hypothesis, hypothesis.toUpperCase(),
+                "uh " + hypothesis);
+    }
+
+    @Benchmark
+    public boolean triggerMatcher() {
+        return matcher.matches(hypothesis);
+    }
+
+    @Benchmark
+    public float nBestScore() {
+        return matcher.score(nBest, confidences);
+    }
+}
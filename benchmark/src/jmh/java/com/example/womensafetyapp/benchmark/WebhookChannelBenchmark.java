@@ -0,0 +1,127 @@
+package com.example.womensafetyapp.benchmark;
+
+import com.example.womensafetyapp.LocationSource;
+import com.example.womensafetyapp.WebhookChannel;
+import com.sun.net.httpserver.HttpServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alert delivery through the webhook channel to a stand-in endpoint on loopback, from queuing to
+ * the endpoint's response. {@code freshConnectionPost} posts the same alert on a new connection
+ * each time, the cost keep-alive saves; over a cellular link with TLS the gap is several round
+ * trips rather than a loopback connect. On the device the same queue-to-ack time is recorded
+ * next to SMS submit and delivery in the latency histograms, which is the comparison with the SMS
+ * path that cannot run here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WebhookChannelBenchmark {
+
+    private static final String MESSAGE = "EMERGENCY! I need help. My location: https://maps.google.com/?q=12.97,77.59";
+    private static final int LOCATIONS_PER_BATCH = 32;
+
+    private HttpServer server;
+    private URL endpoint;
+    private WebhookChannel channel;
+    private final SynchronousQueue<Long> delivered = new SynchronousQueue<>();
+    private byte[] body;
+    private long alertId;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+        server.createContext("/hook", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) >= 0) {
+                    // Discarded
+                }
+                exchange.sendResponseHeaders(204, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        endpoint = new URL("http", "127.0.0.1", server.getAddress().getPort(), "/hook");
+        channel = WebhookChannel.start(new WebhookChannel.Config(endpoint, null, 60_000, 1_000, 1_000, 512, 64, 5_000),
+                System::currentTimeMillis, new WebhookChannel.Listener() {
+                    @Override
+                    public void onDelivered(long id, boolean followUp, long latencyMs) {
+                        try {
+                            delivered.put(id);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    @Override
+                    public void onFailed(int items, String reason, long retryInMs) {
+                        throw new IllegalStateException(reason);
+                    }
+                });
+        body = ("{\"v\":1,\"items\":[{\"kind\":\"alert\",\"id\":1,\"t\":1792357445123,\"lat\":12.97,\"lon\":77.59,"
+                + "\"acc\":8,\"msg\":\"" + MESSAGE + "\"}]}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public long alertRoundTrip() throws InterruptedException {
+        channel.sendAlert(++alertId, false, new LocationSource.Fix(12.97, 77.59, 8), MESSAGE);
+        return delivered.take();
+    }
+
+    /** A follow-up that carries a batch of queued locations: one POST for all of them. */
+    @Benchmark
+    public long followUpWithLocations() throws InterruptedException {
+        for (int i = 0; i < LOCATIONS_PER_BATCH; i++) {
+            channel.sendLocation(12.97 + i * 1e-4, 77.59 + i * 1e-4, 5);
+        }
+        channel.sendAlert(++alertId, true, new LocationSource.Fix(12.97, 77.59, 8), MESSAGE);
+        return delivered.take();
+    }
+
+    @Benchmark
+    public int freshConnectionPost() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+        connection.setRequestProperty("Connection", "close");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = connection.getInputStream()) {
+            while (in.read() >= 0) {
+                // Discarded
+            }
+        }
+        connection.disconnect();
+        return status;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.womensafetyapp;
+
+/**
+ * A way out for an alert besides SMS, used alongside it so an alert still leaves the phone with
+ * no SIM or on a congested cell network. Implementations queue the work and return at once: the
+ * methods are called on the alert thread.
+ */
+public interface AlertChannel {
+
+    /**
+     * Sends an alert, or a follow-up to one.
+     *
+     * @param fix the alert position, or null if none could be had
+     */
+    void sendAlert(long alertId, boolean followUp, LocationSource.Fix fix, String message);
+
+    /**
+     * Reports one position while an alert is active. A channel may batch these.
+     */
+    void sendLocation(double latitude, double longitude, float accuracyMeters);
+
+    /** The network is back: deliveries waiting to be retried should go now. */
+    void onNetworkAvailable();
+
+    /** Stops sending; whatever is still queued is dropped. */
+    void close();
+}
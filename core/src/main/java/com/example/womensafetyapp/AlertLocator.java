@@ -0,0 +1,98 @@
+package com.example.womensafetyapp;
+
+/**
+ * Resolves the location of an alert, always within a deadline. Uses the best fix already in the
+ * {@link LocationRing} when one meets the accuracy and freshness policy; otherwise asks the
+ * {@link LocationSource} for a fresh fix and, if none arrives before the deadline, falls back to
+ * the newest cached fix regardless of age: a stale position still beats none in an emergency.
+ *
+ * Every {@link #locate} call ends in exactly one {@link Sink#located} call. Run it, the source's
+ * callbacks and the scheduler on the alert thread; that is what makes a plain flag enough to
+ * tell the fix and the deadline apart.
+ */
+public final class AlertLocator {
+
+    public interface Sink {
+        /** @param fix the position for the alert, or null if there is none at all */
+        void located(long alertId, LocationSource.Fix fix);
+    }
+
+    /** How a location was resolved, counted for diagnostics. */
+    public enum Outcome {
+        CACHED, FRESH, TIMED_OUT, FAILED
+    }
+
+    private final RestartScheduler.Clock clock;
+    private final TaskScheduler scheduler;
+    private final LocationRing ring;
+    private final LocationSource source;
+    private final long deadlineMs;
+    private final float maxUncertaintyMeters;
+    private final double[] fix = new double[4];
+    private final long[] outcomes = new long[Outcome.values().length];
+
+    /**
+     * @param deadlineMs longest an alert waits for a fresh fix
+     * @param maxUncertaintyMeters worst accuracy, aged by drift, a cached fix may have
+     */
+    public AlertLocator(RestartScheduler.Clock clock, TaskScheduler scheduler, LocationRing ring,
+                        LocationSource source, long deadlineMs, float maxUncertaintyMeters) {
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.ring = ring;
+        this.source = source;
+        this.deadlineMs = deadlineMs;
+        this.maxUncertaintyMeters = maxUncertaintyMeters;
+    }
+
+    /**
+     * @param maxAgeMs oldest cached fix that may be used
+     */
+    public void locate(long alertId, long maxAgeMs, Sink sink) {
+        if (ring.best(clock.nowMs(), maxAgeMs, maxUncertaintyMeters,
+                LocationRing.DEFAULT_DRIFT_METERS_PER_SECOND, fix)) {
+            outcomes[Outcome.CACHED.ordinal()]++;
+            sink.located(alertId, new LocationSource.Fix(fix[0], fix[1], (float) fix[2]));
+            return;
+        }
+
+        boolean[] done = new boolean[1];
+        LocationSource.Request[] request = new LocationSource.Request[1];
+        Runnable deadline = () -> {
+            if (done[0]) {
+                return;
+            }
+            done[0] = true;
+            if (request[0] != null) {
+                request[0].cancel();
+            }
+            outcomes[Outcome.TIMED_OUT.ordinal()]++;
+            sink.located(alertId, latest());
+        };
+        scheduler.postDelayed(deadline, deadlineMs);
+        request[0] = source.requestFix(maxAgeMs, deadlineMs, result -> {
+            if (done[0]) {
+                return;
+            }
+            done[0] = true;
+            scheduler.removeCallbacks(deadline);
+            if (result != null) {
+                outcomes[Outcome.FRESH.ordinal()]++;
+                ring.add(result.latitude, result.longitude, result.accuracyMeters, clock.nowMs());
+                sink.located(alertId, result);
+            } else {
+                outcomes[Outcome.FAILED.ordinal()]++;
+                sink.located(alertId, latest());
+            }
+        });
+    }
+
+    public long count(Outcome outcome) {
+        return outcomes[outcome.ordinal()];
+    }
+
+    /** Newest cached fix regardless of age or accuracy, or null if the ring is empty. */
+    private LocationSource.Fix latest() {
+        return ring.latest(clock.nowMs(), fix) ? new LocationSource.Fix(fix[0], fix[1], (float) fix[2]) : null;
+    }
+}
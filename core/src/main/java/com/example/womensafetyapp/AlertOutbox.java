@@ -0,0 +1,494 @@
+package com.example.womensafetyapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, fsync'd log of alerts and the per-contact state of their SMS, so an alert raised
+ * just before the process dies is sent when the service comes back.
+ *
+ * Each record is {@code [int length][int crc32][payload]} and is forced to disk before the append
+ * returns. On open the log is replayed into memory; a torn or corrupt tail (the write that was in
+ * flight when the process died) is cut off. Finished alerts, and alerts too old to be worth
+ * sending any more, are dropped by {@link #compact()}, which rewrites the live alerts to a
+ * temporary file and renames it over the log.
+ *
+ * Not thread-safe.
+ */
+public final class AlertOutbox implements Closeable {
+
+    public static final byte STATE_QUEUED = 0;
+    public static final byte STATE_SENT = 1;
+    public static final byte STATE_DELIVERED = 2;
+    public static final byte STATE_FAILED = 3;
+    /** Sent, but no delivery report came before the dispatch stopped waiting; not sent again. */
+    public static final byte STATE_UNCONFIRMED = 4;
+
+    /** An alert is replayed at most this many times; after that it is given up on. */
+    public static final int MAX_REPLAYS = 3;
+    /** An alert older than this is not replayed; by then its message and location mislead. */
+    public static final long MAX_REPLAY_AGE_MS = 60 * 60_000;
+
+    private static final byte RECORD_ALERT = 1;
+    private static final byte RECORD_MESSAGE = 2;
+    private static final byte RECORD_STATE = 3;
+    private static final byte RECORD_REPLAY = 4;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_PAYLOAD = 64 * 1024;
+    private static final int DEFAULT_COMPACT_THRESHOLD = 64;
+
+    /**
+     * In-memory view of one alert.
+     */
+    public static final class Alert {
+        private final long id;
+        private final long createdAtMs;
+        private final String[] contacts;
+        private final byte[] states;
+        private String message;
+        private int replays;
+        private int records;
+
+        Alert(long id, long createdAtMs, String[] contacts) {
+            this.id = id;
+            this.createdAtMs = createdAtMs;
+            this.contacts = contacts;
+            this.states = new byte[contacts.length];
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getCreatedAtMs() {
+            return createdAtMs;
+        }
+
+        /** Null until the message text (with location) has been recorded. */
+        public String getMessage() {
+            return message;
+        }
+
+        public int getReplays() {
+            return replays;
+        }
+
+        public int contactCount() {
+            return contacts.length;
+        }
+
+        public String contact(int index) {
+            return contacts[index];
+        }
+
+        public byte state(int index) {
+            return states[index];
+        }
+
+        /**
+         * Contacts that have not been confirmed delivered or given up on. SENT counts as
+         * undelivered: its delivery report was lost with the process that sent it. A dispatch
+         * that outlives its wait for the report records {@link #STATE_UNCONFIRMED} instead.
+         */
+        public List<String> undeliveredContacts() {
+            List<String> result = new ArrayList<>();
+            for (int i = 0; i < contacts.length; i++) {
+                if (states[i] == STATE_QUEUED || states[i] == STATE_SENT) {
+                    result.add(contacts[i]);
+                }
+            }
+            return result;
+        }
+
+        boolean isFinished() {
+            for (byte state : states) {
+                if (state != STATE_DELIVERED && state != STATE_FAILED && state != STATE_UNCONFIRMED) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isLive() {
+            return !isFinished() && replays < MAX_REPLAYS;
+        }
+
+        boolean isExpired(long nowMs) {
+            return nowMs - createdAtMs > MAX_REPLAY_AGE_MS;
+        }
+    }
+
+    private final File file;
+    private final int compactThreshold;
+    // Wall clock, the one createdAtMs is on
+    private final RestartScheduler.Clock clock;
+    private final Map<Long, Alert> alerts = new LinkedHashMap<>();
+    private FileChannel channel;
+    private long nextId = 1;
+    private int deadRecords;
+
+    // Test hook: runs after the compacted file is written and before it replaces the log
+    Runnable beforeCompactionRename;
+
+    private AlertOutbox(File file, int compactThreshold, RestartScheduler.Clock clock) {
+        this.file = file;
+        this.compactThreshold = compactThreshold;
+        this.clock = clock;
+    }
+
+    public static AlertOutbox open(File file) throws IOException {
+        return open(file, DEFAULT_COMPACT_THRESHOLD, System::currentTimeMillis);
+    }
+
+    /**
+     * Opens the log, replays it and cuts off a torn tail.
+     *
+     * @param compactThreshold compact once this many records belong to finished alerts
+     * @param clock wall clock in milliseconds, as passed to {@link #recordAlert}
+     */
+    public static AlertOutbox open(File file, int compactThreshold, RestartScheduler.Clock clock) throws IOException {
+        AlertOutbox outbox = new AlertOutbox(file, compactThreshold, clock);
+        // A leftover temp file is an interrupted compaction; the log itself is still intact
+        File temp = outbox.tempFile();
+        if (temp.exists() && !temp.delete()) {
+            throw new IOException("Could not delete " + temp);
+        }
+        outbox.channel = new RandomAccessFile(file, "rw").getChannel();
+        long good = outbox.load();
+        if (good < outbox.channel.size()) {
+            outbox.channel.truncate(good);
+            outbox.channel.force(true);
+        }
+        outbox.channel.position(good);
+        // Alerts that aged out while the service was down are garbage too
+        long now = clock.nowMs();
+        for (Alert alert : outbox.alerts.values()) {
+            if (alert.isLive() && alert.isExpired(now)) {
+                outbox.deadRecords += alert.records;
+            }
+        }
+        return outbox;
+    }
+
+    /**
+     * Records a new alert with every contact queued.
+     *
+     * @return the alert id
+     */
+    public long recordAlert(long createdAtMs, List<String> contacts) throws IOException {
+        long id = nextId;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RECORD_ALERT);
+        out.writeLong(id);
+        out.writeLong(createdAtMs);
+        out.writeShort(contacts.size());
+        for (String contact : contacts) {
+            out.writeUTF(contact);
+        }
+        commit(bytes.toByteArray());
+        return id;
+    }
+
+    public void recordMessage(long alertId, String message) throws IOException {
+        if (!alerts.containsKey(alertId)) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RECORD_MESSAGE);
+        out.writeLong(alertId);
+        out.writeUTF(message);
+        commit(bytes.toByteArray());
+    }
+
+    /**
+     * Records the state of every listed contact of an alert that carries this number.
+     * Unknown alerts and numbers are ignored.
+     */
+    public void recordState(long alertId, String number, byte state) throws IOException {
+        Alert alert = alerts.get(alertId);
+        if (alert == null) {
+            return;
+        }
+        for (int i = 0; i < alert.contacts.length; i++) {
+            if (alert.contacts[i].equals(number) && alert.states[i] != state) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(RECORD_STATE);
+                out.writeLong(alertId);
+                out.writeShort(i);
+                out.writeByte(state);
+                commit(bytes.toByteArray());
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Counts one replay of an alert; call before sending it again.
+     */
+    public void recordReplay(long alertId) throws IOException {
+        if (!alerts.containsKey(alertId)) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RECORD_REPLAY);
+        out.writeLong(alertId);
+        commit(bytes.toByteArray());
+    }
+
+    /**
+     * Alerts that still have undelivered contacts and replays left and are no older than
+     * {@link #MAX_REPLAY_AGE_MS}, oldest first.
+     */
+    public List<Alert> pending() {
+        long now = clock.nowMs();
+        List<Alert> result = new ArrayList<>();
+        for (Alert alert : alerts.values()) {
+            if (alert.isLive() && !alert.isExpired(now)) {
+                result.add(alert);
+            }
+        }
+        return result;
+    }
+
+    public Alert get(long alertId) {
+        return alerts.get(alertId);
+    }
+
+    public long sizeBytes() throws IOException {
+        return channel.size();
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (deadRecords >= compactThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the log with only the live alerts that have not expired. Crash-safe: until the
+     * rename the old log is untouched, and a leftover temp file is discarded on the next open.
+     */
+    public void compact() throws IOException {
+        long now = clock.nowMs();
+        File temp = tempFile();
+        List<Alert> live = new ArrayList<>();
+        List<Integer> records = new ArrayList<>();
+        try (FileChannel out = new RandomAccessFile(temp, "rw").getChannel()) {
+            out.truncate(0);
+            for (Alert alert : alerts.values()) {
+                if (!alert.isLive() || alert.isExpired(now)) {
+                    continue;
+                }
+                List<byte[]> payloads = snapshot(alert);
+                for (byte[] payload : payloads) {
+                    writeRecord(out, payload);
+                }
+                live.add(alert);
+                records.add(payloads.size());
+            }
+            out.force(true);
+        }
+        if (beforeCompactionRename != null) {
+            beforeCompactionRename.run();
+        }
+        channel.close();
+        boolean renamed = temp.renameTo(file);
+        // Whatever happened, keep appending to the file now at the log's path: the compacted log,
+        // or the untouched old one if the rename failed
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        channel.position(channel.size());
+        if (!renamed) {
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+
+        alerts.clear();
+        for (int i = 0; i < live.size(); i++) {
+            Alert alert = live.get(i);
+            alert.records = records.get(i);
+            alerts.put(alert.id, alert);
+        }
+        deadRecords = 0;
+    }
+
+    /**
+     * The minimal records that rebuild an alert's current state.
+     */
+    private static List<byte[]> snapshot(Alert alert) throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RECORD_ALERT);
+        out.writeLong(alert.id);
+        out.writeLong(alert.createdAtMs);
+        out.writeShort(alert.contacts.length);
+        for (String contact : alert.contacts) {
+            out.writeUTF(contact);
+        }
+        payloads.add(bytes.toByteArray());
+
+        if (alert.message != null) {
+            bytes.reset();
+            out.writeByte(RECORD_MESSAGE);
+            out.writeLong(alert.id);
+            out.writeUTF(alert.message);
+            payloads.add(bytes.toByteArray());
+        }
+        for (int i = 0; i < alert.states.length; i++) {
+            if (alert.states[i] != STATE_QUEUED) {
+                bytes.reset();
+                out.writeByte(RECORD_STATE);
+                out.writeLong(alert.id);
+                out.writeShort(i);
+                out.writeByte(alert.states[i]);
+                payloads.add(bytes.toByteArray());
+            }
+        }
+        for (int i = 0; i < alert.replays; i++) {
+            bytes.reset();
+            out.writeByte(RECORD_REPLAY);
+            out.writeLong(alert.id);
+            payloads.add(bytes.toByteArray());
+        }
+        return payloads;
+    }
+
+    /**
+     * Appends a record, forces it to disk, then applies it to the in-memory state.
+     */
+    private void commit(byte[] payload) throws IOException {
+        writeRecord(channel, payload);
+        channel.force(false);
+        apply(payload);
+    }
+
+    private static void writeRecord(FileChannel out, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Replays the log into memory.
+     *
+     * @return the offset just past the last intact record
+     */
+    private long load() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > MAX_PAYLOAD || position + HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + HEADER_SIZE);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            try {
+                apply(payload.array());
+            } catch (IOException e) {
+                break; // Checksum collided with garbage; treat it as the torn tail
+            }
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        long id = in.readLong();
+        if (type == RECORD_ALERT) {
+            long createdAtMs = in.readLong();
+            String[] contacts = new String[in.readUnsignedShort()];
+            for (int i = 0; i < contacts.length; i++) {
+                contacts[i] = in.readUTF();
+            }
+            Alert alert = new Alert(id, createdAtMs, contacts);
+            alert.records = 1;
+            alerts.put(id, alert);
+            nextId = Math.max(nextId, id + 1);
+            return;
+        }
+
+        Alert alert = alerts.get(id);
+        if (alert == null) {
+            return;
+        }
+        boolean wasLive = alert.isLive();
+        switch (type) {
+            case RECORD_MESSAGE:
+                alert.message = in.readUTF();
+                break;
+            case RECORD_STATE:
+                int index = in.readUnsignedShort();
+                byte state = in.readByte();
+                if (index < alert.states.length) {
+                    alert.states[index] = state;
+                }
+                break;
+            case RECORD_REPLAY:
+                alert.replays++;
+                break;
+            default:
+                throw new IOException("Unknown record type " + type);
+        }
+        alert.records++;
+        if (!alert.isLive()) {
+            // Everything written for this alert is garbage from now on
+            deadRecords += wasLive ? alert.records : 1;
+        }
+    }
+
+    private File tempFile() {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.womensafetyapp;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The hand-offs of the alert path between its three execution contexts. The control thread owns
+ * the recognizer and only runs listening sessions, restarts and user feedback. The alert thread is
+ * one serial thread that owns the outbox, the location request and the SMS dispatch, so those
+ * need no locking and see their events in order. The io pool is a small {@link BoundedExecutor}
+ * for disk work nothing waits on.
+ *
+ * A trigger from any thread is queued on the alert thread and returns at once, so a slow location
+ * fix, outbox fsync or SMS submit never holds up the next listening session. On the alert thread
+ * an {@link AlertStateMachine} decides whether it starts an alert, escalates the one already
+ * sent or is merged into it.
+ *
+ * @param <L> the location type handed from {@link Steps#locate} to {@link Steps#send}
+ */
+public final class AlertPipeline<L> {
+
+    /**
+     * The stages of one alert. All of them run on the alert thread.
+     */
+    public interface Steps<L> {
+        /**
+         * What the state machine made of a trigger, before any stage runs for it.
+         *
+         * @param triggeredAtMs when {@link AlertPipeline#trigger} was called
+         */
+        void decided(AlertStateMachine.Decision decision, long triggeredAtMs);
+
+        /** @return the outbox id of the new alert, or -1 if it could not be persisted */
+        long persist();
+
+        /**
+         * Starts resolving the location. Must lead to exactly one {@link AlertPipeline#located}
+         * call, from any thread.
+         *
+         * @param followUp an escalation, which wants a fresher fix than the first alert
+         */
+        void locate(long alertId, boolean followUp);
+
+        /**
+         * Builds the message and submits the SMS. {@code location} may be null.
+         *
+         * @return false if nothing could be sent (no contacts, no permission)
+         */
+        boolean send(long alertId, L location, boolean followUp);
+    }
+
+    private final Executor control;
+    private final Executor alert;
+    private final Executor io;
+    private final RestartScheduler.Clock clock;
+    private final AlertStateMachine machine;
+    private final Steps<L> steps;
+
+    // The alert or follow-up the state machine is waiting on. Alert thread only.
+    private boolean inFlight;
+    private long inFlightId;
+    private boolean inFlightFollowUp;
+
+    public AlertPipeline(Executor control, Executor alert, Executor io, RestartScheduler.Clock clock,
+                         AlertStateMachine machine, Steps<L> steps) {
+        this.control = control;
+        this.alert = alert;
+        this.io = io;
+        this.clock = clock;
+        this.machine = machine;
+        this.steps = steps;
+    }
+
+    /**
+     * Reports a trigger. Safe to call from any thread; returns without waiting on any stage.
+     * Repeated triggers are merged into the alert in flight or escalate it, see
+     * {@link AlertStateMachine}.
+     */
+    public void trigger() {
+        long triggeredAtMs = clock.nowMs();
+        alert.execute(() -> onTrigger(triggeredAtMs));
+    }
+
+    /**
+     * Continues an alert whose location is known, or given up on ({@code location} null). Also
+     * used for alerts replayed from the outbox, which the state machine does not track.
+     */
+    public void located(long alertId, L location) {
+        alert.execute(() -> deliver(alertId, location));
+    }
+
+    public void onControl(Runnable task) {
+        control.execute(task);
+    }
+
+    public void onAlert(Runnable task) {
+        alert.execute(task);
+    }
+
+    public void onIo(Runnable task) {
+        io.execute(task);
+    }
+
+    private void onTrigger(long triggeredAtMs) {
+        AlertStateMachine.Decision decision = machine.onTrigger(triggeredAtMs);
+        steps.decided(decision, triggeredAtMs);
+        if (decision == AlertStateMachine.Decision.MERGED) {
+            return;
+        }
+        boolean followUp = decision == AlertStateMachine.Decision.ESCALATE;
+        long alertId = steps.persist();
+        inFlight = true;
+        inFlightId = alertId;
+        inFlightFollowUp = followUp;
+        steps.locate(alertId, followUp);
+    }
+
+    private void deliver(long alertId, L location) {
+        boolean tracked = inFlight && alertId == inFlightId;
+        boolean sent = steps.send(alertId, location, tracked && inFlightFollowUp);
+        if (tracked) {
+            inFlight = false;
+            if (sent) {
+                machine.onSent(clock.nowMs());
+            } else {
+                machine.onAborted();
+            }
+        }
+    }
+}
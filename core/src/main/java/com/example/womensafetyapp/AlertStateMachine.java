@@ -0,0 +1,145 @@
+package com.example.womensafetyapp;
+
+/**
+ * Turns a stream of triggers into alerts. A user repeating "help me help me" produces one trigger
+ * per recognized phrase; without this each would send its own round of SMS and the duplicates
+ * would queue up in the radio ahead of nothing useful.
+ *
+ * <ul>
+ *   <li>{@link State#IDLE}: the first trigger starts an alert ({@link Decision#NEW_ALERT}).</li>
+ *   <li>{@link State#TRIGGERED}: an alert is being located and submitted; further triggers are
+ *       merged into it.</li>
+ *   <li>{@link State#SENT}: the alert was submitted. Triggers within the coalescing window are
+ *       still merged; later ones escalate with a follow-up ({@link Decision#ESCALATE}), at most
+ *       {@code maxEscalations} times.</li>
+ *   <li>{@link State#ESCALATING}: a follow-up is in flight; triggers are merged into it.</li>
+ * </ul>
+ * Once the cooldown has passed since the last submit, the machine is idle again and the next
+ * trigger is a new alert.
+ *
+ * Deterministic: time is passed in. Not thread-safe: call it from the alert thread.
+ */
+public final class AlertStateMachine {
+
+    public static final long DEFAULT_COALESCE_WINDOW_MS = 30_000;
+    public static final long DEFAULT_COOLDOWN_MS = 10 * 60_000;
+    public static final int DEFAULT_MAX_ESCALATIONS = 3;
+
+    public enum State {
+        IDLE,
+        TRIGGERED,
+        SENT,
+        ESCALATING
+    }
+
+    public enum Decision {
+        NEW_ALERT,
+        MERGED,
+        ESCALATE
+    }
+
+    private final long coalesceWindowMs;
+    private final long cooldownMs;
+    private final int maxEscalations;
+
+    private State state = State.IDLE;
+    private long sentAtMs;
+    private int escalations;
+    private int merged;
+
+    public AlertStateMachine() {
+        this(DEFAULT_COALESCE_WINDOW_MS, DEFAULT_COOLDOWN_MS, DEFAULT_MAX_ESCALATIONS);
+    }
+
+    /**
+     * @param coalesceWindowMs after a submit, triggers this close to it are merged into it
+     * @param cooldownMs time after the last submit at which the alert is over
+     */
+    public AlertStateMachine(long coalesceWindowMs, long cooldownMs, int maxEscalations) {
+        if (coalesceWindowMs < 0 || cooldownMs < coalesceWindowMs || maxEscalations < 0) {
+            throw new IllegalArgumentException("window " + coalesceWindowMs + ", cooldown " + cooldownMs
+                    + ", escalations " + maxEscalations);
+        }
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.cooldownMs = cooldownMs;
+        this.maxEscalations = maxEscalations;
+    }
+
+    public Decision onTrigger(long nowMs) {
+        expire(nowMs);
+        Decision decision;
+        switch (state) {
+            case IDLE:
+                state = State.TRIGGERED;
+                escalations = 0;
+                merged = 0;
+                decision = Decision.NEW_ALERT;
+                break;
+            case SENT:
+                if (nowMs - sentAtMs >= coalesceWindowMs && escalations < maxEscalations) {
+                    state = State.ESCALATING;
+                    escalations++;
+                    decision = Decision.ESCALATE;
+                } else {
+                    merged++;
+                    decision = Decision.MERGED;
+                }
+                break;
+            default:
+                merged++;
+                decision = Decision.MERGED;
+                break;
+        }
+        return decision;
+    }
+
+    /**
+     * The alert or follow-up in flight was handed to the SMS layer.
+     */
+    public void onSent(long nowMs) {
+        if (state == State.TRIGGERED || state == State.ESCALATING) {
+            state = State.SENT;
+            sentAtMs = nowMs;
+        }
+    }
+
+    /**
+     * The alert or follow-up in flight could not be sent (no contacts, no SMS permission). A
+     * failed alert leaves the machine idle so the next trigger tries again; a failed follow-up
+     * falls back to the alert that was sent.
+     */
+    public void onAborted() {
+        if (state == State.TRIGGERED) {
+            state = State.IDLE;
+        } else if (state == State.ESCALATING) {
+            state = State.SENT;
+            escalations--;
+        }
+    }
+
+    public State state(long nowMs) {
+        expire(nowMs);
+        return state;
+    }
+
+    /** Follow-ups started for the current alert. */
+    public int escalations() {
+        return escalations;
+    }
+
+    /** Triggers merged into the current alert. */
+    public int mergedCount() {
+        return merged;
+    }
+
+    private void expire(long nowMs) {
+        if (state == State.SENT && nowMs - sentAtMs >= cooldownMs) {
+            state = State.IDLE;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return state + " (escalations=" + escalations + ", merged=" + merged + ")";
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.womensafetyapp;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small thread pool with a bounded queue for background work nothing waits on, such as saving
+ * statistics. When the queue is full the oldest queued task is dropped in favour of the new one,
+ * so a stuck disk can never grow the queue or block the thread that submits. Only submit work
+ * that may be lost. Idle threads exit after {@link #KEEP_ALIVE_SECONDS}.
+ */
+public final class BoundedExecutor extends ThreadPoolExecutor {
+
+    static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    /**
+     * @param name prefix of the thread names, which are {@code name-1}, {@code name-2}, ...
+     */
+    public BoundedExecutor(String name, int threads, int queueCapacity) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads(name));
+        allowCoreThreadTimeOut(true);
+        setRejectedExecutionHandler((task, executor) -> {
+            dropped.incrementAndGet();
+            if (!executor.isShutdown()) {
+                executor.getQueue().poll();
+                executor.execute(task);
+            }
+        });
+    }
+
+    /** Tasks dropped so far, because the queue was full or the executor was shut down. */
+    public int droppedCount() {
+        return dropped.get();
+    }
+
+    private static ThreadFactory namedThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.womensafetyapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * The emergency contacts, held in memory and shared by the activity and the service. Numbers are
+ * normalized on the way in (see {@link PhoneNumbers#normalize}: E.164 where the country is known,
+ * national digits as typed otherwise) and de-duplicated; the list is ordered by priority (lowest
+ * first, ties in insertion order) and has no size limit.
+ *
+ * Every change publishes a new immutable snapshot, so {@link #contacts()} and {@link #numbers()}
+ * never lock or touch the disk and are safe to call from the alert path on any thread. Listeners
+ * are told about each change on the thread that made it.
+ *
+ * The file format is {@code [magic][version][count]} followed by {@code [priority][digit count]
+ * [packed BCD digits]} per contact and a CRC32 of everything before it. The top bit of the digit
+ * count marks a national number, which has no {@code +}; version 1 files only had E.164 numbers.
+ * The count is an int; versions 1 and 2 wrote an unsigned short, which wrapped above 65535.
+ */
+public final class ContactRegistry {
+
+    public interface Listener {
+        void onContactsChanged(List<Contact> contacts);
+    }
+
+    public static final class Contact {
+        public final String number;
+        public final int priority;
+
+        public Contact(String number, int priority) {
+            this.number = number;
+            this.priority = priority;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Contact)) {
+                return false;
+            }
+            Contact other = (Contact) o;
+            return priority == other.priority && number.equals(other.number);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * number.hashCode() + priority;
+        }
+
+        @Override
+        public String toString() {
+            return number + " (priority " + priority + ")";
+        }
+    }
+
+    private static final int FILE_MAGIC = 0x4B434F4E; // "KCON"
+    private static final int FILE_VERSION = 3;
+    // Priority, digit count and at least one byte of digits
+    private static final int MIN_CONTACT_BYTES = 6;
+    private static final int NATIONAL_FLAG = 0x80;
+    private static final Comparator<Contact> BY_PRIORITY = (a, b) -> Integer.compare(a.priority, b.priority);
+
+    private final String defaultCallingCode;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile List<Contact> contacts = Collections.emptyList();
+    private volatile List<String> numbers = Collections.emptyList();
+
+    /**
+     * @param defaultCallingCode calling code for numbers typed without one, e.g. {@code "91"}, or
+     *     null to keep those as national numbers
+     */
+    public ContactRegistry(String defaultCallingCode) {
+        this.defaultCallingCode = defaultCallingCode;
+    }
+
+    /** Contacts in priority order. Immutable. */
+    public List<Contact> contacts() {
+        return contacts;
+    }
+
+    /** Numbers in priority order, as the alert is sent to them. Immutable. */
+    public List<String> numbers() {
+        return numbers;
+    }
+
+    public boolean isEmpty() {
+        return numbers.isEmpty();
+    }
+
+    /**
+     * @return {@code rawNumber} as this registry would store it, or null if it is not a phone number
+     */
+    public String normalize(String rawNumber) {
+        return PhoneNumbers.normalize(rawNumber, defaultCallingCode);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Replaces all contacts; the position in {@code rawNumbers} is the priority. Blank entries are
+     * skipped and duplicates keep their first position.
+     *
+     * @return the non-blank entries that are not phone numbers, which are left out
+     */
+    public List<String> replaceAll(List<String> rawNumbers) {
+        return replaceAll(rawNumbers, defaultCallingCode);
+    }
+
+    /**
+     * {@link #replaceAll} without adding the default calling code: numbers that were sent as
+     * typed before keep working exactly as they did.
+     */
+    public List<String> replaceAllAsTyped(List<String> rawNumbers) {
+        return replaceAll(rawNumbers, null);
+    }
+
+    private synchronized List<String> replaceAll(List<String> rawNumbers, String callingCode) {
+        List<Contact> next = new ArrayList<>(rawNumbers.size());
+        List<String> rejected = new ArrayList<>();
+        for (String raw : rawNumbers) {
+            if (raw == null || raw.trim().isEmpty()) {
+                continue;
+            }
+            String number = PhoneNumbers.normalize(raw, callingCode);
+            if (number == null) {
+                rejected.add(raw.trim());
+            } else if (indexOf(next, number) < 0) {
+                next.add(new Contact(number, next.size()));
+            }
+        }
+        publish(next);
+        return rejected;
+    }
+
+    /**
+     * Adds a contact, or moves an existing one to the given priority.
+     *
+     * @return false if {@code rawNumber} is not a phone number
+     */
+    public synchronized boolean add(String rawNumber, int priority) {
+        String number = normalize(rawNumber);
+        if (number == null) {
+            return false;
+        }
+        List<Contact> next = new ArrayList<>(contacts);
+        int existing = indexOf(next, number);
+        if (existing >= 0) {
+            next.remove(existing);
+        }
+        next.add(new Contact(number, priority));
+        publish(next);
+        return true;
+    }
+
+    /**
+     * @return false if the number was not registered
+     */
+    public synchronized boolean remove(String rawNumber) {
+        String number = normalize(rawNumber);
+        List<Contact> next = new ArrayList<>(contacts);
+        int existing = number != null ? indexOf(next, number) : -1;
+        if (existing < 0) {
+            return false;
+        }
+        next.remove(existing);
+        publish(next);
+        return true;
+    }
+
+    /**
+     * Writes the contacts to a temporary file, syncs it and renames it over {@code file}.
+     */
+    public synchronized void save(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + contacts.size() * 12);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FILE_MAGIC);
+        out.writeByte(FILE_VERSION);
+        out.writeInt(contacts.size());
+        for (Contact contact : contacts) {
+            out.writeInt(contact.priority);
+            writeDigits(out, contact.number);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+            bytes.writeTo(stream);
+            stream.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * Replaces the contacts with those saved by {@link #save}.
+     *
+     * @return false if the file does not exist, in which case nothing changes
+     */
+    public synchronized boolean load(File file) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        byte[] data = new byte[(int) file.length()];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(data);
+        }
+        if (data.length < 4) {
+            throw new IOException("Truncated contact file: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        int stored = ((data[data.length - 4] & 0xFF) << 24) | ((data[data.length - 3] & 0xFF) << 16)
+                | ((data[data.length - 2] & 0xFF) << 8) | (data[data.length - 1] & 0xFF);
+        if ((int) crc.getValue() != stored) {
+            throw new IOException("Corrupt contact file: " + file);
+        }
+
+        List<Contact> next = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4))) {
+            int version = in.readInt() == FILE_MAGIC ? in.readUnsignedByte() : -1;
+            if (version < 1 || version > FILE_VERSION) {
+                throw new IOException("Not a contact file: " + file);
+            }
+            int count = version >= 3 ? in.readInt() : in.readUnsignedShort();
+            // Checked before anything is read, so a bad count cannot size the list
+            if (count < 0 || count > in.available() / MIN_CONTACT_BYTES) {
+                throw new IOException("Bad contact count " + count + " in " + file);
+            }
+            for (int i = 0; i < count; i++) {
+                int priority = in.readInt();
+                next.add(new Contact(readDigits(in), priority));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated contact file: " + file, e);
+        }
+        publish(next);
+        return true;
+    }
+
+    private synchronized void publish(List<Contact> next) {
+        // List.sort is stable, so equal priorities stay in insertion order
+        next.sort(BY_PRIORITY);
+        List<String> nextNumbers = new ArrayList<>(next.size());
+        for (Contact contact : next) {
+            nextNumbers.add(contact.number);
+        }
+        contacts = Collections.unmodifiableList(next);
+        numbers = Collections.unmodifiableList(nextNumbers);
+        for (Listener listener : listeners) {
+            listener.onContactsChanged(contacts);
+        }
+    }
+
+    private static int indexOf(List<Contact> list, String number) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).number.equals(number)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Two digits per byte, high nibble first; an odd count leaves the last low nibble 0xF. */
+    private static void writeDigits(DataOutputStream out, String number) throws IOException {
+        int start = number.charAt(0) == '+' ? 1 : 0;
+        int count = number.length() - start;
+        out.writeByte(start == 0 ? count | NATIONAL_FLAG : count);
+        for (int i = 0; i < count; i += 2) {
+            int high = number.charAt(start + i) - '0';
+            int low = i + 1 < count ? number.charAt(start + i + 1) - '0' : 0xF;
+            out.writeByte((high << 4) | low);
+        }
+    }
+
+    private static String readDigits(DataInputStream in) throws IOException {
+        int header = in.readUnsignedByte();
+        int count = header & ~NATIONAL_FLAG;
+        if (count == 0 || count > PhoneNumbers.MAX_DIGITS) {
+            throw new IOException("Bad contact number length " + count);
+        }
+        int start = (header & NATIONAL_FLAG) != 0 ? 0 : 1;
+        char[] number = new char[start + count];
+        if (start == 1) {
+            number[0] = '+';
+        }
+        for (int i = 0; i < count; i += 2) {
+            int packed = in.readUnsignedByte();
+            number[start + i] = digit(packed >> 4);
+            if (i + 1 < count) {
+                number[start + i + 1] = digit(packed & 0xF);
+            }
+        }
+        return new String(number);
+    }
+
+    private static char digit(int nibble) throws IOException {
+        if (nibble > 9) {
+            throw new IOException("Bad contact digit " + nibble);
+        }
+        return (char) ('0' + nibble);
+    }
+}
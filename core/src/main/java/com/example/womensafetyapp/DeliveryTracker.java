@@ -0,0 +1,174 @@
+package com.example.womensafetyapp;
+
+import java.util.Arrays;
+
+/**
+ * Tracks one multipart SMS alert sent to several contacts in parallel: every part of every
+ * attempt through its sent and delivery reports, retry decisions with exponential backoff, and
+ * the time from dispatch to the first completed delivery per contact.
+ *
+ * An attempt counts as sent once every part has a successful sent report and as delivered once
+ * every part has a successful delivery report. A failed part fails its whole attempt; reports for
+ * superseded attempts are ignored. Not thread-safe: feed it from a single thread.
+ */
+public final class DeliveryTracker {
+
+    public enum State { SENDING, SENT, DELIVERED, FAILED }
+
+    /** Returned by the report methods when no retry should be scheduled. */
+    public static final long NO_RETRY = -1;
+
+    private final int parts;
+    private final long startMs;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+
+    // Per contact, for its current attempt
+    private final State[] states;
+    private final int[] attempts;
+    private final int[] sentParts;
+    private final int[] deliveredParts;
+    private final boolean[] attemptFailed;
+    private final long[] firstDeliveryMs;
+
+    public DeliveryTracker(int contacts, int parts, long startMs,
+                           int maxAttempts, long baseBackoffMs, long maxBackoffMs) {
+        if (contacts <= 0 || parts <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("contacts, parts and maxAttempts must be positive");
+        }
+        this.parts = parts;
+        this.startMs = startMs;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        states = new State[contacts];
+        Arrays.fill(states, State.SENDING);
+        attempts = new int[contacts];
+        sentParts = new int[contacts];
+        deliveredParts = new int[contacts];
+        attemptFailed = new boolean[contacts];
+        firstDeliveryMs = new long[contacts];
+        Arrays.fill(firstDeliveryMs, -1);
+    }
+
+    /**
+     * Starts the next attempt for a contact.
+     *
+     * @return the attempt number to tag its PendingIntents with, starting at 1
+     */
+    public int beginAttempt(int contact) {
+        attempts[contact]++;
+        sentParts[contact] = 0;
+        deliveredParts[contact] = 0;
+        attemptFailed[contact] = false;
+        states[contact] = State.SENDING;
+        return attempts[contact];
+    }
+
+    /**
+     * Records the sent report for one part.
+     *
+     * @param retryable whether the failure is worth another attempt (radio off, no service, ...)
+     * @return the backoff before the next attempt, or {@link #NO_RETRY}
+     */
+    public long onSent(int contact, int attempt, boolean ok, boolean retryable) {
+        if (isStale(contact, attempt)) {
+            return NO_RETRY;
+        }
+        if (!ok) {
+            return failAttempt(contact, retryable);
+        }
+        sentParts[contact]++;
+        if (sentParts[contact] == parts && states[contact] == State.SENDING) {
+            states[contact] = State.SENT;
+        }
+        return NO_RETRY;
+    }
+
+    /**
+     * Records the delivery report for one part. A permanent delivery failure is retried like a
+     * send failure.
+     *
+     * @return the backoff before the next attempt, or {@link #NO_RETRY}
+     */
+    public long onDelivered(int contact, int attempt, boolean ok, long nowMs) {
+        if (isStale(contact, attempt)) {
+            return NO_RETRY;
+        }
+        if (!ok) {
+            return failAttempt(contact, true);
+        }
+        deliveredParts[contact]++;
+        if (deliveredParts[contact] == parts) {
+            states[contact] = State.DELIVERED;
+            if (firstDeliveryMs[contact] < 0) {
+                firstDeliveryMs[contact] = nowMs - startMs;
+            }
+        }
+        return NO_RETRY;
+    }
+
+    /**
+     * Marks the current attempt as failed without a report, e.g. when the SmsManager call threw.
+     *
+     * @return the backoff before the next attempt, or {@link #NO_RETRY}
+     */
+    public long onSubmitFailed(int contact, boolean retryable) {
+        if (attemptFailed[contact] || states[contact] == State.DELIVERED) {
+            return NO_RETRY;
+        }
+        return failAttempt(contact, retryable);
+    }
+
+    private boolean isStale(int contact, int attempt) {
+        return attempt != attempts[contact] || attemptFailed[contact] || states[contact] == State.DELIVERED;
+    }
+
+    private long failAttempt(int contact, boolean retryable) {
+        attemptFailed[contact] = true;
+        if (!retryable || attempts[contact] >= maxAttempts) {
+            states[contact] = State.FAILED;
+            return NO_RETRY;
+        }
+        states[contact] = State.SENDING;
+        long backoff = baseBackoffMs << Math.min(attempts[contact] - 1, 20);
+        return Math.min(backoff, maxBackoffMs);
+    }
+
+    public State state(int contact) {
+        return states[contact];
+    }
+
+    public int attempts(int contact) {
+        return attempts[contact];
+    }
+
+    /**
+     * Milliseconds from dispatch start until every part of one attempt was delivered, or -1 if
+     * that has not happened (yet). Some carriers never send delivery reports.
+     */
+    public long timeToFirstDeliveryMs(int contact) {
+        return firstDeliveryMs[contact];
+    }
+
+    /**
+     * Whether every contact has either been delivered to or given up on.
+     */
+    public boolean isFinished() {
+        for (State state : states) {
+            if (state != State.DELIVERED && state != State.FAILED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int contactCount() {
+        return states.length;
+    }
+
+    public int partCount() {
+        return parts;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.womensafetyapp;
+
+/**
+ * Builds the alert SMS text. Every message is tried as a few candidates, from the full wording
+ * with a maps link down to terse wording with bare coordinates, and the first that fits in a
+ * single SMS part is used (otherwise the one with the fewest parts). Coordinates are written with
+ * five decimals, about a metre, and the app name is folded to GSM-7 so one stray character cannot
+ * force UCS-2.
+ *
+ * The fixed parts are assembled once; candidates are built in a reused builder. Not thread-safe.
+ */
+public final class EmergencyMessageBuilder {
+
+    static final String MAPS_URL = "https://maps.google.com/?q=";
+    // Linkified by SMS apps without the scheme
+    static final String SHORT_MAPS_URL = "maps.google.com/?q=";
+    static final String NO_LOCATION = "Location Unavailable.";
+    static final int COORDINATE_DECIMALS = 5;
+
+    /** How the location is written, longest and most convenient first. */
+    enum LocationFormat {
+        LINK, SHORT_LINK, COORDINATES
+    }
+
+    private static final LocationFormat[] FORMATS = LocationFormat.values();
+    private static final long COORDINATE_SCALE = 100_000;
+
+    private final String appName;
+    private final String[] alertLeads;
+    private final String[] alertLeadsWithoutLocation;
+    private final String[] followUpLeads;
+    private final String[] followUpLeadsWithoutLocation;
+    private final StringBuilder sb = new StringBuilder(192);
+    private int lastSegments;
+
+    public EmergencyMessageBuilder(String appName) {
+        this.appName = SmsSegments.toGsm7(appName);
+        String prefix = "Emergency! I need help immediately. This message was triggered by the " + this.appName + ". ";
+        String shortPrefix = "SOS! I need help now. " + this.appName + ". ";
+        String followUpPrefix = "Update: I still need help. Sent again by the " + this.appName + ". ";
+        String shortFollowUpPrefix = "Still need help. " + this.appName + ". ";
+        alertLeads = new String[]{prefix + "My live location: ", shortPrefix + "Location: ", "SOS! Help me: "};
+        alertLeadsWithoutLocation = new String[]{prefix + NO_LOCATION, shortPrefix + NO_LOCATION};
+        followUpLeads = new String[]{followUpPrefix + "My latest location: ", shortFollowUpPrefix + "Now at: "};
+        followUpLeadsWithoutLocation = new String[]{followUpPrefix + NO_LOCATION, shortFollowUpPrefix + NO_LOCATION};
+    }
+
+    public String build(double latitude, double longitude) {
+        return pick(alertLeads, latitude, longitude, null);
+    }
+
+    /**
+     * Alert with a description of the place on its own line, e.g. from
+     * {@link LandmarkIndex#describe}. The description is dropped if no wording fits in one part
+     * with it.
+     *
+     * @param nearby may be null
+     */
+    public String build(double latitude, double longitude, String nearby) {
+        return pick(alertLeads, latitude, longitude, nearby);
+    }
+
+    public String buildWithoutLocation() {
+        return pick(alertLeadsWithoutLocation);
+    }
+
+    /**
+     * Follow-up to an alert already sent, for repeated triggers; carries the newest location.
+     */
+    public String buildFollowUp(double latitude, double longitude) {
+        return pick(followUpLeads, latitude, longitude, null);
+    }
+
+    /** Follow-up with a description of the place, as for {@link #build(double, double, String)}. */
+    public String buildFollowUp(double latitude, double longitude, String nearby) {
+        return pick(followUpLeads, latitude, longitude, nearby);
+    }
+
+    public String buildFollowUpWithoutLocation() {
+        return pick(followUpLeadsWithoutLocation);
+    }
+
+    /**
+     * One message of the location stream that follows an alert.
+     */
+    public String buildLocationUpdate(FollowUpTracker.Update update) {
+        sb.setLength(0);
+        sb.append("Location update ").append(update.sequence).append(" from the ").append(appName);
+        if (Double.isNaN(update.movedMeters)) {
+            sb.append('.');
+        } else {
+            sb.append(": moved ").append(Math.round(update.movedMeters)).append(" m in ")
+                    .append(Math.max(1, Math.round(update.sinceLastMs / 60_000.0))).append(" min.");
+        }
+        sb.append(" Now at: ");
+        String lead = sb.toString();
+        return pick(new String[]{lead, "Update " + update.sequence + ": "}, update.latitude, update.longitude, null);
+    }
+
+    /**
+     * An alert sent again after the service restarted, marked as late so it is not read as a
+     * live emergency. Its location is the one it was first built with.
+     *
+     * @param raisedAt when the alert was first raised, already formatted for the reader
+     */
+    public String buildDelayed(String original, String raisedAt) {
+        sb.setLength(0);
+        sb.append("DELAYED alert from ").append(raisedAt).append(", location as of then. ").append(original);
+        lastSegments = SmsSegments.count(sb);
+        return sb.toString();
+    }
+
+    /** SMS parts of the message built last. */
+    public int lastSegments() {
+        return lastSegments;
+    }
+
+    private String pick(String[] leads, double latitude, double longitude, String nearby) {
+        if (nearby != null && !nearby.isEmpty()) {
+            String suffix = '\n' + SmsSegments.toGsm7(nearby);
+            for (int i = 0; i < leads.length * FORMATS.length; i++) {
+                if (candidate(leads, i, latitude, longitude, suffix) == 1) {
+                    lastSegments = 1;
+                    return sb.toString();
+                }
+            }
+        }
+        int best = -1;
+        int bestSegments = Integer.MAX_VALUE;
+        for (int i = 0; i < leads.length * FORMATS.length; i++) {
+            int segments = candidate(leads, i, latitude, longitude, null);
+            if (segments == 1) {
+                lastSegments = 1;
+                return sb.toString();
+            }
+            if (segments < bestSegments) {
+                best = i;
+                bestSegments = segments;
+            }
+        }
+        lastSegments = candidate(leads, best, latitude, longitude, null);
+        return sb.toString();
+    }
+
+    private String pick(String[] leads) {
+        for (String lead : leads) {
+            lastSegments = SmsSegments.count(lead);
+            if (lastSegments == 1) {
+                return lead;
+            }
+        }
+        return leads[leads.length - 1];
+    }
+
+    // Candidate i: location format i / leads.length with wording i % leads.length, so a working
+    // link is given up only after every wording has been tried with it
+    private int candidate(String[] leads, int i, double latitude, double longitude, String suffix) {
+        sb.setLength(0);
+        sb.append(leads[i % leads.length]);
+        appendLocation(sb, FORMATS[i / leads.length], latitude, longitude);
+        if (suffix != null) {
+            sb.append(suffix);
+        }
+        return SmsSegments.count(sb);
+    }
+
+    static void appendLocation(StringBuilder out, LocationFormat format, double latitude, double longitude) {
+        if (format == LocationFormat.LINK) {
+            out.append(MAPS_URL);
+        } else if (format == LocationFormat.SHORT_LINK) {
+            out.append(SHORT_MAPS_URL);
+        }
+        appendCoordinate(out, latitude);
+        out.append(',');
+        appendCoordinate(out, longitude);
+    }
+
+    /**
+     * Appends the value rounded to {@link #COORDINATE_DECIMALS} places, without trailing zeros.
+     */
+    static void appendCoordinate(StringBuilder out, double value) {
+        long scaled = Math.round(Math.abs(value) * COORDINATE_SCALE);
+        if (value < 0 && scaled != 0) {
+            out.append('-');
+        }
+        out.append(scaled / COORDINATE_SCALE);
+        long fraction = scaled % COORDINATE_SCALE;
+        if (fraction == 0) {
+            return;
+        }
+        out.append('.');
+        int digits = COORDINATE_DECIMALS;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        for (long p = pow10(digits - 1); fraction < p; p /= 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+
+    private static long pow10(int n) {
+        long p = 1;
+        for (int i = 0; i < n; i++) {
+            p *= 10;
+        }
+        return p;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.womensafetyapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Structured event log for the listening and alert hot paths: fixed-size binary records (time,
+ * {@link LogEvent} id, an int and a long argument) in a preallocated ring, so a steady-state event
+ * costs four buffer writes and no string building. The oldest records are overwritten once the
+ * ring is full.
+ *
+ * Backed by memory or by a memory-mapped file; the kernel writes mapped pages back even if the
+ * process is killed, so the history survives a crash and logcat rotation. {@link #decode} and
+ * {@link #export} turn the bytes back into text.
+ *
+ * Layout, big-endian: a {@value #HEADER_SIZE}-byte header (magic, record size, capacity, next
+ * sequence number) followed by the ring; record n lives in slot n % capacity.
+ *
+ * Safe to use from any thread.
+ */
+public final class EventLog {
+
+    public static final int RECORD_SIZE = 24;
+    public static final int HEADER_SIZE = 24;
+    static final int MAGIC = 0x45564c31; // "EVL1"
+    private static final int NEXT_OFFSET = 12;
+
+    /**
+     * One decoded record.
+     */
+    public static final class Record {
+        public final long sequence;
+        public final long timeMs;
+        public final int eventId;
+        /** Null for an id written by a newer version. */
+        public final LogEvent event;
+        public final int intArg;
+        public final long longArg;
+
+        Record(long sequence, long timeMs, int eventId, int intArg, long longArg) {
+            this.sequence = sequence;
+            this.timeMs = timeMs;
+            this.eventId = eventId;
+            this.event = LogEvent.byId(eventId);
+            this.intArg = intArg;
+            this.longArg = longArg;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final RestartScheduler.Clock clock;
+    private long next;
+
+    private EventLog(ByteBuffer buffer, int capacity, RestartScheduler.Clock clock, long next) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.clock = clock;
+        this.next = next;
+    }
+
+    /**
+     * @param clock wall-clock milliseconds, so records can be matched to a field report
+     */
+    public static EventLog inMemory(int capacity, RestartScheduler.Clock clock) {
+        ByteBuffer buffer = ByteBuffer.allocate(size(capacity));
+        writeHeader(buffer, capacity);
+        return new EventLog(buffer, capacity, clock, 0);
+    }
+
+    /**
+     * Maps {@code file}, continuing the log already in it when it has the same capacity and
+     * starting a new one otherwise.
+     */
+    public static EventLog open(File file, int capacity, RestartScheduler.Clock clock) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(capacity));
+        }
+        long next = 0;
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == RECORD_SIZE && buffer.getInt(8) == capacity
+                && buffer.getLong(NEXT_OFFSET) >= 0) {
+            next = buffer.getLong(NEXT_OFFSET);
+        } else {
+            writeHeader(buffer, capacity);
+        }
+        return new EventLog(buffer, capacity, clock, next);
+    }
+
+    public void log(LogEvent event) {
+        log(event, 0, 0);
+    }
+
+    public void log(LogEvent event, int intArg) {
+        log(event, intArg, 0);
+    }
+
+    public synchronized void log(LogEvent event, int intArg, long longArg) {
+        int at = HEADER_SIZE + (int) (next % capacity) * RECORD_SIZE;
+        buffer.putLong(at, clock.nowMs());
+        buffer.putInt(at + 8, event.id);
+        buffer.putInt(at + 12, intArg);
+        buffer.putLong(at + 16, longArg);
+        // Advanced after the record, so a reader never sees a slot it has not been written to
+        buffer.putLong(NEXT_OFFSET, ++next);
+    }
+
+    /** Records written since the log was created, including overwritten ones. */
+    public synchronized long written() {
+        return next;
+    }
+
+    /** A copy of the log's bytes, for {@link #decode}. */
+    public synchronized ByteBuffer snapshot() {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.capacity());
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        copy.put(source);
+        copy.flip();
+        return copy;
+    }
+
+    /** Asks the kernel to write a file-backed log to storage now; a no-op in memory. */
+    public void flush() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    /**
+     * @return the records still in the ring, oldest first
+     */
+    public static List<Record> decode(ByteBuffer in) throws IOException {
+        if (in.remaining() < HEADER_SIZE) {
+            throw new IOException("Truncated event log");
+        }
+        int base = in.position();
+        if (in.getInt(base) != MAGIC || in.getInt(base + 4) != RECORD_SIZE) {
+            throw new IOException("Not an event log");
+        }
+        int capacity = in.getInt(base + 8);
+        long next = in.getLong(base + NEXT_OFFSET);
+        if (capacity <= 0 || next < 0 || in.remaining() < HEADER_SIZE + (long) capacity * RECORD_SIZE) {
+            throw new IOException("Truncated event log");
+        }
+        long first = Math.max(0, next - capacity);
+        List<Record> records = new ArrayList<>((int) (next - first));
+        for (long seq = first; seq < next; seq++) {
+            int at = base + HEADER_SIZE + (int) (seq % capacity) * RECORD_SIZE;
+            records.add(new Record(seq, in.getLong(at), in.getInt(at + 8), in.getInt(at + 12), in.getLong(at + 16)));
+        }
+        return records;
+    }
+
+    /**
+     * Writes one line per record, e.g.
+     * "2026-10-18 21:04:05.123 #812 recognizer error code=7 restartMs=0".
+     *
+     * @return the number of records written
+     */
+    public static int export(ByteBuffer in, TimeZone zone, Appendable out) throws IOException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.ROOT);
+        format.setTimeZone(zone);
+        StringBuilder line = new StringBuilder(96);
+        List<Record> records = decode(in);
+        for (Record record : records) {
+            line.setLength(0);
+            line.append(format.format(new Date(record.timeMs))).append(" #").append(record.sequence).append(' ');
+            LogEvent event = record.event;
+            if (event == null) {
+                line.append("event ").append(record.eventId).append(' ')
+                        .append(record.intArg).append(' ').append(record.longArg);
+            } else {
+                line.append(event.label);
+                if (event.intArg != null) {
+                    line.append(' ').append(event.intArg).append('=').append(record.intArg);
+                }
+                if (event.longArg != null) {
+                    line.append(' ').append(event.longArg).append('=').append(record.longArg);
+                }
+            }
+            out.append(line).append('\n');
+        }
+        return records.size();
+    }
+
+    private static int size(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        return HEADER_SIZE + capacity * RECORD_SIZE;
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int capacity) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, RECORD_SIZE);
+        buffer.putInt(8, capacity);
+        buffer.putLong(NEXT_OFFSET, 0);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.womensafetyapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saves the audio around an alert: the pre-trigger seconds still held in an {@link EvidenceRing}
+ * followed by the post-trigger seconds as they arrive, streamed to an IMA ADPCM WAV file in
+ * small chunks. The ring keeps being written by the microphone thread the whole time; this
+ * trails it, so memory stays at the ring plus one chunk however long the recording is.
+ *
+ * {@link #record} blocks for the post-trigger period; run it on its own worker thread, never on
+ * the alert path. One recording at a time. Take an {@link #arm} ticket when the recording is
+ * queued, so a {@link #stop} that comes before the worker gets to it still counts.
+ */
+public final class EvidenceRecorder {
+
+    public static final int CHUNK_SAMPLES = 1600; // 100 ms at 16 kHz
+    static final long POLL_MS = 20;
+    // How long past the post-trigger period to wait for audio that is not coming
+    static final long SLACK_MS = 2_000;
+
+    /**
+     * What ended up in the file.
+     */
+    public static final class Result {
+        public final File file;
+        /** Samples written in total. */
+        public final long samples;
+        /** Samples from before the trigger. */
+        public final long preSamples;
+        /** Samples lost because the writer lapped this reader. */
+        public final long droppedSamples;
+        /** True if the microphone went quiet before the post-trigger period was complete. */
+        public final boolean timedOut;
+
+        Result(File file, long samples, long preSamples, long droppedSamples, boolean timedOut) {
+            this.file = file;
+            this.samples = samples;
+            this.preSamples = preSamples;
+            this.droppedSamples = droppedSamples;
+            this.timedOut = timedOut;
+        }
+
+        @Override
+        public String toString() {
+            return file.getName() + ": " + samples + " samples (" + preSamples + " before the trigger), "
+                    + droppedSamples + " dropped" + (timedOut ? ", audio stopped early" : "");
+        }
+    }
+
+    private final EvidenceRing ring;
+    private final RestartScheduler.Clock clock;
+    private final short[] chunk = new short[CHUNK_SAMPLES];
+    private volatile boolean recording;
+    // Bumped by stop(); a recording armed at an older value is stopped
+    private final AtomicLong generation = new AtomicLong();
+
+    public EvidenceRecorder(EvidenceRing ring, RestartScheduler.Clock clock) {
+        this.ring = ring;
+        this.clock = clock;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Ends a recording in progress early, keeping what was written so far, and cancels every
+     * recording armed before this call that has not started yet.
+     */
+    public void stop() {
+        generation.incrementAndGet();
+    }
+
+    /** Ticket for {@link #record(long, File, int, int)}; take it when the recording is queued. */
+    public long arm() {
+        return generation.get();
+    }
+
+    /**
+     * Writes up to {@code preSeconds} of audio from before the call and {@code postSeconds} after
+     * it to {@code file}, replacing it.
+     *
+     * @throws IllegalStateException if a recording is already running
+     */
+    public Result record(File file, int preSeconds, int postSeconds) throws IOException {
+        return record(arm(), file, preSeconds, postSeconds);
+    }
+
+    /**
+     * Like {@link #record(File, int, int)}, for a recording armed earlier.
+     *
+     * @return null, with no file written, if {@link #stop} was called after {@code ticket} was taken
+     */
+    public Result record(long ticket, File file, int preSeconds, int postSeconds) throws IOException {
+        synchronized (this) {
+            if (recording) {
+                throw new IllegalStateException("already recording");
+            }
+            if (generation.get() != ticket) {
+                return null;
+            }
+            recording = true;
+        }
+        try {
+            return copy(ticket, file, preSeconds, postSeconds);
+        } finally {
+            recording = false;
+        }
+    }
+
+    private Result copy(long ticket, File file, int preSeconds, int postSeconds) throws IOException {
+        int rate = ring.sampleRate();
+        long trigger = ring.written();
+        long from = Math.max(ring.oldest(), trigger - (long) preSeconds * rate);
+        long end = trigger + (long) postSeconds * rate;
+        long preSamples = trigger - from;
+        long deadline = clock.nowMs() + postSeconds * 1000L + SLACK_MS;
+        long dropped = 0;
+        boolean timedOut = false;
+
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create " + dir);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             ImaAdpcmWavWriter writer = new ImaAdpcmWavWriter(raf.getChannel(), rate)) {
+            while (from < end && generation.get() == ticket) {
+                int n = ring.read(from, chunk, 0, (int) Math.min(CHUNK_SAMPLES, end - from));
+                if (n < 0) {
+                    // Lapped: jump to the oldest sample still there
+                    long oldest = ring.oldest();
+                    dropped += oldest - from;
+                    from = oldest;
+                    continue;
+                }
+                if (n == 0) {
+                    if (clock.nowMs() >= deadline) {
+                        timedOut = true;
+                        break;
+                    }
+                    try {
+                        Thread.sleep(POLL_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    continue;
+                }
+                writer.write(chunk, 0, n);
+                from += n;
+            }
+            return new Result(file, writer.samples(), preSamples, dropped, timedOut);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.womensafetyapp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The last few seconds of microphone audio (16-bit mono PCM), kept so that an alert can be
+ * saved with what was heard just before it. The ring is one direct buffer allocated up front;
+ * writing and reading allocate nothing, so memory stays constant however long the service runs.
+ *
+ * One writer at a time (the thread that owns the microphone) and one reader. Positions are
+ * absolute sample counts; the reader trails the writer and checks after every copy that the
+ * writer has not lapped it, so a slow reader loses samples rather than reading torn ones. The
+ * writer announces how far a write will reach before it overwrites anything, so the check also
+ * covers a write still in progress.
+ */
+public final class EvidenceRing {
+
+    private final ByteBuffer ring;
+    private final int capacity;
+    private final int sampleRate;
+    // Samples ever written; published after the samples themselves
+    private volatile long written;
+    // End of the write in progress, published before its samples; equals written between writes
+    private volatile long reserved;
+
+    public EvidenceRing(int sampleRate, int seconds) {
+        if (sampleRate <= 0 || seconds <= 0) {
+            throw new IllegalArgumentException("rate " + sampleRate + ", seconds " + seconds);
+        }
+        this.sampleRate = sampleRate;
+        capacity = sampleRate * seconds;
+        ring = ByteBuffer.allocateDirect(capacity * 2).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    /** Samples ever written; the position just past the newest sample. */
+    public long written() {
+        return written;
+    }
+
+    /** Oldest position still held, not counting one a write in progress is overwriting. */
+    public long oldest() {
+        return Math.max(0, reserved - capacity);
+    }
+
+    public void write(short[] src, int off, int len) {
+        long position = written;
+        reserved = position + len;
+        for (int i = 0; i < len; i++) {
+            ring.putShort(index(position + i), src[off + i]);
+        }
+        written = position + len;
+    }
+
+    /**
+     * Writes float samples in [-1, 1], as the VAD gate reads them.
+     */
+    public void write(float[] src, int off, int len) {
+        long position = written;
+        reserved = position + len;
+        for (int i = 0; i < len; i++) {
+            float v = Math.max(-1f, Math.min(1f, src[off + i]));
+            ring.putShort(index(position + i), (short) (v * Short.MAX_VALUE));
+        }
+        written = position + len;
+    }
+
+    /**
+     * Writes little-endian 16-bit PCM bytes, as {@code onBufferReceived} delivers them.
+     */
+    public void write(byte[] src, int off, int len) {
+        long position = written;
+        int samples = len / 2;
+        reserved = position + samples;
+        for (int i = 0; i < samples; i++) {
+            int lo = src[off + 2 * i] & 0xff;
+            int hi = src[off + 2 * i + 1];
+            ring.putShort(index(position + i), (short) (hi << 8 | lo));
+        }
+        written = position + samples;
+    }
+
+    /**
+     * Copies samples from absolute position {@code from} onwards, up to what has been written.
+     *
+     * @return samples copied (0 if there is nothing new yet), or -1 if {@code from} has already
+     *         been overwritten; the reader should then skip ahead to {@link #oldest()}
+     */
+    public int read(long from, short[] dst, int off, int len) {
+        long end = written;
+        if (from < reserved - capacity) {
+            return -1;
+        }
+        int n = (int) Math.min(len, end - from);
+        for (int i = 0; i < n; i++) {
+            dst[off + i] = ring.getShort(index(from + i));
+        }
+        // The writer may have moved on while we copied, or be part-way through a write that
+        // overwrites the start of the copy; anything it reached again is torn
+        if (from < reserved - capacity) {
+            return -1;
+        }
+        return Math.max(0, n);
+    }
+
+    private int index(long position) {
+        return (int) (position % capacity) * 2;
+    }
+}
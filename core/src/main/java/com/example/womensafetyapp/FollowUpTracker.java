@@ -0,0 +1,170 @@
+package com.example.womensafetyapp;
+
+/**
+ * Decides when to send a location update after an alert, for {@link Config#durationMs}. An update
+ * is due once the user has moved {@link Config#minDistanceMeters} from the last position sent, or
+ * {@link Config#maxIntervalMs} has passed without one. Updates are never closer together than
+ * {@link Config#minIntervalMs}: fixes that arrive in between are batched into the next update,
+ * which carries only the newest of them. With at most {@link Config#maxUpdates} per alert the SMS
+ * count stays bounded however the user moves.
+ *
+ * Deterministic: time is passed in. Not thread-safe: call it from the alert thread.
+ */
+public final class FollowUpTracker {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    public static final class Config {
+        public static final Config DEFAULT = new Config(30 * 60_000, 60_000, 5 * 60_000, 100, 20);
+
+        public final long durationMs;
+        public final long minIntervalMs;
+        public final long maxIntervalMs;
+        public final double minDistanceMeters;
+        public final int maxUpdates;
+
+        public Config(long durationMs, long minIntervalMs, long maxIntervalMs, double minDistanceMeters,
+                      int maxUpdates) {
+            if (minIntervalMs <= 0 || maxIntervalMs < minIntervalMs || maxUpdates < 0) {
+                throw new IllegalArgumentException("intervals " + minIntervalMs + "/" + maxIntervalMs
+                        + ", updates " + maxUpdates);
+            }
+            this.durationMs = durationMs;
+            this.minIntervalMs = minIntervalMs;
+            this.maxIntervalMs = maxIntervalMs;
+            this.minDistanceMeters = minDistanceMeters;
+            this.maxUpdates = maxUpdates;
+        }
+    }
+
+    /**
+     * One location update to send.
+     */
+    public static final class Update {
+        /** Counts from 1 for each alert. */
+        public final int sequence;
+        public final double latitude;
+        public final double longitude;
+        /** Distance from the last position sent; NaN if none was sent. */
+        public final double movedMeters;
+        public final long sinceLastMs;
+        /** Fixes batched into this update. */
+        public final int fixes;
+
+        Update(int sequence, double latitude, double longitude, double movedMeters, long sinceLastMs, int fixes) {
+            this.sequence = sequence;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.movedMeters = movedMeters;
+            this.sinceLastMs = sinceLastMs;
+            this.fixes = fixes;
+        }
+    }
+
+    private final Config config;
+
+    private boolean active;
+    private long startMs;
+    private long lastSentMs;
+    private double sentLatitude = Double.NaN;
+    private double sentLongitude = Double.NaN;
+    private double latitude = Double.NaN;
+    private double longitude = Double.NaN;
+    private float accuracy;
+    private int fixesSinceSent;
+    private int updates;
+
+    public FollowUpTracker(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * Starts (or restarts) the follow-up period of an alert.
+     *
+     * @param latitude position in the alert itself, or NaN if it went out without one
+     */
+    public void start(long nowMs, double latitude, double longitude) {
+        active = true;
+        startMs = nowMs;
+        lastSentMs = nowMs;
+        sentLatitude = latitude;
+        sentLongitude = longitude;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        accuracy = 0;
+        fixesSinceSent = 0;
+        updates = 0;
+    }
+
+    public void stop() {
+        active = false;
+    }
+
+    public boolean isActive(long nowMs) {
+        if (active && (nowMs - startMs >= config.durationMs || updates >= config.maxUpdates)) {
+            active = false;
+        }
+        return active;
+    }
+
+    /**
+     * @return the update to send now, or null
+     */
+    public Update onFix(long nowMs, double latitude, double longitude, float accuracyMeters) {
+        if (!isActive(nowMs)) {
+            return null;
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+        accuracy = accuracyMeters;
+        fixesSinceSent++;
+        return due(nowMs);
+    }
+
+    /**
+     * Called periodically so batched fixes and the max interval fire without a new fix.
+     *
+     * @return the update to send now, or null
+     */
+    public Update onTick(long nowMs) {
+        return isActive(nowMs) ? due(nowMs) : null;
+    }
+
+    /** Updates sent for the current alert. */
+    public int updateCount() {
+        return updates;
+    }
+
+    private Update due(long nowMs) {
+        long sinceLastMs = nowMs - lastSentMs;
+        if (Double.isNaN(latitude) || sinceLastMs < config.minIntervalMs) {
+            return null;
+        }
+        double moved = Double.isNaN(sentLatitude)
+                ? Double.NaN
+                : distanceMeters(sentLatitude, sentLongitude, latitude, longitude);
+        // A fix that moved less than its own accuracy has not really moved
+        boolean hasMoved = Double.isNaN(moved) || moved >= Math.max(config.minDistanceMeters, accuracy);
+        if (!hasMoved && sinceLastMs < config.maxIntervalMs) {
+            return null;
+        }
+        Update update = new Update(++updates, latitude, longitude, moved, sinceLastMs, fixesSinceSent);
+        lastSentMs = nowMs;
+        sentLatitude = latitude;
+        sentLongitude = longitude;
+        fixesSinceSent = 0;
+        return update;
+    }
+
+    /**
+     * Great-circle distance (haversine).
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
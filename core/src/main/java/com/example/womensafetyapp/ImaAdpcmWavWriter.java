@@ -0,0 +1,175 @@
+package com.example.womensafetyapp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streams 16-bit mono PCM to a WAV file as IMA ADPCM (format 0x0011), 4 bits per sample, a
+ * quarter of the PCM size. Blocks are {@link #BLOCK_ALIGN} bytes with the usual 4-byte header,
+ * so common players and ffmpeg can read the file. Each block is written as soon as it fills;
+ * the header sizes are patched in on {@link #close()}.
+ *
+ * Buffers are allocated in the constructor; writing allocates nothing.
+ */
+public final class ImaAdpcmWavWriter implements Closeable {
+
+    public static final int BLOCK_ALIGN = 256;
+    public static final int SAMPLES_PER_BLOCK = (BLOCK_ALIGN - 4) * 2 + 1;
+    static final int HEADER_SIZE = 60;
+
+    private static final int[] INDEX_TABLE = {-1, -1, -1, -1, 2, 4, 6, 8, -1, -1, -1, -1, 2, 4, 6, 8};
+
+    static final int[] STEP_TABLE = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+            50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+            337, 371, 408, 449, 494, 544, 598, 658, 724, 796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+            2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442,
+            11487, 12635, 13899, 15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+    };
+
+    private final FileChannel channel;
+    private final int sampleRate;
+    private final short[] block = new short[SAMPLES_PER_BLOCK];
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BLOCK_ALIGN).order(ByteOrder.LITTLE_ENDIAN);
+    private int blockFill;
+    private int stepIndex;
+    // Reconstructed value of the last encoded sample, as a decoder will see it
+    private int decoded;
+    private long samples;
+    private long dataBytes;
+    private boolean closed;
+
+    /**
+     * Writes a header with placeholder sizes at the start of the channel.
+     */
+    public ImaAdpcmWavWriter(FileChannel channel, int sampleRate) throws IOException {
+        this.channel = channel;
+        this.sampleRate = sampleRate;
+        channel.truncate(0);
+        channel.position(0);
+        writeHeader();
+    }
+
+    public void write(short[] src, int off, int len) throws IOException {
+        for (int i = 0; i < len; i++) {
+            block[blockFill++] = src[off + i];
+            if (blockFill == SAMPLES_PER_BLOCK) {
+                writeBlock();
+            }
+        }
+        samples += len;
+    }
+
+    /** Samples written so far. */
+    public long samples() {
+        return samples;
+    }
+
+    /**
+     * Writes the last, padded block and the final sizes, then closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (blockFill > 0) {
+                // Pad with the last sample; the fact chunk tells readers where the audio ends
+                short last = block[blockFill - 1];
+                while (blockFill < SAMPLES_PER_BLOCK) {
+                    block[blockFill++] = last;
+                }
+                writeBlock();
+            }
+            channel.position(0);
+            writeHeader();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0x46464952); // RIFF
+        header.putInt((int) (HEADER_SIZE - 8 + dataBytes));
+        header.putInt(0x45564157); // WAVE
+        header.putInt(0x20746d66); // "fmt "
+        header.putInt(20);
+        header.putShort((short) 0x0011); // IMA ADPCM
+        header.putShort((short) 1);
+        header.putInt(sampleRate);
+        header.putInt((int) ((long) sampleRate * BLOCK_ALIGN / SAMPLES_PER_BLOCK));
+        header.putShort((short) BLOCK_ALIGN);
+        header.putShort((short) 4);
+        header.putShort((short) 2);
+        header.putShort((short) SAMPLES_PER_BLOCK);
+        header.putInt(0x74636166); // "fact"
+        header.putInt(4);
+        header.putInt((int) samples);
+        header.putInt(0x61746164); // "data"
+        header.putInt((int) dataBytes);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        out.clear();
+        // The first sample goes out verbatim and seeds the predictor
+        int predictor = block[0];
+        out.putShort((short) predictor);
+        out.put((byte) stepIndex);
+        out.put((byte) 0);
+        for (int i = 1; i < SAMPLES_PER_BLOCK; i += 2) {
+            int low = encode(block[i], predictor);
+            predictor = decoded;
+            int high = encode(block[i + 1], predictor);
+            predictor = decoded;
+            out.put((byte) (high << 4 | low));
+        }
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        dataBytes += BLOCK_ALIGN;
+        blockFill = 0;
+    }
+
+    private int encode(int sample, int predictor) {
+        int step = STEP_TABLE[stepIndex];
+        int diff = sample - predictor;
+        int nibble = 0;
+        if (diff < 0) {
+            nibble = 8;
+            diff = -diff;
+        }
+        int delta = step >> 3;
+        if (diff >= step) {
+            nibble |= 4;
+            diff -= step;
+            delta += step;
+        }
+        step >>= 1;
+        if (diff >= step) {
+            nibble |= 2;
+            diff -= step;
+            delta += step;
+        }
+        step >>= 1;
+        if (diff >= step) {
+            nibble |= 1;
+            delta += step;
+        }
+        predictor += (nibble & 8) != 0 ? -delta : delta;
+        decoded = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, predictor));
+        stepIndex = Math.max(0, Math.min(STEP_TABLE.length - 1, stepIndex + INDEX_TABLE[nibble]));
+        return nibble;
+    }
+}
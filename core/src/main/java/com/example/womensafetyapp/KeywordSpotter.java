@@ -0,0 +1,450 @@
+package com.example.womensafetyapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Small on-device keyword spotter for the trigger phrases.
+ *
+ * Audio is consumed as a continuous 16 kHz mono PCM stream. Every 10 ms hop a 20 ms window is
+ * turned into a vector of mel cepstral coefficients, and each enrolled template is matched against
+ * the stream with a streaming subsequence DTW, so a keyword is reported as soon as its last frame
+ * has been heard. All working buffers are allocated up front; {@link #process} allocates nothing.
+ *
+ * Not thread-safe: intended to be driven by a single audio capture thread.
+ */
+public final class KeywordSpotter {
+
+    public static final int SAMPLE_RATE = 16000;
+    public static final int HOP_SIZE = 160;    // 10 ms
+    public static final int FRAME_SIZE = 320;  // 20 ms analysis window
+    public static final int NUM_BANDS = 24;
+    /** Cepstral coefficients c1..c12 per frame; c0 (loudness) is kept separately for gating. */
+    public static final int NUM_COEFFS = 12;
+
+    /** Default average per-frame DTW distance below which a template counts as matched. */
+    public static final float DEFAULT_THRESHOLD = 0.38f;
+
+    private static final int FFT_SIZE = 512;
+    private static final int FFT_BINS = FFT_SIZE / 2 + 1;
+    private static final float MIN_FREQ_HZ = 100f;
+    private static final float MAX_FREQ_HZ = 7600f;
+    // Frames quieter than this (natural log of mean band power) are always silence
+    private static final float SILENCE_LOG_ENERGY = 4.0f;
+    // Streaming: a frame is speech only this far above the tracked noise floor (~11 dB)
+    private static final float SPEECH_MARGIN = 2.5f;
+    // Per-frame smoothing when the level rises; a ~2 s time constant, so words barely move it
+    private static final float FLOOR_ADAPT_RATE = 0.005f;
+    // Enrollment: frames this far below the loudest frame of the clip are silence (~26 dB)
+    private static final float ENROLL_DYNAMIC_RANGE = 6.0f;
+    private static final float SILENCE_PENALTY = 0.4f;
+    private static final int MIN_TEMPLATE_FRAMES = 15; // 150 ms
+    private static final int REFRACTORY_FRAMES = 50; // 500 ms
+
+    /**
+     * Receives keyword detections on the thread that calls {@link #process}.
+     */
+    public interface Listener {
+        void onKeywordDetected(String phrase, long endSample, float score);
+    }
+
+    private final Frontend frontend = new Frontend();
+    private final List<Template> templates = new ArrayList<>();
+    private final float threshold;
+    private Listener listener;
+
+    private long samplesSeen;
+    private int refractory;
+    private float noiseFloor = Float.NaN;
+
+    public KeywordSpotter() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public KeywordSpotter(float threshold) {
+        this.threshold = threshold;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int templateCount() {
+        return templates.size();
+    }
+
+    /**
+     * Number of samples consumed so far; the sample clock used in detection callbacks.
+     */
+    public long samplesSeen() {
+        return samplesSeen;
+    }
+
+    /**
+     * Enrolls a recorded example of {@code phrase}. Leading and trailing silence is trimmed.
+     * Allocates, so call it at start-up rather than from the audio loop.
+     *
+     * @return false if the clip contained too little speech to be a usable template
+     */
+    public boolean addTemplate(String phrase, short[] pcm, int off, int len) {
+        Frontend enrollFrontend = new Frontend();
+        List<float[]> frames = new ArrayList<>();
+        List<Float> energies = new ArrayList<>();
+        float loudest = Float.NEGATIVE_INFINITY;
+        int end = off + len;
+        for (int pos = off; pos + HOP_SIZE <= end; pos += HOP_SIZE) {
+            enrollFrontend.append(pcm, pos, HOP_SIZE);
+            enrollFrontend.computeFeatures();
+            frames.add(enrollFrontend.features.clone());
+            energies.add(enrollFrontend.energy);
+            loudest = Math.max(loudest, enrollFrontend.energy);
+        }
+        float gate = Math.max(SILENCE_LOG_ENERGY, loudest - ENROLL_DYNAMIC_RANGE);
+        int first = 0;
+        int last = frames.size() - 1;
+        while (first <= last && energies.get(first) < gate) first++;
+        while (last >= first && energies.get(last) < gate) last--;
+        if (last - first + 1 < MIN_TEMPLATE_FRAMES) {
+            return false;
+        }
+        int count = last - first + 1;
+        float[] flat = new float[count * NUM_COEFFS];
+        boolean[] silent = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(frames.get(first + i), 0, flat, i * NUM_COEFFS, NUM_COEFFS);
+            silent[i] = energies.get(first + i) < gate;
+        }
+        templates.add(new Template(phrase, flat, silent, count));
+        return true;
+    }
+
+    /**
+     * Feeds {@code len} new samples. Detections are delivered synchronously to the listener.
+     */
+    public void process(short[] pcm, int off, int len) {
+        while (len > 0) {
+            int n = frontend.append(pcm, off, len);
+            off += n;
+            len -= n;
+            samplesSeen += n;
+            if (frontend.hopReady()) {
+                frontend.computeFeatures();
+                step(frontend.features);
+            }
+        }
+    }
+
+    /**
+     * Forgets all stream state (but keeps the enrolled templates).
+     */
+    public void reset() {
+        frontend.reset();
+        for (Template t : templates) {
+            t.reset();
+        }
+        samplesSeen = 0;
+        refractory = 0;
+        noiseFloor = Float.NaN;
+    }
+
+    private void step(float[] x) {
+        boolean silent = isSilent(frontend.energy);
+        float xNorm = norm(x, 0);
+        Template best = null;
+        float bestScore = Float.MAX_VALUE;
+        for (int k = 0; k < templates.size(); k++) {
+            Template t = templates.get(k);
+            float score = t.advance(x, xNorm, silent);
+            if (score < bestScore) {
+                bestScore = score;
+                best = t;
+            }
+        }
+        if (refractory > 0) {
+            refractory--;
+            return;
+        }
+        if (best != null && bestScore < threshold) {
+            refractory = REFRACTORY_FRAMES;
+            for (int k = 0; k < templates.size(); k++) {
+                templates.get(k).reset();
+            }
+            if (listener != null) {
+                listener.onKeywordDetected(best.phrase, samplesSeen, bestScore);
+            }
+        }
+    }
+
+    private static float norm(float[] v, int base) {
+        float sum = 0f;
+        for (int c = 0; c < NUM_COEFFS; c++) {
+            sum += v[base + c] * v[base + c];
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    /**
+     * Tracks the background level (drops quickly, rises slowly) and gates frames against it.
+     */
+    private boolean isSilent(float energy) {
+        if (energy < SILENCE_LOG_ENERGY) {
+            return true;
+        }
+        if (Float.isNaN(noiseFloor) || energy < noiseFloor) {
+            noiseFloor = energy;
+        } else {
+            noiseFloor += (energy - noiseFloor) * FLOOR_ADAPT_RATE;
+        }
+        return energy < noiseFloor + SPEECH_MARGIN;
+    }
+
+    /**
+     * One enrolled example and its streaming DTW state. The input must advance one frame per step
+     * while the template may advance by 0, 1 or 2 frames, bounding the allowed time warp.
+     */
+    private static final class Template {
+        final String phrase;
+        final float[] frames;
+        final float[] norms;
+        final boolean[] silentFrames;
+        final int length;
+        float[] prevCost;
+        float[] curCost;
+        int[] prevLen;
+        int[] curLen;
+
+        Template(String phrase, float[] frames, boolean[] silentFrames, int length) {
+            this.phrase = phrase;
+            this.frames = frames;
+            this.silentFrames = silentFrames;
+            this.norms = new float[length];
+            for (int j = 0; j < length; j++) {
+                norms[j] = norm(frames, j * NUM_COEFFS);
+            }
+            this.length = length;
+            this.prevCost = new float[length];
+            this.curCost = new float[length];
+            this.prevLen = new int[length];
+            this.curLen = new int[length];
+            reset();
+        }
+
+        void reset() {
+            Arrays.fill(prevCost, Float.POSITIVE_INFINITY);
+            Arrays.fill(prevLen, 0);
+        }
+
+        /**
+         * Advances the DTW by one input frame and returns the normalized cost of the best path
+         * ending on the last template frame (or +inf if there is none yet).
+         */
+        float advance(float[] x, float xNorm, boolean silent) {
+            for (int j = 0; j < length; j++) {
+                float d = distance(x, xNorm, j);
+                if (silent != silentFrames[j]) {
+                    // Pauses inside a phrase (e.g. the closure in "help me") should line up with pauses
+                    d += SILENCE_PENALTY;
+                }
+                if (j == 0) {
+                    // Free start: a match may begin at any input frame
+                    curCost[0] = d;
+                    curLen[0] = 1;
+                    continue;
+                }
+                float c = prevCost[j];
+                int l = prevLen[j];
+                if (prevCost[j - 1] < c) {
+                    c = prevCost[j - 1];
+                    l = prevLen[j - 1];
+                }
+                if (j >= 2 && prevCost[j - 2] < c) {
+                    c = prevCost[j - 2];
+                    l = prevLen[j - 2];
+                }
+                if (l >= 2 * length) {
+                    // Too slow to be this template
+                    c = Float.POSITIVE_INFINITY;
+                }
+                curCost[j] = c + d;
+                curLen[j] = l + 1;
+            }
+            float[] tc = prevCost;
+            prevCost = curCost;
+            curCost = tc;
+            int[] tl = prevLen;
+            prevLen = curLen;
+            curLen = tl;
+
+            int last = length - 1;
+            if (prevLen[last] * 2 < length) {
+                return Float.POSITIVE_INFINITY;
+            }
+            return prevCost[last] * 2 / (prevLen[last] + length);
+        }
+
+        /**
+         * Cosine distance between cepstral vectors; ignores overall level and is less sensitive
+         * to the large c1 tilt term than an L1 or L2 distance.
+         */
+        private float distance(float[] x, float xNorm, int frame) {
+            int base = frame * NUM_COEFFS;
+            float dot = 0f;
+            for (int c = 0; c < NUM_COEFFS; c++) {
+                dot += x[c] * frames[base + c];
+            }
+            float denom = xNorm * norms[frame];
+            return denom > 0f ? 1f - dot / denom : 1f;
+        }
+    }
+
+    /**
+     * Turns 10 ms hops into mel cepstra using a preallocated FFT and DCT. The mean log band
+     * energy is kept as the frame's loudness for silence gating.
+     */
+    private static final class Frontend {
+        private static final float[] WINDOW = new float[FRAME_SIZE];
+        private static final float[] COS = new float[FFT_SIZE / 2];
+        private static final float[] SIN = new float[FFT_SIZE / 2];
+        private static final int[] BIT_REVERSE = new int[FFT_SIZE];
+        private static final float[][] MEL_WEIGHTS = new float[NUM_BANDS][FFT_BINS];
+        private static final float[][] DCT = new float[NUM_COEFFS][NUM_BANDS];
+
+        static {
+            for (int i = 0; i < FRAME_SIZE; i++) {
+                WINDOW[i] = (float) (0.54 - 0.46 * Math.cos(2 * Math.PI * i / (FRAME_SIZE - 1)));
+            }
+            for (int i = 0; i < FFT_SIZE / 2; i++) {
+                COS[i] = (float) Math.cos(-2 * Math.PI * i / FFT_SIZE);
+                SIN[i] = (float) Math.sin(-2 * Math.PI * i / FFT_SIZE);
+            }
+            int bits = Integer.numberOfTrailingZeros(FFT_SIZE);
+            for (int i = 0; i < FFT_SIZE; i++) {
+                BIT_REVERSE[i] = Integer.reverse(i) >>> (32 - bits);
+            }
+            double melMin = hzToMel(MIN_FREQ_HZ);
+            double melMax = hzToMel(MAX_FREQ_HZ);
+            double[] edges = new double[NUM_BANDS + 2];
+            for (int i = 0; i < edges.length; i++) {
+                double hz = melToHz(melMin + (melMax - melMin) * i / (NUM_BANDS + 1));
+                edges[i] = hz * FFT_SIZE / SAMPLE_RATE;
+            }
+            for (int b = 0; b < NUM_BANDS; b++) {
+                for (int k = 0; k < FFT_BINS; k++) {
+                    double w = 0;
+                    if (k > edges[b] && k <= edges[b + 1]) {
+                        w = (k - edges[b]) / (edges[b + 1] - edges[b]);
+                    } else if (k > edges[b + 1] && k < edges[b + 2]) {
+                        w = (edges[b + 2] - k) / (edges[b + 2] - edges[b + 1]);
+                    }
+                    MEL_WEIGHTS[b][k] = (float) w;
+                }
+            }
+            for (int c = 0; c < NUM_COEFFS; c++) {
+                for (int b = 0; b < NUM_BANDS; b++) {
+                    DCT[c][b] = (float) (Math.sqrt(2.0 / NUM_BANDS)
+                            * Math.cos(Math.PI * (c + 1) * (b + 0.5) / NUM_BANDS));
+                }
+            }
+        }
+
+        final float[] features = new float[NUM_COEFFS];
+        float energy;
+        private final float[] logMel = new float[NUM_BANDS];
+        private final short[] frame = new short[FRAME_SIZE];
+        private final float[] re = new float[FFT_SIZE];
+        private final float[] im = new float[FFT_SIZE];
+        private int hopFill;
+
+        /** Copies as many samples as fit in the current hop; returns how many were taken. */
+        int append(short[] pcm, int off, int len) {
+            int n = Math.min(len, HOP_SIZE - hopFill);
+            System.arraycopy(pcm, off, frame, FRAME_SIZE - HOP_SIZE + hopFill, n);
+            hopFill += n;
+            return n;
+        }
+
+        boolean hopReady() {
+            return hopFill == HOP_SIZE;
+        }
+
+        void computeFeatures() {
+            for (int i = 0; i < FRAME_SIZE; i++) {
+                re[i] = frame[i] * WINDOW[i];
+            }
+            Arrays.fill(re, FRAME_SIZE, FFT_SIZE, 0f);
+            Arrays.fill(im, 0f);
+            fft(re, im);
+
+            float total = 0f;
+            for (int b = 0; b < NUM_BANDS; b++) {
+                float[] w = MEL_WEIGHTS[b];
+                float e = 0f;
+                for (int k = 0; k < FFT_BINS; k++) {
+                    if (w[k] != 0f) {
+                        e += w[k] * (re[k] * re[k] + im[k] * im[k]);
+                    }
+                }
+                float log = (float) Math.log(e + 1f);
+                logMel[b] = log;
+                total += log;
+            }
+            for (int c = 0; c < NUM_COEFFS; c++) {
+                float[] basis = DCT[c];
+                float sum = 0f;
+                for (int b = 0; b < NUM_BANDS; b++) {
+                    sum += basis[b] * logMel[b];
+                }
+                features[c] = sum;
+            }
+            float mean = total / NUM_BANDS;
+            // Power is on a 16-bit sample scale squared; remove the window length scale
+            energy = mean - 2 * (float) Math.log(FRAME_SIZE);
+
+            // Slide the window forward by one hop
+            System.arraycopy(frame, HOP_SIZE, frame, 0, FRAME_SIZE - HOP_SIZE);
+            hopFill = 0;
+        }
+
+        void reset() {
+            Arrays.fill(frame, (short) 0);
+            hopFill = 0;
+        }
+
+        private static void fft(float[] re, float[] im) {
+            for (int i = 0; i < FFT_SIZE; i++) {
+                int j = BIT_REVERSE[i];
+                if (j > i) {
+                    float t = re[i]; re[i] = re[j]; re[j] = t;
+                    t = im[i]; im[i] = im[j]; im[j] = t;
+                }
+            }
+            for (int size = 2; size <= FFT_SIZE; size <<= 1) {
+                int half = size >> 1;
+                int step = FFT_SIZE / size;
+                for (int start = 0; start < FFT_SIZE; start += size) {
+                    for (int k = 0; k < half; k++) {
+                        float wr = COS[k * step];
+                        float wi = SIN[k * step];
+                        int a = start + k;
+                        int b = a + half;
+                        float tr = wr * re[b] - wi * im[b];
+                        float ti = wr * im[b] + wi * re[b];
+                        re[b] = re[a] - tr;
+                        im[b] = im[a] - ti;
+                        re[a] += tr;
+                        im[a] += ti;
+                    }
+                }
+            }
+        }
+
+        private static double hzToMel(double hz) {
+            return 2595.0 * Math.log10(1.0 + hz / 700.0);
+        }
+
+        private static double melToHz(double mel) {
+            return 700.0 * (Math.pow(10.0, mel / 2595.0) - 1.0);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.womensafetyapp;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Offline index of landmarks and help points (police stations, hospitals) for describing an
+ * alert position as "near X, 300 m from Y" without a Geocoder or network call.
+ *
+ * Points are grouped by kind and each group is laid out as an implicit 2-d tree in parallel
+ * primitive arrays: the median of a range is its root, split alternately on latitude and
+ * longitude, so a lookup descends about log2(n) levels and touches a few dozen points.
+ * Distances are equirectangular around the query point, well within a metre of the great-circle
+ * distance at the few kilometres this is used for; the antimeridian is not handled.
+ *
+ * Built once with a {@link Builder} (e.g. from a CSV extract) and shipped in the binary form of
+ * {@link #writeTo}, which is already in tree order so {@link #read} is a bulk copy. Immutable and
+ * safe to share between threads.
+ */
+public final class LandmarkIndex {
+
+    public enum Kind {
+        LANDMARK, POLICE, HOSPITAL
+    }
+
+    /** Farthest landmark that still makes the position "near" it. */
+    public static final double NEAR_METERS = 400;
+    /** Farthest help point worth naming in an alert. */
+    public static final double HELP_POINT_METERS = 5_000;
+
+    static final int MAGIC = 0x4c4d4b31; // "LMK1"
+    private static final Kind[] KINDS = Kind.values();
+    private static final double METERS_PER_DEGREE = 6_371_000 * Math.PI / 180;
+
+    private final float[] latitudes;
+    private final float[] longitudes;
+    // Points of kind k are [kindStart[k], kindStart[k + 1])
+    private final int[] kindStart;
+    // UTF-8 name of point i is names[nameStart[i], nameStart[i + 1])
+    private final int[] nameStart;
+    private final byte[] names;
+
+    private LandmarkIndex(float[] latitudes, float[] longitudes, int[] kindStart, int[] nameStart, byte[] names) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.kindStart = kindStart;
+        this.nameStart = nameStart;
+        this.names = names;
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    public int count(Kind kind) {
+        return kindStart[kind.ordinal() + 1] - kindStart[kind.ordinal()];
+    }
+
+    /**
+     * @return the point of {@code kind} closest to the position and within {@code maxMeters}, or -1
+     */
+    public int nearest(double latitude, double longitude, Kind kind, double maxMeters) {
+        Search search = new Search(latitude, longitude, maxMeters);
+        search.run(kindStart[kind.ordinal()], kindStart[kind.ordinal() + 1], 0);
+        return search.best;
+    }
+
+    public String name(int point) {
+        return new String(names, nameStart[point], nameStart[point + 1] - nameStart[point], StandardCharsets.UTF_8);
+    }
+
+    public Kind kind(int point) {
+        int k = 0;
+        while (point >= kindStart[k + 1]) {
+            k++;
+        }
+        return KINDS[k];
+    }
+
+    public double latitude(int point) {
+        return latitudes[point];
+    }
+
+    public double longitude(int point) {
+        return longitudes[point];
+    }
+
+    public double distanceMeters(int point, double latitude, double longitude) {
+        double dy = (latitudes[point] - latitude) * METERS_PER_DEGREE;
+        double dx = (longitudes[point] - longitude) * METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Describes the position for an alert: the nearest landmark within {@link #NEAR_METERS} and
+     * the nearest police station within {@link #HELP_POINT_METERS}, or the nearest hospital when
+     * there is no police station that close. For example
+     * "near MG Road Metro, 300 m from Cubbon Park Police Station".
+     *
+     * @return the description, or null if nothing is close enough
+     */
+    public String describe(double latitude, double longitude) {
+        int landmark = nearest(latitude, longitude, Kind.LANDMARK, NEAR_METERS);
+        int help = nearest(latitude, longitude, Kind.POLICE, HELP_POINT_METERS);
+        if (help < 0) {
+            help = nearest(latitude, longitude, Kind.HOSPITAL, HELP_POINT_METERS);
+        }
+        if (landmark < 0 && help < 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(64);
+        if (landmark >= 0) {
+            sb.append("near ").append(name(landmark));
+        }
+        if (help >= 0) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            appendDistance(sb, distanceMeters(help, latitude, longitude));
+            sb.append(" from ").append(name(help));
+        }
+        return sb.toString();
+    }
+
+    /** "40 m", "300 m", "1.2 km": tens of metres below a kilometre, tenths of a kilometre above. */
+    static void appendDistance(StringBuilder out, double meters) {
+        long tens = Math.max(1, Math.round(meters / 10));
+        if (tens < 100) {
+            out.append(tens * 10).append(" m");
+        } else {
+            long tenths = Math.round(meters / 100);
+            out.append(tenths / 10);
+            if (tenths % 10 != 0) {
+                out.append('.').append(tenths % 10);
+            }
+            out.append(" km");
+        }
+    }
+
+    /**
+     * Writes the index in the form {@link #read} expects: magic, counts per kind, latitudes,
+     * longitudes, name offsets and the UTF-8 names, big-endian.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        for (Kind kind : KINDS) {
+            data.writeInt(count(kind));
+        }
+        for (float v : latitudes) {
+            data.writeFloat(v);
+        }
+        for (float v : longitudes) {
+            data.writeFloat(v);
+        }
+        for (int v : nameStart) {
+            data.writeInt(v);
+        }
+        data.write(names);
+        data.flush();
+    }
+
+    public static LandmarkIndex read(ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a landmark index");
+            }
+            int[] kindStart = new int[KINDS.length + 1];
+            for (int k = 0; k < KINDS.length; k++) {
+                int count = in.getInt();
+                if (count < 0) {
+                    throw new IOException("Corrupt landmark index");
+                }
+                kindStart[k + 1] = kindStart[k] + count;
+            }
+            int n = kindStart[KINDS.length];
+            if (n < 0 || 12L * n + 4 > in.remaining()) {
+                throw new IOException("Truncated landmark index");
+            }
+            float[] latitudes = new float[n];
+            float[] longitudes = new float[n];
+            int[] nameStart = new int[n + 1];
+            in.asFloatBuffer().get(latitudes);
+            in.position(in.position() + 4 * n);
+            in.asFloatBuffer().get(longitudes);
+            in.position(in.position() + 4 * n);
+            in.asIntBuffer().get(nameStart);
+            in.position(in.position() + 4 * (n + 1));
+            int length = nameStart[n];
+            if (length < 0 || length > in.remaining()) {
+                throw new IOException("Truncated landmark index");
+            }
+            byte[] names = new byte[length];
+            in.get(names);
+            return new LandmarkIndex(latitudes, longitudes, kindStart, nameStart, names);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated landmark index", e);
+        }
+    }
+
+    /** Nearest-neighbour descent; one per lookup. */
+    private final class Search {
+        final double latitude;
+        final double longitude;
+        final double metersPerDegreeLongitude;
+        int best = -1;
+        double bestSquared;
+
+        Search(double latitude, double longitude, double maxMeters) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+            bestSquared = maxMeters * maxMeters;
+        }
+
+        void run(int lo, int hi, int depth) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                double dy = (latitudes[mid] - latitude) * METERS_PER_DEGREE;
+                double dx = (longitudes[mid] - longitude) * metersPerDegreeLongitude;
+                double d2 = dx * dx + dy * dy;
+                if (d2 <= bestSquared) {
+                    best = mid;
+                    bestSquared = d2;
+                }
+                double split = (depth & 1) == 0 ? dy : dx;
+                // The side holding the query first; the far side only if the split plane is closer
+                // than the best so far. Loop on the far side instead of recursing.
+                if (split > 0) {
+                    run(lo, mid, depth + 1);
+                    if (split * split > bestSquared) {
+                        return;
+                    }
+                    lo = mid + 1;
+                } else {
+                    run(mid + 1, hi, depth + 1);
+                    if (split * split > bestSquared) {
+                        return;
+                    }
+                    hi = mid;
+                }
+                depth++;
+            }
+        }
+    }
+
+    /**
+     * Collects points and lays them out into an index. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private float[] latitudes = new float[1024];
+        private float[] longitudes = new float[1024];
+        private byte[] kinds = new byte[1024];
+        private final List<String> names = new ArrayList<>();
+
+        public Builder add(double latitude, double longitude, Kind kind, String name) {
+            if (!(Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180)) {
+                throw new IllegalArgumentException("Bad coordinates: " + latitude + "," + longitude);
+            }
+            int n = names.size();
+            if (n == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, n * 2);
+                longitudes = Arrays.copyOf(longitudes, n * 2);
+                kinds = Arrays.copyOf(kinds, n * 2);
+            }
+            latitudes[n] = (float) latitude;
+            longitudes[n] = (float) longitude;
+            kinds[n] = (byte) kind.ordinal();
+            names.add(name);
+            return this;
+        }
+
+        /**
+         * Adds the points of a CSV extract, one "latitude,longitude,kind,name" per line, where
+         * kind is landmark, police or hospital and the name runs to the end of the line. Blank
+         * lines and lines starting with '#' are skipped.
+         */
+        public Builder addCsv(Reader reader) throws IOException {
+            BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] fields = line.split(",", 4);
+                try {
+                    if (fields.length < 4 || fields[3].trim().isEmpty()) {
+                        throw new IllegalArgumentException("expected latitude,longitude,kind,name");
+                    }
+                    add(Double.parseDouble(fields[0].trim()), Double.parseDouble(fields[1].trim()),
+                            Kind.valueOf(fields[2].trim().toUpperCase(Locale.ROOT)), fields[3].trim());
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+            return this;
+        }
+
+        public LandmarkIndex build() {
+            int n = names.size();
+            // Group by kind, then lay each group out as a tree
+            int[] kindStart = new int[KINDS.length + 1];
+            for (int i = 0; i < n; i++) {
+                kindStart[kinds[i] + 1]++;
+            }
+            for (int k = 0; k < KINDS.length; k++) {
+                kindStart[k + 1] += kindStart[k];
+            }
+            int[] order = new int[n];
+            int[] fill = kindStart.clone();
+            for (int i = 0; i < n; i++) {
+                order[fill[kinds[i]]++] = i;
+            }
+            for (int k = 0; k < KINDS.length; k++) {
+                layOut(order, kindStart[k], kindStart[k + 1], 0);
+            }
+
+            float[] lat = new float[n];
+            float[] lon = new float[n];
+            int[] nameStart = new int[n + 1];
+            byte[][] encoded = new byte[n][];
+            for (int i = 0; i < n; i++) {
+                lat[i] = latitudes[order[i]];
+                lon[i] = longitudes[order[i]];
+                encoded[i] = names.get(order[i]).getBytes(StandardCharsets.UTF_8);
+                nameStart[i + 1] = nameStart[i] + encoded[i].length;
+            }
+            byte[] blob = new byte[nameStart[n]];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(encoded[i], 0, blob, nameStart[i], encoded[i].length);
+            }
+            return new LandmarkIndex(lat, lon, kindStart, nameStart, blob);
+        }
+
+        // Puts the median of [lo, hi) on the split axis at the middle, then recurses on both halves
+        private void layOut(int[] order, int lo, int hi, int depth) {
+            while (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                float[] axis = (depth & 1) == 0 ? latitudes : longitudes;
+                select(order, axis, lo, hi - 1, mid);
+                layOut(order, lo, mid, depth + 1);
+                lo = mid + 1;
+                depth++;
+            }
+        }
+
+        // Quickselect: afterwards order[k] has rank k in [lo, hi] and the sides are partitioned
+        private static void select(int[] order, float[] axis, int lo, int hi, int k) {
+            while (lo < hi) {
+                float pivot = axis[order[(lo + hi) >>> 1]];
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (axis[order[i]] < pivot) {
+                        i++;
+                    }
+                    while (axis[order[j]] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        int t = order[i];
+                        order[i] = order[j];
+                        order[j] = t;
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) {
+                    hi = j;
+                } else if (k >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+}
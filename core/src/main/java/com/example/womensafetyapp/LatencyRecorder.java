@@ -0,0 +1,225 @@
+package com.example.womensafetyapp;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Timestamps the stages of an alert, from the start of speech to SMS delivery, and feeds the gap
+ * between consecutive stages into one {@link StageHistogram} per stage. All times are on one
+ * monotonic clock in milliseconds. Methods are synchronized so stages may be reported from
+ * different threads.
+ */
+public final class LatencyRecorder {
+
+    public enum Stage {
+        SPEECH_TO_TRIGGER("speech -> trigger"),
+        TRIGGER_TO_LOCATION("trigger -> location"),
+        LOCATION_TO_MESSAGE("location -> message"),
+        MESSAGE_TO_SUBMIT("message -> submit"),
+        DISPATCH_TO_DELIVERY("dispatch -> delivered"),
+        SPEECH_TO_SUBMIT("speech -> submit (total)"),
+        MESSAGE_TO_WEBHOOK("message -> webhook ack");
+
+        public final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final int FILE_MAGIC = 0x4B4C4154; // "KLAT"
+    private static final int FILE_VERSION = 1;
+    private static final long NONE = -1;
+
+    private final StageHistogram[] histograms = new StageHistogram[Stage.values().length];
+
+    // Marks of the alert in flight
+    private long speechStartMs = NONE;
+    private long triggerMs = NONE;
+    private long locationMs = NONE;
+    private long messageMs = NONE;
+    private long heardSpeechStartMs = NONE;
+    private long alertSpeechStartMs = NONE;
+
+    public LatencyRecorder() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new StageHistogram();
+        }
+    }
+
+    /**
+     * Speech was heard. Keeps the earliest mark until {@link #speechEnded()} or a trigger.
+     */
+    public synchronized void speechStarted(long nowMs) {
+        if (speechStartMs == NONE) {
+            speechStartMs = nowMs;
+        }
+    }
+
+    /**
+     * The utterance ended without a trigger.
+     */
+    public synchronized void speechEnded() {
+        speechStartMs = NONE;
+    }
+
+    /**
+     * A trigger that starts an alert; {@link #heard} and {@link #alertStarted} in one.
+     */
+    public synchronized void triggered(long nowMs) {
+        heard(nowMs);
+        alertStarted(nowMs);
+    }
+
+    /**
+     * A trigger phrase was recognized. Only the recognition latency is recorded; the trigger may
+     * still be merged into an alert already in flight, whose marks are left alone.
+     */
+    public synchronized void heard(long nowMs) {
+        heardSpeechStartMs = speechStartMs;
+        if (speechStartMs != NONE) {
+            record(Stage.SPEECH_TO_TRIGGER, nowMs - speechStartMs);
+        }
+        speechStartMs = NONE;
+    }
+
+    /**
+     * The last trigger {@link #heard} started an alert (or a follow-up) at {@code triggerMs}.
+     */
+    public synchronized void alertStarted(long triggerMs) {
+        alertSpeechStartMs = heardSpeechStartMs;
+        this.triggerMs = triggerMs;
+        locationMs = NONE;
+        messageMs = NONE;
+    }
+
+    public synchronized void locationAcquired(long nowMs) {
+        if (triggerMs != NONE && locationMs == NONE) {
+            record(Stage.TRIGGER_TO_LOCATION, nowMs - triggerMs);
+            locationMs = nowMs;
+        }
+    }
+
+    public synchronized void messageBuilt(long nowMs) {
+        if (locationMs != NONE && messageMs == NONE) {
+            record(Stage.LOCATION_TO_MESSAGE, nowMs - locationMs);
+            messageMs = nowMs;
+        }
+    }
+
+    /**
+     * One SMS was handed to the radio; called once per contact.
+     */
+    public synchronized void smsSubmitted(long nowMs) {
+        if (messageMs != NONE) {
+            record(Stage.MESSAGE_TO_SUBMIT, nowMs - messageMs);
+            if (alertSpeechStartMs != NONE) {
+                record(Stage.SPEECH_TO_SUBMIT, nowMs - alertSpeechStartMs);
+            }
+        }
+    }
+
+    /**
+     * One contact's SMS was delivered, {@code dispatchToDeliveryMs} after the dispatch to all
+     * contacts began. That includes any retries and their backoff, not just the last attempt.
+     */
+    public synchronized void smsDelivered(long dispatchToDeliveryMs) {
+        record(Stage.DISPATCH_TO_DELIVERY, dispatchToDeliveryMs);
+    }
+
+    /**
+     * The webhook endpoint accepted an alert; compare with submit and delivery of the SMS.
+     */
+    public synchronized void webhookDelivered(long queuedToAckMs) {
+        record(Stage.MESSAGE_TO_WEBHOOK, queuedToAckMs);
+    }
+
+    private void record(Stage stage, long ms) {
+        histograms[stage.ordinal()].record(ms);
+    }
+
+    /**
+     * Copy of one stage's histogram, safe to read while recording continues.
+     */
+    public synchronized StageHistogram snapshot(Stage stage) {
+        return histograms[stage.ordinal()].copy();
+    }
+
+    public synchronized void clear() {
+        for (StageHistogram histogram : histograms) {
+            histogram.clear();
+        }
+    }
+
+    /**
+     * Writes all histograms to a temp file and renames it over {@code file}.
+     */
+    public synchronized void save(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(stream)) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeShort(histograms.length);
+            for (Stage stage : Stage.values()) {
+                out.writeUTF(stage.name());
+                histograms[stage.ordinal()].writeTo(out);
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * Adds histograms saved by {@link #save} to the live ones, so stages recorded while the file
+     * was being read are kept. Stages are matched by name, so stages added or removed between
+     * releases do not corrupt the others. A missing file is not an error.
+     */
+    public synchronized void load(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Not a latency histogram file: " + file);
+            }
+            int stages = in.readUnsignedShort();
+            for (int i = 0; i < stages; i++) {
+                String name = in.readUTF();
+                StageHistogram target = new StageHistogram();
+                for (Stage stage : Stage.values()) {
+                    if (stage.name().equals(name)) {
+                        target = histograms[stage.ordinal()];
+                    }
+                }
+                target.readFrom(in);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated latency histogram file: " + file, e);
+        }
+    }
+
+    /**
+     * Plain-text table of every stage for the diagnostics screen.
+     */
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "%-26s %6s %7s %7s %7s %7s%n",
+                "stage", "n", "p50", "p90", "p99", "max"));
+        for (Stage stage : Stage.values()) {
+            StageHistogram h = histograms[stage.ordinal()];
+            sb.append(String.format(Locale.US, "%-26s %6d %7d %7d %7d %7d%n", stage.label,
+                    h.count(), h.quantileMs(0.5), h.quantileMs(0.9), h.quantileMs(0.99), h.maxMs()));
+        }
+        return sb.toString();
+    }
+}
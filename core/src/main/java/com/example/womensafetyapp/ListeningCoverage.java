@@ -0,0 +1,141 @@
+package com.example.womensafetyapp;
+
+/**
+ * Adds up the time the service could not hear anything: from the end of one recognizer session
+ * (or any other stop of the microphone) until the next one is ready for speech. Deaf time is
+ * kept in one-minute buckets for the last hour, so {@link #deafMsLastHour} is a rolling figure
+ * accurate to the minute, plus running totals since the start.
+ *
+ * Deterministic: time is passed in. Not thread-safe: call it from the main thread.
+ */
+public final class ListeningCoverage {
+
+    public static final long HOUR_MS = 60 * 60_000;
+    private static final long BUCKET_MS = 60_000;
+    private static final int BUCKETS = (int) (HOUR_MS / BUCKET_MS);
+
+    // Minute number each bucket currently holds, and the deaf time in that minute
+    private final long[] bucketMinute = new long[BUCKETS];
+    private final long[] bucketDeafMs = new long[BUCKETS];
+
+    private final long startMs;
+    private boolean listening;
+    private long deafSinceMs;
+
+    private long totalDeafMs;
+    private long gaps;
+    private long longestGapMs;
+
+    /**
+     * Starts deaf: the microphone is not open until the first {@link #onListening}.
+     */
+    public ListeningCoverage(long nowMs) {
+        startMs = nowMs;
+        deafSinceMs = nowMs;
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketMinute[i] = -1;
+        }
+    }
+
+    /** Something is listening again: a recognizer session is ready, or the gate or spotter runs. */
+    public void onListening(long nowMs) {
+        if (listening) {
+            return;
+        }
+        listening = true;
+        long gapMs = Math.max(0, nowMs - deafSinceMs);
+        addDeaf(deafSinceMs, nowMs);
+        totalDeafMs += gapMs;
+        gaps++;
+        longestGapMs = Math.max(longestGapMs, gapMs);
+    }
+
+    /**
+     * Nothing is listening any more. {@code nowMs} may lie in the past when the loss is noticed
+     * late, as with a stalled recognizer, but not before the last {@link #onListening}.
+     */
+    public void onDeaf(long nowMs) {
+        if (!listening) {
+            return;
+        }
+        listening = false;
+        deafSinceMs = nowMs;
+    }
+
+    public boolean isListening() {
+        return listening;
+    }
+
+    /**
+     * @return deaf time within the hour before {@code nowMs}, including a gap still open
+     */
+    public long deafMsLastHour(long nowMs) {
+        // First whole minute inside the window
+        long fromMinute = Math.floorDiv(nowMs - HOUR_MS + BUCKET_MS - 1, BUCKET_MS);
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (bucketMinute[i] >= fromMinute) {
+                sum += bucketDeafMs[i];
+            }
+        }
+        if (!listening) {
+            sum += nowMs - Math.max(deafSinceMs, nowMs - HOUR_MS);
+        }
+        return Math.min(sum, Math.min(HOUR_MS, nowMs - startMs));
+    }
+
+    /**
+     * Share of the last hour (or of the time since the start, if shorter) that something was
+     * listening, in tenths of a percent.
+     */
+    public int listeningPerMilleLastHour(long nowMs) {
+        long windowMs = Math.min(HOUR_MS, nowMs - startMs);
+        if (windowMs <= 0) {
+            return listening ? 1000 : 0;
+        }
+        return (int) (1000 - deafMsLastHour(nowMs) * 1000 / windowMs);
+    }
+
+    /** Deaf time since the start, including a gap still open. */
+    public long totalDeafMs(long nowMs) {
+        return listening ? totalDeafMs : totalDeafMs + nowMs - deafSinceMs;
+    }
+
+    /** Gaps that have closed. */
+    public long gapCount() {
+        return gaps;
+    }
+
+    public long longestGapMs() {
+        return longestGapMs;
+    }
+
+    /** Mean length of the closed gaps. */
+    public long meanGapMs() {
+        return gaps == 0 ? 0 : totalDeafMs / gaps;
+    }
+
+    /**
+     * @return a one-line summary for the log
+     */
+    public String report(long nowMs) {
+        long upMs = Math.max(1, nowMs - startMs);
+        return "deaf " + deafMsLastHour(nowMs) + " ms in the last hour, " + totalDeafMs(nowMs) * 1000 / upMs / 10.0
+                + "% since start; " + gaps + " gaps, mean " + meanGapMs() + " ms, longest " + longestGapMs + " ms";
+    }
+
+    private void addDeaf(long fromMs, long toMs) {
+        long from = Math.max(fromMs, toMs - HOUR_MS);
+        while (from < toMs) {
+            long minute = from / BUCKET_MS;
+            long end = Math.min(toMs, (minute + 1) * BUCKET_MS);
+            int slot = (int) (minute % BUCKETS);
+            if (bucketMinute[slot] != minute) {
+                bucketMinute[slot] = minute;
+                bucketDeafMs[slot] = 0;
+            }
+            bucketDeafMs[slot] += end - from;
+            from = end;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.womensafetyapp;
+
+/**
+ * Fixed-size ring of recent location fixes kept in parallel primitive arrays, so the alert path
+ * can pick a position straight from memory instead of waiting on the location provider.
+ *
+ * Times are on the caller's monotonic clock (SystemClock.elapsedRealtime on the device).
+ * Methods are synchronized because fixes arrive on the location callback thread while the
+ * alert path reads from another.
+ */
+public final class LocationRing {
+
+    /** Assumed worst-case walking/running speed used to age a fix's uncertainty. */
+    public static final float DEFAULT_DRIFT_METERS_PER_SECOND = 2f;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final float[] accuracies;
+    private final long[] timesMs;
+    private int next;
+    private int size;
+
+    public LocationRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        accuracies = new float[capacity];
+        timesMs = new long[capacity];
+    }
+
+    public synchronized void add(double latitude, double longitude, float accuracyMeters, long timeMs) {
+        latitudes[next] = latitude;
+        longitudes[next] = longitude;
+        accuracies[next] = accuracyMeters;
+        timesMs[next] = timeMs;
+        next = (next + 1) % latitudes.length;
+        if (size < latitudes.length) {
+            size++;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Picks the fix with the smallest effective uncertainty: its reported accuracy plus the
+     * distance the user could have moved since it was taken. Fixes older than {@code maxAgeMs}
+     * or whose effective uncertainty exceeds {@code maxUncertaintyMeters} are not considered.
+     *
+     * @param out receives {latitude, longitude, effective uncertainty in meters, age in ms}
+     * @return false if no fix satisfies the policy
+     */
+    public synchronized boolean best(long nowMs, long maxAgeMs, float maxUncertaintyMeters,
+                                     float driftMetersPerSecond, double[] out) {
+        int bestIndex = -1;
+        float bestUncertainty = Float.MAX_VALUE;
+        for (int k = 0; k < size; k++) {
+            int i = (next - 1 - k + latitudes.length) % latitudes.length;
+            long age = Math.max(0, nowMs - timesMs[i]);
+            if (age > maxAgeMs) {
+                continue;
+            }
+            float uncertainty = accuracies[i] + driftMetersPerSecond * age / 1000f;
+            if (uncertainty <= maxUncertaintyMeters && uncertainty < bestUncertainty) {
+                bestUncertainty = uncertainty;
+                bestIndex = i;
+            }
+        }
+        if (bestIndex < 0) {
+            return false;
+        }
+        out[0] = latitudes[bestIndex];
+        out[1] = longitudes[bestIndex];
+        out[2] = bestUncertainty;
+        out[3] = Math.max(0, nowMs - timesMs[bestIndex]);
+        return true;
+    }
+
+    /**
+     * Most recent fix regardless of age or accuracy; the last resort when nothing better exists.
+     *
+     * @param out receives {latitude, longitude, reported accuracy in meters, age in ms}
+     */
+    public synchronized boolean latest(long nowMs, double[] out) {
+        if (size == 0) {
+            return false;
+        }
+        int i = (next - 1 + latitudes.length) % latitudes.length;
+        out[0] = latitudes[i];
+        out[1] = longitudes[i];
+        out[2] = accuracies[i];
+        out[3] = Math.max(0, nowMs - timesMs[i]);
+        return true;
+    }
+}
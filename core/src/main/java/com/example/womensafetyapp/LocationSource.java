@@ -0,0 +1,44 @@
+package com.example.womensafetyapp;
+
+/**
+ * Where the alert path gets a fresh position from. On the device this is the fused location
+ * provider; the simulation harness uses a scripted fake.
+ */
+public interface LocationSource {
+
+    /**
+     * A position and its reported accuracy.
+     */
+    final class Fix {
+        public final double latitude;
+        public final double longitude;
+        public final float accuracyMeters;
+
+        public Fix(double latitude, double longitude, float accuracyMeters) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.accuracyMeters = accuracyMeters;
+        }
+
+        @Override
+        public String toString() {
+            return latitude + ", " + longitude + " (accuracy " + Math.round(accuracyMeters) + " m)";
+        }
+    }
+
+    interface Callback {
+        /** @param fix the position, or null if none could be had */
+        void onFix(Fix fix);
+    }
+
+    /** A request in flight. */
+    interface Request {
+        void cancel();
+    }
+
+    /**
+     * Asks for one fix no older than {@code maxAgeMs}, giving up after {@code durationMs}. The
+     * callback runs once on the alert thread, unless the request is cancelled first.
+     */
+    Request requestFix(long maxAgeMs, long durationMs, Callback callback);
+}
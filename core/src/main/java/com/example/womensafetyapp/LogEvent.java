@@ -0,0 +1,60 @@
+package com.example.womensafetyapp;
+
+/**
+ * Events of the {@link EventLog}, each with up to two numeric arguments. Enum arguments
+ * (trigger source, alert decision) are written as ordinals. The ids are written to disk: never
+ * reuse or renumber one, only add.
+ */
+public enum LogEvent {
+    RECOGNIZER_START(1, "recognizer start", null, null),
+    READY(2, "ready for speech", null, null),
+    SPEECH_START(3, "speech start", null, null),
+    SPEECH_END(4, "speech end", null, null),
+    RECOGNIZER_ERROR(5, "recognizer error", "code", "restartMs"),
+    ERROR_AFTER_HANDOFF(6, "error after handoff", "code", null),
+    RESULTS(7, "results", "hypotheses", "scorePerMille"),
+    PARTIAL_TRIGGER(8, "trigger in partial result", "hypotheses", null),
+    VAD_GATE(9, "vad gate", "idle", null),
+    TRIGGER(10, "trigger", "source", null),
+    ALERT(11, "alert decision", "decision", null),
+    SMS_SUBMITTED(12, "sms submitted", "attempt", "alertId"),
+    SMS_SENT(13, "sms sent", null, "alertId"),
+    SMS_DELIVERED(14, "sms delivered", null, "alertId"),
+    SMS_FAILED(15, "sms failed", "attempts", "alertId"),
+    HANDOFF(16, "warm handoff", null, null),
+    RECOGNIZER_STALL(17, "recognizer stall", null, "silentMs"),
+    COVERAGE(18, "listening coverage", "perMilleLastHour", "deafMsLastHour"),
+    WEBHOOK_DELIVERED(19, "webhook delivered", "latencyMs", "alertId"),
+    WEBHOOK_FAILED(20, "webhook failed", "items", "retryMs");
+
+    private static final LogEvent[] BY_ID;
+
+    static {
+        int max = 0;
+        for (LogEvent event : values()) {
+            max = Math.max(max, event.id);
+        }
+        BY_ID = new LogEvent[max + 1];
+        for (LogEvent event : values()) {
+            BY_ID[event.id] = event;
+        }
+    }
+
+    public final int id;
+    final String label;
+    // Names of the int and long arguments, null when unused
+    final String intArg;
+    final String longArg;
+
+    LogEvent(int id, String label, String intArg, String longArg) {
+        this.id = id;
+        this.label = label;
+        this.intArg = intArg;
+        this.longArg = longArg;
+    }
+
+    /** @return the event with this id, or null for one this version does not know */
+    public static LogEvent byId(int id) {
+        return id > 0 && id < BY_ID.length ? BY_ID[id] : null;
+    }
+}
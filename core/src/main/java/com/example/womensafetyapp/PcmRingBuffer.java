@@ -0,0 +1,82 @@
+package com.example.womensafetyapp;
+
+/**
+ * Fixed-size ring of 16-bit PCM samples. The backing array is allocated once and reused
+ * for the lifetime of the capture thread, so steady-state audio processing allocates nothing.
+ *
+ * Not thread-safe: the capture thread is the only writer and reader.
+ */
+public final class PcmRingBuffer {
+
+    private final short[] samples;
+    private int writePos;
+    private long totalWritten;
+
+    public PcmRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.samples = new short[capacity];
+    }
+
+    public int capacity() {
+        return samples.length;
+    }
+
+    /**
+     * Total number of samples ever written. Used as an absolute sample clock.
+     */
+    public long totalWritten() {
+        return totalWritten;
+    }
+
+    /**
+     * Number of samples currently readable (at most the capacity).
+     */
+    public int available() {
+        return (int) Math.min(totalWritten, samples.length);
+    }
+
+    /**
+     * Appends {@code len} samples, overwriting the oldest data once the ring is full.
+     */
+    public void write(short[] src, int off, int len) {
+        if (len > samples.length) {
+            // Only the newest capacity() samples can survive anyway
+            off += len - samples.length;
+            totalWritten += len - samples.length;
+            len = samples.length;
+        }
+        int first = Math.min(len, samples.length - writePos);
+        System.arraycopy(src, off, samples, writePos, first);
+        if (first < len) {
+            System.arraycopy(src, off + first, samples, 0, len - first);
+        }
+        writePos = (writePos + len) % samples.length;
+        totalWritten += len;
+    }
+
+    /**
+     * Copies the newest {@code len} samples into {@code dst} in chronological order.
+     *
+     * @return the number of samples actually copied (less than len if the ring is not yet full)
+     */
+    public int readLatest(short[] dst, int off, int len) {
+        int n = Math.min(len, available());
+        int start = writePos - n;
+        if (start < 0) {
+            start += samples.length;
+        }
+        int first = Math.min(n, samples.length - start);
+        System.arraycopy(samples, start, dst, off, first);
+        if (first < n) {
+            System.arraycopy(samples, 0, dst, off + first, n - first);
+        }
+        return n;
+    }
+
+    public void clear() {
+        writePos = 0;
+        totalWritten = 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.womensafetyapp;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Best-effort conversion of typed phone numbers to E.164 ({@code +<country code><number>}, at
+ * most 15 digits). Spaces, dashes, dots, slashes and brackets are ignored. A number written with
+ * {@code +} or the {@code 00} international prefix is taken as is; anything else is a national
+ * number in the default country, with that country's trunk prefix dropped. When the default
+ * country is not known a national number is kept as typed, digits only: the SMS stack dials it
+ * the same way the phone's own dialer would.
+ *
+ * This does not know per-country numbering plans, so it only rejects what cannot be a number.
+ */
+public final class PhoneNumbers {
+
+    static final int MIN_DIGITS = 8;
+    static final int MAX_DIGITS = 15;
+
+    // ISO 3166 region -> country calling code, for the SIM or network country
+    private static final String[] REGIONS = {
+            "1:US,CA,AG,AI,AS,BB,BM,BS,DM,DO,GD,GU,JM,KN,KY,LC,MP,MS,PR,SX,TC,TT,VC,VG,VI",
+            "7:RU,KZ", "20:EG", "27:ZA", "30:GR", "31:NL", "32:BE", "33:FR", "34:ES", "36:HU", "39:IT,VA",
+            "40:RO", "41:CH", "43:AT", "44:GB,GG,JE,IM", "45:DK", "46:SE", "47:NO,SJ", "48:PL", "49:DE",
+            "51:PE", "52:MX", "53:CU", "54:AR", "55:BR", "56:CL", "57:CO", "58:VE",
+            "60:MY", "61:AU,CX,CC", "62:ID", "63:PH", "64:NZ", "65:SG", "66:TH",
+            "81:JP", "82:KR", "84:VN", "86:CN", "90:TR", "91:IN", "92:PK", "93:AF", "94:LK", "95:MM", "98:IR",
+            "211:SS", "212:MA,EH", "213:DZ", "216:TN", "218:LY", "220:GM", "221:SN", "222:MR", "223:ML",
+            "224:GN", "225:CI", "226:BF", "227:NE", "228:TG", "229:BJ", "230:MU", "231:LR", "232:SL",
+            "233:GH", "234:NG", "235:TD", "236:CF", "237:CM", "238:CV", "239:ST", "240:GQ", "241:GA",
+            "242:CG", "243:CD", "244:AO", "245:GW", "246:IO", "248:SC", "249:SD", "250:RW", "251:ET",
+            "252:SO", "253:DJ", "254:KE", "255:TZ", "256:UG", "257:BI", "258:MZ", "260:ZM", "261:MG",
+            "262:RE,YT", "263:ZW", "264:NA", "265:MW", "266:LS", "267:BW", "268:SZ", "269:KM", "290:SH",
+            "291:ER", "297:AW", "298:FO", "299:GL",
+            "350:GI", "351:PT", "352:LU", "353:IE", "354:IS", "355:AL", "356:MT", "357:CY", "358:FI,AX",
+            "359:BG", "370:LT", "371:LV", "372:EE", "373:MD", "374:AM", "375:BY", "376:AD", "377:MC",
+            "378:SM", "380:UA", "381:RS", "382:ME", "383:XK", "385:HR", "386:SI", "387:BA", "389:MK",
+            "420:CZ", "421:SK", "423:LI",
+            "500:FK", "501:BZ", "502:GT", "503:SV", "504:HN", "505:NI", "506:CR", "507:PA", "508:PM",
+            "509:HT", "590:GP,BL,MF", "591:BO", "592:GY", "593:EC", "594:GF", "595:PY", "596:MQ",
+            "597:SR", "598:UY", "599:CW,BQ",
+            "670:TL", "672:NF", "673:BN", "674:NR", "675:PG", "676:TO", "677:SB", "678:VU", "679:FJ",
+            "680:PW", "681:WF", "682:CK", "683:NU", "685:WS", "686:KI", "687:NC", "688:TV", "689:PF",
+            "690:TK", "691:FM", "692:MH",
+            "850:KP", "852:HK", "853:MO", "855:KH", "856:LA", "880:BD", "886:TW",
+            "960:MV", "961:LB", "962:JO", "963:SY", "964:IQ", "965:KW", "966:SA", "967:YE", "968:OM",
+            "970:PS", "971:AE", "972:IL", "973:BH", "974:QA", "975:BT", "976:MN", "977:NP",
+            "992:TJ", "993:TM", "994:AZ", "995:GE", "996:KG", "998:UZ",
+    };
+    private static final Map<String, String> CALLING_CODES = new HashMap<>();
+
+    static {
+        for (String entry : REGIONS) {
+            int colon = entry.indexOf(':');
+            for (String region : entry.substring(colon + 1).split(",")) {
+                CALLING_CODES.put(region, entry.substring(0, colon));
+            }
+        }
+    }
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * @param region ISO 3166 two-letter code in either case, as TelephonyManager reports it
+     * @return the country calling code without {@code +}, or null if the region is unknown
+     */
+    public static String callingCodeForRegion(String region) {
+        return region != null ? CALLING_CODES.get(region.toUpperCase(Locale.ROOT)) : null;
+    }
+
+    /**
+     * @param defaultCallingCode country calling code without {@code +}, e.g. {@code "91"}, or null
+     *     if the country is not known
+     * @return the number in E.164 form, or null if it is not a plausible phone number or is a
+     *     national number without a default calling code
+     */
+    public static String toE164(String raw, String defaultCallingCode) {
+        String number = normalize(raw, defaultCallingCode);
+        return number != null && number.charAt(0) == '+' ? number : null;
+    }
+
+    /**
+     * Like {@link #toE164}, except that a national number without a default calling code is kept
+     * as typed, as its digits without {@code +}.
+     *
+     * @return the number, or null if it is not a plausible phone number
+     */
+    public static String normalize(String raw, String defaultCallingCode) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(raw.length() + 4);
+        boolean international = false;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c == '+' && digits.length() == 0 && !international) {
+                international = true;
+            } else if (c != ' ' && c != '-' && c != '.' && c != '/' && c != '(' && c != ')') {
+                return null;
+            }
+        }
+
+        if (!international) {
+            if (digits.length() > 2 && digits.charAt(0) == '0' && digits.charAt(1) == '0') {
+                digits.delete(0, 2);
+            } else if (defaultCallingCode == null) {
+                // Country unknown: keep the national number, trunk prefix and all
+                return digits.length() >= MIN_DIGITS && digits.length() <= MAX_DIGITS ? digits.toString() : null;
+            } else if (digits.length() > defaultCallingCode.length() + 9
+                    && digits.indexOf(defaultCallingCode) == 0) {
+                // Country code typed without the '+'
+            } else {
+                String trunk = trunkPrefix(defaultCallingCode);
+                if (!trunk.isEmpty() && digits.indexOf(trunk) == 0) {
+                    digits.delete(0, trunk.length());
+                }
+                digits.insert(0, defaultCallingCode);
+            }
+        }
+
+        if (digits.length() < MIN_DIGITS || digits.length() > MAX_DIGITS || digits.charAt(0) == '0') {
+            return null;
+        }
+        return digits.insert(0, '+').toString();
+    }
+
+    /** The prefix dialled before a national number, which E.164 leaves out. */
+    private static String trunkPrefix(String callingCode) {
+        switch (callingCode) {
+            case "39":  // Italy, Vatican and San Marino keep the leading 0
+            case "378":
+                return "";
+            case "7":   // Russia, Kazakhstan
+                return "8";
+            case "375": // Belarus
+                return "80";
+            case "36":  // Hungary
+                return "06";
+            default:
+                return "0";
+        }
+    }
+}
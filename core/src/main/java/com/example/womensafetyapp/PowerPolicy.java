@@ -0,0 +1,202 @@
+package com.example.womensafetyapp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Picks how hard the service listens from the battery level, the charger and the screen:
+ * <ul>
+ *   <li>charging: {@link Mode#FULL};</li>
+ *   <li>battery at or below {@link #LOW_BATTERY_PERCENT}: {@link Mode#LOW_POWER};</li>
+ *   <li>at or below {@link #BALANCED_BATTERY_PERCENT}, or at or below
+ *       {@link #SCREEN_OFF_BALANCED_PERCENT} with the screen off: {@link Mode#BALANCED};</li>
+ *   <li>otherwise {@link Mode#FULL}.</li>
+ * </ul>
+ * Moving to a more power-hungry mode on battery needs {@link #HYSTERESIS_PERCENT} more charge
+ * than the threshold, so a level that wobbles around it does not flip the mode back and forth.
+ *
+ * Every change is reported to the listener and kept in a short log, and the time spent and the
+ * battery used in each mode are added up, so coverage can be read against energy use.
+ *
+ * Deterministic: time comes from the clock. Not thread-safe: call it from the main thread,
+ * where the battery and screen broadcasts arrive.
+ */
+public final class PowerPolicy {
+
+    public static final int LOW_BATTERY_PERCENT = 15;
+    public static final int BALANCED_BATTERY_PERCENT = 50;
+    public static final int SCREEN_OFF_BALANCED_PERCENT = 80;
+    public static final int HYSTERESIS_PERCENT = 3;
+    public static final int LOG_SIZE = 32;
+
+    public enum Mode {
+        FULL(0, 0, 30_000),
+        BALANCED(20_000, 1_000, 60_000),
+        // No slower than the oldest fix an alert takes from the cache (two minutes), or the
+        // warm location would usually be too old to use
+        LOW_POWER(10_000, 5_000, 2 * 60_000);
+
+        /** Longest recognizer session before it is stopped for a result; 0 for no limit. */
+        public final long sessionMs;
+        /** Shortest gap between the end of one recognizer session and the next. */
+        public final long restartGapMs;
+        /** Interval of the background location fixes. */
+        public final long locationIntervalMs;
+
+        Mode(long sessionMs, long restartGapMs, long locationIntervalMs) {
+            this.sessionMs = sessionMs;
+            this.restartGapMs = restartGapMs;
+            this.locationIntervalMs = locationIntervalMs;
+        }
+    }
+
+    /**
+     * One mode change and the inputs that caused it.
+     */
+    public static final class Transition {
+        public final long atMs;
+        public final Mode from;
+        public final Mode to;
+        /** Battery level at the change; -1 if not known yet. */
+        public final int batteryPercent;
+        public final boolean charging;
+        public final boolean screenOn;
+
+        Transition(long atMs, Mode from, Mode to, int batteryPercent, boolean charging, boolean screenOn) {
+            this.atMs = atMs;
+            this.from = from;
+            this.to = to;
+            this.batteryPercent = batteryPercent;
+            this.charging = charging;
+            this.screenOn = screenOn;
+        }
+
+        @Override
+        public String toString() {
+            return from + " -> " + to + " (battery " + batteryPercent + "%" + (charging ? ", charging" : "")
+                    + ", screen " + (screenOn ? "on" : "off") + ")";
+        }
+    }
+
+    public interface Listener {
+        void onModeChanged(Transition transition);
+    }
+
+    private final RestartScheduler.Clock clock;
+    private final Listener listener;
+
+    private Mode mode = Mode.FULL;
+    private int batteryPercent = -1;
+    private boolean charging;
+    private boolean screenOn = true;
+
+    private long modeSinceMs;
+    private final long[] timeInModeMs = new long[Mode.values().length];
+    private final int[] batteryUsed = new int[Mode.values().length];
+    private final Deque<Transition> log = new ArrayDeque<>();
+
+    public PowerPolicy(RestartScheduler.Clock clock, Listener listener) {
+        this.clock = clock;
+        this.listener = listener;
+        modeSinceMs = clock.nowMs();
+    }
+
+    /**
+     * A battery broadcast: the level in percent and whether a charger is connected.
+     */
+    public void onBattery(int percent, boolean charging) {
+        if (!this.charging && batteryPercent > percent) {
+            batteryUsed[mode.ordinal()] += batteryPercent - percent;
+        }
+        batteryPercent = percent;
+        this.charging = charging;
+        update();
+    }
+
+    public void onScreen(boolean on) {
+        screenOn = on;
+        update();
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /** Time spent in the mode so far, including the current stretch. */
+    public long timeInModeMs(Mode m) {
+        long time = timeInModeMs[m.ordinal()];
+        return m == mode ? time + clock.nowMs() - modeSinceMs : time;
+    }
+
+    /** Battery percentage points used while in the mode and not charging. */
+    public int batteryUsedPercent(Mode m) {
+        return batteryUsed[m.ordinal()];
+    }
+
+    /** The last {@link #LOG_SIZE} mode changes, oldest first. */
+    public List<Transition> transitions() {
+        return new ArrayList<>(log);
+    }
+
+    /**
+     * @return one line per mode with the time spent in it and the battery used there
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Mode m : Mode.values()) {
+            long minutes = timeInModeMs(m) / 60_000;
+            int used = batteryUsed[m.ordinal()];
+            sb.append(String.format(Locale.ROOT, "%-9s %5d min %4d%% battery", m, minutes, used));
+            if (minutes > 0) {
+                sb.append(String.format(Locale.ROOT, " (%.1f%%/h)", used * 60.0 / minutes));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void update() {
+        Mode target = select(effectivePercent());
+        if (target.ordinal() < mode.ordinal() && !charging) {
+            // Promotion on battery: the level has to clear the threshold by the hysteresis
+            target = select(effectivePercent() - HYSTERESIS_PERCENT);
+            if (target.ordinal() >= mode.ordinal()) {
+                return;
+            }
+        }
+        if (target == mode) {
+            return;
+        }
+        long now = clock.nowMs();
+        timeInModeMs[mode.ordinal()] += now - modeSinceMs;
+        modeSinceMs = now;
+        Transition transition = new Transition(now, mode, target, batteryPercent, charging, screenOn);
+        mode = target;
+        if (log.size() == LOG_SIZE) {
+            log.removeFirst();
+        }
+        log.addLast(transition);
+        listener.onModeChanged(transition);
+    }
+
+    // An unknown level is treated as full so the service starts at full strength
+    private int effectivePercent() {
+        return batteryPercent < 0 ? 100 : batteryPercent;
+    }
+
+    private Mode select(int percent) {
+        if (charging) {
+            return Mode.FULL;
+        }
+        if (percent <= LOW_BATTERY_PERCENT) {
+            return Mode.LOW_POWER;
+        }
+        if (percent <= BALANCED_BATTERY_PERCENT || (!screenOn && percent <= SCREEN_OFF_BALANCED_PERCENT)) {
+            return Mode.BALANCED;
+        }
+        return Mode.FULL;
+    }
+}
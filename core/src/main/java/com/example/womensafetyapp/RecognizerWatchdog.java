@@ -0,0 +1,91 @@
+package com.example.womensafetyapp;
+
+/**
+ * Notices a recognizer that has silently stopped calling back. While a session runs the listener
+ * hears from it constantly (onRmsChanged alone arrives several times a second with the
+ * microphone open), and every session ends in onResults or onError. A session that has said
+ * nothing for {@link #DEFAULT_STALL_MS} will never end on its own: the service looks active but
+ * is deaf, and nothing would post the next restart.
+ *
+ * Watching starts with each session and stops while nothing is expected: a restart pending, the
+ * VAD gate, the service stopping. Deterministic: time is passed in. Not thread-safe: call it from
+ * the main thread.
+ */
+public final class RecognizerWatchdog {
+
+    /** Longer than a network recognizer takes for a final result after end of speech. */
+    public static final long DEFAULT_STALL_MS = 20_000;
+
+    private final long stallMs;
+    private boolean watching;
+    private long lastCallbackMs;
+    private long stalls;
+    private long longestSilenceMs;
+
+    public RecognizerWatchdog(long stallMs) {
+        if (stallMs <= 0) {
+            throw new IllegalArgumentException("stallMs must be positive");
+        }
+        this.stallMs = stallMs;
+    }
+
+    /** A session was started; it must call back within the stall time. */
+    public void onSessionStarted(long nowMs) {
+        watching = true;
+        lastCallbackMs = nowMs;
+    }
+
+    /** Any listener callback from the active session. */
+    public void onCallback(long nowMs) {
+        if (watching) {
+            longestSilenceMs = Math.max(longestSilenceMs, nowMs - lastCallbackMs);
+            lastCallbackMs = nowMs;
+        }
+    }
+
+    /** No session is expected to call back until the next {@link #onSessionStarted}. */
+    public void onIdle() {
+        watching = false;
+    }
+
+    public boolean isWatching() {
+        return watching;
+    }
+
+    /** Time of the last sign of life from the session. */
+    public long lastCallbackMs() {
+        return lastCallbackMs;
+    }
+
+    /**
+     * @return how long the session has been silent if it counts as stalled, or -1. A stall is
+     *     reported once: watching stops until the next session.
+     */
+    public long check(long nowMs) {
+        if (!watching) {
+            return -1;
+        }
+        long silentMs = nowMs - lastCallbackMs;
+        if (silentMs < stallMs) {
+            return -1;
+        }
+        watching = false;
+        stalls++;
+        longestSilenceMs = Math.max(longestSilenceMs, silentMs);
+        return silentMs;
+    }
+
+    /** When a {@link #check} could next find a stall, so checks need not poll. */
+    public long nextCheckDelayMs(long nowMs) {
+        return Math.max(1, lastCallbackMs + stallMs - nowMs);
+    }
+
+    public long stalls() {
+        return stalls;
+    }
+
+    /** Longest gap between callbacks seen in a session, stalls included. */
+    public long longestSilenceMs() {
+        return longestSilenceMs;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.womensafetyapp;
+
+import java.util.Random;
+
+/**
+ * Decides how long to wait before restarting the recognition session after it ends or fails.
+ *
+ * Each error class gets its own policy:
+ * <ul>
+ *   <li>{@link ErrorClass#NO_MATCH}: nothing was heard, retry right away.</li>
+ *   <li>{@link ErrorClass#TRANSIENT}: busy, network or server trouble, jittered exponential backoff.</li>
+ *   <li>{@link ErrorClass#CLIENT}: client-side failures; after repeated ones a circuit breaker opens
+ *       and restarts pause for a cooldown that doubles every time the breaker trips again.</li>
+ * </ul>
+ * A session that reaches "ready for speech" counts as healthy and resets the backoff state.
+ *
+ * Not thread-safe: call it from the thread that schedules restarts.
+ */
+public final class RestartScheduler {
+
+    /** Restart delay after a normal end of speech / results. */
+    public static final long SESSION_END_DELAY_MS = 100;
+    public static final long NO_MATCH_DELAY_MS = 0;
+    public static final long BACKOFF_BASE_MS = 250;
+    public static final long BACKOFF_MAX_MS = 30_000;
+    public static final int CLIENT_ERRORS_TO_TRIP = 5;
+    public static final long CLIENT_RETRY_DELAY_MS = 1_000;
+    public static final long CIRCUIT_COOLDOWN_MS = 60_000;
+    public static final long CIRCUIT_COOLDOWN_MAX_MS = 10 * 60_000;
+
+    public enum ErrorClass {
+        NO_MATCH,
+        TRANSIENT,
+        CLIENT
+    }
+
+    /**
+     * Monotonic millisecond clock, injectable so tests can use a fake one.
+     */
+    public interface Clock {
+        long nowMs();
+    }
+
+    private final Clock clock;
+    private final Random random;
+
+    private int transientStreak;
+    private int clientStreak;
+    private int circuitTrips;
+    private long circuitOpenUntilMs = Long.MIN_VALUE;
+
+    // Counters, exposed for logging and diagnostics
+    private long restarts;
+    private long noMatchRetries;
+    private long backoffRetries;
+    private long clientErrors;
+    private long totalTrips;
+
+    public RestartScheduler(Clock clock, Random random) {
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * The session produced speech events; forget any accumulated failures.
+     */
+    public void onHealthy() {
+        transientStreak = 0;
+        clientStreak = 0;
+        circuitTrips = 0;
+    }
+
+    /**
+     * @return delay before restarting after a normal session end
+     */
+    public long onSessionEnd() {
+        return schedule(SESSION_END_DELAY_MS);
+    }
+
+    /**
+     * @return delay before restarting after an error of the given class
+     */
+    public long onError(ErrorClass errorClass) {
+        switch (errorClass) {
+            case NO_MATCH:
+                noMatchRetries++;
+                return schedule(NO_MATCH_DELAY_MS);
+            case TRANSIENT:
+                backoffRetries++;
+                transientStreak++;
+                return schedule(jitteredBackoff(transientStreak));
+            case CLIENT:
+            default:
+                clientErrors++;
+                clientStreak++;
+                if (clientStreak >= CLIENT_ERRORS_TO_TRIP) {
+                    tripCircuit();
+                }
+                return schedule(CLIENT_RETRY_DELAY_MS);
+        }
+    }
+
+    public boolean isCircuitOpen() {
+        return clock.nowMs() < circuitOpenUntilMs;
+    }
+
+    public long getRestarts() { return restarts; }
+
+    public long getNoMatchRetries() { return noMatchRetries; }
+
+    public long getBackoffRetries() { return backoffRetries; }
+
+    public long getClientErrors() { return clientErrors; }
+
+    public long getCircuitTrips() { return totalTrips; }
+
+    @Override
+    public String toString() {
+        return "restarts=" + restarts + " noMatch=" + noMatchRetries + " backoff=" + backoffRetries
+                + " clientErrors=" + clientErrors + " circuitTrips=" + totalTrips;
+    }
+
+    private void tripCircuit() {
+        long cooldown = Math.min(CIRCUIT_COOLDOWN_MS << Math.min(circuitTrips, 16), CIRCUIT_COOLDOWN_MAX_MS);
+        circuitOpenUntilMs = clock.nowMs() + cooldown;
+        circuitTrips++;
+        totalTrips++;
+        // Half-open after the cooldown: one more client error trips it again
+        clientStreak = CLIENT_ERRORS_TO_TRIP - 1;
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half the step is fixed, half is random, so a
+     * burst of failures does not line every retry up on the same tick.
+     */
+    private long jitteredBackoff(int attempt) {
+        long step = Math.min(BACKOFF_BASE_MS << Math.min(attempt - 1, 20), BACKOFF_MAX_MS);
+        long half = step / 2;
+        return half + (long) (random.nextDouble() * (step - half));
+    }
+
+    private long schedule(long delayMs) {
+        restarts++;
+        long now = clock.nowMs();
+        if (now < circuitOpenUntilMs) {
+            return Math.max(delayMs, circuitOpenUntilMs - now);
+        }
+        return delayMs;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.womensafetyapp;
+
+/**
+ * Recognizes a deliberate shake of the phone from accelerometer samples. Gravity is tracked with
+ * a slow low-pass filter and taken out, leaving the linear acceleration on each axis. A reversal
+ * is the linear acceleration on one axis swinging from beyond +{@code threshold} to beyond
+ * -{@code threshold} or back; a shake is {@code minReversals} of them within {@code windowMs}.
+ *
+ * The threshold sits above 1 g on purpose: walking, running or a swinging bag can push the
+ * acceleration far above gravity at each step, but never pull it down by more than free fall,
+ * so only a hand moving the phone back and forth produces swings that large both ways.
+ *
+ * Everything is kept in primitive fields and a fixed array of reversal times; a sample allocates
+ * nothing. Not thread-safe: feed it from the one thread that receives the sensor events.
+ */
+public final class ShakeDetector {
+
+    /**
+     * Tuning; {@link #DEFAULT} is sized for a hard shake of about a second.
+     */
+    public static final class Config {
+        public static final Config DEFAULT = new Config(12f, 6, 1_500, 10_000, 1_000);
+
+        /** Linear acceleration each swing has to pass, in m/s^2. */
+        public final float threshold;
+        public final int minReversals;
+        public final long windowMs;
+        /** After a shake, further shaking is ignored this long. */
+        public final long cooldownMs;
+        /** Time constant of the gravity filter. */
+        public final long gravityTauMs;
+
+        public Config(float threshold, int minReversals, long windowMs, long cooldownMs, long gravityTauMs) {
+            if (minReversals < 1 || minReversals > MAX_REVERSALS) {
+                throw new IllegalArgumentException("minReversals " + minReversals);
+            }
+            this.threshold = threshold;
+            this.minReversals = minReversals;
+            this.windowMs = windowMs;
+            this.cooldownMs = cooldownMs;
+            this.gravityTauMs = gravityTauMs;
+        }
+    }
+
+    static final int MAX_REVERSALS = 32;
+    private static final long NS_PER_MS = 1_000_000;
+    // Gaps longer than this (sensor paused, batching) restart the gravity estimate
+    private static final long MAX_GAP_NS = 500 * NS_PER_MS;
+
+    private final Config config;
+    private final long windowNs;
+    private final long cooldownNs;
+    private final float tauNs;
+
+    private boolean started;
+    private long lastNs;
+    private float gravityX;
+    private float gravityY;
+    private float gravityZ;
+    // Sign of the last swing past the threshold on each axis: 1, -1 or 0 for none yet
+    private int signX;
+    private int signY;
+    private int signZ;
+
+    // Times of the recent reversals, oldest at head
+    private final long[] reversalNs = new long[MAX_REVERSALS];
+    private int head;
+    private int count;
+
+    private long cooldownUntilNs = Long.MIN_VALUE;
+    private long shakes;
+
+    public ShakeDetector(Config config) {
+        this.config = config;
+        windowNs = config.windowMs * NS_PER_MS;
+        cooldownNs = config.cooldownMs * NS_PER_MS;
+        tauNs = config.gravityTauMs * (float) NS_PER_MS;
+    }
+
+    /**
+     * One accelerometer sample, in m/s^2 on the device axes.
+     *
+     * @param timestampNs sensor time, as in {@code SensorEvent.timestamp}
+     * @return true if this sample completes a shake
+     */
+    public boolean onSample(long timestampNs, float x, float y, float z) {
+        if (!started || timestampNs - lastNs > MAX_GAP_NS || timestampNs < lastNs) {
+            started = true;
+            lastNs = timestampNs;
+            gravityX = x;
+            gravityY = y;
+            gravityZ = z;
+            signX = signY = signZ = 0;
+            count = 0;
+            return false;
+        }
+        float alpha = tauNs / (tauNs + (timestampNs - lastNs));
+        lastNs = timestampNs;
+        gravityX = alpha * gravityX + (1 - alpha) * x;
+        gravityY = alpha * gravityY + (1 - alpha) * y;
+        gravityZ = alpha * gravityZ + (1 - alpha) * z;
+
+        int reversals = 0;
+        int s = swing(x - gravityX);
+        if (s != 0) {
+            reversals += signX == -s ? 1 : 0;
+            signX = s;
+        }
+        s = swing(y - gravityY);
+        if (s != 0) {
+            reversals += signY == -s ? 1 : 0;
+            signY = s;
+        }
+        s = swing(z - gravityZ);
+        if (s != 0) {
+            reversals += signZ == -s ? 1 : 0;
+            signZ = s;
+        }
+
+        for (int i = 0; i < reversals; i++) {
+            addReversal(timestampNs);
+        }
+        while (count > 0 && timestampNs - reversalNs[head] > windowNs) {
+            head = (head + 1) % MAX_REVERSALS;
+            count--;
+        }
+        if (count < config.minReversals || timestampNs < cooldownUntilNs) {
+            return false;
+        }
+        shakes++;
+        cooldownUntilNs = timestampNs + cooldownNs;
+        count = 0;
+        return true;
+    }
+
+    /** Shakes recognized so far. */
+    public long shakes() {
+        return shakes;
+    }
+
+    /** Forgets the motion so far, for example when the sensor is registered again. */
+    public void reset() {
+        started = false;
+        count = 0;
+        cooldownUntilNs = Long.MIN_VALUE;
+    }
+
+    private int swing(float linear) {
+        if (linear > config.threshold) {
+            return 1;
+        }
+        return linear < -config.threshold ? -1 : 0;
+    }
+
+    private void addReversal(long timestampNs) {
+        if (count == MAX_REVERSALS) {
+            head = (head + 1) % MAX_REVERSALS;
+            count--;
+        }
+        reversalNs[(head + count) % MAX_REVERSALS] = timestampNs;
+        count++;
+    }
+}
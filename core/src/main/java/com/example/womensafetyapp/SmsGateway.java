@@ -0,0 +1,35 @@
+package com.example.womensafetyapp;
+
+import java.util.List;
+
+/**
+ * Sends an alert SMS to several contacts and reports on each of them. On the device this is the
+ * {@code SmsDispatcher} around SmsManager; the simulation harness uses a scripted fake.
+ */
+public interface SmsGateway {
+
+    /**
+     * Reports for one dispatch, on the alert thread.
+     */
+    interface Listener {
+        /** The submit call for one contact returned; attempt counts from 1. */
+        void onSubmitted(long alertId, String number, int attempt);
+
+        void onSent(long alertId, String number);
+
+        void onDelivered(long alertId, String number, long timeToFirstDeliveryMs);
+
+        void onFailed(long alertId, String number, int attempts);
+
+        /**
+         * Sent, but no delivery report came before the dispatch stopped waiting. Many carriers
+         * never send one; the contact is as done as it will get and should not be sent again.
+         */
+        void onUnconfirmed(long alertId, String number);
+    }
+
+    /**
+     * Sends {@code message} to every number, retrying failures on its own.
+     */
+    void dispatch(long alertId, List<String> numbers, String message);
+}
@@ -0,0 +1,144 @@
+package com.example.womensafetyapp;
+
+import java.text.Normalizer;
+
+/**
+ * Counts the SMS parts a text will be sent as, the way the radio splits it: GSM-7 when every
+ * character is in the GSM 03.38 alphabet (160 septets in one part, 153 per part once split,
+ * extension characters such as {@code []{}~^|} and the euro sign taking two), otherwise UCS-2
+ * (70 UTF-16 units in one part, 67 per part). An escape pair or a surrogate pair is never split
+ * across parts.
+ *
+ * National language shift tables are not modelled; they only ever make a message shorter.
+ */
+public final class SmsSegments {
+
+    public static final int GSM7_SINGLE = 160;
+    public static final int GSM7_MULTI = 153;
+    public static final int UCS2_SINGLE = 70;
+    public static final int UCS2_MULTI = 67;
+
+    // The non-ASCII characters of the basic GSM 03.38 table
+    private static final String GSM7_BASIC_EXTRA =
+            "\u00a3\u00a5\u00e8\u00e9\u00f9\u00ec\u00f2\u00c7\u00d8\u00f8\u00c5\u00e5\u0394\u03a6\u0393\u039b"
+            + "\u03a9\u03a0\u03a8\u03a3\u0398\u039e\u00c6\u00e6\u00df\u00c9\u00a4\u00a1\u00c4\u00d6\u00d1\u00dc"
+            + "\u00a7\u00bf\u00e4\u00f6\u00f1\u00fc\u00e0";
+    private static final String GSM7_EXTENSION = "^{}\\[~]|\u20ac\f";
+
+    private SmsSegments() {}
+
+    /**
+     * @return septets the character takes in GSM-7: 1, 2 for the extension table, 0 if it has
+     *         no GSM-7 encoding
+     */
+    static int septets(char c) {
+        if (GSM7_EXTENSION.indexOf(c) >= 0) {
+            return 2;
+        }
+        if ((c >= ' ' && c < 0x7f && c != '`') || c == '\n' || c == '\r') {
+            return 1;
+        }
+        return GSM7_BASIC_EXTRA.indexOf(c) >= 0 ? 1 : 0;
+    }
+
+    public static boolean isGsm7(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (septets(text.charAt(i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return parts the text is sent as; 1 for an empty text
+     */
+    public static int count(CharSequence text) {
+        return isGsm7(text) ? countGsm7(text) : countUcs2(text);
+    }
+
+    /**
+     * Replaces characters that would force UCS-2 with their nearest GSM-7 look-alikes: curly
+     * quotes, dashes, ellipses, non-breaking spaces and accented letters. Characters with no
+     * look-alike are kept as they are.
+     */
+    public static String toGsm7(String text) {
+        if (isGsm7(text)) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (septets(c) > 0) {
+                sb.append(c);
+                continue;
+            }
+            switch (c) {
+                case '\u2018': case '\u2019': case '\u201a': case '\u2032': case '`':
+                    sb.append('\'');
+                    break;
+                case '\u201c': case '\u201d': case '\u201e': case '\u2033':
+                    sb.append('"');
+                    break;
+                case '\u2010': case '\u2011': case '\u2012': case '\u2013': case '\u2014': case '\u2212':
+                    sb.append('-');
+                    break;
+                case '\u2026':
+                    sb.append("...");
+                    break;
+                case '\u00a0': case '\u2007': case '\u202f': case '\t':
+                    sb.append(' ');
+                    break;
+                case '\u00e7':
+                    sb.append('\u00c7'); // The table only has the capital
+                    break;
+                default:
+                    // An accented letter without its own code: keep the base letter
+                    char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+                    sb.append(septets(base) > 0 ? base : c);
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int countGsm7(CharSequence text) {
+        int total = 0;
+        for (int i = 0; i < text.length(); i++) {
+            total += septets(text.charAt(i));
+        }
+        if (total <= GSM7_SINGLE) {
+            return 1;
+        }
+        int parts = 1;
+        int used = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int n = septets(text.charAt(i));
+            if (used + n > GSM7_MULTI) {
+                parts++;
+                used = 0;
+            }
+            used += n;
+        }
+        return parts;
+    }
+
+    private static int countUcs2(CharSequence text) {
+        int length = text.length();
+        if (length <= UCS2_SINGLE) {
+            return 1;
+        }
+        int parts = 1;
+        int used = 0;
+        for (int i = 0; i < length; i++) {
+            int n = Character.isHighSurrogate(text.charAt(i)) && i + 1 < length ? 2 : 1;
+            if (used + n > UCS2_MULTI) {
+                parts++;
+                used = 0;
+            }
+            used += n;
+            i += n - 1;
+        }
+        return parts;
+    }
+}
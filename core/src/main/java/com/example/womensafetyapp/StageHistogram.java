@@ -0,0 +1,132 @@
+package com.example.womensafetyapp;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket latency histogram in milliseconds. Buckets follow a 1-2-5 series from 1 ms to
+ * 60 s plus an overflow bucket, so recording is a short scan and an increment with no allocation,
+ * and histograms from different devices or releases line up bucket for bucket.
+ */
+public final class StageHistogram {
+
+    /** Inclusive upper bound of each bucket except the last, which catches everything above. */
+    static final long[] BOUNDS_MS = {
+            1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 20_000, 60_000
+    };
+
+    private final long[] counts = new long[BOUNDS_MS.length + 1];
+    private long count;
+    private long sumMs;
+    private long maxMs;
+
+    public void record(long ms) {
+        if (ms < 0) {
+            ms = 0;
+        }
+        int bucket = 0;
+        while (bucket < BOUNDS_MS.length && ms > BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        count++;
+        sumMs += ms;
+        if (ms > maxMs) {
+            maxMs = ms;
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long maxMs() {
+        return maxMs;
+    }
+
+    public long meanMs() {
+        return count == 0 ? 0 : sumMs / count;
+    }
+
+    public long bucketCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public static int buckets() {
+        return BOUNDS_MS.length + 1;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given quantile, capped at the recorded maximum.
+     * Returns 0 when empty.
+     *
+     * @param quantile in (0, 1]
+     */
+    public long quantileMs(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return bucket < BOUNDS_MS.length ? Math.min(BOUNDS_MS[bucket], maxMs) : maxMs;
+            }
+        }
+        return maxMs;
+    }
+
+    public StageHistogram copy() {
+        StageHistogram copy = new StageHistogram();
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        copy.count = count;
+        copy.sumMs = sumMs;
+        copy.maxMs = maxMs;
+        return copy;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sumMs = 0;
+        maxMs = 0;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(sumMs);
+        out.writeLong(maxMs);
+        out.writeShort(counts.length);
+        for (long c : counts) {
+            out.writeLong(c);
+        }
+    }
+
+    /**
+     * Reads a histogram written by {@link #writeTo} and adds it to this one, so counts recorded
+     * before the read are kept. A histogram saved with a different bucket layout is skipped and
+     * leaves this one unchanged.
+     */
+    void readFrom(DataInput in) throws IOException {
+        long savedCount = in.readLong();
+        long savedSum = in.readLong();
+        long savedMax = in.readLong();
+        int buckets = in.readUnsignedShort();
+        long[] saved = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            saved[i] = in.readLong();
+        }
+        if (buckets != counts.length) {
+            return;
+        }
+        for (int i = 0; i < buckets; i++) {
+            counts[i] += saved[i];
+        }
+        count += savedCount;
+        sumMs += savedSum;
+        maxMs = Math.max(maxMs, savedMax);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.womensafetyapp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Named timestamps of one cold start, in the order they were reached. Only the first time a mark
+ * is reached counts, so a later onResume does not move "resume" and the trace keeps describing the
+ * start. Marks can come from any thread.
+ */
+public final class StartupTrace {
+
+    private final RestartScheduler.Clock clock;
+    private final Map<String, Long> marks = new LinkedHashMap<>();
+
+    public StartupTrace(RestartScheduler.Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if this is the first time the mark was reached
+     */
+    public synchronized boolean mark(String name) {
+        if (marks.containsKey(name)) {
+            return false;
+        }
+        marks.put(name, clock.nowMs());
+        return true;
+    }
+
+    public synchronized boolean has(String name) {
+        return marks.containsKey(name);
+    }
+
+    /**
+     * @return milliseconds from the first mark to {@code name}, or -1 if it was not reached
+     */
+    public synchronized long sinceStartMs(String name) {
+        Long at = marks.get(name);
+        if (at == null) {
+            return -1;
+        }
+        return at - marks.values().iterator().next();
+    }
+
+    /** Mark names in the order they were reached. */
+    public synchronized String[] names() {
+        return marks.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (String name : marks.keySet()) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(name).append('=').append(sinceStartMs(name)).append("ms");
+        }
+        return sb.toString();
+    }
+}
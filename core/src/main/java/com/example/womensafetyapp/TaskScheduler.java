@@ -0,0 +1,13 @@
+package com.example.womensafetyapp;
+
+/**
+ * Delayed tasks on one thread, as a Handler posts them. Lets core classes set deadlines without
+ * depending on the Android looper; the simulation harness runs them on a virtual clock.
+ */
+public interface TaskScheduler {
+
+    void postDelayed(Runnable task, long delayMs);
+
+    /** Drops {@code task} if it has not run yet. */
+    void removeCallbacks(Runnable task);
+}
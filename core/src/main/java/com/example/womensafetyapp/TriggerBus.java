@@ -0,0 +1,105 @@
+package com.example.womensafetyapp;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Where every trigger source reports: the recognizer, the keyword spotter, the shake detector.
+ * Each source can be switched off on its own; triggers from enabled sources are counted and
+ * passed to the one sink, which starts the alert path. Deciding whether a trigger starts a new
+ * alert or joins the one in flight is left to the {@link AlertStateMachine} behind the sink, so
+ * two sources firing for the same emergency still send one alert.
+ *
+ * Safe from any thread; sources post from their own threads and nothing here blocks.
+ */
+public final class TriggerBus {
+
+    public enum Source {
+        VOICE, KEYWORD, SHAKE
+    }
+
+    public interface Sink {
+        void onTrigger(Source source, long atMs);
+    }
+
+    private static final Source[] SOURCES = Source.values();
+
+    private final RestartScheduler.Clock clock;
+    private final Sink sink;
+    // Per source: 1 if enabled, triggers passed on, triggers ignored while disabled, last trigger time
+    private final AtomicLongArray enabled = new AtomicLongArray(SOURCES.length);
+    private final AtomicLongArray posted = new AtomicLongArray(SOURCES.length);
+    private final AtomicLongArray ignored = new AtomicLongArray(SOURCES.length);
+    private final AtomicLongArray lastAtMs = new AtomicLongArray(SOURCES.length);
+
+    /** All sources start enabled. */
+    public TriggerBus(RestartScheduler.Clock clock, Sink sink) {
+        this.clock = clock;
+        this.sink = sink;
+        for (int i = 0; i < SOURCES.length; i++) {
+            enabled.set(i, 1);
+            lastAtMs.set(i, -1);
+        }
+    }
+
+    public void setEnabled(Source source, boolean on) {
+        enabled.set(source.ordinal(), on ? 1 : 0);
+    }
+
+    public boolean isEnabled(Source source) {
+        return enabled.get(source.ordinal()) != 0;
+    }
+
+    /**
+     * Reports a trigger from {@code source}.
+     *
+     * @return false if the source is disabled and the trigger was dropped
+     */
+    public boolean post(Source source) {
+        int i = source.ordinal();
+        if (enabled.get(i) == 0) {
+            ignored.incrementAndGet(i);
+            return false;
+        }
+        long now = clock.nowMs();
+        posted.incrementAndGet(i);
+        lastAtMs.set(i, now);
+        sink.onTrigger(source, now);
+        return true;
+    }
+
+    public long count(Source source) {
+        return posted.get(source.ordinal());
+    }
+
+    public long ignoredCount(Source source) {
+        return ignored.get(source.ordinal());
+    }
+
+    /** Time of the last trigger passed on from {@code source}, or -1. */
+    public long lastTriggerMs(Source source) {
+        return lastAtMs.get(source.ordinal());
+    }
+
+    /**
+     * @return one line with the triggers per source, e.g. "VOICE 2, KEYWORD off, SHAKE 1"
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Source source : SOURCES) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(source).append(' ');
+            if (isEnabled(source)) {
+                sb.append(count(source));
+            } else {
+                sb.append("off");
+            }
+            long dropped = ignoredCount(source);
+            if (dropped > 0) {
+                sb.append(" (").append(dropped).append(" ignored)");
+            }
+        }
+        return sb.toString();
+    }
+}
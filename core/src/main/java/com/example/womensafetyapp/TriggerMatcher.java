@@ -0,0 +1,271 @@
+package com.example.womensafetyapp;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds trigger phrases in recognizer hypotheses, tolerating the ways a recognizer spells them.
+ *
+ * <p>Text and phrases are normalized the same way: letters are lower-cased one char at a time
+ * (so the result does not depend on the device locale; under Turkish rules "I" would become a
+ * dotless i), Latin-1 accents are dropped, and everything that is not a letter or digit only
+ * separates words. "S.O.S", "so s" and an accented "help me" then read as "sos" or "helpme". A phrase
+ * must start at the start of a word and end at the end of one, so "also sorry" is not "sos".
+ *
+ * <p>A phrase of {@code n} letters may be off by {@code n / 5} edits (insertions, deletions or
+ * substitutions): none for "sos", one for "help me". Phrases are compiled once, at construction;
+ * a hypothesis is normalized once and every phrase is run over it with a single reused column of
+ * an edit-distance table, so matching allocates nothing once the text buffer has grown to the
+ * longest hypothesis.
+ *
+ * <p>{@link #score} weighs a hit in each N-best hypothesis by the recognizer's confidence in it
+ * and by how close the hit was, and sums them.
+ *
+ * Not thread-safe: call it from one thread (the main thread, where results arrive).
+ */
+public final class TriggerMatcher {
+
+    public static final float DEFAULT_THRESHOLD = 0.3f;
+
+    // Letters per allowed edit
+    private static final int LETTERS_PER_EDIT = 5;
+
+    // Folding of U+00C0..U+00FF; '\0' marks a separator (multiplication and division signs)
+    private static final String LATIN1_FOLD =
+            "aaaaaaaceeeeiiiidnooooo\0ouuuuyts"
+            + "aaaaaaaceeeeiiiidnooooo\0ouuuuyty";
+
+    private final String[] phrases;
+    private final char[][] compiled;
+    private final int[] maxEdits;
+    private final float threshold;
+
+    // Edit-distance columns, one per phrase, reused for every hypothesis
+    private final int[][] columns;
+
+    // Normalized text and where its words start; grown on demand
+    private char[] text = new char[64];
+    private boolean[] wordStart = new boolean[65];
+
+    private int lastPhrase = -1;
+    private int lastEdits;
+
+    public TriggerMatcher(String... phrases) {
+        this(DEFAULT_THRESHOLD, phrases);
+    }
+
+    /**
+     * @param threshold score from {@link #score} at which {@link #matches(List, float[])} fires
+     */
+    public TriggerMatcher(float threshold, String... phrases) {
+        if (phrases.length == 0) {
+            throw new IllegalArgumentException("at least one phrase is required");
+        }
+        this.threshold = threshold;
+        this.phrases = phrases.clone();
+        compiled = new char[phrases.length][];
+        maxEdits = new int[phrases.length];
+        columns = new int[phrases.length][];
+        for (int p = 0; p < phrases.length; p++) {
+            int length = normalize(phrases[p]);
+            if (length == 0) {
+                throw new IllegalArgumentException("phrase without letters: \"" + phrases[p] + "\"");
+            }
+            compiled[p] = Arrays.copyOf(text, length);
+            maxEdits[p] = length / LETTERS_PER_EDIT;
+            columns[p] = new int[length + 1];
+        }
+    }
+
+    /**
+     * @return whether any phrase occurs in the text
+     */
+    public boolean matches(String text) {
+        return matchedPhrase(text) != null;
+    }
+
+    /**
+     * @return the closest phrase found in the text, or null
+     */
+    public String matchedPhrase(String text) {
+        return similarity(text) > 0 ? phrases[lastPhrase] : null;
+    }
+
+    /**
+     * @return whether {@link #score} reaches the threshold
+     */
+    public boolean matches(List<String> hypotheses, float[] confidences) {
+        return score(hypotheses, confidences) >= threshold;
+    }
+
+    /**
+     * Sums, over the N-best hypotheses, the weight of each hypothesis times the similarity of the
+     * best phrase in it (1 for an exact hit, less per edit). The weight is the recognizer's
+     * confidence; when it reports none (null, or negative values), hypothesis {@code i} gets
+     * {@code 1 / (i + 1)}, so only the top few can fire on their own.
+     *
+     * @param confidences CONFIDENCE_SCORES in hypothesis order, or null
+     * @return a score in [0, 1]
+     */
+    public float score(List<String> hypotheses, float[] confidences) {
+        if (hypotheses == null) {
+            return 0;
+        }
+        float score = 0;
+        int bestPhrase = -1;
+        int bestEdits = 0;
+        float bestContribution = 0;
+        for (int i = 0; i < hypotheses.size(); i++) {
+            float similarity = similarity(hypotheses.get(i));
+            if (similarity == 0) {
+                continue;
+            }
+            float contribution = weight(confidences, i) * similarity;
+            score += contribution;
+            if (contribution > bestContribution) {
+                bestContribution = contribution;
+                bestPhrase = lastPhrase;
+                bestEdits = lastEdits;
+            }
+        }
+        lastPhrase = bestPhrase;
+        lastEdits = bestEdits;
+        return Math.min(1f, score);
+    }
+
+    /**
+     * @return the phrase behind the last non-zero result, or null
+     */
+    public String lastMatchedPhrase() {
+        return lastPhrase >= 0 ? phrases[lastPhrase] : null;
+    }
+
+    /** Edits in the last hit; 0 for an exact match. */
+    public int lastEdits() {
+        return lastEdits;
+    }
+
+    public float threshold() {
+        return threshold;
+    }
+
+    private static float weight(float[] confidences, int i) {
+        if (confidences != null && i < confidences.length && confidences[i] >= 0) {
+            return confidences[i];
+        }
+        return 1f / (i + 1);
+    }
+
+    /**
+     * @return 1 - edits / (letters + 1) for the closest phrase in the text, or 0 if none is
+     *         within its edit budget
+     */
+    private float similarity(String hypothesis) {
+        lastPhrase = -1;
+        if (hypothesis == null) {
+            return 0;
+        }
+        int length = normalize(hypothesis);
+        if (length == 0) {
+            return 0;
+        }
+        wordStart[length] = true;
+
+        float bestSimilarity = 0;
+        for (int p = 0; p < compiled.length; p++) {
+            int edits = closestEdits(p, length);
+            if (edits < 0) {
+                continue;
+            }
+            float similarity = 1f - (float) edits / (compiled[p].length + 1);
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                lastPhrase = p;
+                lastEdits = edits;
+            }
+        }
+        return bestSimilarity;
+    }
+
+    /**
+     * Edit distance of the phrase against the best-matching run of whole words (Sellers'
+     * algorithm with starts and ends pinned to word boundaries).
+     *
+     * @return the fewest edits, or -1 if more than the phrase allows
+     */
+    private int closestEdits(int p, int length) {
+        char[] phrase = compiled[p];
+        int[] column = columns[p];
+        int k = maxEdits[p];
+        int inf = k + 1;
+        int m = phrase.length;
+
+        // Before any text: only word starts may begin a match, and text position 0 is one
+        column[0] = 0;
+        for (int i = 1; i <= m; i++) {
+            column[i] = Math.min(i, inf);
+        }
+        int best = inf;
+        for (int j = 0; j < length; j++) {
+            char c = text[j];
+            int diagonal = column[0];
+            column[0] = wordStart[j + 1] ? 0 : inf;
+            for (int i = 1; i <= m; i++) {
+                int above = column[i];
+                int cost = diagonal + (phrase[i - 1] == c ? 0 : 1);
+                cost = Math.min(cost, above + 1);
+                cost = Math.min(cost, column[i - 1] + 1);
+                column[i] = Math.min(cost, inf);
+                diagonal = above;
+            }
+            if (column[m] < best && wordStart[j + 1]) {
+                best = column[m];
+                if (best == 0) {
+                    break;
+                }
+            }
+        }
+        return best <= k ? best : -1;
+    }
+
+    /**
+     * Writes the folded letters and digits of {@code s} into {@link #text} and marks word starts.
+     *
+     * @return the number of chars written
+     */
+    private int normalize(String s) {
+        if (text.length < s.length()) {
+            text = new char[s.length()];
+            wordStart = new boolean[s.length() + 1];
+        }
+        int length = 0;
+        boolean separated = true;
+        for (int i = 0; i < s.length(); i++) {
+            char c = fold(s.charAt(i));
+            if (c == 0) {
+                separated = true;
+                continue;
+            }
+            wordStart[length] = separated;
+            text[length++] = c;
+            separated = false;
+        }
+        return length;
+    }
+
+    /**
+     * @return the lower-case, unaccented form of a letter or digit, or 0 for anything else
+     */
+    private static char fold(char c) {
+        if (c < 0x80) {
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                return c;
+            }
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : 0;
+        }
+        if (c >= 0xC0 && c <= 0xFF) {
+            return LATIN1_FOLD.charAt(c - 0xC0);
+        }
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : 0;
+    }
+}
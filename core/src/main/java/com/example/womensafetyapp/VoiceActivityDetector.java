@@ -0,0 +1,141 @@
+package com.example.womensafetyapp;
+
+/**
+ * Energy-based voice activity detector with an adaptive threshold.
+ *
+ * Tracks the RMS energy of each frame in dB together with a running noise floor that follows
+ * quiet frames quickly and loud frames slowly. A frame counts as voiced when it is at least
+ * {@code marginDb} above the floor; speech starts after {@code onsetFrames} voiced frames in a row
+ * and ends after {@code hangoverFrames} unvoiced ones, so short dips inside a word do not end it.
+ *
+ * Works on caller-owned primitive arrays and keeps only scalar state: nothing is allocated per frame.
+ * Not thread-safe.
+ */
+public final class VoiceActivityDetector {
+
+    public static final float DEFAULT_MARGIN_DB = 9f;
+    public static final int DEFAULT_ONSET_FRAMES = 3;
+    public static final int DEFAULT_HANGOVER_FRAMES = 25;
+
+    // Floor smoothing per frame: falls fast toward quieter frames, rises toward louder unvoiced
+    // frames in about a second, and only creeps toward voiced ones (~40 s at 20 ms frames)
+    private static final float FLOOR_FALL_RATE = 0.2f;
+    private static final float FLOOR_RISE_RATE = 0.02f;
+    private static final float FLOOR_RISE_RATE_VOICED = 0.0005f;
+    private static final float MIN_DB = -120f;
+
+    private final float marginDb;
+    private final int onsetFrames;
+    private final int hangoverFrames;
+
+    private float noiseFloorDb = Float.NaN;
+    private float lastEnergyDb = MIN_DB;
+    private int voicedRun;
+    private int unvoicedRun;
+    private boolean speech;
+    private long frames;
+    private long speechFrames;
+
+    public VoiceActivityDetector() {
+        this(DEFAULT_MARGIN_DB, DEFAULT_ONSET_FRAMES, DEFAULT_HANGOVER_FRAMES);
+    }
+
+    public VoiceActivityDetector(float marginDb, int onsetFrames, int hangoverFrames) {
+        this.marginDb = marginDb;
+        this.onsetFrames = onsetFrames;
+        this.hangoverFrames = hangoverFrames;
+    }
+
+    /**
+     * Processes one frame of samples in [-1, 1].
+     *
+     * @return whether speech is currently active
+     */
+    public boolean process(float[] samples, int off, int len) {
+        double sum = 0;
+        for (int i = off; i < off + len; i++) {
+            sum += samples[i] * samples[i];
+        }
+        float rms = len > 0 ? (float) Math.sqrt(sum / len) : 0f;
+        return processEnergyDb(rms > 0f ? (float) (20 * Math.log10(rms)) : MIN_DB);
+    }
+
+    /**
+     * Processes a frame whose energy was already measured elsewhere, e.g. the rmsdB value the
+     * SpeechRecognizer reports through onRmsChanged. Only relative levels matter.
+     *
+     * @return whether speech is currently active
+     */
+    public boolean processEnergyDb(float energyDb) {
+        energyDb = Math.max(energyDb, MIN_DB);
+        lastEnergyDb = energyDb;
+        frames++;
+        if (Float.isNaN(noiseFloorDb)) {
+            noiseFloorDb = energyDb;
+        }
+
+        boolean voiced = energyDb >= noiseFloorDb + marginDb;
+        if (voiced) {
+            voicedRun++;
+            unvoicedRun = 0;
+        } else {
+            unvoicedRun++;
+            voicedRun = 0;
+        }
+
+        if (!speech && voicedRun >= onsetFrames) {
+            speech = true;
+        } else if (speech && unvoicedRun >= hangoverFrames) {
+            speech = false;
+        }
+
+        if (energyDb < noiseFloorDb) {
+            noiseFloorDb += (energyDb - noiseFloorDb) * FLOOR_FALL_RATE;
+        } else if (!voiced) {
+            noiseFloorDb += (energyDb - noiseFloorDb) * FLOOR_RISE_RATE;
+        } else {
+            // Talking barely moves the floor, but a sustained loud background becomes the new floor
+            noiseFloorDb += (energyDb - noiseFloorDb) * FLOOR_RISE_RATE_VOICED;
+        }
+
+        if (speech) {
+            speechFrames++;
+        }
+        return speech;
+    }
+
+    public boolean isSpeech() {
+        return speech;
+    }
+
+    public float getNoiseFloorDb() {
+        return noiseFloorDb;
+    }
+
+    public float getThresholdDb() {
+        return noiseFloorDb + marginDb;
+    }
+
+    public float getLastEnergyDb() {
+        return lastEnergyDb;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getSpeechFrames() {
+        return speechFrames;
+    }
+
+    /**
+     * Clears the speech state but keeps the learned noise floor.
+     */
+    public void resetSpeechState() {
+        speech = false;
+        voicedRun = 0;
+        unvoicedRun = 0;
+        speechFrames = 0;
+        frames = 0;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.womensafetyapp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Minimal reader for 16-bit PCM mono WAV files, used for keyword enrollment clips and test fixtures.
+ */
+public final class WavReader {
+
+    private WavReader() {}
+
+    /**
+     * Decoded audio: samples plus the sample rate declared in the header.
+     */
+    public static final class Clip {
+        public final short[] samples;
+        public final int sampleRate;
+
+        Clip(short[] samples, int sampleRate) {
+            this.samples = samples;
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    public static Clip read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            out.write(chunk, 0, n);
+        }
+        ByteBuffer buf = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buf.remaining() < 12 || buf.getInt() != 0x46464952 /* RIFF */) {
+            throw new IOException("Not a RIFF file");
+        }
+        buf.getInt(); // RIFF size
+        if (buf.getInt() != 0x45564157 /* WAVE */) {
+            throw new IOException("Not a WAVE file");
+        }
+
+        int sampleRate = -1;
+        while (buf.remaining() >= 8) {
+            int id = buf.getInt();
+            int size = buf.getInt();
+            if (size < 0 || size > buf.remaining()) {
+                size = buf.remaining(); // Tolerate truncated recordings
+            }
+            if (id == 0x20746d66 /* "fmt " */) {
+                int start = buf.position();
+                short format = buf.getShort();
+                short channels = buf.getShort();
+                sampleRate = buf.getInt();
+                buf.getInt();   // byte rate
+                buf.getShort(); // block align
+                short bits = buf.getShort();
+                if (format != 1 || channels != 1 || bits != 16) {
+                    throw new IOException("Only 16-bit PCM mono is supported");
+                }
+                buf.position(start + size);
+            } else if (id == 0x61746164 /* "data" */) {
+                if (sampleRate < 0) {
+                    throw new IOException("data chunk before fmt chunk");
+                }
+                short[] samples = new short[size / 2];
+                buf.asShortBuffer().get(samples);
+                return new Clip(samples, sampleRate);
+            } else {
+                buf.position(buf.position() + size + (size & 1));
+            }
+        }
+        throw new IOException("No data chunk");
+    }
+}
@@ -0,0 +1,434 @@
+package com.example.womensafetyapp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link AlertChannel} that POSTs compact JSON to a configured HTTP endpoint, such as a family
+ * server or a home automation hook. One sender thread owns the connection: each response body is
+ * read to the end and closed rather than disconnected, so HttpURLConnection keeps the socket (and
+ * its TLS session) alive for the next POST instead of paying a new handshake per alert.
+ *
+ * Everything goes through one bounded FIFO queue, several items per POST:
+ * <pre>
+ * {"v":1,"items":[
+ *   {"kind":"alert","id":7,"t":1792357445123,"lat":12.97,"lon":77.59,"acc":8,"msg":"..."},
+ *   {"kind":"location","t":1792357455123,"lat":12.9701,"lon":77.5902,"acc":5}]}
+ * </pre>
+ * An alert or follow-up is sent at once, taking every queued location with it. Locations alone
+ * wait up to {@link Config#batchDelayMs} so a trail of fixes costs one radio wakeup per batch.
+ * A batch that fails to connect, times out or gets a 408, 429 or 5xx stays at the head of the
+ * queue and is retried with exponential backoff, or as soon as {@link #onNetworkAvailable} says
+ * the network is back; any other status drops it. When the queue is full the oldest location is
+ * dropped first, then the oldest alert. The queue lives in memory only: the SMS outbox is what
+ * survives a killed process.
+ *
+ * Safe to use from any thread; the listener is called on the sender thread.
+ */
+public final class WebhookChannel implements AlertChannel {
+
+    public static final class Config {
+        public final URL endpoint;
+        /** Sent as a bearer token when not null. */
+        public final String token;
+        public final long batchDelayMs;
+        public final long retryBaseMs;
+        public final long retryMaxMs;
+        public final int queueCapacity;
+        public final int maxBatch;
+        public final int timeoutMs;
+
+        public Config(URL endpoint, String token, long batchDelayMs, long retryBaseMs, long retryMaxMs,
+                      int queueCapacity, int maxBatch, int timeoutMs) {
+            String protocol = endpoint.getProtocol();
+            if (!"http".equals(protocol) && !"https".equals(protocol)) {
+                throw new IllegalArgumentException("Not an HTTP endpoint: " + endpoint);
+            }
+            if (batchDelayMs < 0 || retryBaseMs <= 0 || retryMaxMs < retryBaseMs || queueCapacity <= 0
+                    || maxBatch <= 0 || timeoutMs <= 0) {
+                throw new IllegalArgumentException("batch " + batchDelayMs + " ms, retry " + retryBaseMs + "/"
+                        + retryMaxMs + " ms, queue " + queueCapacity + "/" + maxBatch + ", timeout " + timeoutMs);
+            }
+            this.endpoint = endpoint;
+            this.token = token;
+            this.batchDelayMs = batchDelayMs;
+            this.retryBaseMs = retryBaseMs;
+            this.retryMaxMs = retryMaxMs;
+            this.queueCapacity = queueCapacity;
+            this.maxBatch = maxBatch;
+            this.timeoutMs = timeoutMs;
+        }
+
+        /** A batch of locations a minute, retries from 2 s up to 2 min. */
+        public static Config defaults(URL endpoint, String token) {
+            return new Config(endpoint, token, 60_000, 2_000, 120_000, 512, 64, 15_000);
+        }
+    }
+
+    public interface Listener {
+        /** The endpoint accepted an alert {@code latencyMs} after it was queued. */
+        void onDelivered(long alertId, boolean followUp, long latencyMs);
+
+        /**
+         * A POST of {@code items} failed. They are retried after {@code retryInMs}, or were
+         * dropped if it is negative.
+         */
+        void onFailed(int items, String reason, long retryInMs);
+    }
+
+    private static final int KIND_ALERT = 0;
+    private static final int KIND_FOLLOW_UP = 1;
+    private static final int KIND_LOCATION = 2;
+    private static final String[] KIND_NAMES = {"alert", "follow-up", "location"};
+
+    private static final class Item {
+        final long sequence;
+        final int kind;
+        final long alertId;
+        final long timeMs;
+        final long queuedNanos;
+        final double latitude;
+        final double longitude;
+        final float accuracyMeters;
+        final String message;
+
+        Item(long sequence, int kind, long alertId, long timeMs, long queuedNanos, double latitude,
+             double longitude, float accuracyMeters, String message) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.alertId = alertId;
+            this.timeMs = timeMs;
+            this.queuedNanos = queuedNanos;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.accuracyMeters = accuracyMeters;
+            this.message = message;
+        }
+    }
+
+    private final Config config;
+    private final RestartScheduler.Clock clock;
+    private final Listener listener;
+    private final Thread sender;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Item> queue = new ArrayDeque<>();
+    private long nextSequence;
+    private int alertsQueued;
+    private boolean retryPending;
+    private long retryAtNanos;
+    private long backoffMs;
+    private boolean closed;
+
+    // Counters, guarded by lock
+    private long posts;
+    private long delivered;
+    private long failures;
+    private long dropped;
+
+    private WebhookChannel(Config config, RestartScheduler.Clock clock, Listener listener) {
+        this.config = config;
+        this.clock = clock;
+        this.listener = listener;
+        this.backoffMs = config.retryBaseMs;
+        this.sender = new Thread(this::run, "sos-webhook");
+        sender.setDaemon(true);
+    }
+
+    /**
+     * @param clock wall-clock milliseconds, sent as the time of each item
+     */
+    public static WebhookChannel start(Config config, RestartScheduler.Clock clock, Listener listener) {
+        WebhookChannel channel = new WebhookChannel(config, clock, listener);
+        channel.sender.start();
+        return channel;
+    }
+
+    @Override
+    public void sendAlert(long alertId, boolean followUp, LocationSource.Fix fix, String message) {
+        enqueue(followUp ? KIND_FOLLOW_UP : KIND_ALERT, alertId,
+                fix != null ? fix.latitude : Double.NaN, fix != null ? fix.longitude : Double.NaN,
+                fix != null ? fix.accuracyMeters : Float.NaN, message);
+    }
+
+    @Override
+    public void sendLocation(double latitude, double longitude, float accuracyMeters) {
+        enqueue(KIND_LOCATION, 0, latitude, longitude, accuracyMeters, null);
+    }
+
+    @Override
+    public void onNetworkAvailable() {
+        synchronized (lock) {
+            retryPending = false;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            dropped += queue.size();
+            queue.clear();
+            alertsQueued = 0;
+            lock.notifyAll();
+        }
+    }
+
+    public int queued() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /** One-line summary of the counters, for logs. */
+    public String report() {
+        synchronized (lock) {
+            return posts + " POST(s), " + delivered + " item(s) delivered, " + failures + " failure(s), "
+                    + dropped + " dropped, " + queue.size() + " queued";
+        }
+    }
+
+    private void enqueue(int kind, long alertId, double latitude, double longitude, float accuracyMeters,
+                         String message) {
+        long timeMs = clock.nowMs();
+        synchronized (lock) {
+            if (closed) {
+                dropped++;
+                return;
+            }
+            if (queue.size() >= config.queueCapacity) {
+                dropOldest();
+            }
+            queue.addLast(new Item(nextSequence++, kind, alertId, timeMs, System.nanoTime(),
+                    latitude, longitude, accuracyMeters, message));
+            if (kind != KIND_LOCATION) {
+                alertsQueued++;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void dropOldest() {
+        dropped++;
+        for (Iterator<Item> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().kind == KIND_LOCATION) {
+                it.remove();
+                return;
+            }
+        }
+        queue.removeFirst();
+        alertsQueued--;
+    }
+
+    private void run() {
+        while (true) {
+            List<Item> batch;
+            synchronized (lock) {
+                try {
+                    long waitMs;
+                    while (!closed && (waitMs = sendDelayMs(System.nanoTime())) != 0) {
+                        lock.wait(Math.max(waitMs, 0));
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) {
+                    return;
+                }
+                batch = new ArrayList<>(Math.min(queue.size(), config.maxBatch));
+                for (Item item : queue) {
+                    if (batch.size() == config.maxBatch) {
+                        break;
+                    }
+                    batch.add(item);
+                }
+                posts++;
+            }
+            deliver(batch);
+        }
+    }
+
+    /**
+     * @return 0 if a batch should go now, else how long to wait for one; negative for as long as
+     *     nothing is queued
+     */
+    private long sendDelayMs(long nowNanos) {
+        if (queue.isEmpty()) {
+            return -1;
+        }
+        long readyNanos = alertsQueued > 0 ? nowNanos : queue.peekFirst().queuedNanos + config.batchDelayMs * 1_000_000;
+        if (retryPending && retryAtNanos - readyNanos > 0) {
+            readyNanos = retryAtNanos;
+        }
+        long waitNanos = readyNanos - nowNanos;
+        // Rounded up so a wait never ends a fraction of a millisecond early and spins
+        return waitNanos <= 0 ? 0 : (waitNanos + 999_999) / 1_000_000;
+    }
+
+    private void deliver(List<Item> batch) {
+        byte[] body = encode(batch);
+        int status;
+        String reason;
+        try {
+            status = post(body);
+            reason = "HTTP " + status;
+        } catch (IOException e) {
+            status = -1;
+            reason = e.toString();
+        }
+        long now = System.nanoTime();
+        if (status >= 200 && status < 300) {
+            synchronized (lock) {
+                removeSent(batch);
+                delivered += batch.size();
+                retryPending = false;
+                backoffMs = config.retryBaseMs;
+            }
+            for (Item item : batch) {
+                if (item.kind != KIND_LOCATION) {
+                    listener.onDelivered(item.alertId, item.kind == KIND_FOLLOW_UP, (now - item.queuedNanos) / 1_000_000);
+                }
+            }
+            return;
+        }
+        boolean retry = status < 0 || status == 408 || status == 429 || status >= 500;
+        long retryInMs = -1;
+        synchronized (lock) {
+            failures++;
+            if (retry) {
+                retryInMs = backoffMs;
+                retryPending = true;
+                retryAtNanos = now + backoffMs * 1_000_000;
+                backoffMs = Math.min(backoffMs * 2, config.retryMaxMs);
+            } else {
+                dropped += removeSent(batch);
+            }
+        }
+        listener.onFailed(batch.size(), reason, retryInMs);
+    }
+
+    /**
+     * Removes the batch from the head of the queue, minus whatever the queue dropped meanwhile.
+     *
+     * @return the number of items removed
+     */
+    private int removeSent(List<Item> batch) {
+        long last = batch.get(batch.size() - 1).sequence;
+        int removed = 0;
+        while (!queue.isEmpty() && queue.peekFirst().sequence <= last) {
+            if (queue.removeFirst().kind != KIND_LOCATION) {
+                alertsQueued--;
+            }
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * @return the response status
+     */
+    private int post(byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) config.endpoint.openConnection();
+        try {
+            connection.setConnectTimeout(config.timeoutMs);
+            connection.setReadTimeout(config.timeoutMs);
+            connection.setInstanceFollowRedirects(false);
+            connection.setUseCaches(false);
+            connection.setRequestMethod("POST");
+            // Not fixed-length streaming: the small body is buffered and leaves with the headers
+            // in one write, where streaming sends it as a second segment that Nagle's algorithm
+            // holds back until the server's delayed ACK
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            if (config.token != null) {
+                connection.setRequestProperty("Authorization", "Bearer " + config.token);
+            }
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            // Read to the end and closed, the connection goes back to the keep-alive pool
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (in != null) {
+                try (InputStream response = in) {
+                    byte[] buffer = new byte[512];
+                    while (response.read(buffer) >= 0) {
+                        // Discarded
+                    }
+                }
+            }
+            return status;
+        } catch (IOException e) {
+            // A half-used connection must not be pooled
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private static byte[] encode(List<Item> batch) {
+        StringBuilder json = new StringBuilder(64 + batch.size() * 96);
+        json.append("{\"v\":1,\"items\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            Item item = batch.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"kind\":\"").append(KIND_NAMES[item.kind]).append('"');
+            if (item.kind != KIND_LOCATION) {
+                json.append(",\"id\":").append(item.alertId);
+            }
+            json.append(",\"t\":").append(item.timeMs);
+            if (!Double.isNaN(item.latitude) && !Double.isNaN(item.longitude)) {
+                json.append(",\"lat\":");
+                EmergencyMessageBuilder.appendCoordinate(json, item.latitude);
+                json.append(",\"lon\":");
+                EmergencyMessageBuilder.appendCoordinate(json, item.longitude);
+                if (!Float.isNaN(item.accuracyMeters)) {
+                    json.append(",\"acc\":").append(Math.round(item.accuracyMeters));
+                }
+            }
+            if (item.message != null) {
+                json.append(",\"msg\":");
+                appendString(json, item.message);
+            }
+            json.append('}');
+        }
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendString(StringBuilder json, String s) {
+        json.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.womensafetyapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Crash injection runs against real files: a crash is simulated by cutting or corrupting the log
+ * at arbitrary byte offsets, or by failing a compaction before its rename, and then reopening.
+ */
+public class AlertOutboxTest {
+
+    private static final List<String> CONTACTS = Arrays.asList("+911111111111", "+922222222222");
+
+    private File dir;
+    private File log;
+    // Wall clock for the outbox; the alerts below are created shortly before it
+    private long nowMs = 10_000;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("outbox").toFile();
+        log = new File(dir, "alert_outbox.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private AlertOutbox open(File file) throws IOException {
+        return open(file, 64);
+    }
+
+    private AlertOutbox open(File file, int compactThreshold) throws IOException {
+        return AlertOutbox.open(file, compactThreshold, () -> nowMs);
+    }
+
+    @Test
+    public void undeliveredAlertSurvivesReopen() throws IOException {
+        long id;
+        try (AlertOutbox outbox = open(log)) {
+            id = outbox.recordAlert(1000, CONTACTS);
+            outbox.recordMessage(id, "Emergency! Location Unavailable.");
+            outbox.recordState(id, "+911111111111", AlertOutbox.STATE_DELIVERED);
+            outbox.recordState(id, "+922222222222", AlertOutbox.STATE_SENT);
+        }
+
+        try (AlertOutbox outbox = open(log)) {
+            List<AlertOutbox.Alert> pending = outbox.pending();
+            assertEquals(1, pending.size());
+            AlertOutbox.Alert alert = pending.get(0);
+            assertEquals(id, alert.getId());
+            assertEquals(1000, alert.getCreatedAtMs());
+            assertEquals("Emergency! Location Unavailable.", alert.getMessage());
+            assertEquals(Arrays.asList("+922222222222"), alert.undeliveredContacts());
+            // Ids keep increasing across restarts
+            assertTrue(outbox.recordAlert(2000, CONTACTS) > id);
+        }
+    }
+
+    @Test
+    public void finishedAlertIsNotPending() throws IOException {
+        try (AlertOutbox outbox = open(log)) {
+            long id = outbox.recordAlert(1000, CONTACTS);
+            outbox.recordState(id, "+911111111111", AlertOutbox.STATE_DELIVERED);
+            outbox.recordState(id, "+922222222222", AlertOutbox.STATE_FAILED);
+            assertTrue(outbox.pending().isEmpty());
+        }
+    }
+
+    @Test
+    public void sentWithoutADeliveryReportBeforeTheTimeoutIsNotPending() throws IOException {
+        try (AlertOutbox outbox = open(log)) {
+            long id = outbox.recordAlert(1000, CONTACTS);
+            outbox.recordMessage(id, "Emergency!");
+            outbox.recordState(id, "+911111111111", AlertOutbox.STATE_DELIVERED);
+            outbox.recordState(id, "+922222222222", AlertOutbox.STATE_SENT);
+            // The dispatch stopped waiting for a report the carrier never sends
+            outbox.recordState(id, "+922222222222", AlertOutbox.STATE_UNCONFIRMED);
+            assertTrue(outbox.pending().isEmpty());
+        }
+        try (AlertOutbox outbox = open(log)) {
+            assertTrue(outbox.pending().isEmpty());
+        }
+    }
+
+    @Test
+    public void oldAlertIsNotReplayedAndIsCompactedAway() throws IOException {
+        long sizeWithOldAlert;
+        try (AlertOutbox outbox = open(log, Integer.MAX_VALUE)) {
+            long old = outbox.recordAlert(1000, CONTACTS);
+            outbox.recordMessage(old, "Emergency!");
+            outbox.recordState(old, "+911111111111", AlertOutbox.STATE_SENT);
+            sizeWithOldAlert = outbox.sizeBytes();
+        }
+
+        nowMs = 1000 + AlertOutbox.MAX_REPLAY_AGE_MS + 1;
+        try (AlertOutbox outbox = open(log, Integer.MAX_VALUE)) {
+            assertTrue(outbox.pending().isEmpty());
+            long recent = outbox.recordAlert(nowMs - 1, CONTACTS);
+            assertEquals(1, outbox.pending().size());
+            assertEquals(recent, outbox.pending().get(0).getId());
+
+            outbox.compact();
+            assertNull(outbox.get(1));
+            assertTrue(outbox.sizeBytes() < sizeWithOldAlert);
+        }
+    }
+
+    @Test
+    public void replaysAreCapped() throws IOException {
+        try (AlertOutbox outbox = open(log)) {
+            long id = outbox.recordAlert(1000, CONTACTS);
+            for (int i = 0; i < AlertOutbox.MAX_REPLAYS; i++) {
+                assertEquals(1, outbox.pending().size());
+                outbox.recordReplay(id);
+            }
+        }
+        try (AlertOutbox outbox = open(log)) {
+            assertTrue(outbox.pending().isEmpty());
+        }
+    }
+
+    @Test
+    public void crashAtEveryByteOffsetRecoversACommittedPrefix() throws IOException {
+        // Run a scripted session, remembering the log size and state after each commit
+        List<Long> boundaries = new ArrayList<>();
+        List<String> states = new ArrayList<>();
+        try (AlertOutbox outbox = open(log)) {
+            boundaries.add(outbox.sizeBytes());
+            states.add(describe(outbox));
+            long a = outbox.recordAlert(1000, CONTACTS);
+            step(outbox, boundaries, states);
+            outbox.recordMessage(a, "Emergency! https://maps.google.com/?q=12.9,77.6");
+            step(outbox, boundaries, states);
+            outbox.recordState(a, "+911111111111", AlertOutbox.STATE_SENT);
+            step(outbox, boundaries, states);
+            long b = outbox.recordAlert(2000, CONTACTS.subList(0, 1));
+            step(outbox, boundaries, states);
+            outbox.recordState(a, "+911111111111", AlertOutbox.STATE_DELIVERED);
+            step(outbox, boundaries, states);
+            outbox.recordReplay(b);
+            step(outbox, boundaries, states);
+        }
+        byte[] full = Files.readAllBytes(log.toPath());
+        assertEquals((long) boundaries.get(boundaries.size() - 1), full.length);
+
+        File crashed = new File(dir, "crashed.log");
+        for (int cut = 0; cut <= full.length; cut++) {
+            Files.write(crashed.toPath(), Arrays.copyOf(full, cut));
+            int committed = 0;
+            while (committed + 1 < boundaries.size() && boundaries.get(committed + 1) <= cut) {
+                committed++;
+            }
+            try (AlertOutbox outbox = open(crashed)) {
+                assertEquals("cut at " + cut, states.get(committed), describe(outbox));
+                assertEquals("torn tail is truncated", (long) boundaries.get(committed), outbox.sizeBytes());
+                // The recovered log stays appendable
+                outbox.recordAlert(3000, CONTACTS);
+            }
+            try (AlertOutbox outbox = open(crashed)) {
+                assertEquals(3000, outbox.pending().get(outbox.pending().size() - 1).getCreatedAtMs());
+            }
+        }
+    }
+
+    @Test
+    public void corruptTailRecordIsDropped() throws IOException {
+        long firstEnd;
+        try (AlertOutbox outbox = open(log)) {
+            long id = outbox.recordAlert(1000, CONTACTS);
+            firstEnd = outbox.sizeBytes();
+            outbox.recordState(id, "+911111111111", AlertOutbox.STATE_DELIVERED);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xFF);
+        }
+        try (AlertOutbox outbox = open(log)) {
+            assertEquals(firstEnd, outbox.sizeBytes());
+            assertEquals(2, outbox.pending().get(0).undeliveredContacts().size());
+        }
+    }
+
+    @Test
+    public void compactionKeepsOnlyLiveAlerts() throws IOException {
+        long sizeBefore;
+        try (AlertOutbox outbox = open(log, Integer.MAX_VALUE)) {
+            for (int i = 0; i < 20; i++) {
+                long id = outbox.recordAlert(i, CONTACTS);
+                outbox.recordState(id, "+911111111111", AlertOutbox.STATE_DELIVERED);
+                outbox.recordState(id, "+922222222222", AlertOutbox.STATE_DELIVERED);
+            }
+            long live = outbox.recordAlert(99, CONTACTS);
+            outbox.recordMessage(live, "Emergency!");
+            outbox.recordState(live, "+922222222222", AlertOutbox.STATE_FAILED);
+            outbox.recordReplay(live);
+            sizeBefore = outbox.sizeBytes();
+
+            outbox.compact();
+            assertTrue(outbox.sizeBytes() < sizeBefore / 10);
+            assertEquals(1, outbox.pending().size());
+            outbox.recordState(live, "+911111111111", AlertOutbox.STATE_SENT);
+        }
+        try (AlertOutbox outbox = open(log)) {
+            AlertOutbox.Alert alert = outbox.pending().get(0);
+            assertEquals("Emergency!", alert.getMessage());
+            assertEquals(1, alert.getReplays());
+            assertEquals(AlertOutbox.STATE_SENT, alert.state(0));
+            assertEquals(AlertOutbox.STATE_FAILED, alert.state(1));
+        }
+    }
+
+    @Test
+    public void crashDuringCompactionLeavesTheLogIntact() throws IOException {
+        String before;
+        try (AlertOutbox outbox = open(log, Integer.MAX_VALUE)) {
+            long done = outbox.recordAlert(1, CONTACTS);
+            outbox.recordState(done, "+911111111111", AlertOutbox.STATE_DELIVERED);
+            outbox.recordState(done, "+922222222222", AlertOutbox.STATE_DELIVERED);
+            outbox.recordAlert(2, CONTACTS);
+            before = describe(outbox);
+            outbox.beforeCompactionRename = () -> {
+                throw new IllegalStateException("killed");
+            };
+            try {
+                outbox.compact();
+                fail("compaction should have crashed");
+            } catch (IllegalStateException expected) {
+                // Simulated process death
+            }
+        }
+        assertTrue(new File(log.getPath() + ".tmp").exists());
+
+        try (AlertOutbox outbox = open(log)) {
+            assertEquals(before, describe(outbox));
+            assertFalse(new File(log.getPath() + ".tmp").exists());
+        }
+    }
+
+    @Test
+    public void failedCompactionRenameLeavesTheOutboxWritable() throws IOException {
+        String before;
+        long added;
+        try (AlertOutbox outbox = open(log, Integer.MAX_VALUE)) {
+            long done = outbox.recordAlert(1, CONTACTS);
+            outbox.recordState(done, "+911111111111", AlertOutbox.STATE_DELIVERED);
+            outbox.recordState(done, "+922222222222", AlertOutbox.STATE_DELIVERED);
+            outbox.recordAlert(2, CONTACTS);
+            before = describe(outbox);
+            // Nothing left to rename, so the rename fails
+            outbox.beforeCompactionRename = () -> assertTrue(new File(log.getPath() + ".tmp").delete());
+            try {
+                outbox.compact();
+                fail("compaction should have failed");
+            } catch (IOException expected) {
+                // The old log is still in place
+            }
+            assertEquals(before, describe(outbox));
+            added = outbox.recordAlert(3, CONTACTS);
+        }
+
+        try (AlertOutbox outbox = open(log)) {
+            assertEquals(3, outbox.get(added).getCreatedAtMs());
+            assertEquals(2, outbox.pending().size());
+        }
+    }
+
+    @Test
+    public void finishedAlertsAreCompactedAutomatically() throws IOException {
+        try (AlertOutbox outbox = open(log, 16)) {
+            long peak = 0;
+            for (int i = 0; i < 200; i++) {
+                long id = outbox.recordAlert(i, CONTACTS);
+                outbox.recordState(id, "+911111111111", AlertOutbox.STATE_DELIVERED);
+                outbox.recordState(id, "+922222222222", AlertOutbox.STATE_FAILED);
+                peak = Math.max(peak, outbox.sizeBytes());
+            }
+            assertTrue("log size stays bounded, peak " + peak, peak < 4096);
+            assertTrue(outbox.pending().isEmpty());
+        }
+    }
+
+    private static void step(AlertOutbox outbox, List<Long> boundaries, List<String> states) throws IOException {
+        boundaries.add(outbox.sizeBytes());
+        states.add(describe(outbox));
+    }
+
+    private static String describe(AlertOutbox outbox) {
+        StringBuilder sb = new StringBuilder();
+        for (long id = 1; id <= 10; id++) {
+            AlertOutbox.Alert alert = outbox.get(id);
+            if (alert == null) {
+                continue;
+            }
+            sb.append(id).append(':').append(alert.getCreatedAtMs()).append(':').append(alert.getMessage())
+                    .append(':').append(alert.getReplays());
+            for (int i = 0; i < alert.contactCount(); i++) {
+                sb.append(':').append(alert.contact(i)).append('=').append(alert.state(i));
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+}
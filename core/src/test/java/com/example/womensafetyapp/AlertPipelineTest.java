@@ -0,0 +1,226 @@
+package com.example.womensafetyapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks which thread each stage of the alert runs on, with plain named threads standing in for
+ * the main looper and the alert HandlerThread.
+ */
+public class AlertPipelineTest {
+
+    private static final long TIMEOUT_S = 5;
+
+    private ExecutorService control;
+    private ExecutorService alert;
+    private BoundedExecutor io;
+    private final AtomicLong now = new AtomicLong(1_000);
+    // The location provider calls back on a thread of its own
+    private ExecutorService provider;
+
+    @Before
+    public void setUp() {
+        control = Executors.newSingleThreadExecutor(r -> new Thread(r, "control"));
+        alert = Executors.newSingleThreadExecutor(r -> new Thread(r, "alert"));
+        io = new BoundedExecutor("io", 2, 4);
+        provider = Executors.newSingleThreadExecutor(r -> new Thread(r, "provider"));
+    }
+
+    @After
+    public void tearDown() {
+        control.shutdownNow();
+        alert.shutdownNow();
+        io.shutdownNow();
+        provider.shutdownNow();
+    }
+
+    /** Records the thread of every stage and hands the location back from the provider thread. */
+    private static class RecordingSteps implements AlertPipeline.Steps<String> {
+        final Map<String, String> threads = new ConcurrentHashMap<>();
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final List<AlertStateMachine.Decision> decisions = new CopyOnWriteArrayList<>();
+        final CountDownLatch done;
+        AlertPipeline<String> pipeline;
+        ExecutorService provider;
+        CountDownLatch sendGate = new CountDownLatch(0);
+        long nextId = 1;
+
+        RecordingSteps(int alerts) {
+            done = new CountDownLatch(alerts);
+        }
+
+        @Override
+        public void decided(AlertStateMachine.Decision decision, long triggeredAtMs) {
+            threads.put("decided", Thread.currentThread().getName());
+            decisions.add(decision);
+        }
+
+        @Override
+        public long persist() {
+            threads.put("persist", Thread.currentThread().getName());
+            return nextId++;
+        }
+
+        @Override
+        public void locate(long alertId, boolean followUp) {
+            threads.put("locate", Thread.currentThread().getName());
+            provider.execute(() -> pipeline.located(alertId, "fix-" + alertId));
+        }
+
+        @Override
+        public boolean send(long alertId, String location, boolean followUp) {
+            threads.put("send", Thread.currentThread().getName());
+            try {
+                sendGate.await(TIMEOUT_S, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(alertId + ":" + location + (followUp ? ":follow-up" : ""));
+            done.countDown();
+            return true;
+        }
+    }
+
+    private RecordingSteps newSteps(int alerts) {
+        RecordingSteps steps = new RecordingSteps(alerts);
+        steps.pipeline = new AlertPipeline<>(control, alert, io, now::get,
+                new AlertStateMachine(30_000, 600_000, 1), steps);
+        steps.provider = provider;
+        return steps;
+    }
+
+    @Test
+    public void everyAlertStageRunsOnTheAlertThread() throws InterruptedException {
+        RecordingSteps steps = newSteps(1);
+        // Triggered from the recognizer's thread, as onResults would
+        control.execute(steps.pipeline::trigger);
+
+        assertTrue(steps.done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals("alert", steps.threads.get("decided"));
+        assertEquals("alert", steps.threads.get("persist"));
+        assertEquals("alert", steps.threads.get("locate"));
+        assertEquals("alert", steps.threads.get("send"));
+        assertEquals("[1:fix-1]", steps.sent.toString());
+    }
+
+    @Test
+    public void controlAndIoWorkRunOnTheirOwnThreads() throws InterruptedException {
+        RecordingSteps steps = newSteps(0);
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(2);
+        steps.pipeline.onControl(() -> {
+            threads.put("toast", Thread.currentThread().getName());
+            done.countDown();
+        });
+        steps.pipeline.onIo(() -> {
+            threads.put("save", Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals("control", threads.get("toast"));
+        assertTrue(threads.get("save"), threads.get("save").startsWith("io-"));
+    }
+
+    @Test
+    public void slowSendDoesNotHoldUpTheNextListeningSession() throws InterruptedException {
+        RecordingSteps steps = newSteps(1);
+        steps.sendGate = new CountDownLatch(1); // SMS submit stuck until released
+
+        steps.pipeline.trigger();
+        CountDownLatch restarted = new CountDownLatch(1);
+        steps.pipeline.onControl(restarted::countDown);
+        assertTrue("control thread blocked by the alert", restarted.await(TIMEOUT_S, TimeUnit.SECONDS));
+        steps.sendGate.countDown();
+        assertTrue(steps.done.await(TIMEOUT_S, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void repeatedTriggersAreMergedThenEscalated() throws InterruptedException {
+        RecordingSteps steps = newSteps(2);
+        steps.sendGate = new CountDownLatch(1);
+
+        // "help me help me": the second trigger arrives while the first alert is in flight
+        steps.pipeline.trigger();
+        steps.pipeline.trigger();
+        steps.sendGate.countDown();
+        awaitIdle();
+        assertEquals("[1:fix-1]", steps.sent.toString());
+
+        // Still inside the window after the submit: merged as well
+        now.addAndGet(10_000);
+        steps.pipeline.trigger();
+        awaitIdle();
+        // Past the window: one follow-up, and no more than the configured one
+        now.addAndGet(30_000);
+        steps.pipeline.trigger();
+        assertTrue(steps.done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        now.addAndGet(60_000);
+        steps.pipeline.trigger();
+        awaitIdle();
+
+        assertEquals("[1:fix-1, 2:fix-2:follow-up]", steps.sent.toString());
+        assertEquals("[NEW_ALERT, MERGED, MERGED, ESCALATE, MERGED]", steps.decisions.toString());
+    }
+
+    /** Waits until the alert thread and the location provider have run everything queued so far. */
+    private void awaitIdle() throws InterruptedException {
+        for (int i = 0; i < 2; i++) {
+            CountDownLatch drained = new CountDownLatch(1);
+            provider.execute(() -> alert.execute(drained::countDown));
+            assertTrue(drained.await(TIMEOUT_S, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void fullIoQueueDropsTheOldestTask() throws InterruptedException {
+        BoundedExecutor single = new BoundedExecutor("disk", 1, 2);
+        CountDownLatch stuck = new CountDownLatch(1);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        try {
+            single.execute(() -> {
+                try {
+                    stuck.await(TIMEOUT_S, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            // Wait for the worker to take the blocking task off the queue
+            while (single.getActiveCount() == 0) {
+                Thread.sleep(1);
+            }
+            single.execute(() -> ran.add("a"));
+            single.execute(() -> ran.add("b"));
+            single.execute(() -> ran.add("c")); // queue full: drops "a"
+            assertEquals(1, single.droppedCount());
+
+            stuck.countDown();
+            single.shutdown();
+            assertTrue(single.awaitTermination(TIMEOUT_S, TimeUnit.SECONDS));
+            assertEquals("[b, c]", ran.toString());
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shutDownExecutorDropsInsteadOfThrowing() {
+        BoundedExecutor single = new BoundedExecutor("disk", 1, 1);
+        single.shutdown();
+        single.execute(() -> { });
+        assertEquals(1, single.droppedCount());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import static com.example.womensafetyapp.AlertStateMachine.Decision.ESCALATE;
+import static com.example.womensafetyapp.AlertStateMachine.Decision.MERGED;
+import static com.example.womensafetyapp.AlertStateMachine.Decision.NEW_ALERT;
+import static com.example.womensafetyapp.AlertStateMachine.State.ESCALATING;
+import static com.example.womensafetyapp.AlertStateMachine.State.IDLE;
+import static com.example.womensafetyapp.AlertStateMachine.State.SENT;
+import static com.example.womensafetyapp.AlertStateMachine.State.TRIGGERED;
+import static org.junit.Assert.*;
+
+public class AlertStateMachineTest {
+
+    private static final long WINDOW = 30_000;
+    private static final long COOLDOWN = 600_000;
+
+    private final AlertStateMachine machine = new AlertStateMachine(WINDOW, COOLDOWN, 2);
+
+    @Test
+    public void firstTriggerStartsAnAlert() {
+        assertEquals(IDLE, machine.state(0));
+        assertEquals(NEW_ALERT, machine.onTrigger(0));
+        assertEquals(TRIGGERED, machine.state(0));
+    }
+
+    @Test
+    public void burstWhileInFlightIsMerged() {
+        machine.onTrigger(0);
+        assertEquals(MERGED, machine.onTrigger(400));
+        assertEquals(MERGED, machine.onTrigger(900));
+        assertEquals(2, machine.mergedCount());
+        assertEquals(TRIGGERED, machine.state(900));
+
+        machine.onSent(2_000);
+        assertEquals(SENT, machine.state(2_000));
+    }
+
+    @Test
+    public void triggersInsideTheWindowAfterSendAreMerged() {
+        machine.onTrigger(0);
+        machine.onSent(1_000);
+        assertEquals(MERGED, machine.onTrigger(1_000 + WINDOW - 1));
+        assertEquals(SENT, machine.state(1_000 + WINDOW - 1));
+    }
+
+    @Test
+    public void laterTriggersEscalateUpToTheLimit() {
+        machine.onTrigger(0);
+        machine.onSent(1_000);
+
+        assertEquals(ESCALATE, machine.onTrigger(1_000 + WINDOW));
+        assertEquals(ESCALATING, machine.state(1_000 + WINDOW));
+        assertEquals(MERGED, machine.onTrigger(1_000 + WINDOW + 10));
+        machine.onSent(40_000);
+
+        // The window restarts at every submit
+        assertEquals(MERGED, machine.onTrigger(40_000 + WINDOW - 1));
+        assertEquals(ESCALATE, machine.onTrigger(40_000 + WINDOW));
+        machine.onSent(80_000);
+        assertEquals(2, machine.escalations());
+
+        assertEquals(MERGED, machine.onTrigger(200_000));
+        assertEquals(SENT, machine.state(200_000));
+    }
+
+    @Test
+    public void cooldownEndsTheAlert() {
+        machine.onTrigger(0);
+        machine.onSent(1_000);
+        assertEquals(SENT, machine.state(1_000 + COOLDOWN - 1));
+        assertEquals(IDLE, machine.state(1_000 + COOLDOWN));
+
+        assertEquals(NEW_ALERT, machine.onTrigger(1_000 + COOLDOWN));
+        assertEquals(0, machine.escalations());
+        assertEquals(0, machine.mergedCount());
+    }
+
+    @Test
+    public void abortedAlertLetsTheNextTriggerRetry() {
+        machine.onTrigger(0);
+        machine.onAborted();
+        assertEquals(IDLE, machine.state(0));
+        assertEquals(NEW_ALERT, machine.onTrigger(10));
+    }
+
+    @Test
+    public void abortedFollowUpDoesNotUseUpAnEscalation() {
+        machine.onTrigger(0);
+        machine.onSent(0);
+        assertEquals(ESCALATE, machine.onTrigger(WINDOW));
+        machine.onAborted();
+        assertEquals(SENT, machine.state(WINDOW));
+        assertEquals(0, machine.escalations());
+        assertEquals(ESCALATE, machine.onTrigger(WINDOW + 1));
+    }
+
+    @Test
+    public void sentWithoutAlertInFlightIsIgnored() {
+        machine.onSent(5);
+        machine.onAborted();
+        assertEquals(IDLE, machine.state(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cooldownShorterThanWindowIsRejected() {
+        new AlertStateMachine(WINDOW, WINDOW - 1, 1);
+    }
+}
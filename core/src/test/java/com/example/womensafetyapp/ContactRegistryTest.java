@@ -0,0 +1,269 @@
+package com.example.womensafetyapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+public class ContactRegistryTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("contacts").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void normalizesToE164() {
+        assertEquals("+919876543210", PhoneNumbers.toE164("98765 43210", "91"));
+        assertEquals("+919876543210", PhoneNumbers.toE164("09876-543210", "91"));
+        assertEquals("+919876543210", PhoneNumbers.toE164("919876543210", "91"));
+        assertEquals("+14155550100", PhoneNumbers.toE164("+1 (415) 555-0100", "91"));
+        assertEquals("+14155550100", PhoneNumbers.toE164("0014155550100", "91"));
+    }
+
+    @Test
+    public void dropsEachCountrysOwnTrunkPrefix() {
+        assertEquals("+447700900123", PhoneNumbers.toE164("07700 900123", "44"));
+        assertEquals("+79121234567", PhoneNumbers.toE164("8 912 123-45-67", "7"));
+        assertEquals("+390612345678", PhoneNumbers.toE164("06 1234 5678", "39"));
+        assertEquals("+14155550100", PhoneNumbers.toE164("1 415 555 0100", "1"));
+        assertEquals("+14155550100", PhoneNumbers.toE164("(415) 555-0100", "1"));
+    }
+
+    @Test
+    public void nationalNumbersStayAsTypedWithoutACallingCode() {
+        assertEquals("07700900123", PhoneNumbers.normalize("07700 900123", null));
+        assertEquals("+14155550100", PhoneNumbers.normalize("+1 415 555 0100", null));
+        assertNull(PhoneNumbers.toE164("07700 900123", null));
+        assertNull(PhoneNumbers.normalize("12345", null));
+    }
+
+    @Test
+    public void callingCodeComesFromTheRegion() {
+        assertEquals("91", PhoneNumbers.callingCodeForRegion("in"));
+        assertEquals("1", PhoneNumbers.callingCodeForRegion("US"));
+        assertEquals("44", PhoneNumbers.callingCodeForRegion("gb"));
+        assertNull(PhoneNumbers.callingCodeForRegion(""));
+        assertNull(PhoneNumbers.callingCodeForRegion(null));
+    }
+
+    @Test
+    public void rejectsWhatIsNotANumber() {
+        assertNull(PhoneNumbers.toE164("call mom", "91"));
+        assertNull(PhoneNumbers.toE164("+1+2", "91"));
+        assertNull(PhoneNumbers.toE164("+123", "91"));
+        assertNull(PhoneNumbers.toE164("+1234567890123456", "91"));
+        assertNull(PhoneNumbers.toE164(null, "91"));
+    }
+
+    @Test
+    public void replaceAllDedupesKeepsOrderAndReportsRejects() {
+        ContactRegistry registry = new ContactRegistry("91");
+        List<String> rejected = registry.replaceAll(Arrays.asList(
+                "98765 43210", "", "+14155550100", "+91 98765 43210", "not a number", null));
+
+        assertEquals(Arrays.asList("+919876543210", "+14155550100"), registry.numbers());
+        assertEquals(Collections.singletonList("not a number"), rejected);
+        assertEquals(1, registry.contacts().get(1).priority);
+    }
+
+    @Test
+    public void unboundedListOrderedByPriority() {
+        ContactRegistry registry = new ContactRegistry("91");
+        List<String> raw = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            raw.add("98765432" + String.format("%02d", i));
+        }
+        registry.replaceAll(raw);
+        assertEquals(25, registry.numbers().size());
+
+        // Moving the last contact to the front
+        assertTrue(registry.add("9876543224", -1));
+        assertEquals("+919876543224", registry.numbers().get(0));
+        assertEquals(25, registry.numbers().size());
+
+        assertTrue(registry.remove("+91 98765 43224"));
+        assertFalse(registry.remove("+91 98765 43224"));
+        assertEquals("+919876543200", registry.numbers().get(0));
+    }
+
+    @Test
+    public void snapshotsAreImmutableAndStable() {
+        ContactRegistry registry = new ContactRegistry("91");
+        registry.replaceAll(Collections.singletonList("9876543210"));
+        List<String> before = registry.numbers();
+
+        registry.add("9876543211", 5);
+        assertEquals(1, before.size());
+        try {
+            before.add("+1");
+            fail("snapshot is mutable");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void listenersSeeEveryChange() {
+        ContactRegistry registry = new ContactRegistry("91");
+        List<Integer> sizes = new ArrayList<>();
+        ContactRegistry.Listener listener = contacts -> sizes.add(contacts.size());
+        registry.addListener(listener);
+
+        registry.replaceAll(Arrays.asList("9876543210", "9876543211"));
+        registry.remove("9876543210");
+        registry.removeListener(listener);
+        registry.add("9876543212", 0);
+
+        assertEquals(Arrays.asList(2, 1), sizes);
+    }
+
+    @Test
+    public void saveAndLoadRoundTrip() throws IOException {
+        File file = new File(dir, "contacts.bin");
+        ContactRegistry registry = new ContactRegistry("91");
+        registry.replaceAll(Arrays.asList("9876543210", "+14155550100", "+441234567890"));
+        registry.add("+8613912345678", 7);
+        registry.save(file);
+
+        ContactRegistry loaded = new ContactRegistry("91");
+        assertTrue(loaded.load(file));
+        assertEquals(registry.contacts(), loaded.contacts());
+        assertFalse(new File(dir, "contacts.bin.tmp").exists());
+        // Packed digits: 4 contacts of 11-13 digits fit in well under 100 bytes
+        assertTrue(file.length() < 100);
+    }
+
+    @Test
+    public void numbersKeptAsTypedSurviveSaveAndLoad() throws IOException {
+        File file = new File(dir, "contacts.bin");
+        ContactRegistry registry = new ContactRegistry("91");
+        List<String> rejected = registry.replaceAllAsTyped(Arrays.asList("07700 900123", "+14155550100", "112"));
+        registry.save(file);
+
+        ContactRegistry loaded = new ContactRegistry("91");
+        assertTrue(loaded.load(file));
+        assertEquals(Arrays.asList("07700900123", "+14155550100"), loaded.numbers());
+        assertEquals(Collections.singletonList("112"), rejected);
+    }
+
+    @Test
+    public void missingFileLeavesRegistryEmpty() throws IOException {
+        ContactRegistry registry = new ContactRegistry("91");
+        assertFalse(registry.load(new File(dir, "absent.bin")));
+        assertTrue(registry.isEmpty());
+    }
+
+    @Test
+    public void corruptFileIsRejected() throws IOException {
+        File file = new File(dir, "contacts.bin");
+        ContactRegistry registry = new ContactRegistry("91");
+        registry.replaceAll(Collections.singletonList("9876543210"));
+        registry.save(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(12);
+            raf.write(0x99);
+        }
+
+        ContactRegistry loaded = new ContactRegistry("91");
+        try {
+            loaded.load(file);
+            fail("corrupt file loaded");
+        } catch (IOException expected) {
+        }
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    public void version2FileWithAShortCountStillLoads() throws IOException {
+        File file = new File(dir, "contacts.bin");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x4B434F4E);
+        out.writeByte(2);
+        out.writeShort(1);
+        writeContact(out, 0);
+        writeWithCrc(file, bytes);
+
+        ContactRegistry loaded = new ContactRegistry("91");
+        assertTrue(loaded.load(file));
+        assertEquals(Collections.singletonList("+14155550100"), loaded.numbers());
+    }
+
+    @Test
+    public void moreContactsThanAShortCanCountLoadWhole() throws IOException {
+        File file = new File(dir, "contacts.bin");
+        int count = 70_000;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x4B434F4E);
+        out.writeByte(3);
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            writeContact(out, i);
+        }
+        writeWithCrc(file, bytes);
+
+        ContactRegistry loaded = new ContactRegistry("91");
+        assertTrue(loaded.load(file));
+        assertEquals(count, loaded.contacts().size());
+    }
+
+    @Test
+    public void countLargerThanTheFileIsRejected() throws IOException {
+        File file = new File(dir, "contacts.bin");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x4B434F4E);
+        out.writeByte(3);
+        out.writeInt(Integer.MAX_VALUE);
+        writeContact(out, 0);
+        writeWithCrc(file, bytes);
+
+        ContactRegistry loaded = new ContactRegistry("91");
+        try {
+            loaded.load(file);
+            fail("count of " + Integer.MAX_VALUE + " accepted");
+        } catch (IOException expected) {
+        }
+        assertTrue(loaded.isEmpty());
+    }
+
+    // +14155550100 in packed BCD
+    private static void writeContact(DataOutputStream out, int priority) throws IOException {
+        out.writeInt(priority);
+        out.write(new byte[] {11, 0x14, 0x15, 0x55, 0x50, 0x10, 0x0F});
+    }
+
+    private static void writeWithCrc(File file, ByteArrayOutputStream bytes) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        new DataOutputStream(bytes).writeInt((int) crc.getValue());
+        Files.write(file.toPath(), bytes.toByteArray());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DeliveryTrackerTest {
+
+    private static final long START = 10_000;
+
+    private DeliveryTracker tracker(int contacts, int parts) {
+        return new DeliveryTracker(contacts, parts, START, 3, 2_000, 5_000);
+    }
+
+    @Test
+    public void allPartsSentThenDelivered() {
+        DeliveryTracker t = tracker(1, 2);
+        int attempt = t.beginAttempt(0);
+
+        assertEquals(DeliveryTracker.NO_RETRY, t.onSent(0, attempt, true, false));
+        assertEquals(DeliveryTracker.State.SENDING, t.state(0));
+        t.onSent(0, attempt, true, false);
+        assertEquals(DeliveryTracker.State.SENT, t.state(0));
+
+        t.onDelivered(0, attempt, true, START + 1_500);
+        assertEquals(-1, t.timeToFirstDeliveryMs(0));
+        t.onDelivered(0, attempt, true, START + 2_500);
+        assertEquals(DeliveryTracker.State.DELIVERED, t.state(0));
+        assertEquals(2_500, t.timeToFirstDeliveryMs(0));
+        assertTrue(t.isFinished());
+    }
+
+    @Test
+    public void retryableFailureBacksOffExponentiallyThenGivesUp() {
+        DeliveryTracker t = tracker(1, 1);
+        assertEquals(2_000, t.onSent(0, t.beginAttempt(0), false, true));
+        assertEquals(4_000, t.onSent(0, t.beginAttempt(0), false, true));
+        assertEquals(DeliveryTracker.NO_RETRY, t.onSent(0, t.beginAttempt(0), false, true));
+        assertEquals(DeliveryTracker.State.FAILED, t.state(0));
+        assertEquals(3, t.attempts(0));
+        assertTrue(t.isFinished());
+    }
+
+    @Test
+    public void backoffIsCapped() {
+        DeliveryTracker t = new DeliveryTracker(1, 1, START, 10, 2_000, 5_000);
+        for (int i = 0; i < 5; i++) {
+            t.onSent(0, t.beginAttempt(0), false, true);
+        }
+        assertEquals(5_000, t.onSent(0, t.beginAttempt(0), false, true));
+    }
+
+    @Test
+    public void permanentFailureIsNotRetried() {
+        DeliveryTracker t = tracker(1, 1);
+        assertEquals(DeliveryTracker.NO_RETRY, t.onSent(0, t.beginAttempt(0), false, false));
+        assertEquals(DeliveryTracker.State.FAILED, t.state(0));
+    }
+
+    @Test
+    public void oneFailedPartFailsTheAttemptOnce() {
+        DeliveryTracker t = tracker(1, 3);
+        int attempt = t.beginAttempt(0);
+        t.onSent(0, attempt, true, false);
+        assertEquals(2_000, t.onSent(0, attempt, false, true));
+        // The remaining part of the failed attempt must not schedule a second retry
+        assertEquals(DeliveryTracker.NO_RETRY, t.onSent(0, attempt, false, true));
+    }
+
+    @Test
+    public void reportsFromSupersededAttemptsAreIgnored() {
+        DeliveryTracker t = tracker(1, 1);
+        int first = t.beginAttempt(0);
+        t.onSent(0, first, false, true);
+        int second = t.beginAttempt(0);
+
+        t.onDelivered(0, first, true, START + 100);
+        assertEquals(DeliveryTracker.State.SENDING, t.state(0));
+
+        t.onSent(0, second, true, false);
+        t.onDelivered(0, second, true, START + 4_000);
+        assertEquals(4_000, t.timeToFirstDeliveryMs(0));
+    }
+
+    @Test
+    public void deliveryFailureIsRetried() {
+        DeliveryTracker t = tracker(1, 1);
+        int attempt = t.beginAttempt(0);
+        t.onSent(0, attempt, true, false);
+        assertEquals(2_000, t.onDelivered(0, attempt, false, START + 1_000));
+        assertEquals(DeliveryTracker.State.SENDING, t.state(0));
+    }
+
+    @Test
+    public void contactsAreTrackedIndependently() {
+        DeliveryTracker t = tracker(2, 1);
+        int a = t.beginAttempt(0);
+        int b = t.beginAttempt(1);
+        t.onSent(0, a, true, false);
+        t.onDelivered(0, a, true, START + 800);
+        t.onSent(1, b, false, false);
+
+        assertEquals(800, t.timeToFirstDeliveryMs(0));
+        assertEquals(DeliveryTracker.State.FAILED, t.state(1));
+        assertEquals(-1, t.timeToFirstDeliveryMs(1));
+        assertTrue(t.isFinished());
+    }
+
+    @Test
+    public void submitFailureCountsAsAFailedAttempt() {
+        DeliveryTracker t = tracker(1, 1);
+        t.beginAttempt(0);
+        assertEquals(2_000, t.onSubmitFailed(0, true));
+        assertEquals(DeliveryTracker.NO_RETRY, t.onSubmitFailed(0, true));
+        t.beginAttempt(0);
+        assertEquals(DeliveryTracker.NO_RETRY, t.onSubmitFailed(0, false));
+        assertEquals(DeliveryTracker.State.FAILED, t.state(0));
+    }
+}
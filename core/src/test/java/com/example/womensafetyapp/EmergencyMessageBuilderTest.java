@@ -0,0 +1,112 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EmergencyMessageBuilderTest {
+
+    private static final String PREFIX =
+            "Emergency! I need help immediately. This message was triggered by the Kavach app. ";
+
+    @Test
+    public void messageWithLocationKeepsTheFullWordingInOnePart() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach app");
+        String message = builder.build(12.971598765, -77.5945);
+        assertEquals(PREFIX + "My live location: https://maps.google.com/?q=12.9716,-77.5945", message);
+        assertEquals(1, builder.lastSegments());
+        assertEquals(1, SmsSegments.count(message));
+    }
+
+    @Test
+    public void coordinatesAreRoundedToFiveDecimals() {
+        StringBuilder sb = new StringBuilder();
+        EmergencyMessageBuilder.appendCoordinate(sb, -122.419415999);
+        sb.append(' ');
+        EmergencyMessageBuilder.appendCoordinate(sb, 0.000049);
+        sb.append(' ');
+        EmergencyMessageBuilder.appendCoordinate(sb, 1.00701);
+        sb.append(' ');
+        EmergencyMessageBuilder.appendCoordinate(sb, -0.000001);
+        assertEquals("-122.41942 0.00005 1.00701 0", sb.toString());
+    }
+
+    @Test
+    public void longAppNameFallsBackToShorterWording() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach personal safety companion app");
+        String message = builder.build(-33.868820, -151.209296);
+        assertEquals(1, builder.lastSegments());
+        assertTrue(message, message.startsWith("SOS! I need help now. Kavach personal safety companion app."));
+        assertTrue(message, message.endsWith("https://maps.google.com/?q=-33.86882,-151.2093"));
+    }
+
+    @Test
+    public void veryLongAppNameKeepsTheLinkWithTerseWording() {
+        String name = "Kavach personal safety companion app for women travelling alone at night in the city";
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder(name);
+        assertEquals("SOS! Help me: https://maps.google.com/?q=-33.86882,-151.2093", builder.build(-33.86882, -151.2093));
+        assertEquals(1, builder.lastSegments());
+    }
+
+    @Test
+    public void nonGsmAppNameIsFoldedSoTheMessageStaysGsm7() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach\u2013Safe");
+        String message = builder.build(12.5, 77.25);
+        assertTrue(message, message.contains("Kavach-Safe"));
+        assertTrue(SmsSegments.isGsm7(message));
+    }
+
+    @Test
+    public void messageWithoutLocation() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach app");
+        assertEquals(PREFIX + "Location Unavailable.", builder.buildWithoutLocation());
+    }
+
+    @Test
+    public void reusedBuilderDoesNotLeakPreviousMessage() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach app");
+        builder.build(1.5, 2.5);
+        String second = builder.buildWithoutLocation();
+        assertFalse(second.contains("maps"));
+        assertEquals(builder.build(3.0, 4.0), builder.build(3.0, 4.0));
+    }
+
+    @Test
+    public void followUpCarriesTheLatestLocation() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach app");
+        assertEquals("Update: I still need help. Sent again by the Kavach app. My latest location: "
+                + "https://maps.google.com/?q=1.5,2.5", builder.buildFollowUp(1.5, 2.5));
+        assertEquals("Update: I still need help. Sent again by the Kavach app. Location Unavailable.",
+                builder.buildFollowUpWithoutLocation());
+    }
+
+    @Test
+    public void placeDescriptionGoesOnItsOwnLineWithShorterWording() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach app");
+        String message = builder.build(12.9756, 77.6066, "near MG Road Metro, 300 m from Cubbon Park Police Station");
+        assertEquals("SOS! I need help now. Kavach app. Location: https://maps.google.com/?q=12.9756,77.6066\n"
+                + "near MG Road Metro, 300 m from Cubbon Park Police Station", message);
+        assertEquals(1, builder.lastSegments());
+    }
+
+    @Test
+    public void placeDescriptionIsDroppedWhenNothingFitsInOnePart() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach app");
+        StringBuilder name = new StringBuilder("near ");
+        for (int i = 0; i < 20; i++) {
+            name.append("Very Long Name ");
+        }
+        assertEquals(builder.build(1.5, 2.5), builder.build(1.5, 2.5, name.toString()));
+        assertEquals(builder.build(1.5, 2.5), builder.build(1.5, 2.5, null));
+        assertEquals(1, builder.lastSegments());
+    }
+
+    @Test
+    public void delayedAlertSaysWhenItWasRaised() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach app");
+        String original = builder.build(12.9756, 77.6066);
+        String delayed = builder.buildDelayed(original, "21:14, 17 Oct");
+        assertEquals("DELAYED alert from 21:14, 17 Oct, location as of then. " + original, delayed);
+        assertEquals(SmsSegments.count(delayed), builder.lastSegments());
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.womensafetyapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.TimeZone;
+
+public class EventLogTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final long[] now = {1_000};
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("eventlog").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void decodesRecordsInOrder() throws IOException {
+        EventLog log = EventLog.inMemory(8, () -> now[0]);
+        log.log(LogEvent.READY);
+        now[0] = 1_500;
+        log.log(LogEvent.RECOGNIZER_ERROR, 7, 250);
+
+        List<EventLog.Record> records = EventLog.decode(log.snapshot());
+
+        assertEquals(2, records.size());
+        assertEquals(LogEvent.READY, records.get(0).event);
+        assertEquals(1_000, records.get(0).timeMs);
+        EventLog.Record error = records.get(1);
+        assertEquals(1, error.sequence);
+        assertEquals(LogEvent.RECOGNIZER_ERROR, error.event);
+        assertEquals(7, error.intArg);
+        assertEquals(250, error.longArg);
+    }
+
+    @Test
+    public void fullRingKeepsTheNewestRecords() throws IOException {
+        EventLog log = EventLog.inMemory(4, () -> now[0]);
+        for (int i = 0; i < 10; i++) {
+            log.log(LogEvent.RESULTS, i, i * 10L);
+        }
+
+        List<EventLog.Record> records = EventLog.decode(log.snapshot());
+
+        assertEquals(10, log.written());
+        assertEquals(4, records.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(6 + i, records.get(i).sequence);
+            assertEquals(6 + i, records.get(i).intArg);
+        }
+    }
+
+    @Test
+    public void fileBackedLogContinuesAfterReopen() throws IOException {
+        File file = new File(dir, "events.bin");
+        EventLog first = EventLog.open(file, 16, () -> now[0]);
+        first.log(LogEvent.TRIGGER, 2);
+        first.log(LogEvent.ALERT, 0, 41);
+        first.flush();
+
+        EventLog second = EventLog.open(file, 16, () -> now[0]);
+        second.log(LogEvent.SMS_SENT, 0, 41);
+
+        List<EventLog.Record> records = EventLog.decode(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+        assertEquals(3, records.size());
+        assertEquals(LogEvent.TRIGGER, records.get(0).event);
+        assertEquals(LogEvent.SMS_SENT, records.get(2).event);
+        assertEquals(41, records.get(2).longArg);
+    }
+
+    @Test
+    public void reopeningWithAnotherCapacityStartsOver() throws IOException {
+        File file = new File(dir, "events.bin");
+        EventLog.open(file, 16, () -> now[0]).log(LogEvent.READY);
+
+        EventLog log = EventLog.open(file, 32, () -> now[0]);
+
+        assertEquals(0, log.written());
+        assertEquals(0, EventLog.decode(log.snapshot()).size());
+    }
+
+    @Test
+    public void exportsOneLinePerRecord() throws IOException {
+        EventLog log = EventLog.inMemory(8, () -> now[0]);
+        now[0] = 1_792_357_445_123L;
+        log.log(LogEvent.RECOGNIZER_ERROR, 7, 0);
+        log.log(LogEvent.SPEECH_START);
+        StringBuilder out = new StringBuilder();
+
+        int count = EventLog.export(log.snapshot(), UTC, out);
+
+        assertEquals(2, count);
+        assertEquals("2026-10-18 21:04:05.123 #0 recognizer error code=7 restartMs=0\n"
+                + "2026-10-18 21:04:05.123 #1 speech start\n", out.toString());
+    }
+
+    @Test
+    public void unknownEventsAreKeptAsNumbers() throws IOException {
+        EventLog log = EventLog.inMemory(4, () -> 0);
+        log.log(LogEvent.READY);
+        ByteBuffer bytes = log.snapshot();
+        bytes.putInt(EventLog.HEADER_SIZE + 8, 999);
+        StringBuilder out = new StringBuilder();
+
+        EventLog.export(bytes, UTC, out);
+
+        assertNull(EventLog.decode(bytes).get(0).event);
+        assertEquals("1970-01-01 00:00:00.000 #0 event 999 0 0\n", out.toString());
+    }
+
+    @Test
+    public void rejectsOtherData() {
+        try {
+            EventLog.decode(ByteBuffer.wrap(new byte[64]));
+            fail();
+        } catch (IOException expected) {
+        }
+        ByteBuffer truncated = EventLog.inMemory(8, () -> 0).snapshot();
+        truncated.limit(truncated.limit() - 1);
+        try {
+            EventLog.decode(truncated);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
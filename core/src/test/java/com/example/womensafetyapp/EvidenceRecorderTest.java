@@ -0,0 +1,124 @@
+package com.example.womensafetyapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class EvidenceRecorderTest {
+
+    // A low rate keeps the real-time parts of the test short
+    private static final int RATE = 1000;
+
+    private File dir;
+    private final EvidenceRing ring = new EvidenceRing(RATE, 2);
+    private final EvidenceRecorder recorder = new EvidenceRecorder(ring, System::currentTimeMillis);
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("evidence").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = new File(dir, "evidence").listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        new File(dir, "evidence").delete();
+        dir.delete();
+    }
+
+    /** Writes a ramp, so every sample says where it came from. */
+    private static void feed(EvidenceRing ring, int from, int count) {
+        short[] block = new short[count];
+        for (int i = 0; i < count; i++) {
+            block[i] = (short) (from + i);
+        }
+        ring.write(block, 0, count);
+    }
+
+    @Test
+    public void savesThePreTriggerAudioAndWhatFollows() throws Exception {
+        feed(ring, 0, 3 * RATE); // More than the ring holds: only the last 2 s are left
+        Thread mic = new Thread(() -> {
+            // The trigger is wherever the ring is when the recording starts
+            while (!recorder.isRecording()) {
+                Thread.yield();
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (int i = 0; i < 10; i++) {
+                feed(ring, 3 * RATE + i * 100, 100);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        mic.start();
+        EvidenceRecorder.Result result = recorder.record(new File(dir, "evidence/a.wav"), 5, 1);
+        mic.join();
+
+        assertFalse(recorder.isRecording());
+        assertFalse(result.timedOut);
+        assertEquals(2 * RATE, result.preSamples);
+        assertEquals(3 * RATE, result.samples);
+        short[] decoded = ImaAdpcmWavWriterTest.decode(result.file);
+        assertEquals(3 * RATE, decoded.length);
+        assertEquals(RATE, decoded[0]); // Block headers carry their first sample verbatim
+    }
+
+    @Test
+    public void stopsWhenTheMicrophoneGoesQuiet() throws IOException {
+        feed(ring, 0, RATE / 2);
+        long started = System.currentTimeMillis();
+        EvidenceRecorder.Result result = recorder.record(new File(dir, "evidence/b.wav"), 1, 0);
+
+        assertEquals(RATE / 2, result.samples);
+        assertFalse(result.timedOut);
+        assertTrue(System.currentTimeMillis() - started < EvidenceRecorder.SLACK_MS);
+    }
+
+    @Test
+    public void stopEndsARecordingEarly() throws Exception {
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+            recorder.stop();
+        });
+        stopper.start();
+        EvidenceRecorder.Result result = recorder.record(new File(dir, "evidence/c.wav"), 1, 60);
+        stopper.join();
+
+        assertEquals(0, result.samples);
+        assertEquals(0, result.droppedSamples);
+    }
+
+    @Test
+    public void stopBeforeAQueuedRecordingStartsCancelsIt() throws IOException {
+        feed(ring, 0, RATE);
+        long ticket = recorder.arm();
+        recorder.stop(); // The service goes away while the recording waits for its worker
+        long started = System.currentTimeMillis();
+
+        assertNull(recorder.record(ticket, new File(dir, "evidence/d.wav"), 1, 60));
+        assertTrue(System.currentTimeMillis() - started < EvidenceRecorder.SLACK_MS);
+        assertFalse(new File(dir, "evidence/d.wav").exists());
+        assertFalse(recorder.isRecording());
+    }
+}
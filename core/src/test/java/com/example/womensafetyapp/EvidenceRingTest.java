@@ -0,0 +1,86 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EvidenceRingTest {
+
+    @Test
+    public void readsAcrossTheWrapInOrder() {
+        EvidenceRing ring = new EvidenceRing(4, 1);
+        ring.write(new short[]{1, 2, 3}, 0, 3);
+        ring.write(new short[]{4, 5, 6}, 0, 3);
+
+        assertEquals(6, ring.written());
+        assertEquals(2, ring.oldest());
+        short[] out = new short[4];
+        assertEquals(4, ring.read(2, out, 0, 4));
+        assertArrayEquals(new short[]{3, 4, 5, 6}, out);
+    }
+
+    @Test
+    public void readStopsAtTheNewestSample() {
+        EvidenceRing ring = new EvidenceRing(8, 1);
+        ring.write(new short[]{7, 8}, 0, 2);
+
+        short[] out = new short[4];
+        assertEquals(1, ring.read(1, out, 0, 4));
+        assertEquals(8, out[0]);
+        assertEquals(0, ring.read(2, out, 0, 4));
+    }
+
+    @Test
+    public void lappedReaderIsTold() {
+        EvidenceRing ring = new EvidenceRing(4, 1);
+        ring.write(new short[]{1, 2, 3, 4, 5}, 0, 5);
+
+        assertEquals(-1, ring.read(0, new short[4], 0, 4));
+        assertEquals(1, ring.oldest());
+    }
+
+    @Test
+    public void readsNeverReturnSamplesTheWriterHasReplaced() throws InterruptedException {
+        EvidenceRing ring = new EvidenceRing(64, 1);
+        // Each sample holds its own position, so a torn read shows up as a wrong value
+        Thread writer = new Thread(() -> {
+            short[] frame = new short[48];
+            for (int position = 0; position < 2_000_000; position += frame.length) {
+                for (int i = 0; i < frame.length; i++) {
+                    frame[i] = (short) (position + i);
+                }
+                ring.write(frame, 0, frame.length);
+            }
+        });
+        writer.start();
+
+        short[] out = new short[32];
+        long checked = 0;
+        while (writer.isAlive()) {
+            long from = ring.oldest();
+            int n = ring.read(from, out, 0, out.length);
+            for (int i = 0; i < n; i++) {
+                assertEquals("sample at " + (from + i), (short) (from + i), out[i]);
+            }
+            checked += Math.max(0, n);
+        }
+        writer.join();
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void floatAndByteFramesAreStoredAsPcm16() {
+        EvidenceRing ring = new EvidenceRing(8, 1);
+        ring.write(new float[]{0f, 1f, -2f}, 0, 3);
+        ring.write(new byte[]{0x34, 0x12, (byte) 0xff, (byte) 0xff, 0x01}, 0, 5);
+
+        short[] out = new short[5];
+        assertEquals(5, ring.read(0, out, 0, 5));
+        assertArrayEquals(new short[]{0, Short.MAX_VALUE, -Short.MAX_VALUE, 0x1234, -1}, out);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyRing() {
+        new EvidenceRing(16000, 0);
+    }
+}
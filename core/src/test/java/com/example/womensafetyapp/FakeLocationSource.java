@@ -0,0 +1,56 @@
+package com.example.womensafetyapp;
+
+/**
+ * Scripted {@link LocationSource}: every request answers after a fixed delay with a fix, with
+ * "no location" ({@code null}), or not at all, on a {@link VirtualClock}.
+ */
+final class FakeLocationSource implements LocationSource {
+
+    /** Delay value for a provider that never answers. */
+    static final long NEVER = -1;
+
+    private final VirtualClock clock;
+    private long delayMs;
+    private Fix result;
+    private int requests;
+    private int cancelled;
+
+    FakeLocationSource(VirtualClock clock) {
+        this.clock = clock;
+    }
+
+    /** Answers each request with {@code fix} (null for a failed request) after {@code delayMs}. */
+    FakeLocationSource answer(long delayMs, Fix fix) {
+        this.delayMs = delayMs;
+        this.result = fix;
+        return this;
+    }
+
+    @Override
+    public Request requestFix(long maxAgeMs, long durationMs, Callback callback) {
+        requests++;
+        boolean[] active = {true};
+        if (delayMs != NEVER) {
+            Fix fix = result;
+            clock.postDelayed(() -> {
+                if (active[0]) {
+                    callback.onFix(fix);
+                }
+            }, delayMs);
+        }
+        return () -> {
+            if (active[0]) {
+                active[0] = false;
+                cancelled++;
+            }
+        };
+    }
+
+    int requests() {
+        return requests;
+    }
+
+    int cancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.womensafetyapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scripted {@link SmsGateway} on a {@link VirtualClock}. Each attempt to each contact fails with
+ * a given probability; failures are retried with the {@link DeliveryTracker} policy the device
+ * dispatcher uses, and successful attempts are delivered after a random delay.
+ */
+final class FakeSmsGateway implements SmsGateway {
+
+    // Same retry policy as SmsDispatcher
+    static final int MAX_ATTEMPTS = 4;
+    static final long BASE_BACKOFF_MS = 2_000;
+    static final long MAX_BACKOFF_MS = 30_000;
+
+    private final VirtualClock clock;
+    private final Random random;
+    private final Listener listener;
+    private double failureRate;
+    private long submitMs = 200;
+    private long deliverMinMs = 2_000;
+    private long deliverMaxMs = 8_000;
+
+    private final List<Long> dispatchedAlerts = new ArrayList<>();
+    private final List<String> messages = new ArrayList<>();
+
+    FakeSmsGateway(VirtualClock clock, Random random, Listener listener) {
+        this.clock = clock;
+        this.random = random;
+        this.listener = listener;
+    }
+
+    /** Probability that one attempt fails at the radio (a retryable error). */
+    FakeSmsGateway failureRate(double rate) {
+        failureRate = rate;
+        return this;
+    }
+
+    FakeSmsGateway timing(long submitMs, long deliverMinMs, long deliverMaxMs) {
+        this.submitMs = submitMs;
+        this.deliverMinMs = deliverMinMs;
+        this.deliverMaxMs = deliverMaxMs;
+        return this;
+    }
+
+    @Override
+    public void dispatch(long alertId, List<String> numbers, String message) {
+        dispatchedAlerts.add(alertId);
+        messages.add(message);
+        DeliveryTracker tracker = new DeliveryTracker(numbers.size(), 1, clock.nowMs(),
+                MAX_ATTEMPTS, BASE_BACKOFF_MS, MAX_BACKOFF_MS);
+        for (int contact = 0; contact < numbers.size(); contact++) {
+            submit(alertId, numbers, tracker, contact);
+        }
+    }
+
+    List<Long> dispatchedAlerts() {
+        return dispatchedAlerts;
+    }
+
+    List<String> messages() {
+        return messages;
+    }
+
+    private void submit(long alertId, List<String> numbers, DeliveryTracker tracker, int contact) {
+        int attempt = tracker.beginAttempt(contact);
+        String number = numbers.get(contact);
+        listener.onSubmitted(alertId, number, attempt);
+        boolean ok = random.nextDouble() >= failureRate;
+        clock.postDelayed(() -> {
+            DeliveryTracker.State before = tracker.state(contact);
+            long retryMs = tracker.onSent(contact, attempt, ok, true);
+            if (before != DeliveryTracker.State.SENT && tracker.state(contact) == DeliveryTracker.State.SENT) {
+                listener.onSent(alertId, number);
+                long deliverMs = deliverMinMs + (long) (random.nextDouble() * (deliverMaxMs - deliverMinMs));
+                clock.postDelayed(() -> {
+                    tracker.onDelivered(contact, attempt, true, clock.nowMs());
+                    if (tracker.state(contact) == DeliveryTracker.State.DELIVERED) {
+                        listener.onDelivered(alertId, number, tracker.timeToFirstDeliveryMs(contact));
+                    }
+                }, deliverMs);
+            }
+            if (retryMs != DeliveryTracker.NO_RETRY) {
+                clock.postDelayed(() -> submit(alertId, numbers, tracker, contact), retryMs);
+            } else if (tracker.state(contact) == DeliveryTracker.State.FAILED) {
+                listener.onFailed(alertId, number, tracker.attempts(contact));
+            }
+        }, submitMs);
+    }
+}
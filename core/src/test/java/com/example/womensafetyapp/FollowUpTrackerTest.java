@@ -0,0 +1,142 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FollowUpTrackerTest {
+
+    private static final double LAT = 12.9716;
+    private static final double LON = 77.5946;
+    // Meters per degree of latitude, close enough for short tracks
+    private static final double METERS_PER_DEGREE = 111_195;
+
+    private static final FollowUpTracker.Config CONFIG =
+            new FollowUpTracker.Config(30 * 60_000, 60_000, 5 * 60_000, 100, 20);
+
+    /**
+     * Feeds a fix every {@code fixEveryMs} and ticks every 15 s, like the service, and collects
+     * what would be sent.
+     */
+    private static List<FollowUpTracker.Update> run(FollowUpTracker tracker, long durationMs, long fixEveryMs,
+                                                    double metersPerSecond, float accuracy) {
+        List<FollowUpTracker.Update> sent = new ArrayList<>();
+        tracker.start(0, LAT, LON);
+        for (long t = 1_000; t <= durationMs; t += 1_000) {
+            FollowUpTracker.Update update = null;
+            if (t % fixEveryMs == 0) {
+                double north = metersPerSecond * t / 1000.0 / METERS_PER_DEGREE;
+                update = tracker.onFix(t, LAT + north, LON, accuracy);
+            }
+            if (update == null && t % 15_000 == 0) {
+                update = tracker.onTick(t);
+            }
+            if (update != null) {
+                sent.add(update);
+            }
+        }
+        return sent;
+    }
+
+    @Test
+    public void walkingSendsAboutOneUpdatePerThresholdDistance() {
+        // 1.4 m/s walk for 20 minutes, a fix every 10 s (14 m apart): 100 m is passed on every
+        // 8th fix, so one update per 112 m and 80 s
+        List<FollowUpTracker.Update> sent = run(new FollowUpTracker(CONFIG), 20 * 60_000, 10_000, 1.4, 10);
+
+        assertEquals(15, sent.size());
+        for (FollowUpTracker.Update update : sent) {
+            assertTrue(update.movedMeters >= 100);
+            assertTrue(update.sinceLastMs >= CONFIG.minIntervalMs);
+        }
+        assertEquals(1, sent.get(0).sequence);
+        assertEquals(15, sent.get(14).sequence);
+    }
+
+    @Test
+    public void fastMovementIsBatchedByTheMinimumInterval() {
+        // 15 m/s in a vehicle, a fix every second: the distance threshold is crossed every 7 s
+        List<FollowUpTracker.Update> sent = run(new FollowUpTracker(CONFIG), 10 * 60_000, 1_000, 15, 10);
+
+        assertEquals(10, sent.size());
+        for (FollowUpTracker.Update update : sent) {
+            assertEquals(60_000, update.sinceLastMs);
+            assertEquals(60, update.fixes);
+            assertEquals(900, update.movedMeters, 1);
+        }
+    }
+
+    @Test
+    public void standingStillOnlySendsAtTheMaximumInterval() {
+        List<FollowUpTracker.Update> sent = run(new FollowUpTracker(CONFIG), 30 * 60_000, 10_000, 0, 10);
+
+        // Every 5 minutes, and the period ends at 30 minutes
+        assertEquals(5, sent.size());
+        for (FollowUpTracker.Update update : sent) {
+            assertEquals(5 * 60_000, update.sinceLastMs);
+            assertTrue(update.movedMeters < 1);
+        }
+    }
+
+    @Test
+    public void jitterWithinTheFixAccuracyIsNotMovement() {
+        // 0.2 m/s drift but fixes only good to 150 m: looks like standing still
+        List<FollowUpTracker.Update> sent = run(new FollowUpTracker(CONFIG), 10 * 60_000, 10_000, 0.2, 150);
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    public void updatesStopAfterTheLimitOrThePeriod() {
+        FollowUpTracker.Config capped = new FollowUpTracker.Config(30 * 60_000, 60_000, 5 * 60_000, 100, 3);
+        FollowUpTracker tracker = new FollowUpTracker(capped);
+        assertEquals(3, run(tracker, 30 * 60_000, 1_000, 15, 10).size());
+        assertFalse(tracker.isActive(10 * 60_000));
+
+        tracker = new FollowUpTracker(CONFIG);
+        List<FollowUpTracker.Update> sent = run(tracker, 60 * 60_000, 1_000, 15, 10);
+        assertEquals(20, sent.size());
+        assertTrue(sent.get(sent.size() - 1).sequence <= CONFIG.maxUpdates);
+    }
+
+    @Test
+    public void alertWithoutLocationSendsTheFirstFixRightAway() {
+        FollowUpTracker tracker = new FollowUpTracker(CONFIG);
+        tracker.start(0, Double.NaN, Double.NaN);
+        assertNull(tracker.onTick(30_000));
+        assertNull(tracker.onFix(40_000, LAT, LON, 20));
+
+        FollowUpTracker.Update first = tracker.onTick(60_000);
+        assertNotNull(first);
+        assertTrue(Double.isNaN(first.movedMeters));
+        assertEquals(LAT, first.latitude, 0);
+    }
+
+    @Test
+    public void stoppedTrackerSendsNothing() {
+        FollowUpTracker tracker = new FollowUpTracker(CONFIG);
+        tracker.start(0, LAT, LON);
+        tracker.stop();
+        assertNull(tracker.onFix(120_000, LAT + 0.01, LON, 5));
+        assertNull(tracker.onTick(600_000));
+    }
+
+    @Test
+    public void haversineMatchesAKnownDistance() {
+        // One degree of latitude
+        assertEquals(METERS_PER_DEGREE, FollowUpTracker.distanceMeters(0, 0, 1, 0), 1);
+        assertEquals(0, FollowUpTracker.distanceMeters(LAT, LON, LAT, LON), 0);
+    }
+
+    @Test
+    public void updateMessageDescribesTheMovement() {
+        EmergencyMessageBuilder builder = new EmergencyMessageBuilder("Kavach app");
+        FollowUpTracker tracker = new FollowUpTracker(CONFIG);
+        tracker.start(0, 0, 0);
+        FollowUpTracker.Update update = tracker.onFix(180_000, 0.01, 0, 5);
+        assertEquals("Location update 1 from the Kavach app: moved 1112 m in 3 min. Now at: "
+                + "https://maps.google.com/?q=0.01,0", builder.buildLocationUpdate(update));
+    }
+}
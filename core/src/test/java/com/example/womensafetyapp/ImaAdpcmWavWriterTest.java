@@ -0,0 +1,128 @@
+package com.example.womensafetyapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class ImaAdpcmWavWriterTest {
+
+    private static final int[] INDEX_TABLE = {-1, -1, -1, -1, 2, 4, 6, 8, -1, -1, -1, -1, 2, 4, 6, 8};
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("adpcm").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    /** Reference decoder for the files the writer produces; returns the samples the fact chunk counts. */
+    static short[] decode(File file) throws IOException {
+        ByteBuffer wav = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x0011, wav.getShort(20));
+        assertEquals(ImaAdpcmWavWriter.BLOCK_ALIGN, wav.getShort(32));
+        assertEquals(ImaAdpcmWavWriter.SAMPLES_PER_BLOCK, wav.getShort(38));
+        int samples = wav.getInt(48);
+        int dataBytes = wav.getInt(56);
+        assertEquals(wav.capacity() - 8, wav.getInt(4));
+        assertEquals(wav.capacity() - ImaAdpcmWavWriter.HEADER_SIZE, dataBytes);
+
+        short[] out = new short[dataBytes / ImaAdpcmWavWriter.BLOCK_ALIGN * ImaAdpcmWavWriter.SAMPLES_PER_BLOCK];
+        int n = 0;
+        for (int block = ImaAdpcmWavWriter.HEADER_SIZE; block < wav.capacity(); block += ImaAdpcmWavWriter.BLOCK_ALIGN) {
+            int predictor = wav.getShort(block);
+            int index = wav.get(block + 2);
+            out[n++] = (short) predictor;
+            for (int i = block + 4; i < block + ImaAdpcmWavWriter.BLOCK_ALIGN; i++) {
+                int b = wav.get(i) & 0xff;
+                for (int nibble : new int[]{b & 0x0f, b >> 4}) {
+                    int step = ImaAdpcmWavWriter.STEP_TABLE[index];
+                    int delta = step >> 3;
+                    if ((nibble & 4) != 0) delta += step;
+                    if ((nibble & 2) != 0) delta += step >> 1;
+                    if ((nibble & 1) != 0) delta += step >> 2;
+                    predictor += (nibble & 8) != 0 ? -delta : delta;
+                    predictor = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, predictor));
+                    index = Math.max(0, Math.min(88, index + INDEX_TABLE[nibble]));
+                    out[n++] = (short) predictor;
+                }
+            }
+        }
+        short[] trimmed = new short[samples];
+        System.arraycopy(out, 0, trimmed, 0, samples);
+        return trimmed;
+    }
+
+    private File write(short[] pcm, int chunk) throws IOException {
+        File file = new File(dir, "out.wav");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             ImaAdpcmWavWriter writer = new ImaAdpcmWavWriter(raf.getChannel(), 16000)) {
+            for (int off = 0; off < pcm.length; off += chunk) {
+                writer.write(pcm, off, Math.min(chunk, pcm.length - off));
+            }
+            assertEquals(pcm.length, writer.samples());
+        }
+        return file;
+    }
+
+    @Test
+    public void sineSurvivesTheRoundTrip() throws IOException {
+        short[] pcm = new short[16000];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) (8000 * Math.sin(2 * Math.PI * 440 * i / 16000.0)
+                    + 3000 * Math.sin(2 * Math.PI * 1250 * i / 16000.0));
+        }
+        File file = write(pcm, 333);
+        short[] decoded = decode(file);
+
+        assertEquals(pcm.length, decoded.length);
+        double signal = 0;
+        double noise = 0;
+        for (int i = 0; i < pcm.length; i++) {
+            signal += (double) pcm[i] * pcm[i];
+            noise += (double) (pcm[i] - decoded[i]) * (pcm[i] - decoded[i]);
+        }
+        double snrDb = 10 * Math.log10(signal / noise);
+        assertTrue("SNR " + snrDb, snrDb > 20);
+        // A quarter of the PCM size plus a block's worth of padding
+        assertTrue(file.length() < pcm.length * 2 / 4 + ImaAdpcmWavWriter.BLOCK_ALIGN + ImaAdpcmWavWriter.HEADER_SIZE);
+    }
+
+    @Test
+    public void partialLastBlockIsPaddedButCounted() throws IOException {
+        short[] pcm = new short[ImaAdpcmWavWriter.SAMPLES_PER_BLOCK + 10];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) (i * 10);
+        }
+        File file = write(pcm, pcm.length);
+
+        short[] decoded = decode(file);
+        assertEquals(pcm.length, decoded.length);
+        assertEquals(ImaAdpcmWavWriter.HEADER_SIZE + 2 * ImaAdpcmWavWriter.BLOCK_ALIGN, file.length());
+        // Each block starts with its first sample verbatim
+        assertEquals(pcm[ImaAdpcmWavWriter.SAMPLES_PER_BLOCK], decoded[ImaAdpcmWavWriter.SAMPLES_PER_BLOCK]);
+    }
+
+    @Test
+    public void emptyRecordingIsAValidFile() throws IOException {
+        File file = write(new short[0], 1);
+        assertEquals(ImaAdpcmWavWriter.HEADER_SIZE, file.length());
+        assertEquals(0, decode(file).length);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.womensafetyapp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JVM harness that streams a WAV file through {@link KeywordSpotter} in AudioRecord-sized blocks,
+ * exactly as {@link KeywordSpotterThread} does on a device, and collects the detections.
+ */
+final class KeywordSpotterHarness {
+
+    static final int BLOCK_SIZE = 320; // 20 ms reads, like the capture thread
+
+    static final class Detection {
+        final String phrase;
+        final long endSample;
+        final float score;
+
+        Detection(String phrase, long endSample, float score) {
+            this.phrase = phrase;
+            this.endSample = endSample;
+            this.score = score;
+        }
+
+        /** Audio-time latency from the true end of the keyword to the detection, in ms. */
+        long latencyMs(long keywordEndSample) {
+            return (endSample - keywordEndSample) * 1000 / KeywordSpotter.SAMPLE_RATE;
+        }
+    }
+
+    private KeywordSpotterHarness() {}
+
+    static KeywordSpotter enrolledSpotter(File... enrollment) throws IOException {
+        KeywordSpotter spotter = new KeywordSpotter();
+        for (File f : enrollment) {
+            short[] pcm = load(f);
+            String phrase = f.getName().substring(0, f.getName().indexOf('_')).replace('-', ' ');
+            if (!spotter.addTemplate(phrase, pcm, 0, pcm.length)) {
+                throw new IOException("No speech in " + f);
+            }
+        }
+        return spotter;
+    }
+
+    static List<Detection> run(KeywordSpotter spotter, File wav) throws IOException {
+        short[] pcm = load(wav);
+        List<Detection> detections = new ArrayList<>();
+        spotter.reset();
+        spotter.setListener((phrase, endSample, score) ->
+                detections.add(new Detection(phrase, endSample, score)));
+        for (int off = 0; off < pcm.length; off += BLOCK_SIZE) {
+            spotter.process(pcm, off, Math.min(BLOCK_SIZE, pcm.length - off));
+        }
+        return detections;
+    }
+
+    private static short[] load(File f) throws IOException {
+        try (InputStream in = new FileInputStream(f)) {
+            WavReader.Clip clip = WavReader.read(in);
+            if (clip.sampleRate != KeywordSpotter.SAMPLE_RATE) {
+                throw new IOException("Fixture must be 16 kHz: " + f);
+            }
+            return clip.samples;
+        }
+    }
+}
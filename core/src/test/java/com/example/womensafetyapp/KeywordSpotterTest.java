@@ -0,0 +1,93 @@
+package com.example.womensafetyapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs synthesized WAV fixtures through the keyword spotter on the JVM.
+ */
+public class KeywordSpotterTest {
+
+    private static final int LEAD_MS = 800;
+    private static final float NOISE = 150f;
+
+    private File dir;
+    private KeywordSpotter spotter;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("kws").toFile();
+        spotter = KeywordSpotterHarness.enrolledSpotter(
+                WavFixtures.writeWav(new File(dir, "sos_1.wav"), WavFixtures.utterance(WavFixtures.SOS, 1, 0f)),
+                WavFixtures.writeWav(new File(dir, "help-me_1.wav"), WavFixtures.utterance(WavFixtures.HELP_ME, 1, 0f)));
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void detectsSosSpokenDifferentlyInNoise() throws IOException {
+        assertDetected("sos", WavFixtures.SOS);
+    }
+
+    @Test
+    public void detectsHelpMeSpokenDifferentlyInNoise() throws IOException {
+        assertDetected("help me", WavFixtures.HELP_ME);
+    }
+
+    @Test
+    public void ignoresOtherSpeechAndBackgroundNoise() throws IOException {
+        for (long seed = 10; seed < 15; seed++) {
+            short[] hello = WavFixtures.utterance(WavFixtures.HELLO, seed, 1f);
+            File wav = WavFixtures.writeWav(new File(dir, "hello.wav"),
+                    WavFixtures.inNoise(hello, LEAD_MS, 500, NOISE, seed));
+            assertTrue(KeywordSpotterHarness.run(spotter, wav).isEmpty());
+        }
+        File silence = WavFixtures.writeWav(new File(dir, "noise.wav"),
+                WavFixtures.inNoise(new short[0], 3000, 0, NOISE, 99));
+        assertTrue(KeywordSpotterHarness.run(spotter, silence).isEmpty());
+    }
+
+    @Test
+    public void detectsEachOccurrenceOnceInALongStream() throws IOException {
+        short[] first = WavFixtures.inNoise(WavFixtures.utterance(WavFixtures.SOS, 3, 1f), LEAD_MS, 0, NOISE, 3);
+        short[] second = WavFixtures.inNoise(WavFixtures.utterance(WavFixtures.SOS, 4, 1f), LEAD_MS, 500, NOISE, 4);
+        short[] both = new short[first.length + second.length];
+        System.arraycopy(first, 0, both, 0, first.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        File wav = WavFixtures.writeWav(new File(dir, "twice.wav"), both);
+
+        assertEquals(2, KeywordSpotterHarness.run(spotter, wav).size());
+    }
+
+    private void assertDetected(String phrase, int[][] script) throws IOException {
+        for (long seed = 2; seed < 7; seed++) {
+            short[] speech = WavFixtures.utterance(script, seed, 1f);
+            File wav = WavFixtures.writeWav(new File(dir, "stream.wav"),
+                    WavFixtures.inNoise(speech, LEAD_MS, 500, NOISE, seed));
+            long keywordEnd = LEAD_MS * KeywordSpotter.SAMPLE_RATE / 1000 + speech.length;
+
+            List<KeywordSpotterHarness.Detection> detections = KeywordSpotterHarness.run(spotter, wav);
+
+            assertEquals("seed " + seed, 1, detections.size());
+            KeywordSpotterHarness.Detection d = detections.get(0);
+            assertEquals(phrase, d.phrase);
+            long latency = d.latencyMs(keywordEnd);
+            assertTrue("latency " + latency + " ms", latency >= -250 && latency <= 150);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.womensafetyapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class LandmarkIndexTest {
+
+    // MG Road, Bengaluru; a degree of latitude is about 111 km
+    private static final double LAT = 12.9756;
+    private static final double LON = 77.6066;
+    private static final double METER = 1 / 111_195.0;
+
+    @Test
+    public void nearestMatchesBruteForce() {
+        Random rnd = new Random(3);
+        LandmarkIndex.Builder builder = new LandmarkIndex.Builder();
+        for (int i = 0; i < 20_000; i++) {
+            LandmarkIndex.Kind kind = LandmarkIndex.Kind.values()[rnd.nextInt(3)];
+            builder.add(LAT + rnd.nextDouble() * 0.2 - 0.1, LON + rnd.nextDouble() * 0.2 - 0.1, kind, "p" + i);
+        }
+        LandmarkIndex index = builder.build();
+
+        for (int q = 0; q < 500; q++) {
+            double lat = LAT + rnd.nextDouble() * 0.24 - 0.12;
+            double lon = LON + rnd.nextDouble() * 0.24 - 0.12;
+            for (LandmarkIndex.Kind kind : LandmarkIndex.Kind.values()) {
+                double max = q % 2 == 0 ? 300 : 50_000;
+                int expected = -1;
+                double best = max;
+                for (int i = 0; i < index.size(); i++) {
+                    double d = index.distanceMeters(i, lat, lon);
+                    if (index.kind(i) == kind && d <= best) {
+                        best = d;
+                        expected = i;
+                    }
+                }
+                int found = index.nearest(lat, lon, kind, max);
+                if (expected < 0) {
+                    assertEquals(-1, found);
+                } else {
+                    assertEquals(kind, index.kind(found));
+                    assertEquals(best, index.distanceMeters(found, lat, lon), 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void describesNearbyLandmarkAndPoliceStation() {
+        LandmarkIndex index = new LandmarkIndex.Builder()
+                .add(LAT + 100 * METER, LON, LandmarkIndex.Kind.LANDMARK, "MG Road Metro")
+                .add(LAT + 2_000 * METER, LON, LandmarkIndex.Kind.LANDMARK, "Far Park")
+                .add(LAT - 300 * METER, LON, LandmarkIndex.Kind.POLICE, "Cubbon Park Police Station")
+                .add(LAT - 100 * METER, LON, LandmarkIndex.Kind.HOSPITAL, "City Hospital")
+                .build();
+
+        assertEquals("near MG Road Metro, 300 m from Cubbon Park Police Station", index.describe(LAT, LON));
+        // Only the police station is in range
+        assertEquals("1.7 km from Cubbon Park Police Station", index.describe(LAT + 1_000 * METER, LON + 0.01));
+    }
+
+    @Test
+    public void fallsBackToHospitalWithoutPoliceStation() {
+        LandmarkIndex index = new LandmarkIndex.Builder()
+                .add(LAT, LON + 0.01, LandmarkIndex.Kind.HOSPITAL, "City Hospital")
+                .build();
+
+        assertTrue(index.describe(LAT, LON).endsWith(" km from City Hospital"));
+        assertNull(index.describe(LAT + 1, LON));
+    }
+
+    @Test
+    public void emptyIndexDescribesNothing() {
+        LandmarkIndex index = new LandmarkIndex.Builder().build();
+
+        assertEquals(0, index.size());
+        assertEquals(-1, index.nearest(LAT, LON, LandmarkIndex.Kind.POLICE, 1e7));
+        assertNull(index.describe(LAT, LON));
+    }
+
+    @Test
+    public void distancesAreRounded() {
+        assertEquals("10 m", distance(3));
+        assertEquals("40 m", distance(44));
+        assertEquals("990 m", distance(994));
+        assertEquals("1 km", distance(996));
+        assertEquals("1.2 km", distance(1_249));
+        assertEquals("12 km", distance(12_030));
+    }
+
+    @Test
+    public void roundTripsThroughBinaryForm() throws IOException {
+        LandmarkIndex index = new LandmarkIndex.Builder()
+                .add(LAT, LON, LandmarkIndex.Kind.LANDMARK, "Brigade Road")
+                .add(LAT + 0.001, LON, LandmarkIndex.Kind.POLICE, "Ashok Nagar Police Station")
+                .add(LAT - 0.001, LON, LandmarkIndex.Kind.HOSPITAL, "St. Martha\u2019s Hospital")
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.writeTo(out);
+
+        LandmarkIndex read = LandmarkIndex.read(ByteBuffer.wrap(out.toByteArray()));
+
+        assertEquals(3, read.size());
+        int hospital = read.nearest(LAT, LON, LandmarkIndex.Kind.HOSPITAL, 500);
+        assertEquals("St. Martha\u2019s Hospital", read.name(hospital));
+        assertEquals(index.describe(LAT, LON), read.describe(LAT, LON));
+    }
+
+    @Test
+    public void rejectsTruncatedData() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new LandmarkIndex.Builder().add(LAT, LON, LandmarkIndex.Kind.POLICE, "Station").build().writeTo(out);
+        byte[] bytes = out.toByteArray();
+        try {
+            LandmarkIndex.read(ByteBuffer.wrap(bytes, 0, bytes.length - 3));
+            fail();
+        } catch (IOException expected) {
+        }
+        bytes[0] = 0;
+        try {
+            LandmarkIndex.read(ByteBuffer.wrap(bytes));
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void readsCsv() throws IOException {
+        String csv = "# lat,lon,kind,name\n"
+                + "12.9756,77.6066,landmark,Brigade Road, near the arch\n"
+                + "\n"
+                + "12.9786,77.6066,POLICE,Ashok Nagar Police Station\n";
+
+        LandmarkIndex index = new LandmarkIndex.Builder().addCsv(new StringReader(csv)).build();
+
+        assertEquals(2, index.size());
+        assertEquals(1, index.count(LandmarkIndex.Kind.POLICE));
+        assertEquals("Brigade Road, near the arch",
+                index.name(index.nearest(LAT, LON, LandmarkIndex.Kind.LANDMARK, 10)));
+    }
+
+    @Test
+    public void badCsvLineNamesTheLine() {
+        try {
+            new LandmarkIndex.Builder().addCsv(new StringReader("12.9,77.6,landmark,A\n12.9,77.6,shop,B\n"));
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2"));
+        }
+    }
+
+    private static String distance(double meters) {
+        StringBuilder sb = new StringBuilder();
+        LandmarkIndex.appendDistance(sb, meters);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void stagesMeasureTheGapToThePreviousStage() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.speechStarted(1_000);
+        recorder.speechStarted(1_200); // Earliest mark wins
+        recorder.triggered(1_700);
+        recorder.locationAcquired(1_710);
+        recorder.messageBuilt(1_712);
+        recorder.smsSubmitted(1_740);
+        recorder.smsSubmitted(1_760);
+        recorder.smsDelivered(4_000);
+
+        assertEquals(700, recorder.snapshot(LatencyRecorder.Stage.SPEECH_TO_TRIGGER).maxMs());
+        assertEquals(10, recorder.snapshot(LatencyRecorder.Stage.TRIGGER_TO_LOCATION).maxMs());
+        assertEquals(2, recorder.snapshot(LatencyRecorder.Stage.LOCATION_TO_MESSAGE).maxMs());
+        StageHistogram submit = recorder.snapshot(LatencyRecorder.Stage.MESSAGE_TO_SUBMIT);
+        assertEquals(2, submit.count());
+        assertEquals(48, submit.maxMs());
+        assertEquals(760, recorder.snapshot(LatencyRecorder.Stage.SPEECH_TO_SUBMIT).maxMs());
+        assertEquals(4_000, recorder.snapshot(LatencyRecorder.Stage.DISPATCH_TO_DELIVERY).maxMs());
+    }
+
+    @Test
+    public void speechThatEndsWithoutTriggerIsForgotten() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.speechStarted(1_000);
+        recorder.speechEnded();
+        recorder.triggered(5_000);
+        assertEquals(0, recorder.snapshot(LatencyRecorder.Stage.SPEECH_TO_TRIGGER).count());
+    }
+
+    @Test
+    public void mergedTriggerLeavesTheAlertInFlightAlone() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.speechStarted(1_000);
+        recorder.heard(1_500);
+        recorder.alertStarted(1_510);
+        recorder.locationAcquired(1_600);
+        // "help me" again while the message is being built: merged, not a new alert
+        recorder.speechStarted(1_620);
+        recorder.heard(1_900);
+        recorder.messageBuilt(1_605);
+        recorder.smsSubmitted(1_650);
+
+        StageHistogram heard = recorder.snapshot(LatencyRecorder.Stage.SPEECH_TO_TRIGGER);
+        assertEquals(2, heard.count());
+        assertEquals(90, recorder.snapshot(LatencyRecorder.Stage.TRIGGER_TO_LOCATION).maxMs());
+        assertEquals(650, recorder.snapshot(LatencyRecorder.Stage.SPEECH_TO_SUBMIT).maxMs());
+    }
+
+    @Test
+    public void stagesWithoutTheirPredecessorAreNotRecorded() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        // A replayed alert resolves location and submits without a trigger in this process
+        recorder.locationAcquired(100);
+        recorder.messageBuilt(110);
+        recorder.smsSubmitted(120);
+        for (LatencyRecorder.Stage stage : LatencyRecorder.Stage.values()) {
+            assertEquals(stage.name(), 0, recorder.snapshot(stage).count());
+        }
+    }
+
+    @Test
+    public void locationIsCountedOncePerAlert() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.triggered(0);
+        recorder.locationAcquired(20);
+        recorder.locationAcquired(5_000); // Late result after the deadline already fired
+        assertEquals(1, recorder.snapshot(LatencyRecorder.Stage.TRIGGER_TO_LOCATION).count());
+    }
+
+    @Test
+    public void saveAndLoadRoundTrip() throws IOException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 0; i < 20; i++) {
+            recorder.triggered(i * 1_000);
+            recorder.locationAcquired(i * 1_000 + i * 10);
+        }
+        File file = File.createTempFile("latency", ".bin");
+        try {
+            recorder.save(file);
+            LatencyRecorder loaded = new LatencyRecorder();
+            loaded.load(file);
+            assertEquals(recorder.report(), loaded.report());
+            assertEquals(20, loaded.snapshot(LatencyRecorder.Stage.TRIGGER_TO_LOCATION).count());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void loadAddsToStagesRecordedMeanwhile() throws IOException {
+        LatencyRecorder saved = new LatencyRecorder();
+        saved.triggered(0);
+        saved.locationAcquired(30);
+        File file = File.createTempFile("latency", ".bin");
+        try {
+            saved.save(file);
+            LatencyRecorder recorder = new LatencyRecorder();
+            // An alert that ran while the file was still being read at startup
+            recorder.triggered(1_000);
+            recorder.locationAcquired(1_900);
+            recorder.load(file);
+
+            StageHistogram location = recorder.snapshot(LatencyRecorder.Stage.TRIGGER_TO_LOCATION);
+            assertEquals(2, location.count());
+            assertEquals(900, location.maxMs());
+            assertEquals(465, location.meanMs());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void missingFileLoadsNothing() throws IOException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.load(new File("does-not-exist.bin"));
+        assertEquals(0, recorder.snapshot(LatencyRecorder.Stage.SPEECH_TO_SUBMIT).count());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ListeningCoverageTest {
+
+    private static final long MINUTE = 60_000;
+
+    /** Sessions of {@code sessionMs} separated by {@code gapMs}, for {@code durationMs}. */
+    private static long simulate(ListeningCoverage coverage, long startMs, long durationMs, long sessionMs, long gapMs) {
+        long t = startMs;
+        while (t < startMs + durationMs) {
+            t += gapMs;
+            coverage.onListening(t);
+            t += sessionMs;
+            coverage.onDeaf(t);
+        }
+        return t;
+    }
+
+    @Test
+    public void gapsBetweenSessionsAddUp() {
+        ListeningCoverage coverage = new ListeningCoverage(0);
+        // 8 s sessions with a 400 ms restart gap, as with cancel() and startListening
+        long end = simulate(coverage, 0, ListeningCoverage.HOUR_MS, 8_000, 400);
+        coverage.onListening(end + 400);
+
+        long sessions = coverage.gapCount();
+        assertEquals(sessions * 400, coverage.totalDeafMs(end + 400));
+        assertEquals(400, coverage.meanGapMs());
+        assertEquals(400, coverage.longestGapMs());
+        // About 4.8% of an hour, give or take the minute at the edge of the window
+        assertEquals(ListeningCoverage.HOUR_MS * 400 / 8_400, coverage.deafMsLastHour(end + 400), MINUTE * 400 / 8_400);
+    }
+
+    @Test
+    public void warmHandoffShrinksTheDeafTime() {
+        ListeningCoverage restart = new ListeningCoverage(0);
+        ListeningCoverage handoff = new ListeningCoverage(0);
+        long a = simulate(restart, 0, ListeningCoverage.HOUR_MS, 8_000, 400);
+        long b = simulate(handoff, 0, ListeningCoverage.HOUR_MS, 8_000, 40);
+
+        assertTrue(handoff.deafMsLastHour(b) * 5 < restart.deafMsLastHour(a));
+    }
+
+    @Test
+    public void openGapCountsUntilListeningResumes() {
+        ListeningCoverage coverage = new ListeningCoverage(0);
+        coverage.onListening(500);
+        coverage.onDeaf(10_000);
+
+        assertFalse(coverage.isListening());
+        assertEquals(500 + 5_000, coverage.totalDeafMs(15_000));
+        assertEquals(500 + 5_000, coverage.deafMsLastHour(15_000));
+        assertEquals(1, coverage.gapCount());
+    }
+
+    @Test
+    public void oldGapsLeaveTheHourWindow() {
+        ListeningCoverage coverage = new ListeningCoverage(0);
+        coverage.onListening(30 * MINUTE); // half an hour without a recognizer
+        coverage.onDeaf(40 * MINUTE);
+        coverage.onListening(40 * MINUTE + 1_000);
+
+        assertEquals(30 * MINUTE + 1_000, coverage.deafMsLastHour(60 * MINUTE));
+        assertEquals(15 * MINUTE + 1_000, coverage.deafMsLastHour(75 * MINUTE));
+        assertEquals(1_000, coverage.deafMsLastHour(95 * MINUTE));
+        assertEquals(0, coverage.deafMsLastHour(101 * MINUTE));
+        assertEquals(30 * MINUTE + 1_000, coverage.totalDeafMs(101 * MINUTE));
+        assertEquals(30 * MINUTE, coverage.longestGapMs());
+    }
+
+    @Test
+    public void repeatedCallsInTheSameStateAreIgnored() {
+        ListeningCoverage coverage = new ListeningCoverage(0);
+        coverage.onListening(100);
+        coverage.onListening(200);
+        coverage.onDeaf(300);
+        coverage.onDeaf(400);
+        coverage.onListening(500);
+
+        assertEquals(2, coverage.gapCount());
+        assertEquals(300, coverage.totalDeafMs(600));
+    }
+
+    @Test
+    public void neverMoreThanTheTimeSinceStart() {
+        ListeningCoverage coverage = new ListeningCoverage(5 * MINUTE);
+        assertEquals(MINUTE, coverage.deafMsLastHour(6 * MINUTE));
+        assertTrue(coverage.report(6 * MINUTE), coverage.report(6 * MINUTE).contains("100.0% since start"));
+    }
+
+    @Test
+    public void listeningShareOfTheLastHour() {
+        ListeningCoverage coverage = new ListeningCoverage(0);
+        assertEquals(0, coverage.listeningPerMilleLastHour(0));
+        coverage.onListening(1_000);
+        coverage.onDeaf(9_000);
+        coverage.onListening(10_000);
+
+        // 2 s deaf out of 10 s so far
+        assertEquals(800, coverage.listeningPerMilleLastHour(10_000));
+        // An hour later the window is full and the early gaps have aged out
+        assertEquals(1000, coverage.listeningPerMilleLastHour(ListeningCoverage.HOUR_MS + 2 * MINUTE));
+    }
+
+    @Test
+    public void lateDeafTimeCountsFromWhenItStarted() {
+        ListeningCoverage coverage = new ListeningCoverage(0);
+        coverage.onListening(0);
+        // A stall noticed at 30 s that began at 10 s
+        coverage.onDeaf(10_000);
+        coverage.onListening(30_000);
+
+        assertEquals(20_000, coverage.totalDeafMs(30_000));
+        assertEquals(20_000, coverage.longestGapMs());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LocationRingTest {
+
+    private static final long MINUTE = 60_000;
+    private final double[] out = new double[4];
+
+    @Test
+    public void emptyRingHasNoFix() {
+        LocationRing ring = new LocationRing(4);
+        assertFalse(ring.best(0, MINUTE, 100, 2, out));
+        assertFalse(ring.latest(0, out));
+    }
+
+    @Test
+    public void prefersAccurateFixOverSlightlyNewerCoarseOne() {
+        LocationRing ring = new LocationRing(4);
+        ring.add(1.0, 1.0, 10, 100_000);  // GPS, 10 s old at t=110 s
+        ring.add(2.0, 2.0, 80, 108_000);  // Cell, 2 s old
+
+        assertTrue(ring.best(110_000, MINUTE, 100, 2, out));
+        assertEquals(1.0, out[0], 0);
+        assertEquals(30, out[2], 0.01); // 10 m + 10 s * 2 m/s
+        assertEquals(10_000, out[3], 0);
+    }
+
+    @Test
+    public void ageOutweighsAccuracyEventually() {
+        LocationRing ring = new LocationRing(4);
+        ring.add(1.0, 1.0, 5, 0);        // 50 s old at t=50 s -> 105 m
+        ring.add(2.0, 2.0, 40, 49_000);  // 1 s old -> 42 m
+
+        assertTrue(ring.best(50_000, MINUTE, 200, 2, out));
+        assertEquals(2.0, out[0], 0);
+    }
+
+    @Test
+    public void staleAndInaccurateFixesAreRejected() {
+        LocationRing ring = new LocationRing(4);
+        ring.add(1.0, 1.0, 5, 0);
+        ring.add(2.0, 2.0, 500, 119_000);
+
+        assertFalse(ring.best(120_000, MINUTE, 100, 2, out));
+        assertTrue(ring.latest(120_000, out));
+        assertEquals(2.0, out[0], 0);
+    }
+
+    @Test
+    public void oldestFixesAreOverwrittenWhenFull() {
+        LocationRing ring = new LocationRing(3);
+        for (int i = 0; i < 5; i++) {
+            ring.add(i, i, i == 0 ? 1 : 50, i * 1000L);
+        }
+        assertEquals(3, ring.size());
+        // The very accurate fix #0 has been overwritten
+        assertTrue(ring.best(5_000, MINUTE, 1000, 0, out));
+        assertEquals(50, out[2], 0.01);
+        assertEquals(4.0, out[0], 0);
+    }
+}
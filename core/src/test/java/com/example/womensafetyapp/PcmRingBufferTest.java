@@ -0,0 +1,42 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PcmRingBufferTest {
+
+    @Test
+    public void readLatestReturnsNewestSamplesInOrderAfterWrap() {
+        PcmRingBuffer ring = new PcmRingBuffer(5);
+        ring.write(new short[]{1, 2, 3, 4}, 0, 4);
+        ring.write(new short[]{5, 6, 7}, 0, 3);
+
+        short[] out = new short[5];
+        assertEquals(5, ring.readLatest(out, 0, 5));
+        assertArrayEquals(new short[]{3, 4, 5, 6, 7}, out);
+        assertEquals(7, ring.totalWritten());
+    }
+
+    @Test
+    public void oversizedWriteKeepsOnlyTheTail() {
+        PcmRingBuffer ring = new PcmRingBuffer(3);
+        ring.write(new short[]{1, 2, 3, 4, 5}, 0, 5);
+
+        short[] out = new short[3];
+        ring.readLatest(out, 0, 3);
+        assertArrayEquals(new short[]{3, 4, 5}, out);
+        assertEquals(5, ring.totalWritten());
+    }
+
+    @Test
+    public void partialRingReadsOnlyWhatWasWritten() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        ring.write(new short[]{9, 8}, 0, 2);
+
+        short[] out = new short[4];
+        assertEquals(2, ring.readLatest(out, 0, 4));
+        assertEquals(9, out[0]);
+        assertEquals(8, out[1]);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.womensafetyapp.PowerPolicy.Mode.BALANCED;
+import static com.example.womensafetyapp.PowerPolicy.Mode.FULL;
+import static com.example.womensafetyapp.PowerPolicy.Mode.LOW_POWER;
+import static org.junit.Assert.*;
+
+public class PowerPolicyTest {
+
+    private static final long MINUTE = 60_000;
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<PowerPolicy.Transition> changes = new ArrayList<>();
+    private final PowerPolicy policy = new PowerPolicy(now::get, changes::add);
+
+    /** Drains one percent every {@code minutesPerPercent} from {@code from} down to {@code to}. */
+    private void drain(int from, int to, long minutesPerPercent) {
+        for (int percent = from; percent >= to; percent--) {
+            policy.onBattery(percent, false);
+            now.addAndGet(minutesPerPercent * MINUTE);
+        }
+    }
+
+    @Test
+    public void startsFullUntilTheBatteryIsKnown() {
+        assertEquals(FULL, policy.mode());
+        policy.onScreen(false);
+        assertEquals(FULL, policy.mode());
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void dayOnBatteryStepsDownThroughTheModes() {
+        policy.onScreen(false);
+        drain(100, 10, 5);
+
+        assertEquals(LOW_POWER, policy.mode());
+        assertEquals(2, changes.size());
+        assertEquals(FULL, changes.get(0).from);
+        assertEquals(BALANCED, changes.get(0).to);
+        assertEquals(PowerPolicy.SCREEN_OFF_BALANCED_PERCENT, changes.get(0).batteryPercent);
+        assertEquals(LOW_POWER, changes.get(1).to);
+        assertEquals(PowerPolicy.LOW_BATTERY_PERCENT, changes.get(1).batteryPercent);
+    }
+
+    @Test
+    public void screenOnKeepsFullStrengthAboveTheBalancedLevel() {
+        drain(100, 60, 1);
+        assertEquals(FULL, policy.mode());
+
+        policy.onScreen(false);
+        assertEquals(BALANCED, policy.mode());
+        policy.onScreen(true);
+        assertEquals(FULL, policy.mode());
+        assertFalse(changes.get(0).screenOn);
+    }
+
+    @Test
+    public void chargerRestoresFullModeAtOnce() {
+        drain(20, 12, 1);
+        assertEquals(LOW_POWER, policy.mode());
+
+        policy.onBattery(12, true);
+        assertEquals(FULL, policy.mode());
+        assertTrue(changes.get(changes.size() - 1).charging);
+
+        policy.onBattery(40, false);
+        assertEquals(BALANCED, policy.mode());
+    }
+
+    @Test
+    public void wobblingLevelDoesNotFlipTheMode() {
+        policy.onBattery(15, false);
+        assertEquals(LOW_POWER, policy.mode());
+        int changesBefore = changes.size();
+
+        // A reading that jumps around the threshold, as some gauges do
+        for (int i = 0; i < 10; i++) {
+            policy.onBattery(16, false);
+            policy.onBattery(15, false);
+            policy.onBattery(17, false);
+        }
+        assertEquals(LOW_POWER, policy.mode());
+        assertEquals(changesBefore, changes.size());
+
+        policy.onBattery(15 + PowerPolicy.HYSTERESIS_PERCENT + 1, false);
+        assertEquals(BALANCED, policy.mode());
+    }
+
+    @Test
+    public void timeAndBatteryAreAccountedPerMode() {
+        // 100..81 at 3 min per percent (60 min in FULL), then 80..51 with the screen off at
+        // 4 min per percent (120 min in BALANCED)
+        drain(100, 81, 3);
+        policy.onScreen(false);
+        drain(80, 51, 4);
+        policy.onBattery(50, false);
+
+        assertEquals(60 * MINUTE, policy.timeInModeMs(FULL));
+        assertEquals(120 * MINUTE, policy.timeInModeMs(BALANCED));
+        assertEquals(0, policy.timeInModeMs(LOW_POWER));
+        // 100 -> 80 was drained while FULL (the drop to 80 is reported before the switch)
+        assertEquals(20, policy.batteryUsedPercent(FULL));
+        assertEquals(30, policy.batteryUsedPercent(BALANCED));
+        assertTrue(policy.report(), policy.report().contains("BALANCED    120 min   30% battery (15.0%/h)"));
+    }
+
+    @Test
+    public void chargingIsNotCountedAsUse() {
+        policy.onBattery(30, true);
+        policy.onBattery(60, true);
+        policy.onBattery(55, true);
+        assertEquals(0, policy.batteryUsedPercent(FULL));
+    }
+
+    @Test
+    public void logKeepsTheLatestChanges() {
+        for (int i = 0; i < PowerPolicy.LOG_SIZE; i++) {
+            policy.onBattery(40, false);
+            policy.onBattery(40, true);
+        }
+        List<PowerPolicy.Transition> log = policy.transitions();
+        assertEquals(PowerPolicy.LOG_SIZE, log.size());
+        assertEquals(2 * PowerPolicy.LOG_SIZE, changes.size());
+        assertEquals(FULL, log.get(log.size() - 1).to);
+    }
+
+    @Test
+    public void lowerModesListenLessAndSampleLocationLessOften() {
+        assertEquals(0, FULL.sessionMs);
+        assertTrue(BALANCED.restartGapMs < LOW_POWER.restartGapMs);
+        assertTrue(BALANCED.sessionMs > LOW_POWER.sessionMs);
+        assertTrue(FULL.locationIntervalMs < BALANCED.locationIntervalMs);
+        assertTrue(BALANCED.locationIntervalMs < LOW_POWER.locationIntervalMs);
+        // The alert path takes cached fixes up to two minutes old
+        assertTrue(LOW_POWER.locationIntervalMs <= 2 * 60_000);
+    }
+}
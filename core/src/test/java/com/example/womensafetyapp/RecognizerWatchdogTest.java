@@ -0,0 +1,68 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RecognizerWatchdogTest {
+
+    @Test
+    public void sessionThatKeepsCallingBackIsNotStalled() {
+        RecognizerWatchdog watchdog = new RecognizerWatchdog(20_000);
+        watchdog.onSessionStarted(0);
+        for (long t = 50; t <= 60_000; t += 50) {
+            watchdog.onCallback(t);
+        }
+
+        assertEquals(-1, watchdog.check(60_000));
+        assertEquals(0, watchdog.stalls());
+        assertEquals(50, watchdog.longestSilenceMs());
+    }
+
+    @Test
+    public void silentSessionIsReportedOnce() {
+        RecognizerWatchdog watchdog = new RecognizerWatchdog(20_000);
+        watchdog.onSessionStarted(0);
+        watchdog.onCallback(500);
+
+        assertEquals(-1, watchdog.check(20_000));
+        assertEquals(20_000, watchdog.check(20_500));
+        assertFalse(watchdog.isWatching());
+        assertEquals(-1, watchdog.check(60_000));
+        assertEquals(1, watchdog.stalls());
+        assertEquals(500, watchdog.lastCallbackMs());
+    }
+
+    @Test
+    public void sessionThatNeverBecomesReadyStalls() {
+        RecognizerWatchdog watchdog = new RecognizerWatchdog(20_000);
+        watchdog.onSessionStarted(1_000);
+
+        assertEquals(20_000, watchdog.check(21_000));
+    }
+
+    @Test
+    public void idleTimeIsNotASilence() {
+        RecognizerWatchdog watchdog = new RecognizerWatchdog(20_000);
+        watchdog.onSessionStarted(0);
+        watchdog.onCallback(1_000);
+        // Backing off, then the VAD gate: nothing is expected to call back
+        watchdog.onIdle();
+        watchdog.onCallback(2_000);
+
+        assertEquals(-1, watchdog.check(300_000));
+        watchdog.onSessionStarted(300_000);
+        assertEquals(-1, watchdog.check(310_000));
+        assertEquals(1_000, watchdog.longestSilenceMs());
+    }
+
+    @Test
+    public void nextCheckIsWhenTheSilenceWouldReachTheLimit() {
+        RecognizerWatchdog watchdog = new RecognizerWatchdog(20_000);
+        watchdog.onSessionStarted(0);
+        watchdog.onCallback(7_000);
+
+        assertEquals(17_000, watchdog.nextCheckDelayMs(10_000));
+        assertEquals(1, watchdog.nextCheckDelayMs(40_000));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.womensafetyapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RestartSchedulerTest {
+
+    private long now;
+    private RestartScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        now = 1_000;
+        scheduler = new RestartScheduler(() -> now, new Random(42));
+    }
+
+    @Test
+    public void noMatchRestartsImmediately() {
+        for (int i = 0; i < 50; i++) {
+            assertEquals(0, scheduler.onError(RestartScheduler.ErrorClass.NO_MATCH));
+        }
+        assertEquals(50, scheduler.getNoMatchRetries());
+        assertEquals(50, scheduler.getRestarts());
+    }
+
+    @Test
+    public void transientErrorsBackOffExponentiallyWithJitter() {
+        long previousStep = 0;
+        for (int attempt = 1; attempt <= 8; attempt++) {
+            long step = Math.min(RestartScheduler.BACKOFF_BASE_MS << (attempt - 1), RestartScheduler.BACKOFF_MAX_MS);
+            long delay = scheduler.onError(RestartScheduler.ErrorClass.TRANSIENT);
+            assertTrue("attempt " + attempt + " delay " + delay, delay >= step / 2 && delay <= step);
+            assertTrue(step >= previousStep);
+            previousStep = step;
+        }
+        assertEquals(8, scheduler.getBackoffRetries());
+    }
+
+    @Test
+    public void backoffIsCapped() {
+        long delay = 0;
+        for (int i = 0; i < 40; i++) {
+            delay = scheduler.onError(RestartScheduler.ErrorClass.TRANSIENT);
+        }
+        assertTrue(delay <= RestartScheduler.BACKOFF_MAX_MS);
+        assertTrue(delay >= RestartScheduler.BACKOFF_MAX_MS / 2);
+    }
+
+    @Test
+    public void healthySessionResetsBackoff() {
+        for (int i = 0; i < 6; i++) {
+            scheduler.onError(RestartScheduler.ErrorClass.TRANSIENT);
+        }
+        scheduler.onHealthy();
+        assertTrue(scheduler.onError(RestartScheduler.ErrorClass.TRANSIENT) <= RestartScheduler.BACKOFF_BASE_MS);
+    }
+
+    @Test
+    public void repeatedClientErrorsOpenTheCircuitUntilCooldownPasses() {
+        for (int i = 1; i < RestartScheduler.CLIENT_ERRORS_TO_TRIP; i++) {
+            assertEquals(RestartScheduler.CLIENT_RETRY_DELAY_MS, scheduler.onError(RestartScheduler.ErrorClass.CLIENT));
+            assertFalse(scheduler.isCircuitOpen());
+        }
+        long delay = scheduler.onError(RestartScheduler.ErrorClass.CLIENT);
+        assertTrue(scheduler.isCircuitOpen());
+        assertEquals(RestartScheduler.CIRCUIT_COOLDOWN_MS, delay);
+        assertEquals(1, scheduler.getCircuitTrips());
+
+        // Every other restart request waits out the remaining cooldown too
+        now += 20_000;
+        assertEquals(RestartScheduler.CIRCUIT_COOLDOWN_MS - 20_000, scheduler.onError(RestartScheduler.ErrorClass.NO_MATCH));
+
+        now += RestartScheduler.CIRCUIT_COOLDOWN_MS;
+        assertFalse(scheduler.isCircuitOpen());
+        assertEquals(RestartScheduler.SESSION_END_DELAY_MS, scheduler.onSessionEnd());
+    }
+
+    @Test
+    public void circuitCooldownDoublesWhenHalfOpenProbeFails() {
+        for (int i = 0; i < RestartScheduler.CLIENT_ERRORS_TO_TRIP; i++) {
+            scheduler.onError(RestartScheduler.ErrorClass.CLIENT);
+        }
+        now += RestartScheduler.CIRCUIT_COOLDOWN_MS;
+
+        long delay = scheduler.onError(RestartScheduler.ErrorClass.CLIENT);
+        assertEquals(2 * RestartScheduler.CIRCUIT_COOLDOWN_MS, delay);
+        assertEquals(2, scheduler.getCircuitTrips());
+    }
+
+    @Test
+    public void halfOpenSuccessClosesTheCircuit() {
+        for (int i = 0; i < RestartScheduler.CLIENT_ERRORS_TO_TRIP; i++) {
+            scheduler.onError(RestartScheduler.ErrorClass.CLIENT);
+        }
+        now += RestartScheduler.CIRCUIT_COOLDOWN_MS;
+        scheduler.onHealthy();
+
+        assertEquals(RestartScheduler.CLIENT_RETRY_DELAY_MS, scheduler.onError(RestartScheduler.ErrorClass.CLIENT));
+        assertFalse(scheduler.isCircuitOpen());
+    }
+}
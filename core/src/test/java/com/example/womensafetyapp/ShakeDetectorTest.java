@@ -0,0 +1,92 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays accelerometer traces from src/test/resources/accel through the detector, the way
+ * SensorManager would deliver them. The traces are synthesized from typical motion profiles
+ * (hand shake, gait, drop, swinging bag); the same CSV layout takes real recordings.
+ */
+public class ShakeDetectorTest {
+
+    private static final long MS = 1_000_000;
+
+    /** Feeds a trace sample by sample and returns the number of shakes recognized. */
+    private static int replay(ShakeDetector detector, String name) throws IOException {
+        InputStream in = ShakeDetectorTest.class.getResourceAsStream("/accel/" + name + ".csv");
+        assertNotNull(name + ".csv missing", in);
+        int shakes = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#") || line.startsWith("t_ms")) {
+                    continue;
+                }
+                String[] f = line.split(",");
+                if (detector.onSample(Long.parseLong(f[0]) * MS,
+                        Float.parseFloat(f[1]), Float.parseFloat(f[2]), Float.parseFloat(f[3]))) {
+                    shakes++;
+                }
+            }
+        }
+        return shakes;
+    }
+
+    private static int replay(String name) throws IOException {
+        return replay(new ShakeDetector(ShakeDetector.Config.DEFAULT), name);
+    }
+
+    @Test
+    public void deliberateShakeTriggersOnce() throws IOException {
+        assertEquals(1, replay("shake_deliberate"));
+    }
+
+    @Test
+    public void secondShakeInsideTheCooldownIsIgnored() throws IOException {
+        assertEquals(1, replay("shake_twice"));
+        ShakeDetector shortCooldown = new ShakeDetector(new ShakeDetector.Config(12f, 6, 1_500, 2_500, 1_000));
+        assertEquals(2, replay(shortCooldown, "shake_twice"));
+    }
+
+    @Test
+    public void everydayMotionDoesNotTrigger() throws IOException {
+        for (String trace : new String[]{"shake_brief", "walking_pocket", "running_pocket",
+                "drop_on_table", "bag_swinging"}) {
+            assertEquals(trace, 0, replay(trace));
+        }
+    }
+
+    @Test
+    public void swingsBelowTheThresholdNeverCount() {
+        ShakeDetector detector = new ShakeDetector(ShakeDetector.Config.DEFAULT);
+        // 5 Hz, +-10 m/s^2 around gravity: fast, but not hard enough
+        for (int i = 0; i < 500; i++) {
+            float a = (float) (10 * Math.sin(2 * Math.PI * 5 * i / 100.0));
+            assertFalse(detector.onSample(i * 10 * MS, a, 9.81f, 0f));
+        }
+        assertEquals(0, detector.shakes());
+    }
+
+    @Test
+    public void sensorGapRestartsTheWindow() {
+        ShakeDetector detector = new ShakeDetector(ShakeDetector.Config.DEFAULT);
+        long t = 0;
+        // Three reversals, a one-second pause in delivery, three more: never six in one run
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 40; i++, t += 20 * MS) {
+                float a = i < 36 ? 0f : (i % 2 == 0 ? 25f : -25f);
+                assertFalse(detector.onSample(t, a, 9.81f, 0f));
+            }
+            t += 1_000 * MS;
+        }
+        assertEquals(0, detector.shakes());
+    }
+}
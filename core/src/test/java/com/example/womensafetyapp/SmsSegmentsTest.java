@@ -0,0 +1,67 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SmsSegmentsTest {
+
+    private static String repeat(char c, int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void gsm7FitsOneHundredSixtyInOnePart() {
+        assertEquals(1, SmsSegments.count(""));
+        assertEquals(1, SmsSegments.count(repeat('a', 160)));
+        assertEquals(2, SmsSegments.count(repeat('a', 161)));
+        assertEquals(2, SmsSegments.count(repeat('a', 306)));
+        assertEquals(3, SmsSegments.count(repeat('a', 307)));
+    }
+
+    @Test
+    public void extensionCharactersTakeTwoSeptets() {
+        assertTrue(SmsSegments.isGsm7("[x]"));
+        assertEquals(1, SmsSegments.count(repeat('{', 80)));
+        assertEquals(2, SmsSegments.count(repeat('{', 81)));
+        // 152 septets then an escape pair: the pair moves whole to the next part
+        assertEquals(2, SmsSegments.count(repeat('a', 152) + "~" + repeat('a', 151)));
+        assertEquals(3, SmsSegments.count(repeat('a', 152) + "~" + repeat('a', 152)));
+    }
+
+    @Test
+    public void basicTableAccentsStayGsm7() {
+        assertTrue(SmsSegments.isGsm7("caf\u00e9 \u00fcber \u00a35 \u00c7a"));
+        assertEquals(1, SmsSegments.count("caf\u00e9" + repeat('a', 156)));
+    }
+
+    @Test
+    public void oneForeignCharacterForcesUcs2() {
+        String text = repeat('a', 69) + "\u2019";
+        assertFalse(SmsSegments.isGsm7(text));
+        assertEquals(1, SmsSegments.count(text));
+        assertEquals(2, SmsSegments.count(text + "a"));
+        assertEquals(3, SmsSegments.count(repeat('a', 134) + "\u0905"));
+    }
+
+    @Test
+    public void surrogatePairsAreNotSplit() {
+        // 66 units then an emoji: it would straddle the first part boundary, so it opens the second
+        String text = repeat('a', 66) + "\ud83d\udea8" + repeat('a', 65);
+        assertEquals(2, SmsSegments.count(text));
+        assertEquals(3, SmsSegments.count(text + "a"));
+    }
+
+    @Test
+    public void lookAlikesAreFoldedToGsm7() {
+        assertEquals("It's \"on\" - now...", SmsSegments.toGsm7("It\u2019s \u201con\u201d \u2014 now\u2026"));
+        assertEquals("Kavach \u00e9a", SmsSegments.toGsm7("Kavach \u00e9\u00e1"));
+        assertEquals("\u00c7a", SmsSegments.toGsm7("\u00e7a"));
+        // No look-alike: kept, and the text stays UCS-2
+        assertEquals("\u0915\u0935\u091a", SmsSegments.toGsm7("\u0915\u0935\u091a"));
+    }
+}
@@ -0,0 +1,477 @@
+package com.example.womensafetyapp;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Replays scripted sessions through the alert path on a {@link VirtualClock}, thousands per
+ * second. The trigger matcher, trigger bus, alert pipeline and state machine, locator, message
+ * builder, restart scheduler and delivery tracker are the real classes; the recognizer, the
+ * location provider and the SMS layer are fakes driven by the script.
+ *
+ * The recognizer is modelled on the service's listening loop: a session needs some setup time
+ * before it hears anything, ends after one utterance, a silence timeout or an injected error,
+ * and is restarted with the delay {@link RestartScheduler} picks. Speech that starts while no
+ * session is listening is not heard.
+ */
+final class SosSimulation {
+
+    static final long HORIZON_MS = 5 * 60_000;
+    static final long SILENCE_TIMEOUT_MS = 5_000;
+    static final long FIX_MAX_AGE_MS = 2 * 60_000;
+    static final long FOLLOW_UP_FIX_MAX_AGE_MS = 30_000;
+    static final long LOCATION_DEADLINE_MS = 5_000;
+    static final float FIX_MAX_UNCERTAINTY_METERS = 150f;
+
+    // What the recognizer makes of a trigger phrase, and of everyday speech
+    static final String[] TRIGGER_HYPOTHESES = {"help me", "sos", "please help me", "help me help me",
+            "s o s", "help me now", "somebody help me"};
+    static final String[] MISHEARD = {"hello me", "health me", "so so"};
+    static final String[] CHATTER = {"what time is it", "see you at the station", "call me later",
+            "the bus is late again", "order some food", "where are my keys", "turn left here"};
+
+    private static final List<String> CONTACTS = Collections.unmodifiableList(Arrays.asList(
+            "+15550100", "+15550101", "+15550102", "+15550103"));
+
+    /**
+     * One session: what is said when, and how the recognizer, location and SMS layers behave.
+     */
+    static final class Script {
+        boolean emergency;
+        long[] speechAtMs = new long[0];
+        long[] speechMs = new long[0];
+        String[] text = new String[0];
+        float[] confidence = new float[0];
+        boolean[] trigger = new boolean[0];
+        /** Chance that a recognizer session fails instead of becoming ready. */
+        double errorRate;
+        boolean cachedFix;
+        /** Delay of the fresh fix, or {@link FakeLocationSource#NEVER}. */
+        long fixDelayMs;
+        boolean fixFails;
+        double smsFailureRate;
+        int contacts = 2;
+
+        /** A random session; about half of them are emergencies. */
+        static Script random(Random rnd) {
+            Script s = new Script();
+            s.emergency = rnd.nextDouble() < 0.5;
+            int chatter = rnd.nextInt(4);
+            int repeats = s.emergency ? 1 + rnd.nextInt(3) : 0;
+            int n = chatter + repeats;
+            s.speechAtMs = new long[n];
+            s.speechMs = new long[n];
+            s.text = new String[n];
+            s.confidence = new float[n];
+            s.trigger = new boolean[n];
+            long t = 2_000 + rnd.nextInt(20_000);
+            for (int i = 0; i < n; i++) {
+                boolean isTrigger = i >= chatter;
+                s.speechAtMs[i] = t;
+                s.trigger[i] = isTrigger;
+                if (isTrigger) {
+                    boolean misheard = rnd.nextDouble() < 0.1;
+                    s.text[i] = misheard ? pick(rnd, MISHEARD) : pick(rnd, TRIGGER_HYPOTHESES);
+                    s.confidence[i] = misheard ? 0.3f : 0.6f + 0.4f * rnd.nextFloat();
+                    s.speechMs[i] = 500 + rnd.nextInt(700);
+                    t += s.speechMs[i] + 2_000 + rnd.nextInt(4_000);
+                } else {
+                    s.text[i] = pick(rnd, CHATTER);
+                    s.confidence[i] = 0.5f + 0.5f * rnd.nextFloat();
+                    s.speechMs[i] = 800 + rnd.nextInt(1_500);
+                    t += s.speechMs[i] + 3_000 + rnd.nextInt(15_000);
+                }
+            }
+            s.errorRate = rnd.nextDouble() < 0.2 ? 0.3 : 0.02;
+            s.cachedFix = rnd.nextDouble() < 0.6;
+            double fix = rnd.nextDouble();
+            s.fixDelayMs = fix < 0.1 ? FakeLocationSource.NEVER : 300 + rnd.nextInt(fix < 0.3 ? 9_000 : 3_000);
+            s.fixFails = rnd.nextDouble() < 0.05;
+            s.smsFailureRate = rnd.nextDouble() < 0.2 ? 0.5 : 0.05;
+            s.contacts = 1 + rnd.nextInt(CONTACTS.size());
+            return s;
+        }
+
+        private static String pick(Random rnd, String[] options) {
+            return options[rnd.nextInt(options.length)];
+        }
+    }
+
+    /**
+     * Totals over a run.
+     */
+    static final class Report {
+        int sessions;
+        int emergencies;
+        /** Emergencies that started an alert. */
+        int alerted;
+        /** Emergencies whose alert reached at least one contact. */
+        int delivered;
+        /** Emergencies where no trigger got through: every phrase missed or misheard. */
+        int missedTriggers;
+        /** Alerts started but delivered to nobody within the horizon. */
+        int undelivered;
+        /** Extra alerts for an emergency that already had one. */
+        int duplicates;
+        /** Alerts from sessions where nobody asked for help. */
+        int falseAlerts;
+        int escalations;
+        long utterances;
+        long utterancesMissed;
+        long recognizerErrors;
+        /** From the end of the first trigger phrase spoken, heard or not. */
+        final Latencies triggerToSubmit = new Latencies();
+        final Latencies triggerToDelivery = new Latencies();
+        long events;
+        long wallNanos;
+
+        /** Emergencies that never reached a contact, for whatever reason. */
+        int lost() {
+            return emergencies - delivered;
+        }
+
+        double sessionsPerSecond() {
+            return sessions * 1e9 / Math.max(1, wallNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%d sessions (%d emergencies) in %d ms: %.0f sessions/s, %.0f events/s%n"
+                            + "alerted %d, delivered %d, lost %d (missed trigger %d, undelivered %d), "
+                            + "duplicates %d, false alerts %d, escalations %d%n"
+                            + "utterances %d (%d missed while deaf), recognizer errors %d%n"
+                            + "trigger -> first submit   p50 %d ms, p90 %d ms, p99 %d ms, max %d ms%n"
+                            + "trigger -> first delivery p50 %d ms, p90 %d ms, p99 %d ms, max %d ms",
+                    sessions, emergencies, wallNanos / 1_000_000, sessionsPerSecond(),
+                    events * 1e9 / Math.max(1, wallNanos),
+                    alerted, delivered, lost(), missedTriggers, undelivered, duplicates, falseAlerts, escalations,
+                    utterances, utterancesMissed, recognizerErrors,
+                    triggerToSubmit.percentile(50), triggerToSubmit.percentile(90),
+                    triggerToSubmit.percentile(99), triggerToSubmit.max(),
+                    triggerToDelivery.percentile(50), triggerToDelivery.percentile(90),
+                    triggerToDelivery.percentile(99), triggerToDelivery.max());
+        }
+    }
+
+    /**
+     * Exact latency percentiles; the run keeps every sample, unlike {@link StageHistogram}.
+     */
+    static final class Latencies {
+        private long[] samples = new long[64];
+        private int count;
+        private boolean sorted = true;
+
+        void record(long ms) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = ms;
+            sorted = false;
+        }
+
+        int count() {
+            return count;
+        }
+
+        /** Nearest-rank percentile, 0 when empty. */
+        long percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            if (!sorted) {
+                Arrays.sort(samples, 0, count);
+                sorted = true;
+            }
+            int rank = (int) Math.ceil(p / 100 * count);
+            return samples[Math.max(0, rank - 1)];
+        }
+
+        long max() {
+            return percentile(100);
+        }
+    }
+
+    /** Runs {@code sessions} random sessions; session i uses seed {@code seed + i}. */
+    static Report run(int sessions, long seed) {
+        Report report = new Report();
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            Random rnd = new Random(mix(seed + i));
+            new Session(Script.random(rnd), rnd, report).run();
+        }
+        report.wallNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Prints the report of a run, for reading the latency figures by hand. Arguments: session
+     * count (default 5000) and seed (default 42).
+     */
+    public static void main(String[] args) {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        System.out.println(run(sessions, seed));
+    }
+
+    /** Runs one given script, for targeted scenarios. */
+    static Report run(Script script, long seed) {
+        Report report = new Report();
+        long start = System.nanoTime();
+        Session session = new Session(script, new Random(seed), report);
+        session.run();
+        report.wallNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * One session: a fresh set of components on a fresh clock.
+     */
+    private static final class Session {
+        final Script script;
+        final Random rnd;
+        final Report report;
+        final VirtualClock clock = new VirtualClock();
+        final TriggerMatcher matcher = new TriggerMatcher("sos", "help me");
+        final RestartScheduler restarts;
+        final AlertStateMachine machine = new AlertStateMachine();
+        final AlertPipeline<LocationSource.Fix> pipeline;
+        final TriggerBus bus;
+        final LocationRing ring = new LocationRing(16);
+        final FakeLocationSource location = new FakeLocationSource(clock);
+        final AlertLocator locator;
+        final EmergencyMessageBuilder messages = new EmergencyMessageBuilder("Kavach app");
+        final FakeSmsGateway sms;
+
+        // Recognizer model
+        int generation;
+        boolean listening;
+        boolean capturing;
+
+        // Outcome
+        int newAlerts;
+        long nextAlertId = 1;
+        long firstAlertId = -1;
+        long triggerSpokenAtMs = -1;
+        long firstSubmitMs = -1;
+        long firstDeliveryMs = -1;
+
+        Session(Script script, Random rnd, Report report) {
+            this.script = script;
+            this.rnd = rnd;
+            this.report = report;
+            restarts = new RestartScheduler(clock, new Random(rnd.nextLong()));
+            pipeline = new AlertPipeline<>(clock, clock, clock, clock, machine, steps);
+            bus = new TriggerBus(clock, (source, atMs) -> pipeline.trigger());
+            locator = new AlertLocator(clock, clock, ring, location, LOCATION_DEADLINE_MS, FIX_MAX_UNCERTAINTY_METERS);
+            sms = new FakeSmsGateway(clock, new Random(rnd.nextLong()), smsListener).failureRate(script.smsFailureRate);
+            location.answer(script.fixDelayMs, script.fixFails ? null : new LocationSource.Fix(12.97, 77.59, 15f));
+            if (script.cachedFix) {
+                ring.add(12.97, 77.59, 20f, 0);
+            }
+        }
+
+        final AlertPipeline.Steps<LocationSource.Fix> steps = new AlertPipeline.Steps<LocationSource.Fix>() {
+            @Override
+            public void decided(AlertStateMachine.Decision decision, long triggeredAtMs) {
+                if (decision == AlertStateMachine.Decision.NEW_ALERT) {
+                    newAlerts++;
+                } else if (decision == AlertStateMachine.Decision.ESCALATE) {
+                    report.escalations++;
+                }
+            }
+
+            @Override
+            public long persist() {
+                long id = nextAlertId++;
+                if (firstAlertId < 0) {
+                    firstAlertId = id;
+                }
+                return id;
+            }
+
+            @Override
+            public void locate(long alertId, boolean followUp) {
+                locator.locate(alertId, followUp ? FOLLOW_UP_FIX_MAX_AGE_MS : FIX_MAX_AGE_MS, pipeline::located);
+            }
+
+            @Override
+            public boolean send(long alertId, LocationSource.Fix fix, boolean followUp) {
+                String text;
+                if (followUp) {
+                    text = fix != null ? messages.buildFollowUp(fix.latitude, fix.longitude)
+                            : messages.buildFollowUpWithoutLocation();
+                } else {
+                    text = fix != null ? messages.build(fix.latitude, fix.longitude) : messages.buildWithoutLocation();
+                }
+                sms.dispatch(alertId, CONTACTS.subList(0, script.contacts), text);
+                return true;
+            }
+        };
+
+        final SmsGateway.Listener smsListener = new SmsGateway.Listener() {
+            @Override
+            public void onSubmitted(long alertId, String number, int attempt) {
+                if (alertId == firstAlertId && firstSubmitMs < 0) {
+                    firstSubmitMs = clock.nowMs();
+                }
+            }
+
+            @Override
+            public void onSent(long alertId, String number) {}
+
+            @Override
+            public void onDelivered(long alertId, String number, long timeToFirstDeliveryMs) {
+                if (alertId == firstAlertId && firstDeliveryMs < 0) {
+                    firstDeliveryMs = clock.nowMs();
+                }
+            }
+
+            @Override
+            public void onFailed(long alertId, String number, int attempts) {}
+
+            @Override
+            public void onUnconfirmed(long alertId, String number) {}
+        };
+
+        void run() {
+            for (int i = 0; i < script.speechAtMs.length; i++) {
+                int utterance = i;
+                clock.postDelayed(() -> onSpeech(utterance), script.speechAtMs[i]);
+                if (script.trigger[i] && triggerSpokenAtMs < 0) {
+                    triggerSpokenAtMs = script.speechAtMs[i] + script.speechMs[i];
+                }
+            }
+            startSession();
+            clock.runUntil(HORIZON_MS);
+            tally();
+        }
+
+        void startSession() {
+            int gen = ++generation;
+            long setupMs = 150 + rnd.nextInt(300);
+            if (rnd.nextDouble() < script.errorRate) {
+                RestartScheduler.ErrorClass error = rnd.nextBoolean()
+                        ? RestartScheduler.ErrorClass.TRANSIENT : RestartScheduler.ErrorClass.CLIENT;
+                clock.postDelayed(() -> endSession(gen, error), setupMs);
+                return;
+            }
+            clock.postDelayed(() -> {
+                if (gen != generation) {
+                    return;
+                }
+                listening = true;
+                restarts.onHealthy();
+                clock.postDelayed(() -> {
+                    if (!capturing) {
+                        endSession(gen, RestartScheduler.ErrorClass.NO_MATCH);
+                    }
+                }, SILENCE_TIMEOUT_MS);
+            }, setupMs);
+        }
+
+        void onSpeech(int i) {
+            report.utterances++;
+            if (!listening || capturing) {
+                report.utterancesMissed++;
+                return;
+            }
+            capturing = true;
+            int gen = generation;
+            List<String> hypotheses = Collections.singletonList(script.text[i]);
+            long end = script.speechMs[i];
+            boolean[] triggered = new boolean[1];
+            // Partial result near the end of the phrase, final result a little later
+            clock.postDelayed(() -> {
+                if (matcher.matches(hypotheses, null)) {
+                    triggered[0] = true;
+                    bus.post(TriggerBus.Source.VOICE);
+                }
+            }, end + 100);
+            clock.postDelayed(() -> {
+                float score = matcher.score(hypotheses, new float[]{script.confidence[i]});
+                if (!triggered[0] && score >= matcher.threshold()) {
+                    bus.post(TriggerBus.Source.VOICE);
+                }
+                capturing = false;
+                endSession(gen, null);
+            }, end + 400 + rnd.nextInt(500));
+        }
+
+        /** @param error null for a normal end with results */
+        void endSession(int gen, RestartScheduler.ErrorClass error) {
+            if (gen != generation) {
+                return;
+            }
+            generation++;
+            listening = false;
+            long delay;
+            if (error == null) {
+                delay = restarts.onSessionEnd();
+            } else {
+                if (error != RestartScheduler.ErrorClass.NO_MATCH) {
+                    report.recognizerErrors++;
+                }
+                delay = restarts.onError(error);
+            }
+            clock.postDelayed(this::startSession, delay);
+        }
+
+        void tally() {
+            report.sessions++;
+            report.events += clock.executed();
+            if (!script.emergency) {
+                report.falseAlerts += newAlerts;
+                return;
+            }
+            report.emergencies++;
+            report.duplicates += Math.max(0, newAlerts - 1);
+            if (newAlerts == 0) {
+                report.missedTriggers++;
+                return;
+            }
+            report.alerted++;
+            if (firstSubmitMs >= 0) {
+                report.triggerToSubmit.record(firstSubmitMs - triggerSpokenAtMs);
+            }
+            if (firstDeliveryMs >= 0) {
+                report.delivered++;
+                report.triggerToDelivery.record(firstDeliveryMs - triggerSpokenAtMs);
+            } else {
+                report.undelivered++;
+            }
+        }
+    }
+
+    // Neighbouring seeds give java.util.Random correlated first draws; spread them out
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private SosSimulation() {}
+
+    /** A hand-written script: every utterance is the trigger phrase, or none is. */
+    static Script script(boolean emergency, long... speechAtMs) {
+        Script s = new Script();
+        s.emergency = emergency;
+        int n = speechAtMs.length;
+        s.speechAtMs = speechAtMs;
+        s.speechMs = new long[n];
+        s.text = new String[n];
+        s.confidence = new float[n];
+        s.trigger = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            s.speechMs[i] = 800;
+            s.text[i] = emergency ? "help me" : "see you later";
+            s.confidence[i] = 0.9f;
+            s.trigger[i] = emergency;
+        }
+        s.fixDelayMs = 1_000;
+        return s;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.womensafetyapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SosSimulationTest {
+
+    @Test
+    public void thousandsOfSessionsSendOneAlertPerEmergencyAndNoneOtherwise() {
+        SosSimulation.Report report = SosSimulation.run(5_000, 42);
+
+        assertEquals(5_000, report.sessions);
+        assertTrue(report.emergencies > 2_000);
+        assertEquals(0, report.duplicates);
+        assertEquals(0, report.falseAlerts);
+        // Lost alerts come from phrases spoken while the recognizer restarts or misheard, and
+        // from contacts the scripted radio never reaches; they must stay rare
+        assertTrue(report.toString(), report.lost() < report.emergencies / 10);
+        assertEquals(report.alerted, report.triggerToSubmit.count());
+        // A heard phrase waits at most for the location deadline before the first SMS goes out
+        assertTrue(report.toString(), report.triggerToSubmit.percentile(50) <= SosSimulation.LOCATION_DEADLINE_MS);
+    }
+
+    @Test
+    public void sameSeedGivesSameReport() {
+        SosSimulation.Report a = SosSimulation.run(500, 7);
+        SosSimulation.Report b = SosSimulation.run(500, 7);
+
+        assertEquals(a.events, b.events);
+        assertEquals(a.alerted, b.alerted);
+        assertEquals(a.delivered, b.delivered);
+        assertEquals(a.utterancesMissed, b.utterancesMissed);
+        assertEquals(a.triggerToDelivery.percentile(90), b.triggerToDelivery.percentile(90));
+    }
+
+    @Test
+    public void repeatedPhraseSendsOneAlert() {
+        SosSimulation.Script script = SosSimulation.script(true, 3_000, 6_000, 9_000);
+
+        SosSimulation.Report report = SosSimulation.run(script, 1);
+
+        assertEquals(1, report.alerted);
+        assertEquals(0, report.duplicates);
+        assertEquals(1, report.delivered);
+    }
+
+    @Test
+    public void locationThatNeverArrivesStillAlertsAtTheDeadline() {
+        SosSimulation.Script script = SosSimulation.script(true, 3_000);
+        script.fixDelayMs = FakeLocationSource.NEVER;
+
+        SosSimulation.Report report = SosSimulation.run(script, 1);
+
+        assertEquals(1, report.delivered);
+        long submit = report.triggerToSubmit.max();
+        assertTrue(String.valueOf(submit), submit >= SosSimulation.LOCATION_DEADLINE_MS);
+        assertTrue(String.valueOf(submit), submit < SosSimulation.LOCATION_DEADLINE_MS + 2_000);
+    }
+
+    @Test
+    public void smsThatAlwaysFailsCountsAsLost() {
+        SosSimulation.Script script = SosSimulation.script(true, 3_000);
+        script.smsFailureRate = 1;
+
+        SosSimulation.Report report = SosSimulation.run(script, 1);
+
+        assertEquals(1, report.alerted);
+        assertEquals(1, report.undelivered);
+        assertEquals(1, report.lost());
+    }
+
+    @Test
+    public void chatterNeverAlerts() {
+        SosSimulation.Script script = SosSimulation.script(false, 3_000, 10_000, 20_000);
+
+        SosSimulation.Report report = SosSimulation.run(script, 1);
+
+        assertEquals(0, report.falseAlerts);
+        assertEquals(3, report.utterances);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class StageHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        StageHistogram h = new StageHistogram();
+        assertEquals(0, h.count());
+        assertEquals(0, h.quantileMs(0.5));
+        assertEquals(0, h.meanMs());
+    }
+
+    @Test
+    public void valuesLandInTheirBucket() {
+        StageHistogram h = new StageHistogram();
+        h.record(0);      // <= 1
+        h.record(1);      // <= 1
+        h.record(7);      // <= 10
+        h.record(10);     // <= 10
+        h.record(61_000); // overflow
+        assertEquals(2, h.bucketCount(0));
+        assertEquals(2, h.bucketCount(3));
+        assertEquals(1, h.bucketCount(StageHistogram.buckets() - 1));
+        assertEquals(61_000, h.maxMs());
+    }
+
+    @Test
+    public void quantilesUseBucketBoundsCappedAtMax() {
+        StageHistogram h = new StageHistogram();
+        for (int i = 0; i < 90; i++) {
+            h.record(30);  // <= 50 bucket
+        }
+        for (int i = 0; i < 10; i++) {
+            h.record(700); // <= 1000 bucket
+        }
+        assertEquals(50, h.quantileMs(0.5));
+        assertEquals(50, h.quantileMs(0.9));
+        assertEquals(700, h.quantileMs(0.99));
+        assertEquals(97, h.meanMs());
+    }
+
+    @Test
+    public void negativeDurationsClampToZero() {
+        StageHistogram h = new StageHistogram();
+        h.record(-5);
+        assertEquals(1, h.bucketCount(0));
+        assertEquals(0, h.maxMs());
+    }
+
+    @Test
+    public void serializationRoundTrips() throws IOException {
+        StageHistogram h = new StageHistogram();
+        for (int ms = 0; ms < 5_000; ms += 37) {
+            h.record(ms);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        h.writeTo(new DataOutputStream(bytes));
+
+        StageHistogram read = new StageHistogram();
+        read.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(h.count(), read.count());
+        assertEquals(h.meanMs(), read.meanMs());
+        assertEquals(h.quantileMs(0.9), read.quantileMs(0.9));
+        for (int b = 0; b < StageHistogram.buckets(); b++) {
+            assertEquals(h.bucketCount(b), read.bucketCount(b));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class StartupTraceTest {
+
+    private final AtomicLong now = new AtomicLong(5_000);
+    private final StartupTrace trace = new StartupTrace(now::get);
+
+    @Test
+    public void marksAreRelativeToTheFirst() {
+        trace.mark("create");
+        now.addAndGet(12);
+        trace.mark("resume");
+        now.addAndGet(30);
+        trace.mark("interactive");
+
+        assertEquals(0, trace.sinceStartMs("create"));
+        assertEquals(12, trace.sinceStartMs("resume"));
+        assertEquals(42, trace.sinceStartMs("interactive"));
+        assertEquals("create=0ms resume=12ms interactive=42ms", trace.toString());
+    }
+
+    @Test
+    public void onlyTheFirstTimeAMarkIsReachedCounts() {
+        trace.mark("create");
+        now.addAndGet(10);
+        assertTrue(trace.mark("resume"));
+        now.addAndGet(1_000);
+        assertFalse(trace.mark("resume"));
+
+        assertEquals(10, trace.sinceStartMs("resume"));
+        assertArrayEquals(new String[]{"create", "resume"}, trace.names());
+    }
+
+    @Test
+    public void missingMarkIsReported() {
+        assertEquals(-1, trace.sinceStartMs("interactive"));
+        assertFalse(trace.has("interactive"));
+        assertEquals("", trace.toString());
+    }
+}
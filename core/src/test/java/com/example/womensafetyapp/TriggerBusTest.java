@@ -0,0 +1,56 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TriggerBusTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final List<TriggerBus.Source> seen = new ArrayList<>();
+    private final TriggerBus bus = new TriggerBus(now::get, (source, atMs) -> seen.add(source));
+
+    @Test
+    public void everySourceReachesTheSink() {
+        assertTrue(bus.post(TriggerBus.Source.VOICE));
+        now.addAndGet(500);
+        assertTrue(bus.post(TriggerBus.Source.SHAKE));
+
+        assertEquals(2, seen.size());
+        assertEquals(TriggerBus.Source.SHAKE, seen.get(1));
+        assertEquals(1_500, bus.lastTriggerMs(TriggerBus.Source.SHAKE));
+        assertEquals(-1, bus.lastTriggerMs(TriggerBus.Source.KEYWORD));
+    }
+
+    @Test
+    public void disabledSourceIsCountedButNotPassedOn() {
+        bus.setEnabled(TriggerBus.Source.SHAKE, false);
+        assertFalse(bus.post(TriggerBus.Source.SHAKE));
+        assertTrue(seen.isEmpty());
+        assertEquals(0, bus.count(TriggerBus.Source.SHAKE));
+        assertEquals(1, bus.ignoredCount(TriggerBus.Source.SHAKE));
+        assertEquals("VOICE 0, KEYWORD 0, SHAKE off (1 ignored)", bus.report());
+    }
+
+    @Test
+    public void concurrentPostsAreAllCounted() throws InterruptedException {
+        TriggerBus counting = new TriggerBus(now::get, (source, atMs) -> {});
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    counting.post(TriggerBus.Source.KEYWORD);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4_000, counting.count(TriggerBus.Source.KEYWORD));
+    }
+}
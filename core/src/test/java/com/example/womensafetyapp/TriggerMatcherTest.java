@@ -0,0 +1,185 @@
+package com.example.womensafetyapp;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class TriggerMatcherTest {
+
+    private final TriggerMatcher matcher = new TriggerMatcher("sos", "help me");
+
+    @Test
+    public void matchesAnywhereIgnoringCase() {
+        assertEquals("sos", matcher.matchedPhrase("SOS"));
+        assertEquals("help me", matcher.matchedPhrase("please Help Me now"));
+        assertTrue(matcher.matches("s.o.s sos"));
+    }
+
+    @Test
+    public void missesUnrelatedText() {
+        assertFalse(matcher.matches("what time is it"));
+        assertFalse(matcher.matches("help"));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    public void doesNotDependOnTheDefaultLocale() {
+        Locale saved = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            // Under Turkish rules "I" lower-cases to a dotless i and would never match "i"
+            assertTrue(new TriggerMatcher("fire").matches("FIRE"));
+            assertTrue(matcher.matches("HELP ME"));
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    @Test
+    public void toleratesHowRecognizersSpellThePhrase() {
+        assertTrue(matcher.matches("S.O.S"));
+        assertTrue(matcher.matches("so s"));
+        assertTrue(matcher.matches("s-o-s!"));
+        assertTrue(matcher.matches("h\u00e9lp m\u00c9"));
+        assertTrue(matcher.matches("helpme"));
+    }
+
+    @Test
+    public void phrasesMustCoverWholeWords() {
+        assertFalse(matcher.matches("also sorry"));
+        assertFalse(matcher.matches("so sad"));
+        assertFalse(matcher.matches("boss"));
+        assertFalse(matcher.matches("help meeting"));
+    }
+
+    @Test
+    public void longerPhrasesAllowOneEditPerFiveLetters() {
+        // "sos" has no budget, "help me" has one edit
+        assertFalse(matcher.matches("sis"));
+        assertEquals("help me", matcher.matchedPhrase("help mi"));
+        assertEquals("help me", matcher.matchedPhrase("yelp me"));
+        assertFalse(matcher.matches("hold me"));
+
+        matcher.matches(Collections.singletonList("help mi"), null);
+        assertEquals(1, matcher.lastEdits());
+        assertEquals("help me", matcher.lastMatchedPhrase());
+    }
+
+    @Test
+    public void hitsAreWeightedByConfidence() {
+        // Exact hit in a hypothesis the recognizer is unsure of
+        assertEquals(0.1f, matcher.score(Arrays.asList("hold me", "help me"), new float[]{0.8f, 0.1f}), 1e-6);
+        assertFalse(matcher.matches(Arrays.asList("hold me", "help me"), new float[]{0.8f, 0.1f}));
+        // Two weaker hypotheses agreeing add up
+        assertTrue(matcher.matches(Arrays.asList("so so", "sos", "s o s"), new float[]{0.5f, 0.2f, 0.15f}));
+        // One edit costs a seventh of "help me"
+        assertEquals(0.6f, matcher.score(Collections.singletonList("help mi"), new float[]{0.7f}), 1e-6);
+    }
+
+    @Test
+    public void withoutConfidenceLowerHypothesesCountLess() {
+        assertEquals(1f, matcher.score(Collections.singletonList("sos"), null), 0);
+        assertEquals(0.5f, matcher.score(Arrays.asList("so so", "sos"), null), 1e-6);
+        assertEquals(0.25f, matcher.score(Arrays.asList("a", "b", "c", "sos"), new float[]{-1, -1, -1, -1}), 1e-6);
+        assertFalse(matcher.matches(Arrays.asList("a", "b", "c", "sos"), null));
+    }
+
+    @Test
+    public void longHypothesisGrowsTheBuffer() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            sb.append("nothing to see here ");
+        }
+        assertFalse(matcher.matches(sb.toString()));
+        assertTrue(matcher.matches(sb + "help me"));
+    }
+
+    /**
+     * Recall and false triggers on labelled recognizer output, against the old check (substring
+     * of the lower-cased top hypothesis).
+     */
+    @Test
+    public void corpusRecallAndFalseTriggers() throws IOException {
+        List<Utterance> corpus = loadCorpus();
+        int positives = 0;
+        int hits = 0;
+        int legacyHits = 0;
+        int falseTriggers = 0;
+        int legacyFalseTriggers = 0;
+        for (Utterance u : corpus) {
+            boolean fired = matcher.matches(u.hypotheses, u.confidences);
+            String top = u.hypotheses.get(0).toLowerCase(Locale.ROOT);
+            boolean legacyFired = top.contains("sos") || top.contains("help me");
+            if (u.trigger) {
+                positives++;
+                hits += fired ? 1 : 0;
+                legacyHits += legacyFired ? 1 : 0;
+            } else {
+                falseTriggers += fired ? 1 : 0;
+                legacyFalseTriggers += legacyFired ? 1 : 0;
+            }
+        }
+        int negatives = corpus.size() - positives;
+        double recall = (double) hits / positives;
+        double falseRate = (double) falseTriggers / negatives;
+        String summary = String.format(Locale.ROOT, "recall %d/%d (old %d), false %d/%d (old %d)",
+                hits, positives, legacyHits, falseTriggers, negatives, legacyFalseTriggers);
+
+        assertTrue(summary, positives >= 30 && negatives >= 30);
+        assertTrue(summary, recall >= 0.95);
+        assertTrue(summary, falseRate <= 0.05);
+        assertTrue(summary, hits > legacyHits);
+        assertTrue(summary, falseTriggers <= legacyFalseTriggers + 1);
+    }
+
+    private static final class Utterance {
+        final boolean trigger;
+        final List<String> hypotheses = new ArrayList<>();
+        float[] confidences;
+
+        Utterance(boolean trigger) {
+            this.trigger = trigger;
+        }
+    }
+
+    private static List<Utterance> loadCorpus() throws IOException {
+        List<Utterance> corpus = new ArrayList<>();
+        InputStream in = TriggerMatcherTest.class.getResourceAsStream("/trigger_corpus.tsv");
+        assertNotNull("trigger_corpus.tsv missing", in);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                Utterance u = new Utterance(fields[0].equals("1"));
+                u.confidences = new float[fields.length - 1];
+                boolean anyConfidence = false;
+                for (int i = 1; i < fields.length; i++) {
+                    int bar = fields[i].lastIndexOf('|');
+                    u.hypotheses.add(bar < 0 ? fields[i] : fields[i].substring(0, bar));
+                    u.confidences[i - 1] = bar < 0 ? -1 : Float.parseFloat(fields[i].substring(bar + 1));
+                    anyConfidence |= bar >= 0;
+                }
+                if (!anyConfidence) {
+                    u.confidences = null;
+                }
+                corpus.add(u);
+            }
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.womensafetyapp;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Discrete-event time for the simulation harness: a clock, a {@link TaskScheduler} and an
+ * {@link Executor} in one. Nothing runs until the test advances time; tasks due at the same
+ * moment run in the order they were posted, so a run is fully determined by its inputs.
+ */
+final class VirtualClock implements RestartScheduler.Clock, TaskScheduler, Executor {
+
+    private static final class Event implements Comparable<Event> {
+        final long atMs;
+        final long seq;
+        final Runnable task;
+        boolean cancelled;
+
+        Event(long atMs, long seq, Runnable task) {
+            this.atMs = atMs;
+            this.seq = seq;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            return atMs != other.atMs ? Long.compare(atMs, other.atMs) : Long.compare(seq, other.seq);
+        }
+    }
+
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    private long nowMs;
+    private long seq;
+    private long executed;
+
+    @Override
+    public long nowMs() {
+        return nowMs;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        postDelayed(task, 0);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMs) {
+        queue.add(new Event(nowMs + Math.max(0, delayMs), seq++, task));
+    }
+
+    @Override
+    public void removeCallbacks(Runnable task) {
+        for (Event e : queue) {
+            if (e.task == task) {
+                e.cancelled = true;
+            }
+        }
+    }
+
+    /** Runs every task due up to {@code untilMs}, then leaves the clock there. */
+    void runUntil(long untilMs) {
+        while (!queue.isEmpty() && queue.peek().atMs <= untilMs) {
+            Event e = queue.poll();
+            nowMs = e.atMs;
+            if (!e.cancelled) {
+                executed++;
+                e.task.run();
+            }
+        }
+        nowMs = Math.max(nowMs, untilMs);
+    }
+
+    void advance(long ms) {
+        runUntil(nowMs + ms);
+    }
+
+    /** Tasks run so far. */
+    long executed() {
+        return executed;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.womensafetyapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the VAD with synthetic 20 ms frames: white noise backgrounds and tone bursts.
+ */
+public class VoiceActivityDetectorTest {
+
+    private static final int FRAME = 320;
+
+    private final float[] frame = new float[FRAME];
+    private final Random random = new Random(7);
+    private VoiceActivityDetector vad;
+    private double phase;
+
+    @Before
+    public void setUp() {
+        vad = new VoiceActivityDetector();
+    }
+
+    @Test
+    public void steadyNoiseIsNeverSpeech() {
+        for (int i = 0; i < 500; i++) {
+            assertFalse(vad.process(noise(0.01f), 0, FRAME));
+        }
+        assertEquals(-40f, vad.getNoiseFloorDb(), 3f);
+    }
+
+    @Test
+    public void loudBurstStartsSpeechAfterOnsetFrames() {
+        feedNoise(100, 0.01f);
+        for (int i = 1; i < VoiceActivityDetector.DEFAULT_ONSET_FRAMES; i++) {
+            assertFalse(vad.process(toneOverNoise(0.2f, 0.01f), 0, FRAME));
+        }
+        assertTrue(vad.process(toneOverNoise(0.2f, 0.01f), 0, FRAME));
+    }
+
+    @Test
+    public void singleClickDoesNotStartSpeech() {
+        feedNoise(100, 0.01f);
+        assertFalse(vad.process(toneOverNoise(0.5f, 0.01f), 0, FRAME));
+        feedNoise(10, 0.01f);
+        assertFalse(vad.isSpeech());
+    }
+
+    @Test
+    public void hangoverBridgesShortPausesThenEnds() {
+        feedNoise(100, 0.01f);
+        for (int i = 0; i < 20; i++) {
+            vad.process(toneOverNoise(0.2f, 0.01f), 0, FRAME);
+        }
+        assertTrue(vad.isSpeech());
+
+        // A 200 ms pause inside a phrase keeps speech active
+        feedNoise(10, 0.01f);
+        assertTrue(vad.isSpeech());
+
+        feedNoise(VoiceActivityDetector.DEFAULT_HANGOVER_FRAMES, 0.01f);
+        assertFalse(vad.isSpeech());
+    }
+
+    @Test
+    public void talkingDoesNotRaiseTheNoiseFloor() {
+        feedNoise(100, 0.01f);
+        float floor = vad.getNoiseFloorDb();
+        for (int i = 0; i < 150; i++) {
+            vad.process(toneOverNoise(0.2f, 0.01f), 0, FRAME);
+        }
+        assertEquals(floor, vad.getNoiseFloorDb(), 3f);
+    }
+
+    @Test
+    public void adaptsToALouderBackground() {
+        feedNoise(100, 0.005f);
+        // Background jumps by ~20 dB (a fan, traffic); it is speech at first, then it is the new floor
+        for (int i = 0; i < 3000; i++) {
+            vad.process(noise(0.05f), 0, FRAME);
+        }
+        assertFalse(vad.isSpeech());
+        assertEquals(-26f, vad.getNoiseFloorDb(), 3f);
+    }
+
+    @Test
+    public void acceptsRecognizerRmsValues() {
+        for (int i = 0; i < 50; i++) {
+            assertFalse(vad.processEnergyDb(-2f + (i % 3) * 0.5f));
+        }
+        vad.processEnergyDb(9f);
+        vad.processEnergyDb(10f);
+        assertTrue(vad.processEnergyDb(9.5f));
+    }
+
+    private void feedNoise(int frames, float level) {
+        for (int i = 0; i < frames; i++) {
+            vad.process(noise(level), 0, FRAME);
+        }
+    }
+
+    private float[] noise(float level) {
+        for (int i = 0; i < FRAME; i++) {
+            frame[i] = (float) random.nextGaussian() * level;
+        }
+        return frame;
+    }
+
+    private float[] toneOverNoise(float amplitude, float noiseLevel) {
+        for (int i = 0; i < FRAME; i++) {
+            phase += 2 * Math.PI * 220 / 16000;
+            frame[i] = (float) (amplitude * Math.sin(phase) + random.nextGaussian() * noiseLevel);
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.womensafetyapp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * Synthesizes speech-like WAV fixtures so the keyword spotter can be exercised without a device.
+ * Each phrase is a sequence of voiced segments (harmonics shaped by two formants) and fricative
+ * noise bursts; every rendering is randomly perturbed in timing, pitch, level and noise.
+ */
+final class WavFixtures {
+
+    static final int RATE = KeywordSpotter.SAMPLE_RATE;
+
+    /** A voiced segment: {durationMs, formant1, formant2}; formant1 == 0 means fricative noise. */
+    static final int[][] SOS = {{140, 0, 0}, {200, 500, 900}, {140, 0, 0}};
+    static final int[][] HELP_ME = {{120, 550, 1800}, {80, 350, 1200}, {40, -1, 0},
+            {100, 250, 1000}, {160, 300, 2300}};
+    static final int[][] HELLO = {{90, 600, 1700}, {80, 350, 1200}, {220, 700, 1100}};
+
+    private WavFixtures() {}
+
+    /** Renders one utterance of {@code phrase}; variation 0 gives the canonical version. */
+    static short[] utterance(int[][] phrase, long seed, float variation) {
+        Random rnd = new Random(seed);
+        float f0 = 170f * (1f + variation * (rnd.nextFloat() - 0.5f) * 0.4f);
+        float gain = 6000f * (1f + variation * (rnd.nextFloat() - 0.5f));
+        int total = 0;
+        int[] lengths = new int[phrase.length];
+        for (int i = 0; i < phrase.length; i++) {
+            float stretch = 1f + variation * (rnd.nextFloat() - 0.5f) * 0.3f;
+            lengths[i] = Math.round(phrase[i][0] * stretch * RATE / 1000f);
+            total += lengths[i];
+        }
+        short[] out = new short[total];
+        int pos = 0;
+        double phase = 0;
+        float prevNoise = 0f;
+        for (int i = 0; i < phrase.length; i++) {
+            int f1 = phrase[i][1];
+            int f2 = phrase[i][2];
+            for (int n = 0; n < lengths[i]; n++, pos++) {
+                float env = envelope(n, lengths[i]);
+                float v;
+                if (f1 == 0) {
+                    // Fricative: high-passed white noise
+                    float white = (float) rnd.nextGaussian();
+                    v = (white - prevNoise) * 0.15f;
+                    prevNoise = white;
+                } else if (f1 < 0) {
+                    v = 0f; // Closure
+                } else {
+                    phase += 2 * Math.PI * f0 / RATE;
+                    v = 0f;
+                    for (int h = 1; h * f0 < 4000; h++) {
+                        float hz = h * f0;
+                        float a = resonance(hz, f1) + 0.6f * resonance(hz, f2);
+                        v += a * (float) Math.sin(h * phase);
+                    }
+                    v *= 0.3f;
+                }
+                out[pos] = clip(v * env * gain);
+            }
+        }
+        return out;
+    }
+
+    /** Places {@code speech} after {@code leadMs} of noise and pads with {@code tailMs} of noise. */
+    static short[] inNoise(short[] speech, int leadMs, int tailMs, float noiseLevel, long seed) {
+        Random rnd = new Random(seed);
+        int lead = leadMs * RATE / 1000;
+        int tail = tailMs * RATE / 1000;
+        short[] out = new short[lead + speech.length + tail];
+        for (int i = 0; i < out.length; i++) {
+            float s = i >= lead && i < lead + speech.length ? speech[i - lead] : 0f;
+            out[i] = clip(s + (float) rnd.nextGaussian() * noiseLevel);
+        }
+        return out;
+    }
+
+    static File writeWav(File file, short[] samples) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(44 + samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(0x46464952).putInt(36 + samples.length * 2).putInt(0x45564157);
+        buf.putInt(0x20746d66).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(RATE).putInt(RATE * 2).putShort((short) 2).putShort((short) 16);
+        buf.putInt(0x61746164).putInt(samples.length * 2);
+        for (short s : samples) {
+            buf.putShort(s);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(buf.array());
+        }
+        return file;
+    }
+
+    private static float envelope(int n, int len) {
+        int ramp = Math.min(len / 4, RATE / 100);
+        if (n < ramp) return (float) n / ramp;
+        if (n > len - ramp) return (float) (len - n) / ramp;
+        return 1f;
+    }
+
+    private static float resonance(float hz, float formant) {
+        float d = (hz - formant) / 150f;
+        return (float) Math.exp(-d * d);
+    }
+
+    private static short clip(float v) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(v)));
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.womensafetyapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the channel against a stand-in endpoint on localhost.
+ */
+public class WebhookChannelTest {
+
+    private static final long TIMEOUT_S = 5;
+
+    private HttpServer server;
+    private final BlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+    private final Set<Integer> clientPorts = new HashSet<>();
+    // Statuses for the next requests; 204 once these run out
+    private final ConcurrentLinkedQueue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    private WebhookChannel channel;
+
+    private final WebhookChannel.Listener listener = new WebhookChannel.Listener() {
+        @Override
+        public void onDelivered(long alertId, boolean followUp, long latencyMs) {
+            events.add("delivered " + alertId + (followUp ? " follow-up" : ""));
+        }
+
+        @Override
+        public void onFailed(int items, String reason, long retryInMs) {
+            events.add("failed " + items + " " + reason + (retryInMs < 0 ? " dropped" : " retry"));
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/hook", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1024];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    body.write(buffer, 0, n);
+                }
+                synchronized (clientPorts) {
+                    clientPorts.add(exchange.getRemoteAddress().getPort());
+                }
+                Integer status = statuses.poll();
+                exchange.sendResponseHeaders(status != null ? status : 204, -1);
+                bodies.add(body.toString("UTF-8"));
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (channel != null) {
+            channel.close();
+        }
+        server.stop(0);
+    }
+
+    private WebhookChannel start(long batchDelayMs, long retryBaseMs, int queueCapacity) throws IOException {
+        URL endpoint = new URL("http", "127.0.0.1", server.getAddress().getPort(), "/hook");
+        WebhookChannel.Config config = new WebhookChannel.Config(endpoint, null, batchDelayMs, retryBaseMs,
+                retryBaseMs * 4, queueCapacity, 64, 2_000);
+        channel = WebhookChannel.start(config, () -> 1_792_357_445_123L, listener);
+        return channel;
+    }
+
+    private String nextBody() throws InterruptedException {
+        String body = bodies.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertNotNull("no POST arrived", body);
+        return body;
+    }
+
+    private String nextEvent() throws InterruptedException {
+        String event = events.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertNotNull("no delivery report", event);
+        return event;
+    }
+
+    @Test
+    public void alertIsPostedAtOnceAsCompactJson() throws Exception {
+        start(60_000, 1_000, 16);
+
+        channel.sendAlert(7, false, new LocationSource.Fix(12.97, 77.59, 8.4f), "SOS! \"Help\"\nNow");
+
+        assertEquals("{\"v\":1,\"items\":[{\"kind\":\"alert\",\"id\":7,\"t\":1792357445123,"
+                + "\"lat\":12.97,\"lon\":77.59,\"acc\":8,\"msg\":\"SOS! \\\"Help\\\"\\nNow\"}]}", nextBody());
+        assertEquals("delivered 7", nextEvent());
+    }
+
+    @Test
+    public void alertWithoutLocationLeavesItOut() throws Exception {
+        start(60_000, 1_000, 16);
+
+        channel.sendAlert(3, true, null, "Still in danger");
+
+        assertEquals("{\"v\":1,\"items\":[{\"kind\":\"follow-up\",\"id\":3,\"t\":1792357445123,"
+                + "\"msg\":\"Still in danger\"}]}", nextBody());
+        assertEquals("delivered 3 follow-up", nextEvent());
+    }
+
+    @Test
+    public void locationsWaitForTheBatchDelay() throws Exception {
+        start(200, 1_000, 16);
+
+        channel.sendLocation(12.9701, 77.5902, 5);
+        channel.sendLocation(12.9702, 77.5904, 6);
+        channel.sendLocation(12.9703, 77.5906, 4);
+
+        String body = nextBody();
+        assertEquals(3, count(body, "\"kind\":\"location\""));
+        assertTrue(body, body.indexOf("77.5902") < body.indexOf("77.5906"));
+        assertNull(bodies.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void anAlertTakesQueuedLocationsWithIt() throws Exception {
+        start(60_000, 1_000, 16);
+
+        channel.sendLocation(12.9701, 77.5902, 5);
+        channel.sendLocation(12.9702, 77.5904, 6);
+        channel.sendAlert(9, true, new LocationSource.Fix(12.9703, 77.5906, 4), "Follow-up");
+
+        String body = nextBody();
+        assertEquals(2, count(body, "\"kind\":\"location\""));
+        assertTrue(body, body.indexOf("\"kind\":\"location\"") < body.indexOf("\"kind\":\"follow-up\""));
+        assertEquals("delivered 9 follow-up", nextEvent());
+        assertEquals(0, channel.queued());
+    }
+
+    @Test
+    public void failedPostsAreRetriedInOrder() throws Exception {
+        statuses.add(503);
+        statuses.add(500);
+        start(60_000, 500, 16);
+
+        channel.sendAlert(1, false, null, "first");
+        assertEquals("failed 1 HTTP 503 retry", nextEvent());
+        channel.sendAlert(2, false, null, "second");
+
+        assertEquals("failed 2 HTTP 500 retry", nextEvent());
+        assertEquals("delivered 1", nextEvent());
+        assertEquals("delivered 2", nextEvent());
+        nextBody();
+        nextBody();
+        String delivered = nextBody();
+        assertTrue(delivered, delivered.indexOf("\"id\":1") < delivered.indexOf("\"id\":2"));
+    }
+
+    @Test
+    public void networkBackRetriesWithoutWaitingForTheBackoff() throws Exception {
+        statuses.add(503);
+        start(60_000, 60_000, 16);
+
+        channel.sendAlert(4, false, null, "offline");
+        assertEquals("failed 1 HTTP 503 retry", nextEvent());
+        assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+
+        channel.onNetworkAvailable();
+
+        assertEquals("delivered 4", nextEvent());
+    }
+
+    @Test
+    public void clientErrorsDropTheBatch() throws Exception {
+        statuses.add(401);
+        start(60_000, 20, 16);
+
+        channel.sendAlert(5, false, null, "rejected");
+
+        assertEquals("failed 1 HTTP 401 dropped", nextEvent());
+        assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, channel.queued());
+    }
+
+    @Test
+    public void fullQueueDropsTheOldestLocationFirst() throws Exception {
+        statuses.add(503);
+        start(60_000, 60_000, 3);
+        channel.sendAlert(1, false, null, "first");
+        assertEquals("failed 1 HTTP 503 retry", nextEvent());
+        nextBody();
+
+        channel.sendLocation(12.9701, 77.5902, 5);
+        channel.sendLocation(12.9702, 77.5904, 6);
+        channel.sendAlert(2, true, null, "second");
+        channel.onNetworkAvailable();
+
+        String body = nextBody();
+        assertEquals(1, count(body, "\"kind\":\"location\""));
+        assertTrue(body, body.contains("77.5904") && body.contains("\"id\":1") && body.contains("\"id\":2"));
+    }
+
+    @Test
+    public void postsReuseOneConnection() throws Exception {
+        start(60_000, 1_000, 16);
+
+        for (int i = 0; i < 5; i++) {
+            channel.sendAlert(i, false, null, "alert " + i);
+            assertEquals("delivered " + i, nextEvent());
+        }
+
+        synchronized (clientPorts) {
+            assertEquals(1, clientPorts.size());
+        }
+    }
+
+    private static int count(String s, String part) {
+        int n = 0;
+        for (int at = s.indexOf(part); at >= 0; at = s.indexOf(part, at + 1)) {
+            n++;
+        }
+        return n;
+    }
+}